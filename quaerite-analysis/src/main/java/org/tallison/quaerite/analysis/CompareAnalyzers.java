@@ -24,6 +24,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -53,6 +54,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableLong;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.AnalysisCache;
 import org.tallison.quaerite.connectors.SearchClient;
 import org.tallison.quaerite.connectors.SearchClientException;
 import org.tallison.quaerite.connectors.SearchClientFactory;
@@ -127,10 +129,26 @@ public class CompareAnalyzers {
                         .required(false)
                         .desc("if we should print unicode code points in the output").build()
         );
+        OPTIONS.addOption(
+                Option.builder("localAnalysis")
+                        .hasArg(false)
+                        .required(false)
+                        .desc("rebuild the field's analysis chain from the schema and " +
+                                "analyze locally where possible").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("analysisCache")
+                        .hasArg()
+                        .required(false)
+                        .desc("file to load analysis results from and save them to, " +
+                                "so that later runs don't repeat the analysis").build()
+        );
     }
 
     private int numThreads = DEFAULT_NUM_THREADS;
     private Set<String> targetTokens = Collections.EMPTY_SET;
+    private boolean localAnalysis = false;
+    private AnalysisCache analysisCache;
 
     public static void main(String[] args) throws Exception {
         CommandLine commandLine = null;
@@ -152,6 +170,18 @@ public class CompareAnalyzers {
         boolean includeUnicode = (commandLine.hasOption("u")) ? true : false;
         compareAnalyzers.setNumThreads(
                 getInt(commandLine, "n", DEFAULT_NUM_THREADS));
+        boolean localAnalysis = commandLine.hasOption("localAnalysis");
+        compareAnalyzers.setLocalAnalysis(localAnalysis);
+        //the reanalyzer threads share the cache
+        AnalysisCache analysisCache = AnalysisCache.getShared(serverConnection.getURL());
+        Path analysisCacheFile = null;
+        if (commandLine.hasOption("analysisCache")) {
+            analysisCacheFile = Paths.get(commandLine.getOptionValue("analysisCache"));
+            if (Files.isRegularFile(analysisCacheFile)) {
+                analysisCache.load(analysisCacheFile);
+            }
+        }
+        compareAnalyzers.setAnalysisCache(analysisCache);
 
         String filteredField = commandLine.getOptionValue("ff");
         String baseField = commandLine.getOptionValue("bf");
@@ -159,10 +189,12 @@ public class CompareAnalyzers {
         List<QueryTokenPair> queryTokenPairs;
         if (commandLine.hasOption("q")) {
             targetTokens = ConcurrentHashMap.newKeySet();
+            SearchClient queryClient = SearchClientFactory.getClient(serverConnection);
+            queryClient.setLocalAnalysis(localAnalysis);
+            queryClient.setAnalysisCache(analysisCache);
             queryTokenPairs = loadQueries(
                     CommandLineUtil.getPath(commandLine, "q", true),
-                    SearchClientFactory.getClient(serverConnection),
-                    baseField, filteredField);
+                    queryClient, baseField, filteredField);
             for (QueryTokenPair p : queryTokenPairs) {
                 targetTokens.addAll(p.getTokens());
             }
@@ -176,6 +208,9 @@ public class CompareAnalyzers {
                 serverConnection,
                 baseField,
                 filteredField, minDF);
+        if (analysisCacheFile != null) {
+            analysisCache.save(analysisCacheFile);
+        }
 
         for (Map.Entry<String, EquivalenceSet> e : map.entrySet()) {
             if (e.getValue().getMap().size() > minSetSize) {
@@ -297,6 +332,14 @@ public class CompareAnalyzers {
         this.numThreads = numThreads;
     }
 
+    private void setLocalAnalysis(boolean localAnalysis) {
+        this.localAnalysis = localAnalysis;
+    }
+
+    private void setAnalysisCache(AnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
     public Map<String, EquivalenceSet> compare(ServerConnection clientConnection,
                                                String baseField,
                                                String filteredField, int minDF)
@@ -305,8 +348,10 @@ public class CompareAnalyzers {
         ArrayBlockingQueue<Set<TokenDF>> queue = new ArrayBlockingQueue<>(100);
         List<ReAnalyzer> reAnalyzers = new ArrayList<>();
         for (int i = 0; i < numThreads; i++) {
-            reAnalyzers.add(new ReAnalyzer(queue,
-                    SearchClientFactory.getClient(clientConnection), filteredField));
+            SearchClient client = SearchClientFactory.getClient(clientConnection);
+            client.setLocalAnalysis(localAnalysis);
+            client.setAnalysisCache(analysisCache);
+            reAnalyzers.add(new ReAnalyzer(queue, client, filteredField));
         }
 
         ExecutorService executorService = Executors.newFixedThreadPool(numThreads + 1);
@@ -451,8 +496,11 @@ public class CompareAnalyzers {
                     if (set.size() == 0) {
                         break;
                     }
-                    for (TokenDF tdf : set) {
-                        String filtered = analyze(client, field, tdf.getToken());
+                    List<TokenDF> tdfs = new ArrayList<>(set);
+                    List<String> filteredTokens = analyze(client, field, tdfs);
+                    for (int i = 0; i < tdfs.size(); i++) {
+                        TokenDF tdf = tdfs.get(i);
+                        String filtered = filteredTokens.get(i);
                         analyzed++;
                         if (filtered == null) {
                             continue;
@@ -473,6 +521,27 @@ public class CompareAnalyzers {
             return analyzed;
         }
 
+        private List<String> analyze(SearchClient client, String field, List<TokenDF> tdfs) {
+            List<String> strings = new ArrayList<>();
+            for (TokenDF tdf : tdfs) {
+                strings.add(tdf.getToken());
+            }
+            List<String> ret = new ArrayList<>();
+            try {
+                for (List<String> tokens : client.analyzeBatch(field, strings)) {
+                    ret.add(StringUtils.join(tokens, "|"));
+                }
+                return ret;
+            } catch (IOException | SearchClientException e) {
+                LOG.warn("batch analysis failed; analyzing one at a time", e);
+            }
+            ret.clear();
+            for (String s : strings) {
+                ret.add(analyze(client, field, s));
+            }
+            return ret;
+        }
+
         private String analyze(SearchClient client, String field, String s) {
             List<String> tokens = null;
             try {
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.scorers.NDCG;
+
+/**
+ * DistributionalScoreAggregator.getSummaryStatistics over a scorer
+ * holding the scores of all of the queries, for one of four query sets
+ * and for all queries.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+
+    @Param({"1000", "10000"})
+    private int queries;
+
+    private NDCG ndcg;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(queries, 10, 4, 42);
+        ndcg = new NDCG(10);
+        for (int i = 0; i < data.size(); i++) {
+            ndcg.score(data.getJudgments(i), data.getResultSet(i));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Double> querySet() {
+        return ndcg.getSummaryStatistics("set0");
+    }
+
+    @Benchmark
+    public Map<String, Double> allQueries() {
+        return ndcg.getSummaryStatistics(QueryInfo.DEFAULT_QUERY_SET);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports the process' cpu time per operation and the average number of
+ * busy cores over each iteration.  This is for the end to end benchmarks,
+ * where the work is spread over thread pools that come and go; note
+ * that it includes the in-process {@link StandInServer}.
+ */
+public class CpuProfiler implements InternalProfiler {
+
+    private long startCpu;
+    private long startWall;
+
+    @Override
+    public String getDescription() {
+        return "process cpu time per operation";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        startCpu = getProcessCpuTime();
+        startWall = System.nanoTime();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+                                                       IterationParams iterationParams,
+                                                       IterationResult result) {
+        long cpu = getProcessCpuTime() - startCpu;
+        long wall = System.nanoTime() - startWall;
+        List<Result> results = new ArrayList<>();
+        if (startCpu < 0 || cpu < 0) {
+            return results;
+        }
+        long ops = result.getMetadata().getAllOps();
+        results.add(new ScalarResult("cpu.time.norm",
+                (ops == 0) ? Double.NaN : (double) cpu / (double) ops,
+                "ns/op", AggregationPolicy.AVG));
+        results.add(new ScalarResult("cpu.cores",
+                (double) cpu / (double) Math.max(1, wall), "cores", AggregationPolicy.AVG));
+        return results;
+    }
+
+    //-1 if the jvm doesn't report it
+    private static long getProcessCpuTime() {
+        try {
+            Object cpu = ManagementFactory.getPlatformMBeanServer().getAttribute(
+                    new ObjectName(ManagementFactory.OPERATING_SYSTEM_MXBEAN_NAME),
+                    "ProcessCpuTime");
+            return (cpu instanceof Long) ? (Long) cpu : -1;
+        } catch (JMException e) {
+            return -1;
+        }
+    }
+}
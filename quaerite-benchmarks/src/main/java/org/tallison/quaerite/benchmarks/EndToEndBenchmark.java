@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tallison.quaerite.cli.RunExperiments;
+import org.tallison.quaerite.connectors.QueryRequest;
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.queries.EDisMaxQuery;
+import org.tallison.quaerite.core.queries.MultiFieldQuery;
+import org.tallison.quaerite.core.queries.MultiMatchQuery;
+
+/**
+ * End to end against a {@link StandInServer}: single queries through a
+ * connector, and the full RunExperiments pipeline (loading judgments
+ * and experiments, validating ids, querying, scoring, the db and the
+ * reports).  Both report queries per second; run with the
+ * {@link CpuProfiler} (as {@link RunBenchmarks} does) for cpu per query.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    static final int NUM_DOCS = 100000;
+    static final int NUM_QUERIES = 500;
+    static final int JUDGMENTS_PER_QUERY = 5;
+    static final String[] EXPERIMENTS = {"title", "title_body"};
+    static final int NUM_EXPERIMENTS = 2;
+
+    @State(Scope.Benchmark)
+    public static class ServerState {
+
+        @Param({"solr", "es"})
+        private String engine;
+
+        @Param({"none"})
+        private String latency;
+
+        @Param({"0.0"})
+        private double errorRate;
+
+        StandInServer server;
+        Path dir;
+        Path judgments;
+        Path experiments;
+        List<String> queries = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            server = new StandInServer(
+                    StandInServer.ENGINE.valueOf(engine.toUpperCase(Locale.US)), NUM_DOCS, 42);
+            server.setLatency(Latency.parse(latency));
+            server.setErrorRate(errorRate);
+            server.start();
+            dir = Files.createTempDirectory("quaerite-e2e-");
+            judgments = dir.resolve("judgments.csv");
+            experiments = dir.resolve("experiments.json");
+            writeJudgments();
+            writeExperiments();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            server.close();
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+
+        private void writeJudgments() throws IOException {
+            Random random = new Random(42);
+            try (BufferedWriter writer = Files.newBufferedWriter(judgments,
+                    StandardCharsets.UTF_8)) {
+                writer.write("query,docid,rating\n");
+                for (int i = 0; i < NUM_QUERIES; i++) {
+                    String query = "query " + i;
+                    queries.add(query);
+                    for (int j = 0; j < JUDGMENTS_PER_QUERY; j++) {
+                        writer.write(query + "," +
+                                StandInServer.getId(random.nextInt(NUM_DOCS)) + "," +
+                                random.nextInt(4) + "\n");
+                    }
+                }
+            }
+        }
+
+        private void writeExperiments() throws IOException {
+            boolean solr = server.getEngine() == StandInServer.ENGINE.SOLR;
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\n  \"scorers\": [\n");
+            sb.append("    {\"class\": \"NDCG\", \"atN\": 10, \"params\": ");
+            sb.append("{\"useForTrain\": true, \"useForTest\": true}},\n");
+            sb.append("    {\"class\": \"AtLeastOneAtN\", \"atN\": 10},\n");
+            sb.append("    {\"class\": \"TotalDocsReturned\"}\n  ],\n");
+            sb.append("  \"experiments\": {\n");
+            for (int i = 0; i < EXPERIMENTS.length; i++) {
+                String name = EXPERIMENTS[i];
+                sb.append("    \"").append(name).append("\": {\n");
+                sb.append("      \"name\": \"").append(name).append("\",\n");
+                sb.append("      \"serverConnection\": {\"url\": \"")
+                        .append(server.getUrl()).append("\"},\n");
+                sb.append("      \"query\": {")
+                        .append(solr ? "\"edismax\": {" :
+                                "\"multi_match\": {\"type\": \"best_fields\", ")
+                        .append("\"qf\": [\"")
+                        .append(String.join("\", \"", name.split("_")))
+                        .append("\"]}}\n");
+                sb.append((i < EXPERIMENTS.length - 1) ? "    },\n" : "    }\n");
+            }
+            sb.append("  }\n}\n");
+            Files.write(experiments, sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ClientState {
+        SearchClient client;
+        List<QueryRequest> requests = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setUp(ServerState serverState) throws IOException, SearchClientException {
+            client = SearchClientFactory.getClient(serverState.server.getUrl());
+            boolean solr = serverState.server.getEngine() == StandInServer.ENGINE.SOLR;
+            for (String q : serverState.queries) {
+                MultiFieldQuery query = solr ? new EDisMaxQuery(q) : new MultiMatchQuery(q);
+                query.getQF().add(new WeightableField("title"));
+                QueryRequest request = new QueryRequest(query);
+                request.addFieldsToRetrieve(client.getDefaultIdField());
+                request.setNumResults(10);
+                requests.add(request);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            client.close();
+        }
+    }
+
+    /**
+     * Each run needs its own db; otherwise RunExperiments skips
+     * experiments that already have scores.
+     */
+    @State(Scope.Thread)
+    public static class RunState {
+        Path db;
+        Path reports;
+
+        @Setup(Level.Invocation)
+        public void setUp(ServerState serverState) {
+            db = serverState.dir.resolve("db-" + System.nanoTime());
+            reports = serverState.dir.resolve("reports-" + System.nanoTime());
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(db.toFile());
+            FileUtils.deleteDirectory(reports.toFile());
+        }
+    }
+
+    @Benchmark
+    public SearchResultSet search(ClientState clientState, QueryCursor cursor)
+            throws IOException, SearchClientException {
+        return clientState.client.search(
+                clientState.requests.get(cursor.next(clientState.requests.size())));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_QUERIES * NUM_EXPERIMENTS)
+    @Warmup(iterations = 2, time = 10)
+    @Measurement(iterations = 3, time = 10)
+    public void runExperiments(ServerState serverState, RunState runState) throws Exception {
+        RunExperiments.main(new String[]{
+                "-db", runState.db.toString(),
+                "-e", serverState.experiments.toString(),
+                "-j", serverState.judgments.toString(),
+                "-r", runState.reports.toString()
+        });
+    }
+}
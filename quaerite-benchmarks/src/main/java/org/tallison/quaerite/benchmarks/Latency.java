@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.benchmarks;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Latency distribution for the {@link StandInServer}, in milliseconds.
+ * Specs are e.g. <code>none</code>, <code>fixed:5</code>,
+ * <code>uniform:2:10</code> or <code>lognormal:5:0.5</code> (median
+ * and sigma), so they can be passed in as JMH params.
+ */
+public abstract class Latency {
+
+    public static final Latency NONE = new Latency() {
+        @Override
+        public double nextMillis(Random random) {
+            return 0;
+        }
+    };
+
+    public abstract double nextMillis(Random random);
+
+    public static Latency parse(String spec) {
+        String[] parts = spec.trim().toLowerCase(Locale.US).split(":");
+        switch (parts[0]) {
+            case "none":
+                checkArgs(spec, parts, 0);
+                return NONE;
+            case "fixed":
+                checkArgs(spec, parts, 1);
+                return fixed(Double.parseDouble(parts[1]));
+            case "uniform":
+                checkArgs(spec, parts, 2);
+                return uniform(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            case "lognormal":
+                checkArgs(spec, parts, 2);
+                return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            default:
+                throw new IllegalArgumentException("I don't recognize this latency: '" + spec +
+                        "'; should be none, fixed:ms, uniform:min:max or lognormal:median:sigma");
+        }
+    }
+
+    public static Latency fixed(double millis) {
+        checkNonNegative(millis);
+        return new Latency() {
+            @Override
+            public double nextMillis(Random random) {
+                return millis;
+            }
+        };
+    }
+
+    public static Latency uniform(double min, double max) {
+        checkNonNegative(min);
+        if (max < min) {
+            throw new IllegalArgumentException("max (" + max + ") must be >= min (" + min + ")");
+        }
+        return new Latency() {
+            @Override
+            public double nextMillis(Random random) {
+                return min + random.nextDouble() * (max - min);
+            }
+        };
+    }
+
+    /**
+     * Long tailed, as real search latencies are
+     *
+     * @param median median latency in milliseconds
+     * @param sigma standard deviation of the log of the latency
+     */
+    public static Latency logNormal(double median, double sigma) {
+        checkNonNegative(median);
+        checkNonNegative(sigma);
+        double mu = Math.log(median);
+        return new Latency() {
+            @Override
+            public double nextMillis(Random random) {
+                return Math.exp(mu + sigma * random.nextGaussian());
+            }
+        };
+    }
+
+    private static void checkArgs(String spec, String[] parts, int expected) {
+        if (parts.length != expected + 1) {
+            throw new IllegalArgumentException("expected " + expected +
+                    " argument(s) in latency: '" + spec + "'");
+        }
+    }
+
+    private static void checkNonNegative(double v) {
+        if (v < 0) {
+            throw new IllegalArgumentException("must be >= 0: " + v);
+        }
+    }
+}
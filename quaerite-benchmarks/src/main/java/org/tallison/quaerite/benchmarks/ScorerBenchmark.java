@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tallison.quaerite.core.scorers.ExpectedReciprocalRank;
+import org.tallison.quaerite.core.scorers.NDCG;
+
+/**
+ * Scores one query per operation with the judgment scorers.  The
+ * scorers are shared by all threads as they are in QueryRunner; run
+ * with e.g. -t 8 to measure contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScorerBenchmark {
+
+    @Param({"10000"})
+    private int queries;
+
+    @Param({"10", "100", "1000"})
+    private int rows;
+
+    private SyntheticData data;
+    private NDCG ndcg;
+    private ExpectedReciprocalRank err;
+
+    @Setup
+    public void setUp() {
+        data = new SyntheticData(queries, rows, 4, 42);
+        ndcg = new NDCG(rows);
+        err = new ExpectedReciprocalRank(rows, Collections.emptyMap());
+    }
+
+    @Benchmark
+    public double ndcg(QueryCursor cursor) {
+        int i = cursor.next(queries);
+        return ndcg.score(data.getJudgments(i), data.getResultSet(i));
+    }
+
+    @Benchmark
+    public double err(QueryCursor cursor) {
+        int i = cursor.next(queries);
+        return err.score(data.getJudgments(i), data.getResultSet(i));
+    }
+}
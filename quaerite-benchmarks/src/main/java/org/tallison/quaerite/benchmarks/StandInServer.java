@@ -0,0 +1,738 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+
+/**
+ * In-process stand-in for Solr or Elasticsearch that speaks just enough
+ * of each api to drive the connectors end to end without a real server:
+ * Solr's /select, /get, /admin/info/system, /admin/luke, /schema/uniquekey,
+ * /analysis/field and /terms; and ES's root version, _search,
+ * _search/template, _msearch, _mget, _analyze and _stats.
+ * <p>
+ * The index is <code>numDocs</code> documents with ids doc-0, doc-1, ...
+ * Rankings are synthetic: each distinct request body gets its own seeded,
+ * repeatable ranking.  Latency is added to every request except the
+ * engine discovery requests, and errors are only injected into searches,
+ * which the experiment runners retry.
+ */
+public class StandInServer implements Closeable {
+
+    public enum ENGINE {
+        SOLR,
+        ES
+    }
+
+    static Logger LOG = LogManager.getLogger(StandInServer.class);
+
+    public static final String COLLECTION = "docs";
+    public static final String ID_FIELD = "id";
+    public static final String TITLE_FIELD = "title";
+
+    private static final String DOC_PREFIX = "doc-";
+    private static final String SOLR_VERSION = "8.11.2";
+    private static final String ES_VERSION = "7.17.9";
+    private static final int NUM_TERMS = 10000;
+    private static final int DEFAULT_ROWS = 10;
+
+    private final ENGINE engine;
+    private final int numDocs;
+    private final long seed;
+    private volatile Latency latency = Latency.NONE;
+    private volatile double errorRate = 0.0;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private HttpServer server;
+
+    public StandInServer(ENGINE engine, int numDocs, long seed) {
+        if (numDocs < 1) {
+            throw new IllegalArgumentException("numDocs must be > 0");
+        }
+        this.engine = engine;
+        this.numDocs = numDocs;
+        this.seed = seed;
+    }
+
+    public void setLatency(Latency latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @param errorRate fraction of searches, from 0 to 1, that fail with a 503
+     */
+    public void setErrorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("errorRate must be between 0 and 1: " + errorRate);
+        }
+        this.errorRate = errorRate;
+    }
+
+    public void start() throws IOException {
+        server = ServerBootstrap.bootstrap()
+                .setLocalAddress(InetAddress.getLoopbackAddress())
+                .setListenerPort(0)
+                .setServerInfo("quaerite-stand-in")
+                .registerHandler("*", this::handle)
+                .create();
+        server.start();
+        LOG.debug("stand-in " + engine + " listening on " + getUrl());
+    }
+
+    /**
+     * @return url of the collection/index, e.g. for an experiment's serverConnection
+     */
+    public String getUrl() {
+        String base = "http://127.0.0.1:" + server.getLocalPort();
+        return (engine == ENGINE.SOLR) ? base + "/solr/" + COLLECTION : base + "/" + COLLECTION;
+    }
+
+    public ENGINE getEngine() {
+        return engine;
+    }
+
+    public int getNumDocs() {
+        return numDocs;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return number of queries answered, counting each query in an _msearch
+     */
+    public long getSearches() {
+        return searches.get();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    public static String getId(int docNum) {
+        return DOC_PREFIX + docNum;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (server != null) {
+            server.shutdown(0, TimeUnit.SECONDS);
+            server = null;
+            //the next stand-in may get this port
+            SearchClientFactory.clearVersionCache();
+        }
+    }
+
+    private void handle(HttpRequest request, HttpResponse httpResponse, HttpContext context)
+            throws IOException {
+        requests.incrementAndGet();
+        Response response;
+        String uri = request.getRequestLine().getUri();
+        try {
+            URI parsed = URI.create(uri);
+            String body = readBody(request);
+            Map<String, List<String>> params = new LinkedHashMap<>();
+            parseParams(parsed.getRawQuery(), params);
+            Header contentType = request.getFirstHeader("Content-Type");
+            if (contentType != null && contentType.getValue().contains("x-www-form-urlencoded")) {
+                parseParams(body, params);
+            }
+            response = (engine == ENGINE.SOLR) ? solr(parsed.getPath(), params, body) :
+                    es(parsed.getPath(), body);
+        } catch (RuntimeException e) {
+            LOG.warn("stand-in failed on " + uri, e);
+            response = error(500, e.getMessage());
+        }
+        httpResponse.setStatusCode(response.status);
+        httpResponse.setEntity(new ByteArrayEntity(
+                response.json.toString().getBytes(StandardCharsets.UTF_8),
+                ContentType.APPLICATION_JSON));
+    }
+
+    private Response solr(String path, Map<String, List<String>> params, String body) {
+        if (path.endsWith("/admin/info/system")) {
+            JsonObject lucene = new JsonObject();
+            lucene.addProperty("solr-spec-version", SOLR_VERSION);
+            lucene.addProperty("lucene-spec-version", SOLR_VERSION);
+            JsonObject root = new JsonObject();
+            root.add("lucene", lucene);
+            return new Response(root);
+        }
+        String prefix = "/solr/" + COLLECTION + "/";
+        if (!path.startsWith(prefix)) {
+            return error(404, "no such collection: " + path);
+        }
+        String handler = path.substring(prefix.length());
+        sleep();
+        switch (handler) {
+            case "select":
+            case "query":
+                return solrSelect(params, body);
+            case "get":
+                return solrGet(params);
+            case "schema/uniquekey":
+                JsonObject uniqueKey = new JsonObject();
+                uniqueKey.addProperty("uniqueKey", ID_FIELD);
+                return new Response(uniqueKey);
+            case "admin/luke":
+                JsonObject index = new JsonObject();
+                index.addProperty("version", seed);
+                index.addProperty("numDocs", numDocs);
+                index.addProperty("maxDoc", numDocs);
+                JsonObject luke = new JsonObject();
+                luke.add("index", index);
+                return new Response(luke);
+            case "analysis/field":
+                return solrAnalyze(params);
+            case "terms":
+                return solrTerms(params);
+            default:
+                return error(404, "no such handler: " + handler);
+        }
+    }
+
+    private Response solrSelect(Map<String, List<String>> params, String body) {
+        if (injectError()) {
+            return error(503, "injected error");
+        }
+        searches.incrementAndGet();
+        int start = getInt(params, "start", 0);
+        int rows = getInt(params, "rows", DEFAULT_ROWS);
+        Set<String> fields = getFields(getFirst(params, "fl"));
+        JsonObject response = hits(body, start, rows);
+        JsonArray docs = new JsonArray();
+        for (JsonElement hit : response.getAsJsonArray("hits")) {
+            docs.add(fields(hit.getAsJsonObject().get("docNum").getAsInt(), fields));
+        }
+        JsonObject solrResponse = new JsonObject();
+        solrResponse.addProperty("numFound", response.get("total").getAsLong());
+        solrResponse.addProperty("start", start);
+        solrResponse.add("docs", docs);
+        JsonObject header = new JsonObject();
+        header.addProperty("status", 0);
+        header.addProperty("QTime", 1);
+        JsonObject root = new JsonObject();
+        root.add("responseHeader", header);
+        root.add("response", solrResponse);
+        return new Response(root);
+    }
+
+    private Response solrGet(Map<String, List<String>> params) {
+        Set<String> fields = getFields(getFirst(params, "fl"));
+        JsonArray docs = new JsonArray();
+        for (String id : params.getOrDefault("id", Collections.emptyList())) {
+            int docNum = getDocNum(id);
+            if (docNum > -1) {
+                docs.add(fields(docNum, fields));
+            }
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("numFound", docs.size());
+        response.addProperty("start", 0);
+        response.add("docs", docs);
+        JsonObject root = new JsonObject();
+        root.add("response", response);
+        return new Response(root);
+    }
+
+    private Response solrAnalyze(Map<String, List<String>> params) {
+        String field = getFirst(params, "analysis.fieldname");
+        String value = getFirst(params, "analysis.fieldvalue");
+        if (field == null || value == null) {
+            return error(400, "need analysis.fieldname and analysis.fieldvalue");
+        }
+        JsonArray tokens = new JsonArray();
+        for (Token t : tokenize(value, 0)) {
+            JsonObject token = new JsonObject();
+            token.addProperty("text", t.text);
+            token.addProperty("start", t.start);
+            token.addProperty("end", t.end);
+            tokens.add(token);
+        }
+        //flat list of [step name, tokens, step name, tokens...]
+        JsonArray steps = new JsonArray();
+        steps.add("org.apache.lucene.analysis.core.LowerCaseFilter");
+        steps.add(tokens);
+        JsonObject fieldNode = new JsonObject();
+        fieldNode.add("index", steps);
+        JsonObject fieldNames = new JsonObject();
+        fieldNames.add(field, fieldNode);
+        JsonObject analysis = new JsonObject();
+        analysis.add("field_names", fieldNames);
+        JsonObject root = new JsonObject();
+        root.add("analysis", analysis);
+        return new Response(root);
+    }
+
+    /**
+     * Vocabulary is term00000 ... term09999 in every field, with
+     * seeded document frequencies.
+     */
+    private Response solrTerms(Map<String, List<String>> params) {
+        String field = getFirst(params, "terms.fl");
+        if (field == null) {
+            return error(400, "need terms.fl");
+        }
+        int limit = getInt(params, "terms.limit", 10);
+        int minCount = getInt(params, "terms.mincount", 1);
+        String lower = getFirst(params, "terms.lower");
+        boolean lowerIncl = !"false".equals(getFirst(params, "terms.lower.incl"));
+        boolean ttf = "true".equals(getFirst(params, "terms.ttf"));
+        JsonArray terms = new JsonArray();
+        int added = 0;
+        int i = 0;
+        while (i < NUM_TERMS && (limit < 0 || added < limit)) {
+            String term = String.format(Locale.US, "term%05d", i);
+            int cmp = (lower == null) ? 1 : term.compareTo(lower);
+            Random random = new Random(seed + field.hashCode() * 31L + i);
+            long df = 1 + random.nextInt(Math.max(1, numDocs / 10));
+            if ((cmp > 0 || (cmp == 0 && lowerIncl)) && df >= minCount) {
+                terms.add(term);
+                if (ttf) {
+                    JsonObject counts = new JsonObject();
+                    counts.addProperty("df", df);
+                    counts.addProperty("ttf", df + random.nextInt((int) df + 1));
+                    terms.add(counts);
+                } else {
+                    terms.add(df);
+                }
+                added++;
+            }
+            i++;
+        }
+        JsonObject fieldTerms = new JsonObject();
+        fieldTerms.add(field, terms);
+        JsonObject root = new JsonObject();
+        root.add("terms", fieldTerms);
+        return new Response(root);
+    }
+
+    private Response es(String path, String body) {
+        if (path.equals("/") || path.isEmpty()) {
+            JsonObject version = new JsonObject();
+            version.addProperty("number", ES_VERSION);
+            version.addProperty("lucene_version", "8.11.1");
+            JsonObject root = new JsonObject();
+            root.addProperty("name", "stand-in");
+            root.addProperty("cluster_name", "quaerite");
+            root.add("version", version);
+            root.addProperty("tagline", "You Know, for Search");
+            return new Response(root);
+        }
+        String prefix = "/" + COLLECTION + "/";
+        if (!path.startsWith(prefix)) {
+            return error(404, "no such index: " + path);
+        }
+        String endpoint = path.substring(prefix.length());
+        sleep();
+        switch (endpoint) {
+            case "_search":
+            case "_search/template":
+                if (injectError()) {
+                    return error(503, "injected error");
+                }
+                return new Response(esSearch(body));
+            case "_msearch":
+                return esMultiSearch(body);
+            case "_mget":
+                return esMultiGet(body);
+            case "_analyze":
+                return esAnalyze(body);
+            case "_stats/docs,indexing":
+                return esStats();
+            default:
+                return error(404, "no such endpoint: " + endpoint);
+        }
+    }
+
+    private JsonObject esSearch(String body) {
+        searches.incrementAndGet();
+        JsonObject request = JsonParser.parseString(body).getAsJsonObject();
+        JsonObject sizes = request.has("params") ? request.getAsJsonObject("params") : request;
+        int from = getInt(sizes, "from", 0);
+        int size = getInt(sizes, "size", DEFAULT_ROWS);
+        Set<String> fields = null;
+        JsonElement source = request.get("_source");
+        if (source != null && source.isJsonArray()) {
+            fields = new LinkedHashSet<>();
+            for (JsonElement f : source.getAsJsonArray()) {
+                fields.add(f.getAsString());
+            }
+        } else if (source != null && source.isJsonPrimitive() && !source.getAsBoolean()) {
+            fields = Collections.emptySet();
+        }
+        JsonObject ranked = hits(body, from, size);
+        JsonArray hits = new JsonArray();
+        for (JsonElement r : ranked.getAsJsonArray("hits")) {
+            int docNum = r.getAsJsonObject().get("docNum").getAsInt();
+            JsonObject hit = new JsonObject();
+            hit.addProperty("_index", COLLECTION);
+            hit.addProperty("_type", "_doc");
+            hit.addProperty("_id", getId(docNum));
+            hit.add("_score", r.getAsJsonObject().get("score"));
+            JsonObject src = fields(docNum, fields);
+            src.remove(ID_FIELD);
+            hit.add("_source", src);
+            hits.add(hit);
+        }
+        JsonObject total = new JsonObject();
+        total.add("value", ranked.get("total"));
+        total.addProperty("relation", "eq");
+        JsonObject hitsObj = new JsonObject();
+        hitsObj.add("total", total);
+        hitsObj.add("hits", hits);
+        JsonObject root = new JsonObject();
+        root.addProperty("took", 1);
+        root.addProperty("timed_out", false);
+        root.add("hits", hitsObj);
+        return root;
+    }
+
+    private Response esMultiSearch(String body) {
+        if (injectError()) {
+            return error(503, "injected error");
+        }
+        //header line, body line, header line, body line...
+        String[] lines = body.split("\n");
+        JsonArray responses = new JsonArray();
+        int i = 1;
+        while (i < lines.length) {
+            JsonObject response = esSearch(lines[i]);
+            response.addProperty("status", 200);
+            responses.add(response);
+            i += 2;
+        }
+        JsonObject root = new JsonObject();
+        root.addProperty("took", 1);
+        root.add("responses", responses);
+        return new Response(root);
+    }
+
+    private Response esMultiGet(String body) {
+        JsonObject request = JsonParser.parseString(body).getAsJsonObject();
+        JsonArray docs = new JsonArray();
+        for (JsonElement id : request.getAsJsonArray("ids")) {
+            JsonObject doc = new JsonObject();
+            doc.addProperty("_index", COLLECTION);
+            doc.addProperty("_id", id.getAsString());
+            doc.addProperty("found", getDocNum(id.getAsString()) > -1);
+            docs.add(doc);
+        }
+        JsonObject root = new JsonObject();
+        root.add("docs", docs);
+        return new Response(root);
+    }
+
+    private Response esStats() {
+        JsonObject docs = new JsonObject();
+        docs.addProperty("count", numDocs);
+        docs.addProperty("deleted", 0);
+        JsonObject indexing = new JsonObject();
+        indexing.addProperty("index_total", numDocs);
+        indexing.addProperty("delete_total", 0);
+        JsonObject primaries = new JsonObject();
+        primaries.add("docs", docs);
+        primaries.add("indexing", indexing);
+        JsonObject all = new JsonObject();
+        all.add("primaries", primaries);
+        JsonObject index = new JsonObject();
+        index.addProperty("uuid", "stand-in-" + seed);
+        JsonObject indices = new JsonObject();
+        indices.add(COLLECTION, index);
+        JsonObject root = new JsonObject();
+        root.add("_all", all);
+        root.add("indices", indices);
+        return new Response(root);
+    }
+
+    /**
+     * Values of a text array are one offset apart, as in ES
+     */
+    private Response esAnalyze(String body) {
+        JsonElement text = JsonParser.parseString(body).getAsJsonObject().get("text");
+        List<String> values = new ArrayList<>();
+        if (text.isJsonArray()) {
+            for (JsonElement v : text.getAsJsonArray()) {
+                values.add(v.getAsString());
+            }
+        } else {
+            values.add(text.getAsString());
+        }
+        JsonArray tokens = new JsonArray();
+        int offset = 0;
+        int position = 0;
+        for (String value : values) {
+            for (Token t : tokenize(value, offset)) {
+                JsonObject token = new JsonObject();
+                token.addProperty("token", t.text);
+                token.addProperty("start_offset", t.start);
+                token.addProperty("end_offset", t.end);
+                token.addProperty("type", "<ALPHANUM>");
+                token.addProperty("position", position++);
+                tokens.add(token);
+            }
+            offset += value.length() + 1;
+        }
+        JsonObject root = new JsonObject();
+        root.add("tokens", tokens);
+        return new Response(root);
+    }
+
+    /**
+     * @return {"total": n, "hits": [{"docNum": d, "score": s}...]}, repeatable
+     * for the same request
+     */
+    private JsonObject hits(String key, int start, int rows) {
+        Random random = new Random(seed * 31 + key.hashCode());
+        int end = Math.min(numDocs, Math.max(0, start) + Math.max(0, rows));
+        Set<Integer> ranked = new LinkedHashSet<>();
+        while (ranked.size() < end) {
+            ranked.add(random.nextInt(numDocs));
+        }
+        JsonArray hits = new JsonArray();
+        int rank = 0;
+        for (int docNum : ranked) {
+            if (rank >= start) {
+                JsonObject hit = new JsonObject();
+                hit.addProperty("docNum", docNum);
+                hit.addProperty("score", 10.0f / (rank + 1));
+                hits.add(hit);
+            }
+            rank++;
+        }
+        JsonObject ret = new JsonObject();
+        ret.addProperty("total", end + random.nextInt(numDocs - end + 1));
+        ret.add("hits", hits);
+        return ret;
+    }
+
+    private JsonObject fields(int docNum, Set<String> fields) {
+        JsonObject doc = new JsonObject();
+        if (fields == null || fields.contains(ID_FIELD)) {
+            doc.addProperty(ID_FIELD, getId(docNum));
+        }
+        if (fields == null || fields.contains(TITLE_FIELD)) {
+            doc.addProperty(TITLE_FIELD, "title of document " + docNum);
+        }
+        return doc;
+    }
+
+    private int getDocNum(String id) {
+        if (!id.startsWith(DOC_PREFIX)) {
+            return -1;
+        }
+        try {
+            int docNum = Integer.parseInt(id.substring(DOC_PREFIX.length()));
+            return (docNum >= 0 && docNum < numDocs) ? docNum : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private boolean injectError() {
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            injectedErrors.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void sleep() {
+        double millis = latency.nextMillis(ThreadLocalRandom.current());
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep((long) (millis * 1000000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Response error(int status, String msg) {
+        JsonObject error = new JsonObject();
+        JsonObject root = new JsonObject();
+        if (engine == ENGINE.SOLR) {
+            error.addProperty("msg", msg);
+            error.addProperty("code", status);
+            root.add("error", error);
+        } else {
+            error.addProperty("type", "stand_in_exception");
+            error.addProperty("reason", msg);
+            root.add("error", error);
+            root.addProperty("status", status);
+        }
+        return new Response(status, root);
+    }
+
+    //lowercased runs of letters and digits
+    private static List<Token> tokenize(String s, int offset) {
+        List<Token> tokens = new ArrayList<>();
+        int start = -1;
+        int i = 0;
+        while (i <= s.length()) {
+            boolean inToken = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (inToken && start < 0) {
+                start = i;
+            } else if (!inToken && start > -1) {
+                tokens.add(new Token(s.substring(start, i).toLowerCase(Locale.ROOT),
+                        offset + start, offset + i));
+                start = -1;
+            }
+            i++;
+        }
+        return tokens;
+    }
+
+    private static String readBody(HttpRequest request) throws IOException {
+        if (!(request instanceof HttpEntityEnclosingRequest)) {
+            return "";
+        }
+        InputStream is = ((HttpEntityEnclosingRequest) request).getEntity().getContent();
+        Header encoding = request.getFirstHeader("Content-Encoding");
+        if (encoding != null && "gzip".equalsIgnoreCase(encoding.getValue())) {
+            is = new GZIPInputStream(is);
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (InputStream toClose = is) {
+            byte[] buffer = new byte[8192];
+            int read = toClose.read(buffer);
+            while (read > -1) {
+                bos.write(buffer, 0, read);
+                read = toClose.read(buffer);
+            }
+        }
+        return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void parseParams(String raw, Map<String, List<String>> params) {
+        if (raw == null || raw.isEmpty()) {
+            return;
+        }
+        for (String pair : raw.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String k = decode((eq < 0) ? pair : pair.substring(0, eq));
+            String v = (eq < 0) ? "" : decode(pair.substring(eq + 1));
+            params.computeIfAbsent(k, key -> new ArrayList<>()).add(v);
+        }
+    }
+
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getFirst(Map<String, List<String>> params, String key) {
+        List<String> values = params.get(key);
+        return (values == null || values.isEmpty()) ? null : values.get(0);
+    }
+
+    private static int getInt(Map<String, List<String>> params, String key, int dflt) {
+        String v = getFirst(params, key);
+        return (v == null) ? dflt : Integer.parseInt(v);
+    }
+
+    private static int getInt(JsonObject obj, String key, int dflt) {
+        return obj.has(key) ? obj.get(key).getAsInt() : dflt;
+    }
+
+    //null means all fields
+    private static Set<String> getFields(String fl) {
+        if (fl == null || fl.trim().isEmpty() || fl.contains("*")) {
+            return null;
+        }
+        Set<String> fields = new LinkedHashSet<>();
+        for (String f : fl.split("[, ]+")) {
+            fields.add(f.trim());
+        }
+        return fields;
+    }
+
+    private static class Token {
+        private final String text;
+        private final int start;
+        private final int end;
+
+        Token(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static class Response {
+        private final int status;
+        private final JsonObject json;
+
+        Response(JsonObject json) {
+            this(200, json);
+        }
+
+        Response(int status, JsonObject json) {
+            this.status = status;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.StoredDocument;
+
+/**
+ * Seeded synthetic judgments and result sets for the benchmarks.
+ * <p>
+ * Each query has a pool of twice as many candidate documents as rows.
+ * Up to 50 of those are judged on a 0-3 scale (at least one as 3, so
+ * that the ideal DCG is never 0), and the results are a random
+ * ordering of the pool cut at rows.
+ * </p>
+ */
+public class SyntheticData {
+
+    private static final int MAX_JUDGED = 50;
+    private static final int MAX_GRADE = 3;
+
+    private final List<Judgments> judgments = new ArrayList<>();
+    private final List<SearchResultSet> resultSets = new ArrayList<>();
+
+    public SyntheticData(int numQueries, int rows, int numQuerySets, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < numQueries; i++) {
+            String queryId = "q" + i;
+            QueryStrings queryStrings = new QueryStrings();
+            queryStrings.setQuery("query " + i);
+            QueryInfo queryInfo = new QueryInfo(queryId, "set" + (i % numQuerySets),
+                    queryStrings, 1 + random.nextInt(100));
+
+            List<String> pool = new ArrayList<>();
+            for (int j = 0; j < rows * 2; j++) {
+                pool.add(queryId + "-d" + j);
+            }
+            Collections.shuffle(pool, random);
+            Judgments queryJudgments = new Judgments(queryInfo);
+            int judged = Math.min(MAX_JUDGED, pool.size());
+            for (int j = 0; j < judged; j++) {
+                double grade = (j == 0) ? MAX_GRADE : random.nextInt(MAX_GRADE + 1);
+                queryJudgments.addJudgment(pool.get(j), grade);
+            }
+            judgments.add(queryJudgments);
+
+            Collections.shuffle(pool, random);
+            List<StoredDocument> docs = new ArrayList<>();
+            for (int j = 0; j < rows; j++) {
+                docs.add(new StoredDocument(pool.get(j)));
+            }
+            resultSets.add(new SearchResultSet(rows * 10L, random.nextInt(50),
+                    random.nextInt(100), docs));
+        }
+    }
+
+    public int size() {
+        return judgments.size();
+    }
+
+    public Judgments getJudgments(int i) {
+        return judgments.get(i);
+    }
+
+    public SearchResultSet getResultSet(int i) {
+        return resultSets.get(i);
+    }
+}
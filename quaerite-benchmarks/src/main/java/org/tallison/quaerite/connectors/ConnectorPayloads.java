@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.tallison.quaerite.core.features.NegativeBoost;
+import org.tallison.quaerite.core.features.PF;
+import org.tallison.quaerite.core.features.PS;
+import org.tallison.quaerite.core.features.TIE;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.queries.BooleanClause;
+import org.tallison.quaerite.core.queries.BooleanQuery;
+import org.tallison.quaerite.core.queries.BoostingQuery;
+import org.tallison.quaerite.core.queries.DisMaxQuery;
+import org.tallison.quaerite.core.queries.EDisMaxQuery;
+import org.tallison.quaerite.core.queries.LuceneQuery;
+import org.tallison.quaerite.core.queries.MatchAllDocsQuery;
+import org.tallison.quaerite.core.queries.MoreLikeThisQuery;
+import org.tallison.quaerite.core.queries.MultiFieldQuery;
+import org.tallison.quaerite.core.queries.MultiMatchQuery;
+import org.tallison.quaerite.core.queries.Query;
+import org.tallison.quaerite.core.queries.TemplateQuery;
+import org.tallison.quaerite.core.queries.TermQuery;
+import org.tallison.quaerite.core.queries.TermsQuery;
+
+/**
+ * Queries of each supported type and seeded Solr/ES responses shaped
+ * like real ones (an id, a title, a multivalued keyword field and a
+ * few hundred characters of body text per document).
+ */
+class ConnectorPayloads {
+
+    static final String ID_FIELD = "id";
+
+    private static final String[] WORDS = {
+        "apache", "lucene", "solr", "elastic", "search", "relevance", "judgment",
+        "query", "ranking", "index", "field", "analysis", "token", "score",
+        "experiment", "boost", "phrase", "document", "collection", "tuning"
+    };
+
+    static QueryRequest buildRequest(String type) {
+        QueryRequest request = new QueryRequest(buildQuery(type));
+        request.setNumResults(10);
+        request.addFieldsToRetrieve(ID_FIELD);
+        return request;
+    }
+
+    static Query buildQuery(String type) {
+        switch (type) {
+            case "edismax":
+                EDisMaxQuery edismax = new EDisMaxQuery("apache lucene relevance");
+                addFields(edismax);
+                PF pf = new PF();
+                pf.add(new WeightableField("title^5"));
+                edismax.setPF(pf);
+                edismax.setPS(new PS(2));
+                return edismax;
+            case "dismax":
+                DisMaxQuery dismax = new DisMaxQuery("apache lucene relevance");
+                addFields(dismax);
+                return dismax;
+            case "multimatch":
+                MultiMatchQuery multiMatch = new MultiMatchQuery("apache lucene relevance");
+                addFields(multiMatch);
+                return multiMatch;
+            case "lucene":
+                return new LuceneQuery("body", "title:(apache lucene) AND body:\"search relevance\"~2");
+            case "term":
+                return new TermQuery("keywords", "lucene");
+            case "terms":
+                return new TermsQuery("keywords", Arrays.asList(WORDS));
+            case "matchall":
+                return new MatchAllDocsQuery();
+            case "boolean":
+                BooleanQuery bq = new BooleanQuery();
+                bq.addClause(new BooleanClause(BooleanClause.OCCUR.MUST, buildQuery("multimatch")));
+                bq.addClause(new BooleanClause(BooleanClause.OCCUR.SHOULD, buildQuery("term")));
+                bq.addClause(new BooleanClause(BooleanClause.OCCUR.FILTER, buildQuery("terms")));
+                bq.addClause(new BooleanClause(BooleanClause.OCCUR.MUST_NOT,
+                        new TermQuery("keywords", "spam")));
+                return bq;
+            case "boosting":
+                return new BoostingQuery(buildQuery("multimatch"),
+                        new TermQuery("keywords", "spam"), new NegativeBoost(0.2f));
+            case "mlt":
+                MoreLikeThisQuery mlt = new MoreLikeThisQuery();
+                mlt.getQF().add(new WeightableField("title"));
+                mlt.getQF().add(new WeightableField("body"));
+                mlt.getTexts().add(text(new Random(42), 50));
+                mlt.getIndexIdPairs().add(new MoreLikeThisQuery.IndexIdPair("docs", "doc-1"));
+                return mlt;
+            case "template":
+                TemplateQuery template = new TemplateQuery("title_template", "apache lucene");
+                template.putParam("field", "title");
+                return template;
+            default:
+                throw new IllegalArgumentException("I don't know how to build a query of type: "
+                        + type);
+        }
+    }
+
+    private static void addFields(MultiFieldQuery q) {
+        q.getQF().add(new WeightableField("title^3"));
+        q.getQF().add(new WeightableField("body"));
+        q.getQF().add(new WeightableField("keywords^0.5"));
+        q.setTie(new TIE(0.3f));
+    }
+
+    /**
+     * @return a solr /select response with <code>numDocs</code> documents
+     */
+    static JsonElement solrResponse(int numDocs, long seed) {
+        Random random = new Random(seed);
+        JsonArray docs = new JsonArray();
+        for (int i = 0; i < numDocs; i++) {
+            docs.add(fields(random, i));
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("numFound", numDocs * 37);
+        response.addProperty("start", 0);
+        response.add("docs", docs);
+        JsonObject header = new JsonObject();
+        header.addProperty("status", 0);
+        header.addProperty("QTime", 3);
+        JsonObject root = new JsonObject();
+        root.add("responseHeader", header);
+        root.add("response", response);
+        return root;
+    }
+
+    /**
+     * @return an es _search response with <code>numDocs</code> hits
+     */
+    static JsonElement esResponse(int numDocs, long seed) {
+        Random random = new Random(seed);
+        JsonArray hits = new JsonArray();
+        for (int i = 0; i < numDocs; i++) {
+            JsonObject hit = new JsonObject();
+            hit.addProperty("_index", "docs");
+            hit.addProperty("_type", "_doc");
+            hit.addProperty("_id", "doc-" + i);
+            hit.addProperty("_score", 10.0f / (i + 1));
+            JsonObject source = fields(random, i);
+            source.remove(ID_FIELD);
+            hit.add("_source", source);
+            hits.add(hit);
+        }
+        JsonObject total = new JsonObject();
+        total.addProperty("value", numDocs * 37);
+        total.addProperty("relation", "eq");
+        JsonObject hitsObj = new JsonObject();
+        hitsObj.add("total", total);
+        hitsObj.addProperty("max_score", 10.0f);
+        hitsObj.add("hits", hits);
+        JsonObject root = new JsonObject();
+        root.addProperty("took", 3);
+        root.addProperty("timed_out", false);
+        root.add("hits", hitsObj);
+        return root;
+    }
+
+    private static JsonObject fields(Random random, int i) {
+        JsonObject doc = new JsonObject();
+        doc.addProperty(ID_FIELD, "doc-" + i);
+        doc.addProperty("title", text(random, 8));
+        doc.addProperty("body", text(random, 60));
+        JsonArray keywords = new JsonArray();
+        int numKeywords = 1 + random.nextInt(5);
+        for (int k = 0; k < numKeywords; k++) {
+            keywords.add(WORDS[random.nextInt(WORDS.length)]);
+        }
+        doc.add("keywords", keywords);
+        doc.addProperty("popularity", random.nextInt(1000));
+        doc.addProperty("date", String.format(Locale.US, "2019-%02d-%02dT00:00:00Z",
+                1 + random.nextInt(12), 1 + random.nextInt(28)));
+        return doc;
+    }
+
+    private static String text(Random random, int numWords) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < numWords; i++) {
+            words.add(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return String.join(" ", words);
+    }
+}
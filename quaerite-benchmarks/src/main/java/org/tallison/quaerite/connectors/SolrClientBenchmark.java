@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tallison.quaerite.core.SearchResultSet;
+
+/**
+ * Renders Solr request urls for each query type Solr supports, and
+ * parses /select responses of 10, 100 and 1000 documents.  Nothing
+ * is sent over the network.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolrClientBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ClientState {
+        private CloseableHttpClient httpClient;
+        SolrClient client;
+
+        @Setup
+        public void setUp() throws IOException, SearchClientException {
+            httpClient = HttpClients.createDefault();
+            client = new SolrClient("http://localhost:8983/solr/docs", httpClient);
+            //skip the /schema/uniquekey request
+            client.idField = ConnectorPayloads.ID_FIELD;
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            httpClient.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RequestState {
+        @Param({"edismax", "dismax", "lucene", "term", "terms", "matchall"})
+        private String query;
+
+        QueryRequest request;
+
+        @Setup
+        public void setUp() {
+            request = ConnectorPayloads.buildRequest(query);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ResponseState {
+        @Param({"10", "100", "1000"})
+        private int docs;
+
+        JsonElement root;
+        String json;
+
+        @Setup
+        public void setUp() {
+            root = ConnectorPayloads.solrResponse(docs, 42);
+            json = root.toString();
+        }
+    }
+
+    @Benchmark
+    public String generateRequestURL(ClientState clientState, RequestState requestState) {
+        return clientState.client.generateRequestURL(requestState.request);
+    }
+
+    @Benchmark
+    public SearchResultSet translateResponse(ClientState clientState,
+                                             ResponseState responseState)
+            throws IOException, SearchClientException {
+        return clientState.client.translateResponse(0, responseState.root);
+    }
+
+    /**
+     * Includes the json parse that happens on every response
+     */
+    @Benchmark
+    public SearchResultSet parseAndTranslateResponse(ClientState clientState,
+                                                     ResponseState responseState)
+            throws IOException, SearchClientException {
+        JsonElement root = JsonParser.parseReader(new StringReader(responseState.json));
+        return clientState.client.translateResponse(0, root);
+    }
+}
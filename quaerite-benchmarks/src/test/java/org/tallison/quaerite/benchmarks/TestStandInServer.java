@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.connectors.BatchSearchResult;
+import org.tallison.quaerite.connectors.ESClient;
+import org.tallison.quaerite.connectors.QueryRequest;
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.connectors.SolrClient;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.queries.EDisMaxQuery;
+import org.tallison.quaerite.core.queries.MultiMatchQuery;
+import org.tallison.quaerite.core.queries.Query;
+import org.tallison.quaerite.core.stats.TokenDF;
+
+public class TestStandInServer {
+
+    @Test
+    public void testSolr() throws Exception {
+        try (StandInServer server = new StandInServer(StandInServer.ENGINE.SOLR, 1000, 42)) {
+            server.start();
+            try (SearchClient client = SearchClientFactory.getClient(server.getUrl())) {
+                assertTrue(client instanceof SolrClient);
+                assertEquals(StandInServer.ID_FIELD, client.getDefaultIdField());
+                EDisMaxQuery q = new EDisMaxQuery("apache lucene");
+                q.getQF().add(new WeightableField("title"));
+                assertRankings(client, request(q, 10));
+
+                Set<String> existing = client.getExistingIds(StandInServer.ID_FIELD,
+                        Arrays.asList("doc-1", "doc-999", "doc-1000", "nope"), null);
+                assertEquals(new HashSet<>(Arrays.asList("doc-1", "doc-999")), existing);
+
+                assertEquals(Arrays.asList("the", "quick", "brown", "fox"),
+                        client.analyze("title", "The quick-brown FOX"));
+
+                List<TokenDF> terms = client.getTerms("title", "term00010", 5, 0, false);
+                assertEquals(5, terms.size());
+                assertEquals("term00011", terms.get(0).getToken());
+            }
+        }
+    }
+
+    @Test
+    public void testES() throws Exception {
+        try (StandInServer server = new StandInServer(StandInServer.ENGINE.ES, 1000, 42)) {
+            server.start();
+            try (SearchClient client = SearchClientFactory.getClient(server.getUrl())) {
+                assertTrue(client instanceof ESClient);
+                MultiMatchQuery q = new MultiMatchQuery("apache lucene");
+                q.getQF().add(new WeightableField("title"));
+                assertRankings(client, request(q, 10));
+
+                List<QueryRequest> batch = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    MultiMatchQuery bq = new MultiMatchQuery("query " + i);
+                    bq.getQF().add(new WeightableField("title"));
+                    batch.add(request(bq, 7));
+                }
+                long searches = server.getSearches();
+                List<BatchSearchResult> results = client.searchBatch(batch);
+                assertEquals(3, server.getSearches() - searches);
+                for (BatchSearchResult r : results) {
+                    assertTrue(r.isSuccess());
+                    assertEquals(7, r.getResultSet().size());
+                }
+
+                Set<String> existing = client.getExistingIds("_id",
+                        Arrays.asList("doc-1", "doc-1000"), null);
+                assertEquals(new HashSet<>(Arrays.asList("doc-1")), existing);
+
+                assertEquals(Arrays.asList(Arrays.asList("the", "quick"),
+                        Arrays.asList("brown", "fox")),
+                        client.analyzeBatch("title", Arrays.asList("The quick", "brown FOX")));
+            }
+        }
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        try (StandInServer server = new StandInServer(StandInServer.ENGINE.SOLR, 1000, 42)) {
+            server.setErrorRate(1.0);
+            server.start();
+            try (SearchClient client = SearchClientFactory.getClient(server.getUrl())) {
+                EDisMaxQuery q = new EDisMaxQuery("apache lucene");
+                q.getQF().add(new WeightableField("title"));
+                assertThrows(SearchClientException.class, () -> client.search(request(q, 10)));
+                assertEquals(1, server.getInjectedErrors());
+            }
+        }
+    }
+
+    @Test
+    public void testLatency() {
+        Random random = new Random(42);
+        assertEquals(5.0, Latency.parse("fixed:5").nextMillis(random), 0.0001);
+        assertEquals(0.0, Latency.parse("none").nextMillis(random), 0.0001);
+        for (int i = 0; i < 100; i++) {
+            double ms = Latency.parse("uniform:2:3").nextMillis(random);
+            assertTrue(ms >= 2 && ms <= 3);
+            assertTrue(Latency.parse("lognormal:5:0.5").nextMillis(random) > 0);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Latency.parse("fixed"));
+        assertThrows(IllegalArgumentException.class, () -> Latency.parse("gamma:1:2"));
+    }
+
+    //the same request gets the same ranking
+    private static void assertRankings(SearchClient client, QueryRequest request)
+            throws Exception {
+        SearchResultSet first = client.search(request);
+        assertEquals(10, first.size());
+        assertTrue(first.getTotalHits() >= 10);
+        assertEquals(first.getIds(), client.search(request).getIds());
+        assertEquals(10, new HashSet<>(first.getIds()).size());
+    }
+
+    private static QueryRequest request(Query q, int rows) {
+        QueryRequest request = new QueryRequest(q);
+        request.setNumResults(rows);
+        return request;
+    }
+}
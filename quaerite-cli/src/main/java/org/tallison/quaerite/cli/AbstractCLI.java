@@ -16,18 +16,26 @@
  */
 package org.tallison.quaerite.cli;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.List;
 
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.SearchClientFactory;
 import org.tallison.quaerite.core.Experiment;
 import org.tallison.quaerite.core.ExperimentSet;
+import org.tallison.quaerite.core.metrics.Metrics;
+import org.tallison.quaerite.core.metrics.MetricsReporter;
 import org.tallison.quaerite.core.scorers.Scorer;
 import org.tallison.quaerite.db.ExperimentDB;
 
@@ -35,6 +43,8 @@ public abstract class AbstractCLI {
 
     static Logger LOG = LogManager.getLogger(AbstractCLI.class);
 
+    static final long DEFAULT_METRICS_INTERVAL_SECONDS = 30;
+
     static ExperimentSet addExperiments(ExperimentDB experimentDB,
                                         Path experimentsJson, boolean merge,
                                         boolean freshStart) throws SQLException, IOException {
@@ -64,6 +74,131 @@ public abstract class AbstractCLI {
         return experiments;
     }
 
+    static void addRecordReplayOptions(Options options) {
+        options.addOption(
+                Option.builder("record")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("record every response from the search engine to this " +
+                                "file for later replay (optional)").build()
+        );
+        options.addOption(
+                Option.builder("replay")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("answer every request from this recordings file " +
+                                "instead of the search engine (optional)").build()
+        );
+        options.addOption(
+                Option.builder("replayLatency")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("with -replay, delay each response by its recorded latency " +
+                                "times this factor (optional; default=0, as fast as " +
+                                "possible)").build()
+        );
+    }
+
+    static void configureRecordReplay(CommandLine commandLine) throws IOException {
+        if (commandLine.hasOption("record") && commandLine.hasOption("replay")) {
+            throw new IllegalArgumentException("can't both -record and -replay");
+        }
+        if (commandLine.hasOption("record")) {
+            Path recordings = Paths.get(commandLine.getOptionValue("record"));
+            LOG.info("recording responses to: " + recordings);
+            SearchClientFactory.record(recordings);
+        } else if (commandLine.hasOption("replay")) {
+            Path recordings = Paths.get(commandLine.getOptionValue("replay"));
+            double latencyFactor = commandLine.hasOption("replayLatency") ?
+                    Double.parseDouble(commandLine.getOptionValue("replayLatency")) : 0.0;
+            LOG.info("replaying responses from: " + recordings);
+            SearchClientFactory.replay(recordings, latencyFactor);
+        }
+    }
+
+    static void addMetricsOptions(Options options) {
+        options.addOption(
+                Option.builder("metrics")
+                        .hasArg(false)
+                        .required(false)
+                        .desc("time the phases of each query (request building, http, " +
+                                "json parsing, scoring, db inserts, queue waits); these " +
+                                "are logged periodically and available over jmx (optional)")
+                        .build()
+        );
+        options.addOption(
+                Option.builder("metricsCsv")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("with -metrics, also append the metrics to this " +
+                                "csv file (optional)").build()
+        );
+        options.addOption(
+                Option.builder("metricsInterval")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("with -metrics, seconds between reports (optional; " +
+                                "default=" + DEFAULT_METRICS_INTERVAL_SECONDS + ")").build()
+        );
+    }
+
+    /**
+     * @return a started reporter that the caller must close at the end of
+     * the run, or null if -metrics wasn't specified
+     */
+    static MetricsReporter configureMetrics(CommandLine commandLine) {
+        if (!commandLine.hasOption("metrics")) {
+            return null;
+        }
+        Path csv = commandLine.hasOption("metricsCsv") ?
+                Paths.get(commandLine.getOptionValue("metricsCsv")) : null;
+        long interval = commandLine.hasOption("metricsInterval") ?
+                Long.parseLong(commandLine.getOptionValue("metricsInterval")) :
+                DEFAULT_METRICS_INTERVAL_SECONDS;
+        Metrics.enable();
+        Metrics.enableJmx();
+        MetricsReporter reporter = new MetricsReporter(csv);
+        reporter.start(interval);
+        LOG.info("reporting metrics every " + interval + " seconds" +
+                ((csv == null) ? "" : " to " + csv));
+        return reporter;
+    }
 
+    static void addStatusOptions(Options options) {
+        options.addOption(
+                Option.builder("statusPort")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("serve the run's progress (experiments, queries/sec, " +
+                                "in-flight searches, error rate, best score, eta) as " +
+                                "json on http://127.0.0.1:<port>/status; 0 picks a " +
+                                "free port (optional)").build()
+        );
+    }
 
+    /**
+     * @return a started status server that the caller must close at the end of
+     * the run, or null if -statusPort wasn't specified
+     */
+    static StatusServer configureStatus(CommandLine commandLine, RunStatus runStatus)
+            throws IOException {
+        if (!commandLine.hasOption("statusPort")) {
+            return null;
+        }
+        StatusServer statusServer = new StatusServer(runStatus,
+                Integer.parseInt(commandLine.getOptionValue("statusPort")));
+        statusServer.start();
+        return statusServer;
+    }
+
+    /**
+     * Closes each of the closeables that isn't null
+     */
+    static void close(Closeable... closeables) throws IOException {
+        for (Closeable closeable : closeables) {
+            if (closeable != null) {
+                closeable.close();
+            }
+        }
+    }
 }
@@ -28,6 +28,7 @@ import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -36,6 +37,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -46,10 +50,12 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.math3.stat.inference.TTest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.BatchSearchResult;
 import org.tallison.quaerite.connectors.QueryRequest;
 import org.tallison.quaerite.connectors.SearchClient;
 import org.tallison.quaerite.connectors.SearchClientException;
 import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.connectors.eval.Evaluator;
 import org.tallison.quaerite.core.Experiment;
 import org.tallison.quaerite.core.ExperimentConfig;
 import org.tallison.quaerite.core.ExperimentSet;
@@ -59,13 +65,13 @@ import org.tallison.quaerite.core.QueryInfo;
 import org.tallison.quaerite.core.QueryStrings;
 import org.tallison.quaerite.core.SearchResultSet;
 import org.tallison.quaerite.core.features.CustomHandler;
+import org.tallison.quaerite.core.metrics.Counter;
+import org.tallison.quaerite.core.metrics.Metrics;
+import org.tallison.quaerite.core.metrics.Timer;
 import org.tallison.quaerite.core.queries.Query;
-import org.tallison.quaerite.core.queries.TermsQuery;
 import org.tallison.quaerite.core.scorers.AbstractJudgmentScorer;
 import org.tallison.quaerite.core.scorers.DistributionalScoreAggregator;
-import org.tallison.quaerite.core.scorers.JudgmentScorer;
 import org.tallison.quaerite.core.scorers.Scorer;
-import org.tallison.quaerite.core.scorers.SearchResultSetScorer;
 import org.tallison.quaerite.core.scorers.SummingScoreAggregator;
 import org.tallison.quaerite.core.util.MapUtil;
 import org.tallison.quaerite.db.ExperimentDB;
@@ -81,17 +87,23 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
     static final int MAX_RETRIES = 2;
 
     static final int DEFAULT_NUM_THREADS = 8;
+    //number of ids per request when validating judgments.
+    //Requests are posted, so this is bounded by the
+    //search server's clause limits, not by url length.
+    static final int VALIDATION_BATCH_SIZE = 1000;
     private static final int MAX_MATRIX_COLS = 100;
     //this caches a judgment list of valid judgments
     //per search server url
     Map<String, JudgmentList> searchServerValidatedMap = new HashMap<>();
 
     private final ExperimentConfig experimentConfig;
+    final RunStatus runStatus = new RunStatus(getClass().getSimpleName());
     NumberFormat threePlaces = new DecimalFormat(".000",
             DecimalFormatSymbols.getInstance(Locale.US));
 
     public AbstractExperimentRunner(ExperimentConfig experimentConfig) {
         this.experimentConfig = experimentConfig;
+        RunStatus.setCurrent(runStatus);
     }
 
 
@@ -102,6 +114,7 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
         if (experimentDB.hasScores(experiment.getName())) {
             LOG.info("Already has scores for " + experiment.getName() + "; skipping.  " +
                     "Use the -freshStart commandline option to clear all scores");
+            runStatus.experimentFinished();
             return;
         }
         experimentDB.initScoreTable(scorers);
@@ -121,12 +134,13 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
                         "_" + judgmentListId);
         if (validated == null) {
 
-            validated = validate(searchClient, experiment.getCustomHandler(),
-                    judgmentList,
-                    experimentConfig.getSleep());
+            validated = validate(searchClient, experiment,
+                    judgmentList, experimentDB);
             searchServerValidatedMap.put(experiment.getServerConnection()
                     + "_" + judgmentListId, validated);
         }
+        runStatus.experimentStarted(experiment.getName(),
+                validated.getJudgmentsList().size());
         ExecutorService executorService = Executors.newFixedThreadPool(
                 experimentConfig.getNumThreads());
         ExecutorCompletionService<Integer> executorCompletionService =
@@ -140,12 +154,15 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
             queue.add(POISON);
         }
 
+        HedgeStats hedgeStats = (experimentConfig.getHedgePercentile() > 0) ?
+                new HedgeStats(experimentConfig.getHedgePercentile()) : null;
         for (int i = 0; i < experimentConfig.getNumThreads(); i++) {
             executorCompletionService.submit(
                     new QueryRunner(experimentConfig.getIdField(),
                             experimentConfig.getSleep(),
-                            maxRows,
-                            queue, experiment, experimentDB, scorers));
+                            maxRows, experimentConfig.getSearchBatchSize(),
+                            queue, experiment, experimentDB, scorers, hedgeStats,
+                            runStatus));
         }
 
         int completed = 0;
@@ -161,13 +178,21 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
         }
         executorService.shutdown();
         executorService.shutdownNow();
+        if (hedgeStats != null) {
+            LOG.info("Hedging for " + experiment.getName() + ": " + hedgeStats);
+        }
         //insertScores(experimentDB, experimentName, scoreAggregators);
         experimentDB.insertScoresAggregated(experiment.getName(), scorers);
+        runStatus.experimentFinished();
         if (logResults) {
             logResults(experiment.getName(), scorers);
         }
     }
 
+    RunStatus getRunStatus() {
+        return runStatus;
+    }
+
     private void logResults(String experimentName, List<Scorer> scorers) {
         StringBuilder result = new StringBuilder();
         LOG.info("Experiment: " + experimentName);
@@ -232,51 +257,63 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
 
      */
 
-    //TODO -- make this multi threaded
-
     /**
      * This reads through the judgment list and makes sure that the
      * a document with a given judgment's id is actually available in the
      * index.  This removes those ids that are not in the index and returns
      * a winnowed/validated {@link JudgmentList}.
+     * <p>
+     * Ids are checked in batches, in parallel, with
+     * {@link SearchClient#getExistingIds(String, Collection, CustomHandler)}.
+     * If the search client can report an index version, the results
+     * are stored in the experimentDB, and ids that were already checked
+     * against that version of the index are not checked again.
      *
      * @param searchClient
      * @param judgmentList
      * @return
      */
-    private JudgmentList validate(SearchClient searchClient, CustomHandler customHandler,
-                                  JudgmentList judgmentList, long sleep)
-            throws IOException, SearchClientException {
+    private JudgmentList validate(SearchClient searchClient, Experiment experiment,
+                                  JudgmentList judgmentList, ExperimentDB experimentDB)
+            throws IOException, SearchClientException, SQLException {
         String idField = searchClient.getIdField(experimentConfig);
         Set<String> judgmentIds = new HashSet<>();
         for (Judgments j : judgmentList.getJudgmentsList()) {
             judgmentIds.addAll(j.getSortedJudgments().keySet());
         }
         LOG.info("about to validate " + judgmentIds.size() + " judgment ids");
-        Set<String> valid = new HashSet<>();
 
-        int len = 0;
-        List<String> ids = new ArrayList<>();
-        for (String id : judgmentIds) {
-            ids.add(id);
-            len += id.length();
-            if (len > 1000) {
-                addValid(new TermsQuery(idField, ids), customHandler,
-                        idField, searchClient, ids.size(), valid);
-                len = 0;
-                ids.clear();
-                if (experimentConfig.getSleep() > 0) {
-                    try {
-                        Thread.sleep(experimentConfig.getSleep());
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
+        String indexVersion = null;
+        try {
+            indexVersion = searchClient.getIndexVersion();
+        } catch (IOException | SearchClientException e) {
+            LOG.warn("couldn't get the index version; " +
+                    "validated ids will not be stored", e);
+        }
+        CustomHandler customHandler = experiment.getCustomHandler();
+        String serverKey = experiment.getServerConnection().getURL() + " " + idField +
+                ((customHandler == null) ? "" : " " + customHandler.getHandler());
+        Set<String> valid = new HashSet<>();
+        Set<String> toCheck = judgmentIds;
+        if (indexVersion != null) {
+            Map<String, Boolean> alreadyValidated =
+                    experimentDB.getValidatedIds(serverKey, indexVersion);
+            toCheck = new HashSet<>();
+            for (String id : judgmentIds) {
+                Boolean isValid = alreadyValidated.get(id);
+                if (isValid == null) {
+                    toCheck.add(id);
+                } else if (isValid) {
+                    valid.add(id);
                 }
             }
+            LOG.info((judgmentIds.size() - toCheck.size()) +
+                    " judgment ids were already validated against this version of the index");
         }
-        if (ids.size() > 0) {
-            addValid(new TermsQuery(idField, ids), customHandler,
-                    idField, searchClient, ids.size(), valid);
+        Set<String> newlyValid = getExistingIds(experiment, idField, toCheck);
+        valid.addAll(newlyValid);
+        if (indexVersion != null && toCheck.size() > 0) {
+            experimentDB.addValidatedIds(serverKey, indexVersion, toCheck, newlyValid);
         }
 
         int validIds = 0;
@@ -332,84 +369,176 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
 
     }
 
-    private static void addValid(TermsQuery termsQuery, CustomHandler customHandler, String idField,
-                                 SearchClient searchClient, int expected,
-                                 Set<String> valid) {
-        if (expected == 0) {
-            return;
+    private Set<String> getExistingIds(Experiment experiment, String idField,
+                                       Set<String> ids) throws IOException, SearchClientException {
+        Set<String> existing = ConcurrentHashMap.newKeySet();
+        if (ids.size() == 0) {
+            return existing;
+        }
+        ConcurrentLinkedQueue<List<String>> batches = new ConcurrentLinkedQueue<>();
+        List<String> batch = new ArrayList<>();
+        for (String id : ids) {
+            batch.add(id);
+            if (batch.size() >= VALIDATION_BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+            }
         }
-        QueryRequest q = new QueryRequest(termsQuery, customHandler, idField);
-        q.addFieldsToRetrieve(idField);
-        q.setNumResults(expected * 2);
-        SearchResultSet searchResultSet;
-        try {
-            searchResultSet = searchClient.search(q);
-        } catch (SearchClientException | IOException e) {
-            throw new RuntimeException(e);
+        if (batch.size() > 0) {
+            batches.add(batch);
         }
-        Set<String> localValid = new HashSet<>();
-        Set<String> terms = new HashSet<>(termsQuery.getTerms());
-        for (int i = 0; i < searchResultSet.size(); i++) {
-            String id = searchResultSet.getId(i);
-            if (localValid.contains(id)) {
-                LOG.warn("Found non-unique key: " + id);
+        int numThreads = Math.min(experimentConfig.getNumThreads(), batches.size());
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        ExecutorCompletionService<Integer> executorCompletionService =
+                new ExecutorCompletionService<>(executorService);
+        for (int i = 0; i < numThreads; i++) {
+            executorCompletionService.submit(
+                    new IdValidator(experiment, idField, experimentConfig.getSleep(),
+                            batches, existing));
+        }
+        try {
+            for (int i = 0; i < numThreads; i++) {
+                executorCompletionService.take().get();
             }
-            if (!terms.contains(id)) {
-                LOG.error("Search returned an id I wasn't looking for: "
-                        + id +
-                        ". This is fatal and can mean that there's a default queryparser that" +
-                        " is not correctly parsing a terms query");
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SearchClientException) {
+                throw (SearchClientException) e.getCause();
+            } else if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
             }
-            valid.add(id);
-            localValid.add(id);
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executorService.shutdownNow();
         }
-
+        return existing;
     }
 
+    private static class IdValidator implements Callable<Integer> {
+        private final Experiment experiment;
+        private final String idField;
+        private final long sleep;
+        private final ConcurrentLinkedQueue<List<String>> batches;
+        private final Set<String> existing;
+
+        IdValidator(Experiment experiment, String idField, long sleep,
+                    ConcurrentLinkedQueue<List<String>> batches, Set<String> existing) {
+            this.experiment = experiment;
+            this.idField = idField;
+            this.sleep = sleep;
+            this.batches = batches;
+            this.existing = existing;
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            int checked = 0;
+            //search clients are not thread safe; use one per thread
+            try (SearchClient searchClient =
+                         SearchClientFactory.getClient(experiment.getServerConnection())) {
+                List<String> batch = batches.poll();
+                while (batch != null) {
+                    existing.addAll(searchClient.getExistingIds(idField, batch,
+                            experiment.getCustomHandler()));
+                    checked += batch.size();
+                    batch = batches.poll();
+                    if (batch != null && sleep > 0) {
+                        Thread.sleep(sleep);
+                    }
+                }
+            }
+            return checked;
+        }
+    }
 
     static class QueryRunner implements Callable<Integer> {
         private static AtomicInteger IDs = new AtomicInteger();
         private static AtomicInteger PROCESSED = new AtomicInteger();
+
+        private static final Timer QUEUE_TIMER = Metrics.timer("queue.poll");
+        private static final Timer SEARCH_TIMER = Metrics.timer("search");
+        private static final Timer SEARCH_BATCH_TIMER = Metrics.timer("search.batch");
+        private static final Timer SCORE_TIMER = Metrics.timer("score");
+        private static final Timer DB_INSERT_TIMER = Metrics.timer("db.insert");
+        private static final Counter SEARCH_ERRORS = Metrics.counter("search.errors");
+        private static final Counter FAILED_QUERIES = Metrics.counter("queries.failed");
         private final int threadNum = IDs.getAndIncrement();
 
         private final String idField;
         private final int maxRows;
         private final long sleep;
+        private final int searchBatchSize;
         private final ArrayBlockingQueue<Judgments> queue;
         private final Experiment experiment;
         private final Query query;//thread safe clone of the query
+        //one thread safe clone per query in a batch
+        private final List<Query> batchQueries = new ArrayList<>();
         private final List<Scorer> scorers;
         private final SearchClient searchClient;//created fresh one per thread
         private final QueryRunnerDBClient dbClient;
+        //null if not hedging
+        private final HedgedSearcher hedgedSearcher;
+        private final RunStatus runStatus;
         private int batched = 0;
 
-        public QueryRunner(String idField, long sleep, int maxRows, ArrayBlockingQueue<Judgments> judgments,
+        public QueryRunner(String idField, long sleep, int maxRows, int searchBatchSize,
+                           ArrayBlockingQueue<Judgments> judgments,
                            Experiment experiment, ExperimentDB experimentDB,
-                           List<Scorer> scorers) throws SQLException, IOException, SearchClientException {
+                           List<Scorer> scorers, HedgeStats hedgeStats,
+                           RunStatus runStatus)
+                throws SQLException, IOException, SearchClientException {
             this.idField = idField;
             this.sleep = sleep;
             this.maxRows = maxRows;
+            this.searchBatchSize = Math.max(1, searchBatchSize);
             this.queue = judgments;
             this.experiment = experiment;
             this.query = experiment.getQuery();
+            if (this.searchBatchSize > 1) {
+                for (int i = 0; i < this.searchBatchSize; i++) {
+                    batchQueries.add(experiment.getQuery());
+                }
+            }
             this.searchClient =
                     SearchClientFactory.getClient(experiment.getServerConnection());
             this.scorers = scorers;
             this.dbClient = experimentDB.getQueryRunnerDBClient(scorers);
+            this.hedgedSearcher = (hedgeStats == null) ? null :
+                    new HedgedSearcher(searchClient,
+                            SearchClientFactory.getClient(experiment.getServerConnection()),
+                            hedgeStats);
+            this.runStatus = runStatus;
         }
 
         @Override
         public Integer call() throws Exception {
 
             try {
-                while (true) {
-                    Judgments judgments = queue.poll();
-                    if (judgments.equals(POISON)) {
+                List<Judgments> batch = new ArrayList<>();
+                boolean hitPoison = false;
+                while (!hitPoison) {
+                    batch.clear();
+                    while (batch.size() < searchBatchSize) {
+                        long start = QUEUE_TIMER.start();
+                        Judgments judgments = queue.poll();
+                        QUEUE_TIMER.stop(start);
+                        if (judgments.equals(POISON)) {
 //                    LOG.trace(threadNum + ": scorer thread hit poison. stopping now");
-                        return 1;
+                            hitPoison = true;
+                            break;
+                        }
+                        batch.add(judgments);
                     }
-                    scoreEach(judgments, scorers);
-                    if (batched++ > 100) {
+                    if (batch.size() == 0) {
+                        break;
+                    } else if (batch.size() == 1) {
+                        scoreEach(batch.get(0), scorers);
+                    } else {
+                        scoreBatch(batch, scorers);
+                    }
+                    batched += batch.size();
+                    if (batched > 100) {
                         batched = 0;
                         dbClient.executeBatch();
                     }
@@ -417,6 +546,7 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
                         Thread.sleep(sleep);
                     }
                 }
+                return 1;
             } finally {
                 Exception ex = null;
                 try {
@@ -425,14 +555,16 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
                     ex = e;
                 }
                 searchClient.close();
+                if (hedgedSearcher != null) {
+                    hedgedSearcher.close();
+                }
                 if (ex != null) {
                     throw ex;
                 }
             }
         }
 
-        private void scoreEach(Judgments judgments,
-                               List<Scorer> scorers) throws SQLException {
+        private QueryRequest buildQueryRequest(Query query, Judgments judgments) {
             query.setQueryStrings(judgments.getQueryStrings());
 
             QueryRequest queryRequest = new QueryRequest(query, experiment.getCustomHandler(), idField);
@@ -441,42 +573,105 @@ public abstract class AbstractExperimentRunner extends AbstractCLI {
                 queryRequest.addFilterQueries(experiment.getFilterQueries());
             }
             queryRequest.setNumResults(maxRows);
+            return queryRequest;
+        }
+
+        private void scoreBatch(List<Judgments> batch,
+                                List<Scorer> scorers) throws SQLException {
+            List<QueryRequest> queryRequests = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                queryRequests.add(buildQueryRequest(batchQueries.get(i), batch.get(i)));
+            }
+            List<BatchSearchResult> results = null;
+            int tries = 0;
+            while (results == null && tries++ < MAX_RETRIES) {
+                long start = SEARCH_BATCH_TIMER.start();
+                runStatus.searchStarted();
+                try {
+                    results = searchClient.searchBatch(queryRequests);
+                } catch (SearchClientException | IOException e) {
+                    SEARCH_ERRORS.inc();
+                    LOG.warn("error getting results for a batch of "
+                            + batch.size() + " queries", e);
+                } finally {
+                    SEARCH_BATCH_TIMER.stop(start);
+                    runStatus.searchFinished(results != null);
+                }
+            }
+            if (results == null) {
+                LOG.warn("failed to get results for a batch of " + batch.size() +
+                        " queries. Trying them one at a time.");
+                for (Judgments judgments : batch) {
+                    scoreEach(judgments, scorers);
+                }
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                BatchSearchResult result = results.get(i);
+                if (result.isSuccess()) {
+                    score(batch.get(i), result.getResultSet(), scorers);
+                } else {
+                    LOG.warn("error getting results for: "
+                            + batch.get(i).getQueryStrings() + ". Retrying it on its own.",
+                            result.getException());
+                    scoreEach(batch.get(i), scorers);
+                }
+            }
+        }
+
+        private void scoreEach(Judgments judgments,
+                               List<Scorer> scorers) throws SQLException {
+            QueryRequest queryRequest = buildQueryRequest(query, judgments);
 
             SearchResultSet searchResultSet = null;
             int tries = 0;
             boolean success = false;
             while (! success && tries++ < MAX_RETRIES) {
+                long start = SEARCH_TIMER.start();
+                runStatus.searchStarted();
                 try {
-                    searchResultSet = searchClient.search(queryRequest);
+                    searchResultSet = (hedgedSearcher == null) ?
+                            searchClient.search(queryRequest) :
+                            hedgedSearcher.search(queryRequest);
                     success = true;
                 } catch (SearchClientException | IOException e) {
+                    SEARCH_ERRORS.inc();
                     //TODO add exception to searchResultSet and log
                     LOG.warn("error getting results for: "
                             + judgments.getQueryStrings(), e);
+                } finally {
+                    SEARCH_TIMER.stop(start);
+                    runStatus.searchFinished(success);
                 }
             }
             if (success == false || searchResultSet == null) {
+                FAILED_QUERIES.inc();
+                runStatus.queryFinished(false);
                 LOG.warn("failed to get results for: " +
                         judgments.getQueryStrings() + ". Ignoring this query.");
                 return;
             }
+            score(judgments, searchResultSet, scorers);
+        }
+
+        private void score(Judgments judgments, SearchResultSet searchResultSet,
+                           List<Scorer> scorers) throws SQLException {
+            long start = DB_INSERT_TIMER.start();
             dbClient.insertSearchResults(judgments.getQueryInfo(),
                     experiment.getName(), searchResultSet);
+            DB_INSERT_TIMER.stop(start);
 
+            start = SCORE_TIMER.start();
             for (Scorer scorer : scorers) {
-                if (scorer instanceof JudgmentScorer) {
-                    ((JudgmentScorer) scorer).score(judgments, searchResultSet);
-                } else if (scorer instanceof SearchResultSetScorer) {
-                    ((SearchResultSetScorer) scorer).score(judgments.getQueryInfo(),
-                            searchResultSet);
-                } else {
-                    throw new IllegalArgumentException("Scorer class not yet supported: "
-                            + scorer.getClass());
-                }
+                Evaluator.score(scorer, judgments, searchResultSet);
             }
+            SCORE_TIMER.stop(start);
             LOG.debug("processed '" + judgments.getQueryStrings()
                     + "'; total: " + PROCESSED.incrementAndGet());
+            start = DB_INSERT_TIMER.start();
             dbClient.insertScores(judgments.getQueryInfo(), experiment.getName(), scorers);
+            DB_INSERT_TIMER.stop(start);
+            runStatus.queryFinished(true);
         }
     }
 
@@ -20,9 +20,13 @@ import static org.tallison.quaerite.core.util.CommandLineUtil.getInt;
 import static org.tallison.quaerite.core.util.CommandLineUtil.getString;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
@@ -31,7 +35,10 @@ import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
@@ -42,9 +49,11 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tallison.quaerite.connectors.ESClient;
 import org.tallison.quaerite.connectors.SearchClient;
 import org.tallison.quaerite.connectors.SearchClientException;
 import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.core.ServerConnection;
 import org.tallison.quaerite.core.StoredDocument;
 import org.tallison.quaerite.core.queries.LuceneQuery;
 import org.tallison.quaerite.core.queries.Query;
@@ -55,6 +64,13 @@ public class CopyIndex extends AbstractCLI {
 
     private static final int NUM_THREADS = 10;
     private static final int BATCH_SIZE = 100;
+    private static final int NUM_WRITERS = 4;
+    private static final int BULK_MB = 5;
+    private static final int DOC_QUEUE_SIZE = 100;
+    private static final int MAX_RETRIES = 10;
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+    private static final long REPORT_INTERVAL_SECONDS = 10;
 
     static Options OPTIONS = new Options();
 
@@ -95,6 +111,12 @@ public class CopyIndex extends AbstractCLI {
                         .required(false)
                         .desc("clean (DELETE) the destination index before copying").build()
         );
+        OPTIONS.addOption(
+                Option.builder("compress")
+                        .hasArg(false)
+                        .required(false)
+                        .desc("gzip the bulk requests to the destination (es only)").build()
+        );
         OPTIONS.addOption(
                 Option.builder("b")
                         .longOpt("batchSize")
@@ -107,12 +129,37 @@ public class CopyIndex extends AbstractCLI {
                         .longOpt("numThreads")
                         .hasArg(true)
                         .required(false)
-                        .desc("num copier threads; default: " + NUM_THREADS).build()
+                        .desc("num threads fetching docs from the source; default: " +
+                                NUM_THREADS).build()
+        );
+        OPTIONS.addOption(
+                Option.builder("w")
+                        .longOpt("numWriters")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("num threads writing to the destination; default: " +
+                                NUM_WRITERS).build()
+        );
+        OPTIONS.addOption(
+                Option.builder("bulkMB")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("approximate size of each bulk request in MB; default: " +
+                                BULK_MB).build()
+        );
+        OPTIONS.addOption(
+                Option.builder("slices")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("number of concurrent slices for enumerating ids in ES; " +
+                                "default: one per shard, up to numThreads").build()
         );
     }
 
     private int numThreads = NUM_THREADS;
     private int batchSize = BATCH_SIZE;
+    private int numWriters = NUM_WRITERS;
+    private long maxBulkBytes = BULK_MB * 1024L * 1024L;
 
     public static void main(String[] args) throws Exception {
         CommandLine commandLine = null;
@@ -127,7 +174,9 @@ public class CopyIndex extends AbstractCLI {
             return;
         }
         SearchClient srcClient = SearchClientFactory.getClient(commandLine.getOptionValue("src"));
-        SearchClient destClient = SearchClientFactory.getClient(commandLine.getOptionValue("dest"));
+        SearchClient destClient = SearchClientFactory.getClient(
+                new ServerConnection(commandLine.getOptionValue("dest"), null, null,
+                        commandLine.hasOption("compress")));
         Set<String> includeFields = splitComma(
                 getString(commandLine, "includeFields", StringUtils.EMPTY));
         Set<String> excludeFields = splitComma(
@@ -140,6 +189,9 @@ public class CopyIndex extends AbstractCLI {
         }
 
         excludeFields = updateExcludeList(srcClient, excludeFields);
+        if (srcClient instanceof ESClient && commandLine.hasOption("slices")) {
+            ((ESClient) srcClient).setIdGrabberSlices(getInt(commandLine, "slices", -1));
+        }
 
         LOG.debug("includeFields:" + includeFields);
         LOG.debug("excludeFields:" + excludeFields);
@@ -150,6 +202,8 @@ public class CopyIndex extends AbstractCLI {
         }
         copyIndex.setNumThreads(getInt(commandLine, "numThreads", NUM_THREADS));
         copyIndex.setBatchSize(getInt(commandLine, "b", BATCH_SIZE));
+        copyIndex.setNumWriters(getInt(commandLine, "numWriters", NUM_WRITERS));
+        copyIndex.setMaxBulkBytes(getInt(commandLine, "bulkMB", BULK_MB) * 1024L * 1024L);
 
         copyIndex.execute(srcClient, destClient, filterQueries, includeFields,
                 excludeFields);
@@ -173,6 +227,14 @@ public class CopyIndex extends AbstractCLI {
         this.batchSize = batchSize;
     }
 
+    private void setNumWriters(int numWriters) {
+        this.numWriters = numWriters;
+    }
+
+    private void setMaxBulkBytes(long maxBulkBytes) {
+        this.maxBulkBytes = maxBulkBytes;
+    }
+
     private static Set<String> splitComma(String s) {
         if (StringUtils.isBlank(s)) {
             return Collections.EMPTY_SET;
@@ -184,99 +246,251 @@ public class CopyIndex extends AbstractCLI {
         return ret;
     }
 
+    /**
+     * Runs the copy as a pipeline: the id grabber feeds the fetchers,
+     * which feed the writers.  Each stage blocks when the next one
+     * falls behind.  Clients aren't thread safe, so each fetcher and
+     * each writer opens its own client on the clients' ServerConnections.
+     */
     private void execute(SearchClient srcClient, SearchClient destClient,
                          Set<Query> filterQueries,
                          Set<String> includeFields, Set<String> excludeFields)
             throws IOException, SearchClientException {
         ArrayBlockingQueue<Set<String>> idQueue = new ArrayBlockingQueue<>(100);
+        ArrayBlockingQueue<List<StoredDocument>> docQueue =
+                new ArrayBlockingQueue<>(DOC_QUEUE_SIZE);
+        AtomicInteger activeFetchers = new AtomicInteger(numThreads);
+        CopyStats stats = new CopyStats();
 
-        ExecutorService executorService = Executors.newFixedThreadPool(numThreads + 1);
+        int tasks = numThreads + numWriters + 1;
+        ExecutorService executorService = Executors.newFixedThreadPool(tasks);
         ExecutorCompletionService<Integer> executorCompletionService =
                 new ExecutorCompletionService<>(executorService);
-        String srcIdField = srcClient.getDefaultIdField();
-        String destIdField = destClient.getDefaultIdField();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(stats::report, REPORT_INTERVAL_SECONDS,
+                REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
 
         executorCompletionService.submit(srcClient.getIdGrabber(idQueue,
                 batchSize, numThreads, filterQueries));
 
+        String srcIdField = srcClient.getDefaultIdField();
+        String destIdField = destClient.getDefaultIdField();
         for (int i = 0; i < numThreads; i++) {
-            executorCompletionService.submit(new Copier(
-                    idQueue, srcClient, destClient,
-                    includeFields, excludeFields));
+            executorCompletionService.submit(new Fetcher(
+                    idQueue, docQueue, activeFetchers, numWriters,
+                    srcClient.getServerConnection(), srcIdField, destIdField,
+                    includeFields, excludeFields, stats));
+        }
+        for (int i = 0; i < numWriters; i++) {
+            executorCompletionService.submit(new Writer(docQueue,
+                    destClient.getServerConnection(), maxBulkBytes, stats));
         }
         int finished = 0;
         try {
-            while (finished < numThreads + 1) {
-                Future<Integer> future = executorCompletionService.poll(1,
-                        TimeUnit.SECONDS);
-                if (future != null) {
-                    Integer done = null;
-                    try {
-                        done = future.get();
-                    } catch (ExecutionException e) {
-                        LOG.error("serious problem", e);
-                    }
-                    if (done != null) {
-                        if (done < 0) {
-                            LOG.debug("id grabber is done");
-                        } else if (done > 0) {
-                            LOG.debug("finished: " + finished + " : " + done);
-                        }
+            while (finished < tasks) {
+                Future<Integer> future = executorCompletionService.take();
+                try {
+                    Integer done = future.get();
+                    if (done < 0) {
+                        LOG.debug("id grabber is done");
+                    } else {
+                        LOG.debug("finished: " + finished + " : " + done);
                     }
-                    finished++;
+                } catch (ExecutionException e) {
+                    //the other stages would block forever on a dead stage
+                    LOG.error("serious problem; stopping the copy", e);
+                    throw new SearchClientException(e);
                 }
+                finished++;
             }
-        } catch (Exception e) {
+        } catch (InterruptedException e) {
             throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
+            reporter.shutdownNow();
+            stats.report();
         }
-        executorService.shutdownNow();
     }
 
-    private static class Copier implements Callable<Integer> {
+    private static class Fetcher implements Callable<Integer> {
         private final String srcIdField;
         private final String destIdField;
         private final ArrayBlockingQueue<Set<String>> ids;
-        private final SearchClient src;
-        private final SearchClient dest;
+        private final ArrayBlockingQueue<List<StoredDocument>> docs;
+        private final AtomicInteger activeFetchers;
+        private final int numWriters;
+        private final ServerConnection src;
         private final Set<String> includeFields;
         private final Set<String> excludeFields;
+        private final CopyStats stats;
         private int totalDocs = 0;
 
-        private Copier(ArrayBlockingQueue<Set<String>> ids,
-                       SearchClient src, SearchClient dest,
-                       Set<String> includeFields, Set<String> excludeFields)
-                throws IOException, SearchClientException {
-            this.srcIdField = src.getDefaultIdField();
-            this.destIdField = dest.getDefaultIdField();
+        private Fetcher(ArrayBlockingQueue<Set<String>> ids,
+                        ArrayBlockingQueue<List<StoredDocument>> docs,
+                        AtomicInteger activeFetchers, int numWriters,
+                        ServerConnection src, String srcIdField, String destIdField,
+                        Set<String> includeFields, Set<String> excludeFields,
+                        CopyStats stats) {
+            this.srcIdField = srcIdField;
+            this.destIdField = destIdField;
             this.ids = ids;
+            this.docs = docs;
+            this.activeFetchers = activeFetchers;
+            this.numWriters = numWriters;
             this.src = src;
-            this.dest = dest;
             this.includeFields = includeFields;
             this.excludeFields = excludeFields;
+            this.stats = stats;
         }
 
         @Override
         public Integer call() throws Exception {
-            while (true) {
-                //block on more ids
-                Set<String> myIds = ids.take();
-                LOG.debug("ids size: " + ids.size() + " : " + myIds.size());
-                if (myIds.size() == 0) {
-                    return totalDocs;
+            try (SearchClient srcClient = SearchClientFactory.getClient(src)) {
+                while (true) {
+                    //block on more ids
+                    Set<String> myIds = ids.take();
+                    LOG.debug("ids size: " + ids.size() + " : " + myIds.size());
+                    if (myIds.size() == 0) {
+                        return totalDocs;
+                    }
+                    List<StoredDocument> myDocs = srcClient.getDocs(srcIdField, myIds,
+                            includeFields, excludeFields);
+                    if (!srcIdField.equals(destIdField)) {
+                        for (StoredDocument d : myDocs) {
+                            d.rename(srcIdField, destIdField);
+                        }
+                    }
+                    totalDocs += myDocs.size();
+                    stats.fetched.addAndGet(myDocs.size());
+                    if (myDocs.size() > 0) {
+                        //block if the writers are behind
+                        docs.put(myDocs);
+                    }
                 }
-                List<StoredDocument> docs = src.getDocs(srcIdField, myIds,
-                        includeFields, excludeFields);
-                if (!srcIdField.equals(destIdField)) {
-                    for (StoredDocument d : docs) {
-                        d.rename(srcIdField, destIdField);
+            } finally {
+                //the last fetcher out signals the writers to stop
+                if (activeFetchers.decrementAndGet() == 0) {
+                    try {
+                        for (int i = 0; i < numWriters; i++) {
+                            docs.put(Collections.EMPTY_LIST);
+                        }
+                    } catch (InterruptedException e) {
+                        //swallow
                     }
                 }
+            }
+        }
+    }
+
+    private static class Writer implements Callable<Integer> {
+        private final ArrayBlockingQueue<List<StoredDocument>> docs;
+        private final ServerConnection dest;
+        private final long maxBulkBytes;
+        private final CopyStats stats;
+        private int totalDocs = 0;
+
+        private Writer(ArrayBlockingQueue<List<StoredDocument>> docs,
+                       ServerConnection dest, long maxBulkBytes, CopyStats stats) {
+            this.docs = docs;
+            this.dest = dest;
+            this.maxBulkBytes = maxBulkBytes;
+            this.stats = stats;
+        }
 
-                dest.addDocuments(docs);
-                LOG.debug("inserted : " + totalDocs);
-                totalDocs += docs.size();
+        @Override
+        public Integer call() throws Exception {
+            List<StoredDocument> bulk = new ArrayList<>();
+            long bulkBytes = 0;
+            try (SearchClient destClient = SearchClientFactory.getClient(dest)) {
+                while (true) {
+                    List<StoredDocument> myDocs = docs.take();
+                    if (myDocs.size() == 0) {
+                        flush(destClient, bulk, bulkBytes);
+                        return totalDocs;
+                    }
+                    for (StoredDocument d : myDocs) {
+                        bulk.add(d);
+                        bulkBytes += estimateBytes(d.getId()) + estimateBytes(d.getFields());
+                        if (bulkBytes >= maxBulkBytes) {
+                            flush(destClient, bulk, bulkBytes);
+                            bulk = new ArrayList<>();
+                            bulkBytes = 0;
+                        }
+                    }
+                }
+            }
+        }
+
+        private void flush(SearchClient destClient, List<StoredDocument> bulk, long bulkBytes)
+                throws IOException, SearchClientException, InterruptedException {
+            List<StoredDocument> pending = bulk;
+            int retries = 0;
+            while (pending.size() > 0) {
+                List<StoredDocument> rejected = destClient.tryAddDocuments(pending);
+                stats.written.addAndGet(pending.size() - rejected.size());
+                totalDocs += pending.size() - rejected.size();
+                if (rejected.size() > 0) {
+                    if (++retries > MAX_RETRIES) {
+                        throw new SearchClientException("gave up on " + rejected.size() +
+                                " rejected documents after " + MAX_RETRIES + " retries");
+                    }
+                    stats.retried.addAndGet(rejected.size());
+                    long backoff = Math.min(MAX_BACKOFF_MILLIS,
+                            INITIAL_BACKOFF_MILLIS << (retries - 1));
+                    LOG.debug("retrying " + rejected.size() + " rejected documents in " +
+                            backoff + " ms");
+                    Thread.sleep(backoff);
+                }
+                pending = rejected;
             }
+            stats.bytes.addAndGet(bulkBytes);
+        }
+
+        //rough size of the json; this is only used to size the bulk requests
+        private static long estimateBytes(Object o) {
+            if (o == null) {
+                return 4;
+            } else if (o instanceof String) {
+                return ((String) o).length() + 3;
+            } else if (o instanceof Map) {
+                long sz = 2;
+                for (Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet()) {
+                    sz += estimateBytes(e.getKey()) + 1 + estimateBytes(e.getValue());
+                }
+                return sz;
+            } else if (o instanceof Collection) {
+                long sz = 2;
+                for (Object item : (Collection<?>) o) {
+                    sz += estimateBytes(item);
+                }
+                return sz;
+            }
+            return 8;
+        }
+    }
+
+    private static class CopyStats {
+        private final AtomicLong fetched = new AtomicLong(0);
+        private final AtomicLong written = new AtomicLong(0);
+        private final AtomicLong retried = new AtomicLong(0);
+        private final AtomicLong bytes = new AtomicLong(0);
+        private final long start = System.nanoTime();
+        private long lastReport = start;
+        private long lastWritten = 0;
 
+        synchronized void report() {
+            long now = System.nanoTime();
+            long w = written.get();
+            double elapsed = Math.max(1, now - start) / 1e9;
+            double interval = Math.max(1, now - lastReport) / 1e9;
+            LOG.info(String.format(Locale.US,
+                    "fetched: %d; written: %d; retried: %d; " +
+                            "docs/s: %.1f (current) %.1f (overall); MB/s: %.2f",
+                    fetched.get(), w, retried.get(),
+                    (w - lastWritten) / interval, w / elapsed,
+                    bytes.get() / elapsed / (1024 * 1024)));
+            lastReport = now;
+            lastWritten = w;
         }
     }
 }
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.tallison.quaerite.core.metrics.Counter;
+import org.tallison.quaerite.core.metrics.Metrics;
+
+/**
+ * Tracks the recent latencies of an experiment's searches, from
+ * which it derives the delay after which a search is hedged,
+ * and counts how often hedges are sent and win.  The hedges are also
+ * counted in the process wide <code>search.hedged</code> and
+ * <code>search.hedge.won</code> metrics.
+ * <p>
+ * This is shared by all of the query runners for an experiment.
+ */
+class HedgeStats {
+
+    private static final Counter HEDGED = Metrics.counter("search.hedged");
+    private static final Counter HEDGE_WINS = Metrics.counter("search.hedge.won");
+
+    //number of recent latencies from which the percentile is calculated
+    private static final int WINDOW = 1000;
+    //don't hedge until there's a reasonable sample
+    private static final int MIN_SAMPLES = 50;
+    private static final int RECALCULATE_EVERY = 20;
+
+    private final double percentile;
+    private final long[] window = new long[WINDOW];
+    private int size = 0;
+    private int next = 0;
+    private int sinceCalculated = 0;
+    private long delayMillis = -1;
+
+    private final AtomicLong searches = new AtomicLong(0);
+    private final AtomicLong hedged = new AtomicLong(0);
+    private final AtomicLong hedgeWins = new AtomicLong(0);
+
+    HedgeStats(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be > 0 and <= 100: " +
+                    percentile);
+        }
+        this.percentile = percentile;
+    }
+
+    /**
+     * @return milliseconds to wait before hedging or -1 if there
+     * aren't yet enough samples to hedge
+     */
+    synchronized long getDelayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * @param elapsedMillis latency of the winning response, measured
+     *                      from when the first request was sent
+     * @param wasHedged whether a hedge was sent
+     * @param hedgeWon whether the hedge's response was used
+     */
+    void record(long elapsedMillis, boolean wasHedged, boolean hedgeWon) {
+        searches.incrementAndGet();
+        if (wasHedged) {
+            hedged.incrementAndGet();
+            HEDGED.inc();
+        }
+        if (hedgeWon) {
+            hedgeWins.incrementAndGet();
+            HEDGE_WINS.inc();
+        }
+        synchronized (this) {
+            window[next] = elapsedMillis;
+            next = (next + 1) % WINDOW;
+            size = Math.min(WINDOW, size + 1);
+            if (size >= MIN_SAMPLES &&
+                    (delayMillis < 0 || ++sinceCalculated >= RECALCULATE_EVERY)) {
+                sinceCalculated = 0;
+                long[] sorted = Arrays.copyOf(window, size);
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+                delayMillis = sorted[Math.max(0, Math.min(size - 1, index))];
+            }
+        }
+    }
+
+    long getSearches() {
+        return searches.get();
+    }
+
+    long getHedged() {
+        return hedged.get();
+    }
+
+    long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    double getHedgeRate() {
+        long s = searches.get();
+        return (s == 0) ? 0.0 : (double) hedged.get() / (double) s;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "searches: %d; hedged: %d (%.2f%%); hedges won: %d; current delay: %d ms",
+                getSearches(), getHedged(), 100.0 * getHedgeRate(), getHedgeWins(),
+                getDelayMillis());
+    }
+}
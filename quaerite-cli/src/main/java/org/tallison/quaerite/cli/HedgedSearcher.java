@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.QueryRequest;
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.StoredDocument;
+
+/**
+ * Sends a duplicate of a search that hasn't returned within the
+ * hedge delay and uses whichever response comes back first; the
+ * other request is aborted.
+ * <p>
+ * The duplicate goes out on a second client.  If the server connection
+ * has replicas, the balancer will likely send it to another endpoint,
+ * because the first request still counts as outstanding.
+ * <p>
+ * Like the search clients, this is used by a single thread.
+ */
+class HedgedSearcher implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(HedgedSearcher.class);
+
+    private final SearchClient primary;
+    private final SearchClient hedge;
+    private final HedgeStats stats;
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+    HedgedSearcher(SearchClient primary, SearchClient hedge, HedgeStats stats) {
+        this.primary = primary;
+        this.hedge = hedge;
+        this.stats = stats;
+    }
+
+    SearchResultSet search(QueryRequest queryRequest)
+            throws SearchClientException, IOException {
+        long start = System.currentTimeMillis();
+        ExecutorCompletionService<SearchResultSet> completionService =
+                new ExecutorCompletionService<>(executorService);
+        Future<SearchResultSet> primaryFuture =
+                completionService.submit(() -> primary.search(queryRequest));
+        long delay = stats.getDelayMillis();
+        try {
+            Future<SearchResultSet> done = (delay < 0) ? completionService.take() :
+                    completionService.poll(delay, TimeUnit.MILLISECONDS);
+            if (done != null) {
+                SearchResultSet resultSet = get(done);
+                stats.record(System.currentTimeMillis() - start, false, false);
+                return resultSet;
+            }
+            Future<SearchResultSet> hedgeFuture =
+                    completionService.submit(() -> hedge.search(queryRequest));
+            Future<SearchResultSet> first = completionService.take();
+            SearchResultSet resultSet;
+            boolean hedgeWon = first == hedgeFuture;
+            try {
+                resultSet = get(first);
+            } catch (SearchClientException | IOException e) {
+                //the other request may yet succeed
+                LOG.debug("first response failed; waiting for the other", e);
+                hedgeWon = !hedgeWon;
+                resultSet = get(completionService.take());
+            }
+            Future<SearchResultSet> loser = hedgeWon ? primaryFuture : hedgeFuture;
+            SearchClient loserClient = hedgeWon ? primary : hedge;
+            if (!loser.isDone()) {
+                //this sticks even if the loser hasn't sent its request yet,
+                //so the wait below is short
+                loserClient.abort();
+            }
+            //wait for the loser to wind down before its client is reused
+            waitFor(loser);
+            loserClient.clearAbort();
+            long elapsed = System.currentTimeMillis() - start;
+            stats.record(elapsed, true, hedgeWon);
+            return withElapsed(resultSet, elapsed);
+        } catch (InterruptedException e) {
+            primary.abort();
+            hedge.abort();
+            throw new SearchClientException(e);
+        }
+    }
+
+    private static SearchResultSet get(Future<SearchResultSet> future)
+            throws SearchClientException, IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SearchClientException) {
+                throw (SearchClientException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SearchClientException(e);
+        }
+    }
+
+    private static void waitFor(Future<SearchResultSet> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            //expected if it was aborted
+        }
+    }
+
+    //latency-based scorers should see the latency from when the
+    //first request was sent, not from when the winner was sent
+    private static SearchResultSet withElapsed(SearchResultSet resultSet, long elapsed) {
+        List<StoredDocument> docs = new ArrayList<>();
+        for (int i = 0; i < resultSet.size(); i++) {
+            docs.add(resultSet.get(i));
+        }
+        return new SearchResultSet(resultSet.getTotalHits(), resultSet.getQueryTime(),
+                elapsed, docs);
+    }
+
+    @Override
+    public void close() throws IOException {
+        executorService.shutdownNow();
+        hedge.close();
+    }
+}
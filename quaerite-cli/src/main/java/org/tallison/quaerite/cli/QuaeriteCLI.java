@@ -19,6 +19,7 @@ package org.tallison.quaerite.cli;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.commons.cli.Options;
 import org.h2.tools.Console;
 
 public class QuaeriteCLI {
@@ -26,8 +27,8 @@ public class QuaeriteCLI {
     public static void usage() {
         System.err.println("Specify a tool: \n" +
                 "\tRunExperiments, GenerateExperiments,\n" +
-                "\tRunGA, DumpExperiments, DumpResults,\n" +
-                "\tFindFeatures or StartDB");
+                "\tRunGA, RunBayesOpt, RunCMAES, DumpExperiments, DumpResults,\n" +
+                "\tFindFeatures, StartDB or Daemon");
         System.exit(1);
     }
     public static void main(String[] args) throws Exception {
@@ -38,22 +39,67 @@ public class QuaeriteCLI {
         String[] newArgs = new String[args.length - 1];
         System.arraycopy(args, 1, newArgs, 0, newArgs.length);
 
+        if (tool.equals("StartDB")) {
+            startDB();
+        } else if (tool.equals("Daemon")) {
+            QuaeriteDaemon.main(newArgs);
+        } else if (!run(tool, newArgs)) {
+            System.err.println("I'm sorry, but I don't recognize \"" + tool + "\" as a tool");
+        }
+    }
+
+    /**
+     * Runs one of the tools that can also be run as a job by {@link QuaeriteDaemon}
+     *
+     * @return false if the tool isn't recognized
+     */
+    static boolean run(String tool, String[] args) throws Exception {
         if (tool.equals("DumpExperiments")) {
-            DumpExperiments.main(newArgs);
+            DumpExperiments.main(args);
         } else if (tool.equals("RunExperiments")) {
-            RunExperiments.main(newArgs);
+            RunExperiments.main(args);
         } else if (tool.equals("FindFeatures")) {
-            FindFeatures.main(newArgs);
+            FindFeatures.main(args);
         } else if (tool.equals("GenerateExperiments")) {
-            GenerateExperiments.main(newArgs);
+            GenerateExperiments.main(args);
         } else if (tool.equals("DumpResults")) {
-            DumpResults.main(newArgs);
-        } else if (tool.equals("StartDB")) {
-            startDB();
+            DumpResults.main(args);
         } else if (tool.equals("RunGA")) {
-            RunGA.main(newArgs);
+            RunGA.main(args);
+        } else if (tool.equals("RunBayesOpt")) {
+            RunBayesOpt.main(args);
+        } else if (tool.equals("RunCMAES")) {
+            RunCMAES.main(args);
         } else {
-            System.err.println("I'm sorry, but I don't recognize \"" + tool + "\" as a tool");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the commandline options for a tool that {@link #run(String, String[])}
+     * recognizes or null
+     */
+    static Options getOptions(String tool) {
+        switch (tool) {
+            case "DumpExperiments":
+                return DumpExperiments.OPTIONS;
+            case "RunExperiments":
+                return RunExperiments.OPTIONS;
+            case "FindFeatures":
+                return FindFeatures.OPTIONS;
+            case "GenerateExperiments":
+                return GenerateExperiments.OPTIONS;
+            case "DumpResults":
+                return DumpResults.OPTIONS;
+            case "RunGA":
+                return RunGA.OPTIONS;
+            case "RunBayesOpt":
+                return RunBayesOpt.OPTIONS;
+            case "RunCMAES":
+                return RunCMAES.OPTIONS;
+            default:
+                return null;
         }
     }
 
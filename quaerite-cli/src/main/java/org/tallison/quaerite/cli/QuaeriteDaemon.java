@@ -0,0 +1,511 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.core.metrics.Metrics;
+import org.tallison.quaerite.db.ExperimentDB;
+
+/**
+ * Keeps a warm jvm around to run the commandline tools as jobs submitted
+ * over http on localhost.  This saves the jvm startup, class loading and jit
+ * warmup, the search server version checks and the reopening of the h2
+ * databases on every run.
+ * <p>
+ * <ul>
+ *     <li><code>POST /jobs</code> with
+ *     <code>{"tool":"RunExperiments","args":["-db","/abs/path/db",...]}</code>
+ *     queues a job and returns it with its id</li>
+ *     <li><code>GET /jobs</code> lists the jobs</li>
+ *     <li><code>GET /jobs/{id}</code> returns a job; while an experiment
+ *     runner is running, this includes its live status</li>
+ *     <li><code>GET /jobs/{id}/events</code> streams the job as one line of
+ *     json per second until the job has finished</li>
+ *     <li><code>POST /shutdown</code> stops the running job and the daemon</li>
+ * </ul>
+ * Jobs run one at a time because the tools share static state (e.g. the
+ * record/replay and metrics settings), which is reset after each job.  Relative
+ * paths in the args are resolved against the daemon's working directory.
+ * The h2 databases are kept open for the life of the daemon, so other
+ * processes can't open them while it's running.
+ */
+public class QuaeriteDaemon implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(QuaeriteDaemon.class);
+
+    static Options OPTIONS = new Options();
+
+    static final int DEFAULT_PORT = 7654;
+    //finished jobs beyond this are forgotten, oldest first
+    static final int MAX_JOBS = 1000;
+    static final long EVENT_INTERVAL_MILLIS = 1000;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Gson EVENT_GSON = new Gson();
+    private static final ContentType NDJSON =
+            ContentType.create("application/x-ndjson", StandardCharsets.UTF_8);
+
+    static {
+        OPTIONS.addOption(
+                Option.builder("port")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("port on 127.0.0.1 on which to accept jobs (optional; " +
+                                "default=" + DEFAULT_PORT + "; 0 picks a free port)").build()
+        );
+    }
+
+    enum STATE {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED
+    }
+
+    private final int port;
+    private final AtomicInteger ids = new AtomicInteger(0);
+    //guarded by itself
+    private final Map<Integer, Job> jobs = new LinkedHashMap<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "quaerite-job");
+        t.setDaemon(true);
+        return t;
+    });
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer server;
+
+    QuaeriteDaemon(int port) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("port must be between 0 and 65535: " + port);
+        }
+        this.port = port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine commandLine = null;
+        try {
+            commandLine = new DefaultParser().parse(OPTIONS, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            HelpFormatter helpFormatter = new HelpFormatter();
+            helpFormatter.printHelp("java -jar org.tallison.quaerite.cli.QuaeriteDaemon",
+                    OPTIONS);
+            return;
+        }
+        int port = commandLine.hasOption("port") ?
+                Integer.parseInt(commandLine.getOptionValue("port")) : DEFAULT_PORT;
+        try (QuaeriteDaemon daemon = new QuaeriteDaemon(port)) {
+            daemon.start();
+            daemon.awaitShutdown();
+        }
+    }
+
+    void start() throws IOException {
+        ExperimentDB.setKeepOpen(true);
+        server = ServerBootstrap.bootstrap()
+                .setLocalAddress(InetAddress.getLoopbackAddress())
+                .setListenerPort(port)
+                .setServerInfo("quaerite-daemon")
+                .registerHandler("*", this::handle)
+                .create();
+        server.start();
+        LOG.info("accepting jobs on " + getUrl());
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getLocalPort();
+    }
+
+    void awaitShutdown() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public void close() throws IOException {
+        worker.shutdownNow();
+        synchronized (jobs) {
+            for (Job job : jobs.values()) {
+                job.cancelIfQueued();
+            }
+        }
+        if (server != null) {
+            server.shutdown(1, TimeUnit.SECONDS);
+            server = null;
+        }
+        stopped.countDown();
+    }
+
+    private void handle(HttpRequest request, HttpResponse response, HttpContext context)
+            throws IOException {
+        String method = request.getRequestLine().getMethod().toUpperCase(Locale.US);
+        String path = URI.create(request.getRequestLine().getUri()).getPath();
+        String[] parts = path.replaceAll("^/+|/+$", "").split("/");
+        try {
+            if (parts[0].equals("jobs") && parts.length == 1) {
+                if (method.equals("POST")) {
+                    json(response, 202, submit(readBody(request)).toMap());
+                } else {
+                    json(response, 200, listJobs());
+                }
+            } else if (parts[0].equals("jobs") && parts.length <= 3) {
+                Job job = getJob(parts[1]);
+                if (job == null) {
+                    error(response, 404, "couldn't find job: " + parts[1]);
+                } else if (parts.length == 2) {
+                    json(response, 200, job.toMap());
+                } else if (parts[2].equals("events")) {
+                    response.setStatusCode(200);
+                    response.setEntity(new EventStream(job));
+                } else {
+                    error(response, 404, "unknown path: " + path);
+                }
+            } else if (parts[0].equals("shutdown") && method.equals("POST")) {
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("state", "shutting down");
+                json(response, 200, m);
+                //the server can't wait for its own handler to finish
+                Thread t = new Thread(this::closeQuietly, "quaerite-daemon-shutdown");
+                t.setDaemon(true);
+                t.start();
+            } else {
+                error(response, 404, "try /jobs or /jobs/{id} or /jobs/{id}/events");
+            }
+        } catch (IllegalArgumentException e) {
+            error(response, 400, e.getMessage());
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the request isn't valid json, the tool
+     * isn't recognized or its args don't parse
+     */
+    Job submit(String json) {
+        JobRequest jobRequest;
+        try {
+            jobRequest = GSON.fromJson(json, JobRequest.class);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("couldn't parse the job: " + e.getMessage());
+        }
+        if (jobRequest == null || jobRequest.tool == null) {
+            throw new IllegalArgumentException("a job needs a 'tool'");
+        }
+        Options options = QuaeriteCLI.getOptions(jobRequest.tool);
+        if (options == null) {
+            throw new IllegalArgumentException("I'm sorry, but I don't recognize \"" +
+                    jobRequest.tool + "\" as a tool");
+        }
+        List<String> args = (jobRequest.args == null) ? Collections.emptyList() :
+                jobRequest.args;
+        //the tools print their usage and return on bad args; catch that here
+        try {
+            new DefaultParser().parse(options, args.toArray(new String[0]));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("bad args for " + jobRequest.tool + ": " +
+                    e.getMessage());
+        }
+        Job job = new Job(ids.incrementAndGet(), jobRequest.tool, args);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            forgetOldJobs();
+        }
+        worker.submit(() -> runJob(job));
+        LOG.info("queued job " + job.id + ": " + job.tool + " " + args);
+        return job;
+    }
+
+    private void runJob(Job job) {
+        RunStatus.setCurrent(null);
+        if (!job.setRunning()) {
+            return;
+        }
+        LOG.info("starting job " + job.id);
+        try {
+            QuaeriteCLI.run(job.tool, job.args.toArray(new String[0]));
+            job.finish(STATE.SUCCEEDED, null);
+        } catch (Throwable t) {
+            LOG.warn("job " + job.id + " failed", t);
+            //in case the search server was swapped out from under us
+            SearchClientFactory.clearVersionCache();
+            job.finish(STATE.FAILED, t);
+        } finally {
+            RunStatus.setCurrent(null);
+            try {
+                SearchClientFactory.stopRecordingOrReplaying();
+            } catch (IOException e) {
+                LOG.warn("couldn't close the recordings", e);
+            }
+            Metrics.disable();
+            Metrics.reset();
+        }
+        LOG.info("finished job " + job.id + ": " + job.getState());
+    }
+
+    private Job getJob(String id) {
+        try {
+            synchronized (jobs) {
+                return jobs.get(Integer.parseInt(id));
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private List<Map<String, Object>> listJobs() {
+        List<Job> copy;
+        synchronized (jobs) {
+            copy = new ArrayList<>(jobs.values());
+        }
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Job job : copy) {
+            list.add(job.toMap());
+        }
+        return list;
+    }
+
+    //guarded by jobs
+    private void forgetOldJobs() {
+        Iterator<Job> it = jobs.values().iterator();
+        while (jobs.size() > MAX_JOBS && it.hasNext()) {
+            if (it.next().isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            LOG.warn("problem shutting down", e);
+        }
+    }
+
+    private static String readBody(HttpRequest request) throws IOException {
+        if (!(request instanceof HttpEntityEnclosingRequest)) {
+            return "";
+        }
+        return EntityUtils.toString(((HttpEntityEnclosingRequest) request).getEntity(),
+                StandardCharsets.UTF_8);
+    }
+
+    private static void json(HttpResponse response, int status, Object body) {
+        response.setStatusCode(status);
+        response.setEntity(new ByteArrayEntity(
+                GSON.toJson(body).getBytes(StandardCharsets.UTF_8),
+                ContentType.APPLICATION_JSON));
+    }
+
+    private static void error(HttpResponse response, int status, String msg) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("error", msg);
+        json(response, status, m);
+    }
+
+    private static class JobRequest {
+        private String tool;
+        private List<String> args;
+    }
+
+    static class Job {
+        private final int id;
+        private final String tool;
+        private final List<String> args;
+        private final long submitted = System.currentTimeMillis();
+        private final CountDownLatch done = new CountDownLatch(1);
+        //guarded by this
+        private STATE state = STATE.QUEUED;
+        private long started = -1;
+        private long finished = -1;
+        private String error = null;
+        private Map<String, Object> finalStatus = null;
+
+        Job(int id, String tool, List<String> args) {
+            this.id = id;
+            this.tool = tool;
+            this.args = new ArrayList<>(args);
+        }
+
+        int getId() {
+            return id;
+        }
+
+        synchronized STATE getState() {
+            return state;
+        }
+
+        boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        /**
+         * @return true if the job is done after waiting up to millis
+         */
+        boolean awaitDone(long millis) throws InterruptedException {
+            return done.await(millis, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized boolean setRunning() {
+            if (state != STATE.QUEUED) {
+                return false;
+            }
+            state = STATE.RUNNING;
+            started = System.currentTimeMillis();
+            return true;
+        }
+
+        private synchronized void finish(STATE state, Throwable t) {
+            RunStatus runStatus = RunStatus.getCurrent();
+            if (runStatus != null) {
+                finalStatus = runStatus.toMap();
+            }
+            this.state = state;
+            this.error = (t == null) ? null : t.toString();
+            finished = System.currentTimeMillis();
+            done.countDown();
+        }
+
+        private synchronized void cancelIfQueued() {
+            if (state == STATE.QUEUED) {
+                state = STATE.CANCELLED;
+                finished = System.currentTimeMillis();
+                done.countDown();
+            }
+        }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", id);
+            m.put("tool", tool);
+            m.put("args", args);
+            m.put("state", state.name());
+            m.put("submittedMillis", submitted);
+            if (started > -1) {
+                m.put("startedMillis", started);
+                long end = (finished > -1) ? finished : System.currentTimeMillis();
+                m.put("elapsedSeconds", (end - started) / 1000.0);
+            }
+            if (finished > -1) {
+                m.put("finishedMillis", finished);
+            }
+            if (error != null) {
+                m.put("error", error);
+            }
+            Map<String, Object> status = finalStatus;
+            if (state == STATE.RUNNING && RunStatus.getCurrent() != null) {
+                status = RunStatus.getCurrent().toMap();
+            }
+            if (status != null) {
+                m.put("status", status);
+            }
+            return m;
+        }
+    }
+
+    /**
+     * Writes the job as a line of json every {@link #EVENT_INTERVAL_MILLIS}
+     * and as soon as it's done.  The last line has the job's final state.
+     */
+    private static class EventStream extends AbstractHttpEntity {
+        private final Job job;
+
+        EventStream(Job job) {
+            this.job = job;
+            setContentType(NDJSON.toString());
+            setChunked(true);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() {
+            throw new UnsupportedOperationException("this can only be written");
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            try {
+                while (true) {
+                    boolean wasDone = job.isDone();
+                    outputStream.write((EVENT_GSON.toJson(job.toMap()) + "\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                    outputStream.flush();
+                    if (wasDone) {
+                        return;
+                    }
+                    job.awaitDone(EVENT_INTERVAL_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return !job.isDone();
+        }
+    }
+}
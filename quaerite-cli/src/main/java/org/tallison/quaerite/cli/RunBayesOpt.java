@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ExperimentFactory;
+import org.tallison.quaerite.core.GAConfig;
+import org.tallison.quaerite.core.optimization.ExperimentVectorizer;
+import org.tallison.quaerite.core.optimization.TreeParzenEstimator;
+import org.tallison.quaerite.core.stats.ExperimentScorePair;
+import org.tallison.quaerite.core.util.SplittableSeed;
+import org.tallison.quaerite.db.GAPopulation;
+
+/**
+ * Alternative to {@link RunGA} that uses a Tree-structured Parzen Estimator
+ * to propose the next batch of experiments from all experiments scored so far
+ * in the fold, rather than breeding from the last generation.
+ * <p>
+ * This reuses the seeds, folds and database layout of RunGA; each "generation"
+ * is one batch of proposals.  Candidates are drawn from the ExperimentFactory
+ * (random experiments and mutations of the current best experiments), and the
+ * surrogate picks the most promising <code>batchSize</code> of them.
+ */
+public class RunBayesOpt extends RunGA {
+
+    static Logger LOG = LogManager.getLogger(RunBayesOpt.class);
+
+    static Options OPTIONS = new Options();
+
+    private static final int DEFAULT_BATCH_SIZE = 4;
+    private static final int DEFAULT_NUM_CANDIDATES = 100;
+    private static final float CANDIDATE_MUTATION_PROBABILITY = 0.8f;
+
+    static {
+        for (Option option : RunGA.OPTIONS.getOptions()) {
+            OPTIONS.addOption(option);
+        }
+        OPTIONS.addOption(
+                Option.builder("b")
+                        .longOpt("batchSize")
+                        .hasArg()
+                        .required(false)
+                        .desc("number of experiments to propose per iteration (default: " +
+                                DEFAULT_BATCH_SIZE + ")").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("n")
+                        .longOpt("iterations")
+                        .hasArg()
+                        .required(false)
+                        .desc("number of iterations per fold (default: 'generations' " +
+                                "in the experiment factory's gaConfig)").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("c")
+                        .longOpt("candidates")
+                        .hasArg()
+                        .required(false)
+                        .desc("number of candidate experiments to score with the " +
+                                "surrogate per iteration (default: " +
+                                DEFAULT_NUM_CANDIDATES + ")").build()
+        );
+    }
+
+    private final ExperimentFactory experimentFactory;
+    private final GAConfig gaConfig;
+    private final int iterations;
+    private final int batchSize;
+    private final int numCandidates;
+
+    public RunBayesOpt(ExperimentFactory experimentFactory, int iterations,
+                       int batchSize, int numCandidates) {
+        super(experimentFactory);
+        this.experimentFactory = experimentFactory;
+        this.gaConfig = experimentFactory.getGAConfig();
+        this.iterations = iterations;
+        this.batchSize = batchSize;
+        this.numCandidates = numCandidates;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine commandLine = null;
+
+        try {
+            commandLine = new DefaultParser().parse(OPTIONS, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            HelpFormatter helpFormatter = new HelpFormatter();
+            helpFormatter.printHelp("java -jar org.tallison.quaerite.cli.RunBayesOpt",
+                    OPTIONS);
+            return;
+        }
+        GAPaths gaPaths = getGAPaths(commandLine, "bayesopt_experiments");
+        configureRecordReplay(commandLine);
+        ExperimentFactory experimentFactory = loadExperimentFactory(
+                gaPaths.experimentFactory);
+        validateCommandLine(gaPaths);
+        validateSettings(experimentFactory);
+
+        int iterations = experimentFactory.getGAConfig().getGenerations();
+        if (commandLine.hasOption("n")) {
+            iterations = Integer.parseInt(commandLine.getOptionValue("n"));
+        }
+        int batchSize = DEFAULT_BATCH_SIZE;
+        if (commandLine.hasOption("b")) {
+            batchSize = Integer.parseInt(commandLine.getOptionValue("b"));
+        }
+        int numCandidates = DEFAULT_NUM_CANDIDATES;
+        if (commandLine.hasOption("c")) {
+            numCandidates = Integer.parseInt(commandLine.getOptionValue("c"));
+        }
+        if (batchSize < 1 || numCandidates < batchSize) {
+            throw new IllegalArgumentException(
+                    "batchSize must be > 0 and candidates must be >= batchSize");
+        }
+        RunBayesOpt runBayesOpt = new RunBayesOpt(experimentFactory, iterations,
+                batchSize, numCandidates);
+        runBayesOpt.execute(gaPaths, commandLine);
+    }
+
+    @Override
+    protected int getGenerations() {
+        return iterations;
+    }
+
+    @Override
+    protected List<String> generateNewExperiments(int fold, int generation,
+                                                  GAPopulation population,
+                                                  ExperimentFactory experimentFactory,
+                                                  SplittableSeed generationSeed)
+            throws SQLException {
+        //everything scored so far in this fold: seeds and earlier iterations
+        List<ExperimentScorePair> scored = population.getNBestExperiments(
+                TRAIN_PREFIX + FOLD_PREFIX + fold + "_", -1);
+        if (scored.size() == 0) {
+            throw new IllegalArgumentException(
+                    "Need to have some scored experiments from the seed!");
+        }
+        TreeParzenEstimator tpe = new TreeParzenEstimator();
+        for (ExperimentScorePair esp : scored) {
+            tpe.addObservation(ExperimentVectorizer.vectorize(esp.getExperiment()),
+                    esp.getScore());
+        }
+
+        //scored is sorted by descending score
+        int numGood = Math.max(1,
+                (int) Math.ceil(TreeParzenEstimator.DEFAULT_GAMMA * scored.size()));
+        List<Experiment> candidates = new ArrayList<>();
+        List<Map<String, Double>> vectors = new ArrayList<>();
+        for (int i = 0; i < numCandidates; i++) {
+            Random random = generationSeed.split(i).newRandom();
+            Experiment candidate;
+            if (i % 2 == 0) {
+                candidate = experimentFactory.generateRandomExperiment("candidate_" + i, random);
+            } else {
+                Experiment parent = scored.get(random.nextInt(numGood)).getExperiment();
+                candidate = experimentFactory.mutate(parent,
+                        CANDIDATE_MUTATION_PROBABILITY, gaConfig.getMutationAmplitude(), random);
+            }
+            candidates.add(candidate);
+            vectors.add(ExperimentVectorizer.vectorize(candidate));
+        }
+
+        List<String> names = new ArrayList<>();
+        for (int index : tpe.selectBatch(vectors, batchSize)) {
+            Experiment experiment = candidates.get(index);
+            String name = getTrainExperimentName(fold, generation, names.size());
+            experiment.setName(name);
+            population.addExperiment(experiment);
+            names.add(name);
+        }
+        if (names.size() == 0) {
+            LOG.warn("couldn't find any new candidates for fold " + fold +
+                    ", iteration " + generation);
+        }
+        LOG.info("proposed " + names.size() + " experiments from " +
+                scored.size() + " observations for fold " + fold +
+                ", iteration " + generation);
+        return names;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ExperimentFactory;
+import org.tallison.quaerite.core.optimization.CMAES;
+import org.tallison.quaerite.core.optimization.ContinuousParameterSpace;
+import org.tallison.quaerite.core.stats.ExperimentScorePair;
+import org.tallison.quaerite.core.util.SplittableSeed;
+import org.tallison.quaerite.db.GAPopulation;
+
+/**
+ * Alternative to {@link RunGA} that tunes the continuous parameters
+ * of the query (field weights in qf/pf/pf2/pf3 and float features such as tie)
+ * with CMA-ES.  Unlike the GA's independent mutations, CMA-ES learns the
+ * correlations between weights.
+ * <p>
+ * For each fold, the best seed experiment is the template: its discrete
+ * settings (server connection, handler, etc.) are kept, and its continuous
+ * parameters are the starting point of the search.  Each generation is one
+ * CMA-ES population.
+ */
+public class RunCMAES extends RunGA {
+
+    static Logger LOG = LogManager.getLogger(RunCMAES.class);
+
+    static Options OPTIONS = new Options();
+
+    private static final double DEFAULT_SIGMA = 0.3;
+
+    static {
+        for (Option option : RunGA.OPTIONS.getOptions()) {
+            OPTIONS.addOption(option);
+        }
+        OPTIONS.addOption(
+                Option.builder("s")
+                        .longOpt("sigma")
+                        .hasArg()
+                        .required(false)
+                        .desc("initial step size as a fraction of each parameter's range " +
+                                "(default: " + DEFAULT_SIGMA + ")").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("l")
+                        .longOpt("lambda")
+                        .hasArg()
+                        .required(false)
+                        .desc("population size per generation (default: 'population' in the " +
+                                "experiment factory's gaConfig)").build()
+        );
+    }
+
+    private final ContinuousParameterSpace space;
+    private final double sigma;
+    private final int lambda;
+
+    private int currentFold = -1;
+    private CMAES cmaes;
+    private Experiment template;
+    private Map<String, double[]> lastPopulation = new LinkedHashMap<>();
+
+    public RunCMAES(ExperimentFactory experimentFactory, double sigma, int lambda) {
+        super(experimentFactory);
+        this.space = new ContinuousParameterSpace(experimentFactory);
+        if (space.getDimensions() == 0) {
+            throw new IllegalArgumentException(
+                    "The query factory must have at least one weightable list (e.g. qf) " +
+                            "or float feature (e.g. tie) with a range of values");
+        }
+        this.sigma = sigma;
+        this.lambda = lambda;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine commandLine = null;
+
+        try {
+            commandLine = new DefaultParser().parse(OPTIONS, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            HelpFormatter helpFormatter = new HelpFormatter();
+            helpFormatter.printHelp("java -jar org.tallison.quaerite.cli.RunCMAES",
+                    OPTIONS);
+            return;
+        }
+        GAPaths gaPaths = getGAPaths(commandLine, "cmaes_experiments");
+        configureRecordReplay(commandLine);
+        ExperimentFactory experimentFactory = loadExperimentFactory(
+                gaPaths.experimentFactory);
+        validateCommandLine(gaPaths);
+        validateSettings(experimentFactory);
+
+        double sigma = DEFAULT_SIGMA;
+        if (commandLine.hasOption("s")) {
+            sigma = Double.parseDouble(commandLine.getOptionValue("s"));
+        }
+        int lambda = experimentFactory.getGAConfig().getPopulation();
+        if (commandLine.hasOption("l")) {
+            lambda = Integer.parseInt(commandLine.getOptionValue("l"));
+        }
+        if (sigma <= 0.0) {
+            throw new IllegalArgumentException("sigma must be > 0");
+        }
+        RunCMAES runCMAES = new RunCMAES(experimentFactory, sigma, lambda);
+        runCMAES.execute(gaPaths, commandLine);
+    }
+
+    @Override
+    protected List<String> generateNewExperiments(int fold, int generation,
+                                                  GAPopulation population,
+                                                  ExperimentFactory experimentFactory,
+                                                  SplittableSeed generationSeed)
+            throws SQLException {
+        if (fold != currentFold) {
+            initFold(fold, population, generationSeed.newRandom());
+        } else if (lastPopulation.size() > 0) {
+            tell(fold, generation - 1, population);
+        }
+
+        lastPopulation.clear();
+        List<String> names = new ArrayList<>();
+        for (double[] x : cmaes.ask()) {
+            String name = getTrainExperimentName(fold, generation, names.size());
+            Experiment experiment = space.decode(template, x, name);
+            population.addExperiment(experiment);
+            lastPopulation.put(name, x);
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * Starts from the best experiment so far in the fold: the best seed
+     * on a fresh run, or the best experiment before the interruption
+     * on a resumed run.
+     */
+    private void initFold(int fold, GAPopulation population, Random random) {
+        List<ExperimentScorePair> best = population.getNBestExperiments(
+                TRAIN_PREFIX + FOLD_PREFIX + fold + "_", 1);
+        if (best.size() == 0) {
+            throw new IllegalArgumentException(
+                    "Need to have some scored experiments from the seed!");
+        }
+        template = best.get(0).getExperiment();
+        double[] mean = space.encode(template);
+        cmaes = new CMAES(mean, sigma, lambda, new Random(random.nextLong()));
+        currentFold = fold;
+        lastPopulation.clear();
+        LOG.info("starting cmaes for fold " + fold + " from '" + template.getName() +
+                "' (" + best.get(0).getScore() + ") with " + space.getDimensions() +
+                " dimensions: " + space.getDimensionNames());
+    }
+
+    private void tell(int fold, int lastGeneration, GAPopulation gaPopulation) {
+        List<double[]> population = new ArrayList<>();
+        double[] fitness = new double[lastPopulation.size()];
+        for (Map.Entry<String, double[]> e : lastPopulation.entrySet()) {
+            Double score = gaPopulation.getScore(e.getKey());
+            if (score == null) {
+                LOG.warn("couldn't find a score for " + e.getKey() + "; treating as 0");
+                score = 0.0;
+            }
+            fitness[population.size()] = score;
+            population.add(e.getValue());
+        }
+        cmaes.tell(population, fitness);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("fold " + fold + " generation " + lastGeneration + ": sigma=" +
+                    cmaes.getSigma() + " mean=" + Arrays.toString(cmaes.getMean()));
+        }
+    }
+}
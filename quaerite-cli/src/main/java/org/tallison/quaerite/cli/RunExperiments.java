@@ -37,6 +37,10 @@ import org.tallison.quaerite.connectors.SearchClientException;
 import org.tallison.quaerite.core.Experiment;
 import org.tallison.quaerite.core.ExperimentConfig;
 import org.tallison.quaerite.core.ExperimentSet;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.metrics.MetricsReporter;
+import org.tallison.quaerite.core.scorers.AbstractJudgmentScorer;
+import org.tallison.quaerite.core.scorers.Scorer;
 import org.tallison.quaerite.db.ExperimentDB;
 
 public class RunExperiments extends AbstractExperimentRunner {
@@ -113,6 +117,9 @@ public class RunExperiments extends AbstractExperimentRunner {
                                 "this will sort results by desc order " +
                                 "of the test scorer").build()
         );
+        addRecordReplayOptions(OPTIONS);
+        addMetricsOptions(OPTIONS);
+        addStatusOptions(OPTIONS);
     }
 
     long batchStart = -1l;
@@ -137,6 +144,7 @@ public class RunExperiments extends AbstractExperimentRunner {
             return;
         }
 
+        configureRecordReplay(commandLine);
         Path dbDir = Paths.get(commandLine.getOptionValue("db"));
         String experimentName = (commandLine.hasOption("experiment")) ?
                 commandLine.getOptionValue("experiment") : "";
@@ -154,6 +162,8 @@ public class RunExperiments extends AbstractExperimentRunner {
         //TODO: this should be optimized to handle a single experiment
         //we are currently loading all the experiments.
         ExperimentSet experimentSet = null;
+        MetricsReporter metricsReporter = configureMetrics(commandLine);
+        StatusServer statusServer = null;
         try (ExperimentDB experimentDB = ExperimentDB.open(dbDir)) {
             if (judgments != null && experiments != null) {
                 QueryLoader.loadJudgments(experimentDB, judgments, true);
@@ -163,6 +173,7 @@ public class RunExperiments extends AbstractExperimentRunner {
                 freshStart = false;
 
             }
+            statusServer = configureStatus(commandLine, runExperiments.getRunStatus());
             runExperiments.run(experimentSet, experimentDB, experimentName,
                     freshStart, latest);
 
@@ -170,6 +181,8 @@ public class RunExperiments extends AbstractExperimentRunner {
             LOG.info("starting to write reports to: " + reportDir);
             dumpResults(experimentSet, experimentDB, experimentDB.getQuerySets(),
                     experimentDB.getExperiments().getScorers(), reportDir, isTest);
+        } finally {
+            close(statusServer, metricsReporter);
         }
         LOG.info("completed running and reporting experiments");
     }
@@ -189,6 +202,8 @@ public class RunExperiments extends AbstractExperimentRunner {
         if (StringUtils.isBlank(experimentName)) {
             batchStart = System.currentTimeMillis();
             int finished = 0;
+            runStatus.setExperimentsPlanned(experimentSet.getExperiments().size());
+            Scorer trainScorer = getTrainScorer(experimentSet);
 
             for (Experiment ex : experimentSet.getExperiments().values()) {
                 LOG.info("running experiment: '" + ex.getName() + "'");
@@ -196,16 +211,24 @@ public class RunExperiments extends AbstractExperimentRunner {
                         experimentDB,
                         experimentDB.getJudgments(),
                         "train", true);
+                if (trainScorer != null) {
+                    runStatus.updateBest(ex.getName(),
+                            trainScorer.getPrimaryStatistic(QueryInfo.DEFAULT_QUERY_SET));
+                }
                 long elapsed = System.currentTimeMillis() - batchStart;
                 finished++;
                 LOG.info("Finished " + finished + " in " +
                         (double) elapsed / (double) 1000 + " seconds");
-                double perExperiment = (double) elapsed / (double) finished;
                 int togo = experimentSet.getExperiments().entrySet().size() - finished;
                 if (togo > 0) {
+                    //prefer the moving average of the throughput; fall back to the
+                    //mean time per experiment until there are two samples
+                    double eta = runStatus.getEtaSeconds();
+                    if (eta < 0) {
+                        eta = ((double) togo * elapsed / (double) finished) / 1000.0;
+                    }
                     LOG.info("Still have " + togo + " to go; estimate: " +
-                            threePlaces.format(((double) togo * perExperiment) /
-                                    (double) 1000) + " seconds\n\n");
+                            threePlaces.format(eta) + " seconds\n\n");
                 }
             }
         } else {
@@ -217,9 +240,28 @@ public class RunExperiments extends AbstractExperimentRunner {
             }
             experimentDB.clearScores(experimentName);
 
+            runStatus.setExperimentsPlanned(1);
             runExperiment(experiment, experimentSet.getScorers(),
                     experimentSet.getMaxRows(), experimentDB, experimentDB.getJudgments(),
                     "train", true);
         }
     }
+
+    /**
+     * @return the scorer used for training (or the first judgment scorer)
+     * for tracking the best experiment, or null if there isn't one
+     */
+    private static Scorer getTrainScorer(ExperimentSet experimentSet) {
+        Scorer first = null;
+        for (Scorer scorer : experimentSet.getScorers()) {
+            if (scorer instanceof AbstractJudgmentScorer) {
+                if (((AbstractJudgmentScorer) scorer).getUseForTrain()) {
+                    return scorer;
+                } else if (first == null) {
+                    first = scorer;
+                }
+            }
+        }
+        return first;
+    }
 }
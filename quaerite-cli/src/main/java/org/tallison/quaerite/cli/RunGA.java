@@ -26,7 +26,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
@@ -46,14 +48,19 @@ import org.tallison.quaerite.core.ExperimentSet;
 import org.tallison.quaerite.core.GAConfig;
 import org.tallison.quaerite.core.JudgmentList;
 import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.metrics.MetricsReporter;
 import org.tallison.quaerite.core.scorers.AbstractJudgmentScorer;
 import org.tallison.quaerite.core.scorers.Scorer;
 import org.tallison.quaerite.core.stats.ExperimentNameScorePair;
 import org.tallison.quaerite.core.stats.ExperimentScorePair;
 import org.tallison.quaerite.core.util.GAOperation;
 import org.tallison.quaerite.core.util.MathUtil;
+import org.tallison.quaerite.core.util.SplittableSeed;
 import org.tallison.quaerite.db.ExperimentDB;
+import org.tallison.quaerite.db.GACheckpoint;
 import org.tallison.quaerite.db.GADB;
+import org.tallison.quaerite.db.GAPopulation;
 import org.tallison.quaerite.db.TrainTestJudmentListPair;
 
 public class RunGA extends AbstractExperimentRunner {
@@ -62,11 +69,11 @@ public class RunGA extends AbstractExperimentRunner {
 
     static Options OPTIONS = new Options();
 
-    private static String GEN_PREFIX = "gen_";
-    private static String TRAIN_PREFIX = "train_";
-    private static String TEST_PREFIX = "test_";
-    private static String FOLD_PREFIX = "fold_";
-    private static String SEED_PREFIX = "seed_";
+    static String GEN_PREFIX = "gen_";
+    static String TRAIN_PREFIX = "train_";
+    static String TEST_PREFIX = "test_";
+    static String FOLD_PREFIX = "fold_";
+    static String SEED_PREFIX = "seed_";
 
 
     static {
@@ -124,10 +131,29 @@ public class RunGA extends AbstractExperimentRunner {
                         .required(false)
                         .desc("training judgments ('truth') file").build()
         );
+        OPTIONS.addOption(
+                Option.builder("resume")
+                        .hasArg(false)
+                        .required(false)
+                        .desc("resume from the last checkpoint in the database, " +
+                                "if there is one; otherwise, start from scratch").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("seed")
+                        .hasArg(true)
+                        .required(false)
+                        .desc("random seed (long) for the run (optional; " +
+                                "default is a random seed, which is logged)").build()
+        );
+        addRecordReplayOptions(OPTIONS);
+        addMetricsOptions(OPTIONS);
+        addStatusOptions(OPTIONS);
     }
 
     private final GAConfig gaConfig;
     private final ExperimentFactory experimentFactory;
+    private SplittableSeed runSeed;
+    private int numFolds = 1;
 
     public RunGA(ExperimentFactory experimentFactory) {
         super(experimentFactory.getGAConfig());
@@ -147,6 +173,18 @@ public class RunGA extends AbstractExperimentRunner {
                     OPTIONS);
             return;
         }
+        GAPaths gaPaths = getGAPaths(commandLine, "ga_experiments");
+        configureRecordReplay(commandLine);
+        ExperimentFactory experimentFactory = loadExperimentFactory(
+                gaPaths.experimentFactory);
+        LOG.debug(experimentFactory.getGAConfig());
+        validateCommandLine(gaPaths);
+        validateSettings(experimentFactory);
+        RunGA runGA = new RunGA(experimentFactory);
+        runGA.execute(gaPaths, commandLine);
+    }
+
+    static GAPaths getGAPaths(CommandLine commandLine, String defaultOutputDir) {
         GAPaths gaPaths = new GAPaths();
         gaPaths.dbPath = getPath(commandLine, "db", false);
         gaPaths.experimentFactory = getPath(commandLine, "f", true);
@@ -156,30 +194,83 @@ public class RunGA extends AbstractExperimentRunner {
         gaPaths.testJudgmentsFile = getPath(commandLine, "test", true);
         gaPaths.trainJudgmentsFile = getPath(commandLine, "train", true);
         if (gaPaths.outputDir == null) {
-            gaPaths.outputDir = Paths.get("ga_experiments");
+            gaPaths.outputDir = Paths.get(defaultOutputDir);
         }
-        ExperimentFactory experimentFactory = loadExperimentFactory(
-                gaPaths.experimentFactory);
-        LOG.debug(experimentFactory.getGAConfig());
-        validateCommandLine(gaPaths);
-        validateSettings(experimentFactory);
-        RunGA runGA = new RunGA(experimentFactory);
-        if (gaPaths.judgmentsFile != null) {
-            runGA.executeNFold(gaPaths);
-        } else {
-            runGA.executeTrainTest(gaPaths);
+        gaPaths.resume = commandLine.hasOption("resume");
+        if (commandLine.hasOption("seed")) {
+            gaPaths.seed = Long.parseLong(commandLine.getOptionValue("seed"));
         }
+        return gaPaths;
     }
 
-    private void executeTrainTest(GAPaths gaPaths) throws IOException,
-            SQLException, SearchClientException {
+    /**
+     * Runs with the metrics and the status server configured
+     * on the commandline, if any
+     */
+    void execute(GAPaths gaPaths, CommandLine commandLine)
+            throws IOException, SQLException, SearchClientException {
+        MetricsReporter metricsReporter = configureMetrics(commandLine);
+        StatusServer statusServer = null;
+        try {
+            statusServer = configureStatus(commandLine, runStatus);
+            execute(gaPaths);
+        } finally {
+            close(statusServer, metricsReporter);
+        }
+    }
 
+    void execute(GAPaths gaPaths) throws IOException, SQLException, SearchClientException {
         if (!Files.isDirectory(gaPaths.outputDir)) {
             Files.createDirectories(gaPaths.outputDir);
         }
+        numFolds = (gaPaths.judgmentsFile != null) ? gaConfig.getNFolds() : 1;
+
+        GADB gaDb = null;
+        if (gaPaths.resume) {
+            gaDb = GADB.open(gaPaths.dbPath);
+            if (gaDb.canResume()) {
+                LOG.info("resuming from the checkpoints in " + gaPaths.dbPath);
+                gaDb.resumeTrainTest();
+                long seed = gaDb.getCheckpoint(0).getRandomSeed();
+                if (gaPaths.seed != null && gaPaths.seed != seed) {
+                    LOG.warn("ignoring -seed " + gaPaths.seed +
+                            "; using the seed from the earlier run: " + seed);
+                }
+                runSeed = new SplittableSeed(seed);
+            } else {
+                LOG.warn("couldn't find checkpoints in " + gaPaths.dbPath +
+                        "; starting from scratch");
+                gaDb.close();
+                gaDb = null;
+            }
+        }
+        if (gaDb == null) {
+            runSeed = (gaPaths.seed != null) ? new SplittableSeed(gaPaths.seed) :
+                    SplittableSeed.newSeed();
+            gaDb = GADB.openAndDrop(gaPaths.dbPath);
+            if (gaPaths.judgmentsFile != null) {
+                initNFold(gaDb, gaPaths);
+            } else {
+                initTrainTest(gaDb, gaPaths);
+            }
+            for (int fold = 0; fold < numFolds; fold++) {
+                gaDb.addCheckpoint(new GACheckpoint(fold, GACheckpoint.SEED_GENERATION,
+                        GACheckpoint.STATE.INITIALIZED, runSeed.getSeed(),
+                        Collections.emptyList()));
+            }
+        }
+        LOG.info("random seed for this run: " + runSeed.getSeed());
 
-        GADB gaDb = GADB.openAndDrop(gaPaths.dbPath);
-        //gaDb = GADB.open(gaPaths.dbPath);
+        try (GAPopulation population = new GAPopulation(gaDb, GADB.open(gaPaths.dbPath))) {
+            for (int fold = 0; fold < numFolds; fold++) {
+                runStatus.setFold(fold, numFolds);
+                runFold(fold, gaDb, population, experimentFactory, gaPaths);
+            }
+        }
+        reportFinal(gaDb, experimentFactory, numFolds);
+    }
+
+    private void initTrainTest(GADB gaDb, GAPaths gaPaths) throws IOException, SQLException {
 
         QueryLoader.loadJudgments(gaDb, gaPaths.testJudgmentsFile, true);
         JudgmentList testJudgments = gaDb.getJudgments();
@@ -196,19 +287,9 @@ public class RunGA extends AbstractExperimentRunner {
             generateRandomSeeds(experimentFactory, gaDb);
         }
         gaDb.addScoreAggregators(experimentFactory.getScorers());
-
-        runFold(0, gaDb, experimentFactory, gaPaths);
-        reportFinal(gaDb, experimentFactory, 1);
     }
 
-    private void executeNFold(GAPaths gaPaths) throws IOException, SQLException,
-            SearchClientException {
-
-        if (!Files.isDirectory(gaPaths.outputDir)) {
-            Files.createDirectories(gaPaths.outputDir);
-        }
-
-        GADB gaDb = GADB.openAndDrop(gaPaths.dbPath);
+    private void initNFold(GADB gaDb, GAPaths gaPaths) throws IOException, SQLException {
 
         QueryLoader.loadJudgments(gaDb, gaPaths.judgmentsFile, true);
 
@@ -224,12 +305,7 @@ public class RunGA extends AbstractExperimentRunner {
         }
         gaDb.addScoreAggregators(experimentFactory.getScorers());
 
-        gaDb.initTrainTest(gaConfig.getNFolds());
-
-        for (int i = 0; i < gaConfig.getNFolds(); i++) {
-            runFold(i, gaDb, experimentFactory, gaPaths);
-        }
-        reportFinal(gaDb, experimentFactory, gaConfig.getNFolds());
+        gaDb.initTrainTest(gaConfig.getNFolds(), runSeed.newRandom());
     }
 
     private void reportFinal(GADB gaDb, ExperimentFactory experimentFactory, int num)
@@ -264,7 +340,7 @@ public class RunGA extends AbstractExperimentRunner {
         }
     }
 
-    private static ExperimentFactory loadExperimentFactory(Path experimentFactories)
+    static ExperimentFactory loadExperimentFactory(Path experimentFactories)
             throws IOException {
         try (Reader reader = Files.newBufferedReader(experimentFactories,
                 StandardCharsets.UTF_8)) {
@@ -290,15 +366,42 @@ public class RunGA extends AbstractExperimentRunner {
     }
 
 
-    private void runFold(int fold, GADB gaDb, ExperimentFactory experimentFactory,
-                         GAPaths gaPaths) throws IOException, SQLException, SearchClientException {
+    private void runFold(int fold, GADB gaDb, GAPopulation population,
+                         ExperimentFactory experimentFactory, GAPaths gaPaths)
+            throws IOException, SQLException, SearchClientException {
 
+        GACheckpoint checkpoint = gaDb.getCheckpoint(fold);
+        if (checkpoint != null && checkpoint.getState() == GACheckpoint.STATE.TESTED) {
+            LOG.info("fold " + fold + " has already been completed; skipping");
+            return;
+        }
         TrainTestJudmentListPair trainTestJudmentListPair = gaDb.getTrainTestJudgmentsByFold(fold);
         JudgmentList trainJudgmentList = trainTestJudmentListPair.getTrain();
-        LOG.info("scoring training seed for fold: " + fold);
+        String trainFoldPrefix = TRAIN_PREFIX + FOLD_PREFIX + fold + "_";
+        String scorerName = experimentFactory.getTrainScorer().getPrimaryStatisticName();
+
+        //load anything scored by an earlier run once here so that
+        //the generations don't have to go back to the db
+        population.clear();
+        List<ExperimentScorePair> alreadyScored = new ArrayList<>();
+        for (ExperimentScorePair esp : gaDb.getExperimentScores(trainFoldPrefix, scorerName)) {
+            //'_' is a wildcard in ilike, make sure we don't pick up fold_1x
+            if (esp.getExperiment().getName().startsWith(trainFoldPrefix)) {
+                alreadyScored.add(esp);
+            }
+        }
+        population.load(alreadyScored);
 
-        scoreSeed(fold, gaDb, trainJudgmentList,
-                experimentFactory, gaPaths);
+        if (checkpoint == null || checkpoint.getState() == GACheckpoint.STATE.INITIALIZED) {
+            LOG.info("scoring training seed for fold: " + fold);
+            scoreSeed(fold, gaDb, population, trainJudgmentList,
+                    experimentFactory, gaPaths);
+            checkpoint = new GACheckpoint(fold, GACheckpoint.SEED_GENERATION,
+                    GACheckpoint.STATE.SCORED, runSeed.getSeed(), Collections.emptyList());
+            population.addCheckpoint(checkpoint);
+        } else {
+            LOG.info("resuming fold " + fold + " from " + checkpoint);
+        }
         LOG.info("starting training for fold " + fold + "; train set size (" +
                 trainJudgmentList.getJudgmentsList().size() +
                 "), test set size (" + trainTestJudmentListPair.getTest().getJudgmentsList().size()
@@ -312,35 +415,43 @@ public class RunGA extends AbstractExperimentRunner {
             }
         }
 
-        for (int i = 0; i < gaConfig.getGenerations(); i++) {
-            runGeneration(fold, i, gaDb, experimentFactory, trainJudgmentList, gaPaths);
+        int start = checkpoint.getGeneration();
+        if (checkpoint.getState() == GACheckpoint.STATE.SCORED) {
+            start++;
         }
-        List<ExperimentNameScorePair> scores = gaDb.getNBestExperimentNames(
-                TRAIN_PREFIX + FOLD_PREFIX + fold + "_*", 10,
-                experimentFactory.getTrainScorer().getPrimaryStatisticName());
+        for (int i = start; i < getGenerations(); i++) {
+            //if the last run stopped after generating this generation, rerun it
+            GACheckpoint generated = (i == checkpoint.getGeneration() &&
+                    checkpoint.getState() == GACheckpoint.STATE.GENERATED) ? checkpoint : null;
+            runGeneration(fold, i, gaDb, population, experimentFactory, trainJudgmentList,
+                    gaPaths, generated);
+        }
+        List<ExperimentScorePair> experiments = population.getNBestExperiments(
+                trainFoldPrefix, 10);
         System.out.println("FOLD " + fold + " TRAINING");
-        for (ExperimentNameScorePair esp : scores) {
-            System.out.println("experiment '" + esp.getExperimentName() + "': "
+        for (ExperimentScorePair esp : experiments) {
+            System.out.println("experiment '" + esp.getExperiment().getName() + "': "
                     + threePlaces.format(esp.getScore()));
         }
         System.out.println("");
 
         JudgmentList testingJudgments = trainTestJudmentListPair.getTest();
-        String scoreColumnName = experimentFactory.getTrainScorer().getName() + "_"
-                + experimentFactory.getTrainScorer().getPrimaryStatisticName();
-        List<ExperimentScorePair> experiments = gaDb.getNBestExperiments(
-                "train_fold_" + fold + "_", 1,
-                experimentFactory.getTrainScorer().getPrimaryStatisticName());
-        Experiment bestTrainingExperiment = experiments.get(0).getExperiment();
+        if (experiments.size() == 0) {
+            throw new IllegalArgumentException("Couldn't find any scored experiments for fold "
+                    + fold);
+        }
+        //copy so that the training experiment in memory keeps its name
+        Experiment bestTrainingExperiment = experiments.get(0).getExperiment().deepCopy();
         String testName = getTestExperimentName(bestTrainingExperiment.getName());
 
         bestTrainingExperiment.setName(testName);
-        gaDb.addExperiment(bestTrainingExperiment);
+        population.addExperiment(bestTrainingExperiment);
 
-        runExperiment(bestTrainingExperiment, experimentFactory.getScorers(),
-                experimentFactory.getMaxRows(),
-                gaDb, testingJudgments, "test_" + fold, false);
-        scores = gaDb.getNBestExperimentNames(
+        runUnlessScored(bestTrainingExperiment, gaDb, testingJudgments, "test_" + fold);
+        population.addCheckpoint(new GACheckpoint(fold, getGenerations() - 1,
+                GACheckpoint.STATE.TESTED, runSeed.getSeed(), Collections.singletonList(testName)));
+        population.flush();
+        List<ExperimentNameScorePair> scores = gaDb.getNBestExperimentNames(
                 TEST_PREFIX + FOLD_PREFIX + fold + "_*", 10,
                 experimentFactory.getTrainScorer().getPrimaryStatisticName());
         System.out.println("FOLD " + fold + " TESTING");
@@ -352,28 +463,35 @@ public class RunGA extends AbstractExperimentRunner {
 
     }
 
-    private void scoreSeed(int fold, GADB gaDb, JudgmentList trainJudgmentList,
+    private void scoreSeed(int fold, GADB gaDb, GAPopulation population,
+                           JudgmentList trainJudgmentList,
                            ExperimentFactory experimentFactory, GAPaths gaPaths)
             throws SQLException, IOException, SearchClientException {
         ExperimentSet experimentSet = gaDb.getExperiments(gaConfig);
 
         String trainFoldSeedPrefix = TRAIN_PREFIX + FOLD_PREFIX + fold + "_" + SEED_PREFIX;
-        for (String experimentName : gaDb.getExperimentNames()) {
-            if (experimentName.startsWith(trainFoldSeedPrefix)) {
-                Experiment ex = gaDb.getExperiment(experimentName);
-                runExperiment(ex, experimentFactory.getScorers(), experimentFactory.getMaxRows(),
-                        gaDb, trainJudgmentList,
-                        "seed_test_fold_" + fold, false);
+        int seeds = 0;
+        for (String name : experimentSet.getExperiments().keySet()) {
+            if (name.startsWith(trainFoldSeedPrefix)) {
+                seeds++;
+            }
+        }
+        runStatus.setGeneration(GACheckpoint.SEED_GENERATION, getGenerations());
+        updatePlan(fold, GACheckpoint.SEED_GENERATION, seeds);
+        for (Experiment ex : experimentSet.getExperiments().values()) {
+            if (ex.getName().startsWith(trainFoldSeedPrefix)) {
+                population.put(ex);
+                runAndScore(ex, gaDb, population, trainJudgmentList,
+                        "seed_test_fold_" + fold);
             }
         }
 
         System.out.println("FOLD " + fold + " TRAINING (SEED)");
-        List<ExperimentNameScorePair> scores = gaDb.getNBestExperimentNames(
-                trainFoldSeedPrefix, 10,
-                experimentFactory.getTrainScorer().getPrimaryStatisticName());
+        List<ExperimentScorePair> scores = population.getNBestExperiments(
+                trainFoldSeedPrefix, 10);
 
-        for (ExperimentNameScorePair esp : scores) {
-            System.out.println("experiment '" + esp.getExperimentName() + "': "
+        for (ExperimentScorePair esp : scores) {
+            System.out.println("experiment '" + esp.getExperiment().getName() + "': "
                     + threePlaces.format(esp.getScore()));
         }
         System.out.println("");
@@ -386,32 +504,85 @@ public class RunGA extends AbstractExperimentRunner {
 
     }
 
-    private void runGeneration(int fold, int generation, ExperimentDB experimentDB,
+    /**
+     * Runs experiments unless they have a complete set of scores.
+     * Partial results from an interrupted run are cleared first.
+     *
+     * @return whether or not the experiment was run
+     */
+    private boolean runUnlessScored(Experiment experiment, ExperimentDB experimentDB,
+                                    JudgmentList judgmentList, String judgmentListId)
+            throws SQLException, IOException, SearchClientException {
+        if (experimentDB.hasAggregatedScores(experiment.getName())) {
+            LOG.debug("already has scores: " + experiment.getName());
+            runStatus.experimentFinished();
+            return false;
+        }
+        experimentDB.clearPartialResults(experiment.getName());
+        runExperiment(experiment, experimentFactory.getScorers(), experimentFactory.getMaxRows(),
+                experimentDB, judgmentList, judgmentListId, false);
+        return true;
+    }
+
+    /**
+     * Runs a training experiment unless it has already been scored and
+     * records its training score in the population.
+     */
+    private void runAndScore(Experiment experiment, ExperimentDB experimentDB,
+                             GAPopulation population, JudgmentList judgmentList,
+                             String judgmentListId)
+            throws SQLException, IOException, SearchClientException {
+        if (runUnlessScored(experiment, experimentDB, judgmentList, judgmentListId)) {
+            //the scorers still hold this experiment's scores
+            double score = experimentFactory.getTrainScorer().getPrimaryStatistic(
+                    QueryInfo.DEFAULT_QUERY_SET);
+            population.setScore(experiment.getName(), score);
+            runStatus.updateBest(experiment.getName(), score);
+        } else if (population.getScore(experiment.getName()) == null) {
+            LOG.warn("couldn't find a score for " + experiment.getName() +
+                    "; it won't be available as a parent");
+        } else {
+            runStatus.updateBest(experiment.getName(),
+                    population.getScore(experiment.getName()));
+        }
+    }
+
+    private void runGeneration(int fold, int generation, GADB experimentDB,
+                               GAPopulation population,
                                ExperimentFactory experimentFactory,
-                               JudgmentList judgmentList, GAPaths gaPaths)
+                               JudgmentList judgmentList, GAPaths gaPaths,
+                               GACheckpoint generated)
             throws SQLException, IOException, SearchClientException {
-        List<String> experimentNames = generateNewExperiments(fold, generation,
-                experimentDB, experimentFactory);
+        if (generated == null) {
+            List<String> names = generateNewExperiments(fold, generation,
+                    population, experimentFactory, getGenerationSeed(fold, generation));
+            generated = new GACheckpoint(fold, generation, GACheckpoint.STATE.GENERATED,
+                    runSeed.getSeed(), names);
+            population.addCheckpoint(generated);
+        }
+        List<String> experimentNames = generated.getExperimentNames();
         LOG.info("starting generation " + generation + " for fold " + fold);
+        runStatus.setGeneration(generation, getGenerations());
+        updatePlan(fold, generation, experimentNames.size());
+        ExperimentSet experimentSet = new ExperimentSet(experimentFactory.getGAConfig());
         for (String experimentName : experimentNames) {
-            Experiment ex = experimentDB.getExperiment(experimentName);
-            runExperiment(ex, experimentFactory.getScorers(), experimentFactory.getMaxRows(),
-                    experimentDB, judgmentList, "foldId_" + fold,
-                    false);
+            Experiment ex = population.getExperiment(experimentName);
+            runAndScore(ex, experimentDB, population, judgmentList, "foldId_" + fold);
+            experimentSet.addExperiment(ex);
         }
+        population.addCheckpoint(new GACheckpoint(fold, generation,
+                GACheckpoint.STATE.SCORED, runSeed.getSeed(), experimentNames));
         if (LOG.isDebugEnabled()) {
             String experimentPrefix = TRAIN_PREFIX + FOLD_PREFIX + fold + "_" + GEN_PREFIX
-                    + generation;
-            List<ExperimentNameScorePair> results = experimentDB.getNBestExperimentNames(
-                    experimentPrefix, 10,
-                    experimentFactory.getTrainScorer().getPrimaryStatisticName());
-
-            for (ExperimentNameScorePair experimentScorePair : results) {
+                    + generation + "_";
+            for (ExperimentScorePair experimentScorePair :
+                    population.getNBestExperiments(experimentPrefix, 10)) {
                 LOG.debug(experimentScorePair);
             }
-
         }
-        ExperimentSet experimentSet = experimentDB.getExperiments(experimentFactory.getGAConfig());
+        for (Scorer scorer : experimentFactory.getScorers()) {
+            experimentSet.addScorer(scorer);
+        }
         String json = experimentSet.toJson(experimentNames);
 
         Files.write(gaPaths.outputDir.resolve("fold_" + fold + "_gen_" + generation +
@@ -419,18 +590,55 @@ public class RunGA extends AbstractExperimentRunner {
                 json.getBytes(StandardCharsets.UTF_8));
     }
 
-    private List<String> generateNewExperiments(int fold, int generation,
-                                                ExperimentDB experimentDB,
-                                                ExperimentFactory experimentFactory)
+    /**
+     * Estimates the number of experiments in the run for the status
+     * server, assuming that the generations in the later folds
+     * are the same size as this one.
+     *
+     * @param generation {@link GACheckpoint#SEED_GENERATION} for the seed
+     */
+    private void updatePlan(int fold, int generation, int generationSize) {
+        //the seed, the generations and the test experiment
+        int perFold = (getGenerations() + 1) * generationSize + 1;
+        int left = (getGenerations() - generation) * generationSize + 1 +
+                (numFolds - fold - 1) * perFold;
+        runStatus.setExperimentsPlanned(runStatus.getExperimentsDone() + left);
+    }
+
+    /**
+     * @return the number of generations to run after the seed generation
+     */
+    protected int getGenerations() {
+        return gaConfig.getGenerations();
+    }
+
+    /**
+     * @return the seed for this fold and generation; the seed generation is
+     * {@link GACheckpoint#SEED_GENERATION}
+     */
+    SplittableSeed getGenerationSeed(int fold, int generation) {
+        return runSeed.split(fold).split(generation);
+    }
+
+    /**
+     * Generates and adds to the db the experiments for the next generation.
+     *
+     * @param generationSeed seed for this generation; to keep runs reproducible,
+     *                       split this per individual rather than sharing one Random
+     * @return the names of the new experiments
+     */
+    protected List<String> generateNewExperiments(int fold, int generation,
+                                                GAPopulation population,
+                                                ExperimentFactory experimentFactory,
+                                                SplittableSeed generationSeed)
             throws SQLException {
 
         //this currently only pulls from the previous generation
-        String genString = (generation == 0) ? "seed" : GEN_PREFIX + (generation - 1);
+        String genString = (generation == 0) ? SEED_PREFIX : GEN_PREFIX + (generation - 1) + "_";
 
-        List<ExperimentScorePair> scorePairs = experimentDB.getNBestExperiments(
+        List<ExperimentScorePair> scorePairs = population.getNBestExperiments(
                 TRAIN_PREFIX + FOLD_PREFIX + fold + "_" + genString,
-                gaConfig.getPopulation(),
-                experimentFactory.getTrainScorer().getPrimaryStatisticName());
+                gaConfig.getPopulation());
 
         if (scorePairs.size() == 0) {
             throw new IllegalArgumentException(
@@ -442,16 +650,21 @@ public class RunGA extends AbstractExperimentRunner {
         List<String> nextGenExpNames = new ArrayList<>();
 
         while (nextGenExpNames.size() < gaConfig.getPopulation()) {
-            GAOperation gaOperation = MathUtil.nextGAOperation(gaConfig);
+            //each individual (or pair from a crossover) gets its own random
+            Random random = generationSeed.split(nextGenExpNames.size()).newRandom();
+            GAOperation gaOperation = MathUtil.nextGAOperation(gaConfig, random);
             switch (gaOperation) {
                 case CROSSOVER:
-                    crossover(fold, generation, fitnessProportions, nextGenExpNames, experimentDB);
+                    crossover(fold, generation, fitnessProportions, nextGenExpNames, population,
+                            random);
                     break;
                 case REPRODUCE:
-                    reproduce(fold, generation, fitnessProportions, nextGenExpNames, experimentDB);
+                    reproduce(fold, generation, fitnessProportions, nextGenExpNames, population,
+                            random);
                     break;
                 case MUTATE:
-                    mutate(fold, generation, fitnessProportions, nextGenExpNames, experimentDB);
+                    mutate(fold, generation, fitnessProportions, nextGenExpNames, population,
+                            random);
                     break;
             }
         }
@@ -460,51 +673,50 @@ public class RunGA extends AbstractExperimentRunner {
 
     private void mutate(int fold, int generation,
                         List<ExperimentScorePair> fitnessProportions,
-                        List<String> nextGenExpNames, ExperimentDB experimentDB)
-            throws SQLException {
-        Experiment parent = MathUtil.select(fitnessProportions);
+                        List<String> nextGenExpNames, GAPopulation population, Random random) {
+        Experiment parent = MathUtil.select(fitnessProportions, random);
         Experiment mutated = experimentFactory.mutate(parent,
-                gaConfig.getMutationProbability(), gaConfig.getMutationAmplitude());
+                gaConfig.getMutationProbability(), gaConfig.getMutationAmplitude(), random);
         String name = getTrainExperimentName(fold, generation, nextGenExpNames.size());
         mutated.setName(name);
         nextGenExpNames.add(name);
-        experimentDB.addExperiment(mutated);
+        population.addExperiment(mutated);
     }
 
     private void reproduce(int fold, int generation, List<ExperimentScorePair> fitnessProportions,
-                           List<String> nextGenExpNames, ExperimentDB experimentDB)
-            throws SQLException {
-        Experiment parent = MathUtil.select(fitnessProportions);
+                           List<String> nextGenExpNames, GAPopulation population,
+                           Random random) {
+        Experiment parent = MathUtil.select(fitnessProportions, random);
         LOG.trace("reproducing: " + parent);
         String name = getTrainExperimentName(fold, generation, nextGenExpNames.size());
         Experiment child = parent.deepCopy();
         child.setName(name);
-        experimentDB.addExperiment(child);
+        population.addExperiment(child);
         nextGenExpNames.add(name);
     }
 
     private void crossover(int fold, int generation, List<ExperimentScorePair> fitnessProportions,
-                           List<String> nextGenExpNames, ExperimentDB experimentDB)
-            throws SQLException {
-        Experiment parentA = MathUtil.select(fitnessProportions);
-        Experiment parentB = MathUtil.select(fitnessProportions);
+                           List<String> nextGenExpNames, GAPopulation population,
+                           Random random) {
+        Experiment parentA = MathUtil.select(fitnessProportions, random);
+        Experiment parentB = MathUtil.select(fitnessProportions, random);
         int tries = 0;
         while (parentA.getName().equals(parentB.getName()) && tries++ < 5) {
-            parentA = MathUtil.select(fitnessProportions);
-            parentB = MathUtil.select(fitnessProportions);
+            parentA = MathUtil.select(fitnessProportions, random);
+            parentB = MathUtil.select(fitnessProportions, random);
         }
         if (tries == 5 && parentA.getName().equals(parentB.getName())) {
             LOG.warn("crossover with self: " + parentA.getName());
         }
         LOG.trace("crossing over: " + parentA + " : " + parentB);
-        Pair<Experiment, Experiment> pair = experimentFactory.crossover(parentA, parentB);
+        Pair<Experiment, Experiment> pair = experimentFactory.crossover(parentA, parentB, random);
 
         String nameA = getTrainExperimentName(fold, generation, nextGenExpNames.size());
         pair.getLeft().setName(nameA);
 
         LOG.trace(parentA +
                 "\n+\n" + parentB + "\n->\n" + pair.getLeft());
-        experimentDB.addExperiment(pair.getLeft());
+        population.addExperiment(pair.getLeft());
         nextGenExpNames.add(nameA);
 
         if (nextGenExpNames.size() >= gaConfig.getPopulation()) {
@@ -516,7 +728,7 @@ public class RunGA extends AbstractExperimentRunner {
         LOG.trace("childB: " + pair.getRight());
 
         nextGenExpNames.add(nameB);
-        experimentDB.addExperiment(pair.getRight());
+        population.addExperiment(pair.getRight());
     }
 
     private String getSeedName(int fold, int i) {
@@ -530,23 +742,24 @@ public class RunGA extends AbstractExperimentRunner {
                         trainExperimentName.length());
     }
 
-    private String getTrainExperimentName(int fold, int generation, int i) {
+    String getTrainExperimentName(int fold, int generation, int i) {
         return TRAIN_PREFIX + FOLD_PREFIX + fold + "_" + GEN_PREFIX + generation + "_exp_" + i;
     }
 
     private void generateRandomSeeds(ExperimentFactory experimentFactory, GADB gadb)
             throws SQLException {
         for (int fold = 0; fold < gaConfig.getNFolds(); fold++) {
+            SplittableSeed seed = getGenerationSeed(fold, GACheckpoint.SEED_GENERATION);
             for (int i = 0; i < gaConfig.getPopulation(); i++) {
                 Experiment ex = experimentFactory.generateRandomExperiment(
-                        getSeedName(fold, i));
+                        getSeedName(fold, i), seed.split(i).newRandom());
                 gadb.addExperiment(ex);
             }
         }
     }
 
 
-    private static class GAPaths {
+    static class GAPaths {
         Path testJudgmentsFile;
         Path trainJudgmentsFile;
         Path judgmentsFile;
@@ -554,9 +767,11 @@ public class RunGA extends AbstractExperimentRunner {
         Path experimentFactory;
         Path seedExperiments;
         Path outputDir;
+        boolean resume;
+        Long seed;
     }
 
-    private static void validateSettings(ExperimentFactory experimentFactory) {
+    static void validateSettings(ExperimentFactory experimentFactory) {
         GAConfig gaConfig = experimentFactory.getGAConfig();
         double gaOpProbs = gaConfig.getCrossoverProbability() +
                 gaConfig.getMutationProbability() + gaConfig.getReproductionProbability();
@@ -589,7 +804,7 @@ public class RunGA extends AbstractExperimentRunner {
         }
     }
 
-    private static void validateCommandLine(GAPaths gaPaths) {
+    static void validateCommandLine(GAPaths gaPaths) {
         if (gaPaths.judgmentsFile != null &&
                 (gaPaths.trainJudgmentsFile != null
                         || gaPaths.testJudgmentsFile != null)) {
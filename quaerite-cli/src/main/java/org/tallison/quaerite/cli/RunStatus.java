@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live progress of a run: which experiment (and fold/generation) is
+ * running, how many of its queries are done, the search throughput
+ * and error rate over a moving window, the best score so far and an
+ * estimate of the time left.
+ * <p>
+ * The query runners update the counters; everything else is updated
+ * by the runner's thread between experiments.
+ */
+class RunStatus {
+
+    //number of throughput samples in the moving window
+    static final int WINDOW = 60;
+    //minimum time between samples
+    static final long SAMPLE_NANOS = 1000000000L;
+
+    //the most recently created runner's status, for the daemon
+    private static volatile RunStatus CURRENT = null;
+
+    private final String job;
+    private final long started = System.currentTimeMillis();
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicLong searches = new AtomicLong(0);
+    private final AtomicLong searchErrors = new AtomicLong(0);
+    private final AtomicLong queriesDone = new AtomicLong(0);
+    private final AtomicLong queriesFailed = new AtomicLong(0);
+
+    //the rest is guarded by this
+    private int experimentsPlanned = -1;
+    private int experimentsDone = 0;
+    private String experiment = null;
+    private int experimentQueries = 0;
+    private long experimentQueriesStart = 0;
+    private int folds = -1;
+    private int fold = -1;
+    private int generations = -1;
+    private int generation = -1;
+    private String bestExperiment = null;
+    private double bestScore = Double.NaN;
+
+    private final long[] sampleNanos = new long[WINDOW];
+    private final long[] sampleQueries = new long[WINDOW];
+    private final long[] sampleSearches = new long[WINDOW];
+    private final long[] sampleErrors = new long[WINDOW];
+    private int samples = 0;
+    private int nextSample = 0;
+
+    RunStatus(String job) {
+        this.job = job;
+    }
+
+    static RunStatus getCurrent() {
+        return CURRENT;
+    }
+
+    static void setCurrent(RunStatus runStatus) {
+        CURRENT = runStatus;
+    }
+
+    void searchStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    void searchFinished(boolean success) {
+        inFlight.decrementAndGet();
+        searches.incrementAndGet();
+        if (!success) {
+            searchErrors.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param success whether the query was scored or given up on
+     */
+    void queryFinished(boolean success) {
+        queriesDone.incrementAndGet();
+        if (!success) {
+            queriesFailed.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param experimentsPlanned total number of experiments in the run,
+     *                           including those already done; this may
+     *                           be an estimate and may be revised
+     */
+    synchronized void setExperimentsPlanned(int experimentsPlanned) {
+        this.experimentsPlanned = experimentsPlanned;
+    }
+
+    synchronized int getExperimentsDone() {
+        return experimentsDone;
+    }
+
+    synchronized void setFold(int fold, int folds) {
+        this.fold = fold;
+        this.folds = folds;
+        //scores aren't comparable across folds
+        bestExperiment = null;
+        bestScore = Double.NaN;
+    }
+
+    synchronized void setGeneration(int generation, int generations) {
+        this.generation = generation;
+        this.generations = generations;
+    }
+
+    synchronized void experimentStarted(String experiment, int numQueries) {
+        this.experiment = experiment;
+        this.experimentQueries = numQueries;
+        this.experimentQueriesStart = queriesDone.get();
+        tick();
+    }
+
+    /**
+     * Call this for experiments that are skipped, too, so that
+     * the number done matches the number planned
+     */
+    synchronized void experimentFinished() {
+        experimentsDone++;
+        experiment = null;
+        tick();
+    }
+
+    /**
+     * @param experiment experiment name
+     * @param score score; NaN, e.g. for a missing statistic, is ignored
+     */
+    synchronized void updateBest(String experiment, double score) {
+        if (Double.isNaN(score)) {
+            return;
+        }
+        if (Double.isNaN(bestScore) || score > bestScore) {
+            bestExperiment = experiment;
+            bestScore = score;
+        }
+    }
+
+    /**
+     * Adds a throughput sample to the moving window unless the last one
+     * was taken less than a second ago.  This should be called regularly,
+     * e.g. once a second by the status server.
+     */
+    void tick() {
+        tick(System.nanoTime());
+    }
+
+    synchronized void tick(long now) {
+        if (samples > 0 && now - sampleNanos[newest()] < SAMPLE_NANOS) {
+            return;
+        }
+        sample(now);
+    }
+
+    /**
+     * @return queries per second over the moving window, or -1 if there
+     * aren't yet two samples
+     */
+    synchronized double getQueriesPerSecond() {
+        if (samples < 2) {
+            return -1;
+        }
+        int oldest = oldest();
+        int newest = newest();
+        double seconds = (sampleNanos[newest] - sampleNanos[oldest]) / 1e9;
+        return (seconds <= 0) ? -1 :
+                (sampleQueries[newest] - sampleQueries[oldest]) / seconds;
+    }
+
+    /**
+     * @return estimated seconds left in the run (or in the current experiment
+     * if the number of experiments isn't known), or -1 if there isn't
+     * enough information
+     */
+    synchronized double getEtaSeconds() {
+        double qps = getQueriesPerSecond();
+        if (qps <= 0 || experimentQueries <= 0) {
+            return -1;
+        }
+        long remaining = 0;
+        if (experiment != null) {
+            remaining += Math.max(0, experimentQueries -
+                    (queriesDone.get() - experimentQueriesStart));
+        }
+        if (experimentsPlanned > 0) {
+            int experimentsLeft = experimentsPlanned - experimentsDone -
+                    ((experiment == null) ? 0 : 1);
+            remaining += (long) Math.max(0, experimentsLeft) * experimentQueries;
+        }
+        return remaining / qps;
+    }
+
+    /**
+     * @return a snapshot suitable for serializing to json
+     */
+    synchronized Map<String, Object> toMap() {
+        tick();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("job", job);
+        m.put("startedMillis", started);
+        m.put("elapsedSeconds", (System.currentTimeMillis() - started) / 1000);
+        if (folds > 0) {
+            m.put("fold", fold);
+            m.put("folds", folds);
+        }
+        if (generations > 0) {
+            m.put("generation", generation);
+            m.put("generations", generations);
+        }
+        Map<String, Object> experiments = new LinkedHashMap<>();
+        experiments.put("done", experimentsDone);
+        if (experimentsPlanned > 0) {
+            experiments.put("planned", experimentsPlanned);
+        }
+        if (experiment != null) {
+            experiments.put("current", experiment);
+            experiments.put("currentQueriesDone", queriesDone.get() - experimentQueriesStart);
+            experiments.put("currentQueries", experimentQueries);
+        }
+        m.put("experiments", experiments);
+
+        Map<String, Object> queries = new LinkedHashMap<>();
+        queries.put("done", queriesDone.get());
+        queries.put("failed", queriesFailed.get());
+        queries.put("perSecond", round(getQueriesPerSecond()));
+        m.put("queries", queries);
+
+        Map<String, Object> searchMap = new LinkedHashMap<>();
+        searchMap.put("inFlight", inFlight.get());
+        searchMap.put("total", searches.get());
+        searchMap.put("errors", searchErrors.get());
+        searchMap.put("errorRate", round(getErrorRate()));
+        m.put("searches", searchMap);
+
+        if (bestExperiment != null) {
+            Map<String, Object> best = new LinkedHashMap<>();
+            best.put("experiment", bestExperiment);
+            best.put("score", bestScore);
+            m.put("best", best);
+        }
+        m.put("etaSeconds", round(getEtaSeconds()));
+        return m;
+    }
+
+    /**
+     * @return fraction of searches that failed over the moving window,
+     * or 0 if there were no searches
+     */
+    synchronized double getErrorRate() {
+        if (samples < 2) {
+            long s = searches.get();
+            return (s == 0) ? 0.0 : (double) searchErrors.get() / (double) s;
+        }
+        int oldest = oldest();
+        int newest = newest();
+        long s = sampleSearches[newest] - sampleSearches[oldest];
+        return (s == 0) ? 0.0 :
+                (double) (sampleErrors[newest] - sampleErrors[oldest]) / (double) s;
+    }
+
+    private void sample(long now) {
+        sampleNanos[nextSample] = now;
+        sampleQueries[nextSample] = queriesDone.get();
+        sampleSearches[nextSample] = searches.get();
+        sampleErrors[nextSample] = searchErrors.get();
+        nextSample = (nextSample + 1) % WINDOW;
+        if (samples < WINDOW) {
+            samples++;
+        }
+    }
+
+    private int newest() {
+        return (nextSample + WINDOW - 1) % WINDOW;
+    }
+
+    private int oldest() {
+        return (samples < WINDOW) ? 0 : nextSample;
+    }
+
+    private static double round(double d) {
+        return Math.round(d * 1000.0) / 1000.0;
+    }
+}
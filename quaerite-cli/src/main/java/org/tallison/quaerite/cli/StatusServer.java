@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.core.metrics.Counter;
+import org.tallison.quaerite.core.metrics.Metrics;
+import org.tallison.quaerite.core.metrics.Snapshot;
+import org.tallison.quaerite.core.metrics.Timer;
+
+/**
+ * Serves a run's {@link RunStatus} as json on localhost, e.g.
+ * <code>curl http://127.0.0.1:port/status</code>.  If metrics are
+ * enabled, <code>/metrics</code> serves the timers and counters.
+ */
+class StatusServer implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(StatusServer.class);
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final RunStatus runStatus;
+    private final int port;
+    private final ScheduledExecutorService ticker =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "status-ticker");
+                t.setDaemon(true);
+                return t;
+            });
+    private HttpServer server;
+
+    /**
+     * @param port port to listen on; 0 picks a free port
+     */
+    StatusServer(RunStatus runStatus, int port) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("port must be between 0 and 65535: " + port);
+        }
+        this.runStatus = runStatus;
+        this.port = port;
+    }
+
+    void start() throws IOException {
+        server = ServerBootstrap.bootstrap()
+                .setLocalAddress(InetAddress.getLoopbackAddress())
+                .setListenerPort(port)
+                .setServerInfo("quaerite-status")
+                .registerHandler("*", this::handle)
+                .create();
+        server.start();
+        ticker.scheduleAtFixedRate(runStatus::tick, 1, 1, TimeUnit.SECONDS);
+        LOG.info("serving status on " + getUrl());
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getLocalPort() + "/status";
+    }
+
+    @Override
+    public void close() throws IOException {
+        ticker.shutdownNow();
+        if (server != null) {
+            server.shutdown(0, TimeUnit.SECONDS);
+            server = null;
+        }
+    }
+
+    private void handle(HttpRequest request, HttpResponse response, HttpContext context) {
+        String path = URI.create(request.getRequestLine().getUri()).getPath();
+        Object body;
+        if (path.equals("/") || path.equals("/status")) {
+            response.setStatusCode(200);
+            body = runStatus.toMap();
+        } else if (path.equals("/metrics")) {
+            response.setStatusCode(200);
+            body = getMetrics();
+        } else {
+            response.setStatusCode(404);
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", "try /status or /metrics");
+            body = error;
+        }
+        response.setEntity(new ByteArrayEntity(
+                GSON.toJson(body).getBytes(StandardCharsets.UTF_8),
+                ContentType.APPLICATION_JSON));
+    }
+
+    private static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", Metrics.isEnabled());
+        Map<String, Object> timers = new LinkedHashMap<>();
+        for (Timer timer : Metrics.getTimers()) {
+            Snapshot s = timer.getSnapshot();
+            if (s.getCount() == 0) {
+                continue;
+            }
+            Map<String, Object> t = new LinkedHashMap<>();
+            t.put("count", s.getCount());
+            t.put("meanMillis", millis(s.getMeanNanos()));
+            t.put("p50Millis", millis(s.getQuantileNanos(0.5)));
+            t.put("p90Millis", millis(s.getQuantileNanos(0.9)));
+            t.put("p99Millis", millis(s.getQuantileNanos(0.99)));
+            t.put("maxMillis", millis(s.getMaxNanos()));
+            timers.put(timer.getName(), t);
+        }
+        metrics.put("timers", timers);
+        Map<String, Object> counters = new LinkedHashMap<>();
+        for (Counter counter : Metrics.getCounters()) {
+            counters.put(counter.getName(), counter.getCount());
+        }
+        metrics.put("counters", counters);
+        return metrics;
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / NANOS_PER_MILLI * 1000.0) / 1000.0;
+    }
+}
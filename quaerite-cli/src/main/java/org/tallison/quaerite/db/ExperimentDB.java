@@ -62,6 +62,9 @@ public class ExperimentDB implements Closeable {
     private static Gson GSON = new GsonBuilder().create();
 
     static Logger LOG = LogManager.getLogger(ExperimentDB.class);
+
+    private static volatile boolean KEEP_OPEN = false;
+
     final Connection connection;
     private final PreparedStatement selectExperiments;
     private final PreparedStatement selectOneExperiment;
@@ -97,8 +100,7 @@ public class ExperimentDB implements Closeable {
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
-        return new ExperimentDB(DriverManager.getConnection(
-                "jdbc:h2:" + dbDir.resolve("h2_database").toAbsolutePath()), true);
+        return new ExperimentDB(DriverManager.getConnection(getJdbcUrl(dbDir)), true);
     }
 
     public static ExperimentDB open(Path dbDir) throws SQLException, IOException {
@@ -107,10 +109,21 @@ public class ExperimentDB implements Closeable {
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
-        return new ExperimentDB(DriverManager.getConnection(
-                "jdbc:h2:" +
-                        dbDir.resolve("h2_database").toAbsolutePath()),
-                false);
+        return new ExperimentDB(DriverManager.getConnection(getJdbcUrl(dbDir)), false);
+    }
+
+    /**
+     * Keeps each database open in this jvm after its last connection is
+     * closed so that reopening it is cheap, e.g. in a long-lived daemon.
+     * While a database is kept open, other processes can't open it.
+     */
+    public static void setKeepOpen(boolean keepOpen) {
+        KEEP_OPEN = keepOpen;
+    }
+
+    static String getJdbcUrl(Path dbDir) {
+        return "jdbc:h2:" + dbDir.resolve("h2_database").toAbsolutePath() +
+                (KEEP_OPEN ? ";DB_CLOSE_DELAY=-1" : "");
     }
 
     ExperimentDB(Connection connection, boolean dropAll) throws SQLException {
@@ -166,6 +179,7 @@ public class ExperimentDB implements Closeable {
         initJudgments();
         initScorers();
         initSearchResults();
+        initValidatedIds();
     }
 
     private void dropTables() throws SQLException {
@@ -229,6 +243,20 @@ public class ExperimentDB implements Closeable {
 
     }
 
+    private void initValidatedIds() throws SQLException {
+        //this caches which judgment ids were found in an index.
+        //It is not dropped with the other tables because
+        //it is keyed by the index's version
+        String sql = "CREATE TABLE IF NOT EXISTS " +
+                "VALIDATED_IDS( " +
+                "SERVER VARCHAR(2048), " +
+                "INDEX_VERSION VARCHAR(2048), " +
+                "ID VARCHAR(1024), " +
+                "VALID BOOLEAN, " +
+                "PRIMARY KEY (SERVER, INDEX_VERSION, ID));";
+        executeSQL(connection, sql);
+    }
+
     static boolean executeSQL(Connection connection, String sql) throws SQLException {
         try (Statement st = connection.createStatement()) {
             return st.execute(sql);
@@ -647,6 +675,105 @@ public class ExperimentDB implements Closeable {
         return false;
     }
 
+    /**
+     * @param experimentName
+     * @return whether the experiment has aggregated scores, i.e. whether all
+     * of its queries were run and scored
+     * @throws SQLException
+     */
+    public boolean hasAggregatedScores(String experimentName) throws SQLException {
+        if (! tableExists("SCORES_AGGREGATED")) {
+            return false;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "select experiment from scores_aggregated where experiment=? limit 1")) {
+            ps.setString(1, experimentName);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Removes the scores and search results from an experiment that
+     * didn't finish so that it can be rerun
+     *
+     * @param experimentName
+     * @throws SQLException
+     */
+    public void clearPartialResults(String experimentName) throws SQLException {
+        clearScores(experimentName);
+        try (PreparedStatement ps = connection.prepareStatement(
+                "delete from search_results where experiment_name=?")) {
+            ps.setString(1, experimentName);
+            ps.execute();
+        }
+    }
+
+    /**
+     * @param server key for the server, id field, etc.
+     * @param indexVersion version of the index as reported by the search client
+     * @return map of id -> whether the id was found, for ids that have
+     * been validated against this server and index version
+     * @throws SQLException
+     */
+    public Map<String, Boolean> getValidatedIds(String server, String indexVersion)
+            throws SQLException {
+        Map<String, Boolean> ids = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "select id, valid from validated_ids where server=? and index_version=?")) {
+            ps.setString(1, server);
+            ps.setString(2, indexVersion);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.put(rs.getString(1), rs.getBoolean(2));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Stores the results of validating ids.  This removes the results
+     * for any other index versions for this server.
+     *
+     * @param server key for the server, id field, etc.
+     * @param indexVersion version of the index as reported by the search client
+     * @param checked ids that were checked
+     * @param valid subset of checked ids that were found
+     * @throws SQLException
+     */
+    public void addValidatedIds(String server, String indexVersion,
+                                Collection<String> checked, Set<String> valid)
+            throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "delete from validated_ids where server=? and index_version<>?")) {
+            ps.setString(1, server);
+            ps.setString(2, indexVersion);
+            ps.execute();
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "merge into validated_ids (server, index_version, id, valid) " +
+                        "key (server, index_version, id) values (?,?,?,?)")) {
+            int batched = 0;
+            for (String id : checked) {
+                ps.clearParameters();
+                ps.setString(1, server);
+                ps.setString(2, indexVersion);
+                ps.setString(3, id);
+                ps.setBoolean(4, valid.contains(id));
+                ps.addBatch();
+                if (++batched >= 1000) {
+                    ps.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                ps.executeBatch();
+            }
+        }
+    }
+
     public String getLatestExperiment() throws SQLException {
         String sql = "select name from experiments order by last_edited desc limit 1";
         try (Statement st = connection.createStatement()) {
@@ -796,14 +923,17 @@ public class ExperimentDB implements Closeable {
             prefix = prefix.substring(0, prefix.length() - 1);
         }
         prefix = prefix + "%";
-        String prefixIlike = StringUtils.isBlank(prefix) ? StringUtils.EMPTY :
-                "where sa.experiment ilike '" + prefix + "' ";
+        //scores_aggregated has a row per query set; only use the overall score
+        String where = "where sa.query_set='" + QueryInfo.DEFAULT_QUERY_SET + "' ";
+        if (!StringUtils.isBlank(prefix)) {
+            where += "and sa.experiment ilike '" + prefix + "' ";
+        }
 
         String limit = (num > -1) ? "limit " + num : StringUtils.EMPTY;
         String sql = "select sa.experiment, e.json, sa." + scorerName + " " +
                 "from scores_aggregated sa " +
                 "join experiments e on sa.experiment=e.name " +
-                prefixIlike +
+                where +
                 "order by " + scorerName + " desc " +
                 limit;
 
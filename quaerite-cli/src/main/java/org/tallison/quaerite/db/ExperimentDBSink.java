@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.db;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.tallison.quaerite.connectors.eval.EvaluationResult;
+import org.tallison.quaerite.connectors.eval.EvaluationSink;
+import org.tallison.quaerite.connectors.eval.QueryEvaluation;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.scorers.Scorer;
+
+/**
+ * Writes an evaluation's search results, per query scores and aggregated
+ * scores to the experiment database so that the usual reports can be
+ * dumped.  As with RunExperiments, the judgments must already be loaded
+ * into the database for the per query reports.  Failed queries are skipped.
+ * <p>
+ * The database is not closed by this sink.
+ */
+public class ExperimentDBSink implements EvaluationSink {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final ExperimentDB experimentDB;
+    private Experiment experiment;
+    private List<Scorer> scorers;
+    private QueryRunnerDBClient dbClient;
+    private int batched = 0;
+
+    public ExperimentDBSink(ExperimentDB experimentDB) {
+        this.experimentDB = experimentDB;
+    }
+
+    @Override
+    public void start(Experiment experiment, List<Scorer> scorers) throws IOException {
+        close();
+        this.experiment = experiment;
+        this.scorers = scorers;
+        try {
+            experimentDB.initScoreTable(scorers);
+            experimentDB.addExperiment(experiment, true);
+            dbClient = experimentDB.getQueryRunnerDBClient(scorers);
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void accept(QueryEvaluation queryEvaluation) throws IOException {
+        if (!queryEvaluation.isSuccess()) {
+            return;
+        }
+        try {
+            dbClient.insertSearchResults(queryEvaluation.getQueryInfo(),
+                    experiment.getName(), queryEvaluation.getSearchResultSet());
+            dbClient.insertScores(queryEvaluation.getQueryInfo(), experiment.getName(),
+                    scorers, queryEvaluation.getScores());
+            if (++batched >= BATCH_SIZE) {
+                batched = 0;
+                dbClient.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void finish(EvaluationResult evaluationResult) throws IOException {
+        close();
+        try {
+            experimentDB.insertScoresAggregated(experiment.getName(), scorers);
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (dbClient != null) {
+            QueryRunnerDBClient client = dbClient;
+            dbClient = null;
+            batched = 0;
+            client.close();
+        }
+    }
+}
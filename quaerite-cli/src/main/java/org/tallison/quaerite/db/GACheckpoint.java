@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records how far a fold has progressed in a GA run so that the run
+ * can be resumed.  The experiments, fold assignments and scores
+ * themselves are stored in the {@link GADB}.
+ * <p>
+ * Generation -1 is the seed generation.
+ */
+public class GACheckpoint {
+
+    public enum STATE {
+        //folds and seeds have been loaded, but the seeds have not been scored
+        INITIALIZED,
+        //the experiments for the generation have been added to the db
+        GENERATED,
+        //all of the experiments in the generation have been scored
+        SCORED,
+        //the best training experiment has been scored on the test set
+        TESTED
+    }
+
+    public static final int SEED_GENERATION = -1;
+
+    private final int fold;
+    private final int generation;
+    private final STATE state;
+    private final long randomSeed;
+    private final List<String> experimentNames;
+
+    public GACheckpoint(int fold, int generation, STATE state, long randomSeed,
+                        List<String> experimentNames) {
+        this.fold = fold;
+        this.generation = generation;
+        this.state = state;
+        this.randomSeed = randomSeed;
+        this.experimentNames = new ArrayList<>(experimentNames);
+    }
+
+    public int getFold() {
+        return fold;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public STATE getState() {
+        return state;
+    }
+
+    /**
+     * @return the seed for the random number generator that was used to
+     * generate this generation
+     */
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    /**
+     * @return the names of the experiments in this generation
+     */
+    public List<String> getExperimentNames() {
+        return experimentNames;
+    }
+
+    @Override
+    public String toString() {
+        return "GACheckpoint{" +
+                "fold=" + fold +
+                ", generation=" + generation +
+                ", state=" + state +
+                ", randomSeed=" + randomSeed +
+                ", experimentNames=" + experimentNames +
+                '}';
+    }
+}
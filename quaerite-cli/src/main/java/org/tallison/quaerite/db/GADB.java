@@ -24,29 +24,37 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import org.tallison.quaerite.core.JudgmentList;
 import org.tallison.quaerite.core.Judgments;
-import org.tallison.quaerite.core.util.MathUtil;
 
 /**
  * Extends ExperimentDB to add more functionality for GA.
  */
 public class GADB extends ExperimentDB {
 
+    private static Gson GSON = new GsonBuilder().create();
+
     public static GADB openAndDrop(Path dbDir) throws SQLException, IOException {
         try {
             Class.forName("org.h2.Driver");
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
-        return new GADB(DriverManager.getConnection(
-                "jdbc:h2:" + dbDir.resolve("h2_database").toAbsolutePath()), true);
+        return new GADB(DriverManager.getConnection(getJdbcUrl(dbDir)), true);
     }
 
     public static GADB open(Path dbDir) throws SQLException, IOException {
@@ -55,14 +63,97 @@ public class GADB extends ExperimentDB {
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
-        return new GADB(DriverManager.getConnection(
-                "jdbc:h2:" + dbDir.resolve("h2_database").toAbsolutePath()), false);
+        return new GADB(DriverManager.getConnection(getJdbcUrl(dbDir)), false);
     }
 
     private PreparedStatement getTestingStatement;
+    private final PreparedStatement mergeCheckpoint;
+    private final PreparedStatement selectCheckpoint;
 
     private GADB(Connection connection, boolean dropAll) throws SQLException {
         super(connection, dropAll);
+        if (dropAll) {
+            executeSQL(connection, "drop table if exists ga_checkpoints");
+            executeSQL(connection, "drop table if exists train_test");
+        }
+        executeSQL(connection, "create table if not exists ga_checkpoints (" +
+                "fold integer primary key, " +
+                "generation integer, " +
+                "state varchar(32), " +
+                "random_seed bigint, " +
+                "experiments varchar(100000), " +
+                "last_edited timestamp)");
+        mergeCheckpoint = connection.prepareStatement(
+                "merge into ga_checkpoints (fold, generation, state, random_seed, " +
+                        "experiments, last_edited) KEY(fold) values (?,?,?,?,?,?)");
+        selectCheckpoint = connection.prepareStatement(
+                "select generation, state, random_seed, experiments " +
+                        "from ga_checkpoints where fold=?");
+    }
+
+    /**
+     * Stores the checkpoint as the latest checkpoint for its fold
+     *
+     * @param checkpoint
+     * @throws SQLException
+     */
+    public void addCheckpoint(GACheckpoint checkpoint) throws SQLException {
+        mergeCheckpoint.clearParameters();
+        mergeCheckpoint.setInt(1, checkpoint.getFold());
+        mergeCheckpoint.setInt(2, checkpoint.getGeneration());
+        mergeCheckpoint.setString(3, checkpoint.getState().name());
+        mergeCheckpoint.setLong(4, checkpoint.getRandomSeed());
+        mergeCheckpoint.setString(5, GSON.toJson(checkpoint.getExperimentNames()));
+        mergeCheckpoint.setTimestamp(6, Timestamp.from(Instant.now()));
+        mergeCheckpoint.execute();
+    }
+
+    /**
+     * @param fold
+     * @return the latest checkpoint for this fold or <code>null</code> if there is none
+     * @throws SQLException
+     */
+    public GACheckpoint getCheckpoint(int fold) throws SQLException {
+        selectCheckpoint.clearParameters();
+        selectCheckpoint.setInt(1, fold);
+        try (ResultSet rs = selectCheckpoint.executeQuery()) {
+            while (rs.next()) {
+                String[] names = GSON.fromJson(rs.getString(4), String[].class);
+                return new GACheckpoint(fold, rs.getInt(1),
+                        GACheckpoint.STATE.valueOf(rs.getString(2)),
+                        rs.getLong(3), Arrays.asList(names));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether this db has the fold assignments and at least
+     * one checkpoint from an earlier run
+     * @throws SQLException
+     */
+    public boolean canResume() throws SQLException {
+        if (! tableExists("TRAIN_TEST")) {
+            return false;
+        }
+        try (Statement st = connection.createStatement()) {
+            try (ResultSet rs = st.executeQuery("select count(1) from ga_checkpoints")) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Reuses the fold assignments from an earlier run
+     *
+     * @throws SQLException
+     */
+    public void resumeTrainTest() throws SQLException {
+        if (! tableExists("TRAIN_TEST")) {
+            throw new IllegalArgumentException("Can't resume without a train_test table");
+        }
+        getTestingStatement = connection.prepareStatement(
+                "select query from train_test where fold = ?");
     }
 
     public void initTrainTest(JudgmentList test, JudgmentList all) throws SQLException {
@@ -90,6 +181,17 @@ public class GADB extends ExperimentDB {
     }
 
     public void initTrainTest(int nFolds) throws SQLException {
+        initTrainTest(nFolds, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Randomly assigns the queries to folds
+     *
+     * @param nFolds number of folds
+     * @param random random to use for the assignment
+     * @throws SQLException
+     */
+    public void initTrainTest(int nFolds, Random random) throws SQLException {
         PreparedStatement insertTrainTest = initTrainTest();
         JudgmentList judgmentList = getJudgments();
 
@@ -100,7 +202,7 @@ public class GADB extends ExperimentDB {
                 foldIds.add(i);
             }
         }
-        Collections.shuffle(foldIds, MathUtil.RANDOM);
+        Collections.shuffle(foldIds, random);
         int i = 0;
         for (Judgments judgments : judgmentList.getJudgmentsList()) {
             insertTrainTest.clearParameters();
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tallison.quaerite.db;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.stats.ExperimentScorePair;
+
+/**
+ * Keeps the experiments and training scores for the fold that is
+ * currently being run in memory so that the GA doesn't have to reload
+ * and reparse the population from the db every generation.
+ * <p>
+ * Experiments and checkpoints are written to the {@link GADB} on a single
+ * background thread in the order they were added; they're only written
+ * for persistence and -resume.  The background thread writes through its
+ * own connection to the db, so the GA thread can keep using its handle in
+ * the meantime.  Call {@link #flush()} before querying the db for anything
+ * that was added through this class.
+ * <p>
+ * This is not thread safe; it should only be used by the thread that
+ * runs the GA.  Experiments must not be modified after they're added.
+ */
+public class GAPopulation implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(GAPopulation.class);
+
+    private final GADB gaDb;
+    //only used by the writer thread
+    private final GADB writerDb;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ga-db-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final List<Future<Void>> pending = new ArrayList<>();
+    private final Map<String, Experiment> experiments = new HashMap<>();
+    private final Map<String, Double> scores = new HashMap<>();
+
+    /**
+     * @param gaDb the GA thread's handle on the db
+     * @param writerDb a second handle on the same db for the background writes;
+     *                 this is closed when this population is closed
+     */
+    public GAPopulation(GADB gaDb, GADB writerDb) {
+        this.gaDb = gaDb;
+        this.writerDb = writerDb;
+    }
+
+    /**
+     * Removes everything from memory, e.g. at the start of a new fold.
+     * This has no effect on the db.
+     */
+    public void clear() {
+        experiments.clear();
+        scores.clear();
+    }
+
+    /**
+     * Adds experiments and scores that have already been stored in the db
+     *
+     * @param experimentScorePairs
+     */
+    public void load(List<ExperimentScorePair> experimentScorePairs) {
+        for (ExperimentScorePair esp : experimentScorePairs) {
+            experiments.put(esp.getExperiment().getName(), esp.getExperiment());
+            scores.put(esp.getExperiment().getName(), esp.getScore());
+        }
+    }
+
+    /**
+     * Adds an experiment that has already been stored in the db
+     *
+     * @param experiment
+     */
+    public void put(Experiment experiment) {
+        experiments.put(experiment.getName(), experiment);
+    }
+
+    /**
+     * Adds the experiment to memory and queues it to be merged into the db
+     *
+     * @param experiment
+     */
+    public void addExperiment(Experiment experiment) {
+        experiments.put(experiment.getName(), experiment);
+        submit(() -> writerDb.addExperiment(experiment, true));
+    }
+
+    /**
+     * Queues the checkpoint to be written to the db after all of
+     * the experiments that have been added so far.
+     *
+     * @param checkpoint
+     */
+    public void addCheckpoint(GACheckpoint checkpoint) {
+        submit(() -> writerDb.addCheckpoint(checkpoint));
+    }
+
+    /**
+     * @param name
+     * @return the experiment from memory or, if it isn't in memory, from the db
+     * @throws SQLException
+     */
+    public Experiment getExperiment(String name) throws SQLException {
+        Experiment experiment = experiments.get(name);
+        if (experiment == null) {
+            flush();
+            experiment = gaDb.getExperiment(name);
+            if (experiment != null) {
+                experiments.put(name, experiment);
+            }
+        }
+        return experiment;
+    }
+
+    public void setScore(String experimentName, double score) {
+        scores.put(experimentName, score);
+    }
+
+    /**
+     * @param experimentName
+     * @return the score or <code>null</code> if this experiment hasn't been scored
+     */
+    public Double getScore(String experimentName) {
+        return scores.get(experimentName);
+    }
+
+    /**
+     * @param experimentNamePrefix prefix of the experiment names to include
+     * @param num maximum number to return or -1 for all
+     * @return scored experiments whose names start with the prefix, sorted by
+     * descending score
+     */
+    public List<ExperimentScorePair> getNBestExperiments(String experimentNamePrefix, int num) {
+        List<ExperimentScorePair> ret = new ArrayList<>();
+        for (Map.Entry<String, Double> e : scores.entrySet()) {
+            if (e.getKey().startsWith(experimentNamePrefix)) {
+                Experiment experiment = experiments.get(e.getKey());
+                if (experiment != null) {
+                    ret.add(new ExperimentScorePair(experiment, e.getValue()));
+                }
+            }
+        }
+        Collections.sort(ret, (a, b) -> {
+            int c = Double.compare(b.getScore(), a.getScore());
+            return (c != 0) ? c :
+                    a.getExperiment().getName().compareTo(b.getExperiment().getName());
+        });
+        if (num > -1 && ret.size() > num) {
+            return new ArrayList<>(ret.subList(0, num));
+        }
+        return ret;
+    }
+
+    /**
+     * Blocks until all queued writes have been written to the db
+     *
+     * @throws SQLException if any of the writes failed
+     */
+    public void flush() throws SQLException {
+        Iterator<Future<Void>> it = pending.iterator();
+        while (it.hasNext()) {
+            Future<Void> future = it.next();
+            it.remove();
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("interrupted while writing to the db", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw new SQLException(e.getCause());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        } finally {
+            writer.shutdownNow();
+            writerDb.close();
+        }
+    }
+
+    private void submit(SQLRunnable runnable) {
+        //don't let the list of completed writes grow over a long run
+        pending.removeIf(f -> f.isDone() && !failed(f));
+        pending.add(writer.submit(() -> {
+            runnable.run();
+            return null;
+        }));
+    }
+
+    private static boolean failed(Future<Void> future) {
+        try {
+            future.get();
+            return false;
+        } catch (InterruptedException | ExecutionException e) {
+            return true;
+        }
+    }
+
+    private interface SQLRunnable {
+        void run() throws SQLException;
+    }
+}
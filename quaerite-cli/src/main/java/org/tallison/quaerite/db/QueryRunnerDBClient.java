@@ -24,6 +24,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -33,6 +34,8 @@ import org.apache.logging.log4j.Logger;
 import org.tallison.quaerite.core.QueryInfo;
 import org.tallison.quaerite.core.SearchResultSet;
 import org.tallison.quaerite.core.StoredDocument;
+import org.tallison.quaerite.core.metrics.Metrics;
+import org.tallison.quaerite.core.metrics.Timer;
 import org.tallison.quaerite.core.scorers.Scorer;
 
 /**
@@ -45,6 +48,8 @@ public class QueryRunnerDBClient implements Closeable {
     private static Gson GSON = new GsonBuilder().create();
     static Logger LOG = LogManager.getLogger(QueryRunnerDBClient.class);
 
+    private static final Timer EXECUTE_BATCH_TIMER = Metrics.timer("db.executeBatch");
+
     private PreparedStatement insertScores;
     private PreparedStatement insertResults;
 
@@ -86,6 +91,26 @@ public class QueryRunnerDBClient implements Closeable {
         insertScores.addBatch();
     }
 
+    /**
+     * @param scores scores for this query keyed by scorer name
+     */
+    public void insertScores(QueryInfo queryInfo,
+                             String experimentName,
+                             List<Scorer> scorers,
+                             Map<String, Double> scores) throws SQLException {
+
+        insertScores.setString(1, queryInfo.getQueryId());
+        insertScores.setString(2, queryInfo.getQuerySet());
+        insertScores.setInt(3, queryInfo.getQueryCount());
+        insertScores.setString(4, experimentName);
+
+        int i = 5;
+        for (Scorer scorer : scorers) {
+            insertScores.setDouble(i++, scores.get(scorer.getName()));
+        }
+        insertScores.addBatch();
+    }
+
     public void insertSearchResults(QueryInfo queryInfo, String experimentName,
                                     SearchResultSet results) throws SQLException {
         //in case more fields were brought back than just id/index
@@ -112,8 +137,13 @@ public class QueryRunnerDBClient implements Closeable {
     }
 
     public void executeBatch() throws SQLException {
-        insertScores.executeBatch();
-        insertResults.executeBatch();
+        long start = EXECUTE_BATCH_TIMER.start();
+        try {
+            insertScores.executeBatch();
+            insertResults.executeBatch();
+        } finally {
+            EXECUTE_BATCH_TIMER.stop(start);
+        }
     }
 
     @Override
@@ -18,17 +18,26 @@
 package org.tallison.quaerite;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.connectors.eval.Evaluator;
 import org.tallison.quaerite.core.Experiment;
 import org.tallison.quaerite.core.ExperimentSet;
 import org.tallison.quaerite.core.JudgmentList;
@@ -36,13 +45,20 @@ import org.tallison.quaerite.core.Judgments;
 import org.tallison.quaerite.core.QueryInfo;
 import org.tallison.quaerite.core.QueryStrings;
 import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.StoredDocument;
 import org.tallison.quaerite.core.features.WeightableField;
 import org.tallison.quaerite.core.features.WeightableListFeature;
 import org.tallison.quaerite.core.queries.EDisMaxQuery;
 import org.tallison.quaerite.core.queries.LuceneQuery;
 import org.tallison.quaerite.core.queries.Query;
 import org.tallison.quaerite.core.scorers.AtLeastOneAtN;
+import org.tallison.quaerite.core.scorers.PrecisionAtN;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.core.stats.ExperimentScorePair;
 import org.tallison.quaerite.db.ExperimentDB;
+import org.tallison.quaerite.db.ExperimentDBSink;
+import org.tallison.quaerite.lucene.LuceneClient;
+import org.tallison.quaerite.lucene.LuceneSchema;
 
 public class TestExperimentDB {
     private static Path DB_DIR;
@@ -102,6 +118,7 @@ public class TestExperimentDB {
 
         //the query string is transient and not serialized
         EDisMaxQuery expected = q.deepCopy();
+        expected.setQueryString(null);
         assertEquals(expected, q2);
         db.close();
 
@@ -130,4 +147,121 @@ public class TestExperimentDB {
 
     }
 
+    @Test
+    public void testValidatedIds() throws Exception {
+        String server = "http://localhost:8983/solr/validated id";
+        ExperimentDB db = ExperimentDB.openAndDrop(DB_DIR);
+        assertEquals(0, db.getValidatedIds(server, "v1").size());
+        db.addValidatedIds(server, "v1", Arrays.asList("a", "b", "c"),
+                new HashSet<>(Arrays.asList("a", "c")));
+        db.close();
+
+        //validated ids are keyed by index version, so they survive a fresh start
+        db = ExperimentDB.openAndDrop(DB_DIR);
+        Map<String, Boolean> validated = db.getValidatedIds(server, "v1");
+        assertEquals(3, validated.size());
+        assertTrue(validated.get("a"));
+        assertFalse(validated.get("b"));
+        assertTrue(validated.get("c"));
+        assertEquals(0, db.getValidatedIds(server + "2", "v1").size());
+
+        //a new index version replaces the old one
+        db.addValidatedIds(server, "v2", Arrays.asList("a", "d"),
+                new HashSet<>(Arrays.asList("d")));
+        assertEquals(0, db.getValidatedIds(server, "v1").size());
+        validated = db.getValidatedIds(server, "v2");
+        assertEquals(2, validated.size());
+        assertFalse(validated.get("a"));
+        assertTrue(validated.get("d"));
+        db.close();
+    }
+
+    @Test
+    public void testEvaluatorSink() throws Exception {
+        Path indexDir = Files.createTempDirectory("quaerite-lucene-");
+        Path dbDir = Files.createTempDirectory("exp-sink-");
+        try {
+            new LuceneSchema().save(indexDir);
+            String url = LuceneClient.URL_PREFIX + indexDir.toAbsolutePath();
+            try (SearchClient client = SearchClientFactory.getClient(url)) {
+                StoredDocument doc = new StoredDocument("id1");
+                doc.addNonBlankField("title", "brown fox");
+                client.addDocuments(Collections.singletonList(doc));
+            }
+            QueryStrings queryStrings = new QueryStrings();
+            queryStrings.setQuery("fox");
+            Judgments judgments = new Judgments(new QueryInfo("q1",
+                    "", queryStrings, 1));
+            judgments.addJudgment("id1", 1.0);
+            JudgmentList judgmentList = new JudgmentList();
+            judgmentList.addJudgments(judgments);
+
+            List<Scorer> scorers = new ArrayList<>();
+            scorers.add(new PrecisionAtN(1));
+            Experiment experiment = new Experiment("sink",
+                    new ServerConnection(url), new LuceneQuery("title", ""));
+
+            ExperimentDB db = ExperimentDB.openAndDrop(dbDir);
+            try (ExperimentDBSink sink = new ExperimentDBSink(db)) {
+                new Evaluator(experiment, scorers).addSink(sink).evaluate(judgmentList);
+            }
+            assertTrue(db.hasScores("sink"));
+            assertTrue(db.hasAggregatedScores("sink"));
+            assertEquals(1.0, db.getScores("", "sink", "precision_1").get("q1"), 0.01);
+            db.close();
+        } finally {
+            FileUtils.deleteDirectory(indexDir.toFile());
+            FileUtils.deleteDirectory(dbDir.toFile());
+        }
+    }
+
+    @Test
+    public void testExperimentScoresWithNamedQuerySets() throws Exception {
+        Path indexDir = Files.createTempDirectory("quaerite-lucene-");
+        Path dbDir = Files.createTempDirectory("exp-sets-");
+        try {
+            new LuceneSchema().save(indexDir);
+            String url = LuceneClient.URL_PREFIX + indexDir.toAbsolutePath();
+            try (SearchClient client = SearchClientFactory.getClient(url)) {
+                StoredDocument fox = new StoredDocument("id1");
+                fox.addNonBlankField("title", "brown fox");
+                StoredDocument dog = new StoredDocument("id2");
+                dog.addNonBlankField("title", "lazy dog");
+                client.addDocuments(Arrays.asList(fox, dog));
+            }
+            JudgmentList judgmentList = new JudgmentList();
+            judgmentList.addJudgments(judgments("q1", "hits", "fox", "id1"));
+            judgmentList.addJudgments(judgments("q2", "misses", "dog", "id1"));
+
+            List<Scorer> scorers = new ArrayList<>();
+            scorers.add(new PrecisionAtN(1));
+            Experiment experiment = new Experiment("sets_1",
+                    new ServerConnection(url), new LuceneQuery("title", ""));
+
+            ExperimentDB db = ExperimentDB.openAndDrop(dbDir);
+            try (ExperimentDBSink sink = new ExperimentDBSink(db)) {
+                new Evaluator(experiment, scorers).addSink(sink).evaluate(judgmentList);
+            }
+            //one row per query set is stored, but only the overall score comes back
+            List<ExperimentScorePair> scores = db.getExperimentScores("sets_",
+                    "precision_1_mean");
+            assertEquals(1, scores.size());
+            assertEquals("sets_1", scores.get(0).getExperiment().getName());
+            assertEquals(0.5, scores.get(0).getScore(), 0.01);
+            db.close();
+        } finally {
+            FileUtils.deleteDirectory(indexDir.toFile());
+            FileUtils.deleteDirectory(dbDir.toFile());
+        }
+    }
+
+    private static Judgments judgments(String queryId, String querySet,
+                                       String query, String relevantId) {
+        QueryStrings queryStrings = new QueryStrings();
+        queryStrings.setQuery(query);
+        Judgments judgments = new Judgments(new QueryInfo(queryId,
+                querySet, queryStrings, 1));
+        judgments.addJudgment(relevantId, 1.0);
+        return judgments;
+    }
 }
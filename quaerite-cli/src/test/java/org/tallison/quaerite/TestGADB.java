@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.queries.EDisMaxQuery;
+import org.tallison.quaerite.core.stats.ExperimentScorePair;
+import org.tallison.quaerite.db.GACheckpoint;
+import org.tallison.quaerite.db.GADB;
+import org.tallison.quaerite.db.GAPopulation;
+import org.tallison.quaerite.db.TrainTestJudmentListPair;
+
+public class TestGADB {
+    private static Path DB_DIR;
+
+    @BeforeAll
+    public static void init() throws Exception {
+        DB_DIR = Files.createTempDirectory("ga-");
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        FileUtils.deleteDirectory(DB_DIR.toFile());
+    }
+
+    @Test
+    public void testCheckpoints() throws Exception {
+        GADB db = GADB.openAndDrop(DB_DIR);
+        assertFalse(db.canResume());
+        for (int i = 0; i < 8; i++) {
+            QueryStrings queryStrings = new QueryStrings();
+            queryStrings.setQuery("query" + i);
+            Judgments judgments = new Judgments(new QueryInfo("q" + i,
+                    "", queryStrings, 1));
+            judgments.addJudgment("id" + i, 1.0);
+            db.addJudgment(judgments);
+        }
+        db.initTrainTest(2);
+        TrainTestJudmentListPair fold0 = db.getTrainTestJudgmentsByFold(0);
+        assertFalse(db.canResume());
+        assertNull(db.getCheckpoint(0));
+
+        db.addCheckpoint(new GACheckpoint(0, GACheckpoint.SEED_GENERATION,
+                GACheckpoint.STATE.INITIALIZED, 0, Collections.emptyList()));
+        db.addCheckpoint(new GACheckpoint(0, 3, GACheckpoint.STATE.GENERATED,
+                12345L, Arrays.asList("a", "b")));
+        db.close();
+
+        db = GADB.open(DB_DIR);
+        assertTrue(db.canResume());
+        db.resumeTrainTest();
+        //fold assignments survive
+        TrainTestJudmentListPair resumed = db.getTrainTestJudgmentsByFold(0);
+        assertEquals(fold0.getTest().getJudgmentsList().size(),
+                resumed.getTest().getJudgmentsList().size());
+        for (int i = 0; i < fold0.getTest().getJudgmentsList().size(); i++) {
+            assertEquals(fold0.getTest().getJudgmentsList().get(i).getQueryInfo().getQueryId(),
+                    resumed.getTest().getJudgmentsList().get(i).getQueryInfo().getQueryId());
+        }
+
+        //only the latest checkpoint per fold is kept
+        GACheckpoint checkpoint = db.getCheckpoint(0);
+        assertEquals(3, checkpoint.getGeneration());
+        assertEquals(GACheckpoint.STATE.GENERATED, checkpoint.getState());
+        assertEquals(12345L, checkpoint.getRandomSeed());
+        assertEquals(Arrays.asList("a", "b"), checkpoint.getExperimentNames());
+        assertNull(db.getCheckpoint(1));
+        db.close();
+
+        db = GADB.openAndDrop(DB_DIR);
+        assertFalse(db.canResume());
+        db.close();
+    }
+
+    @Test
+    public void testPopulation() throws Exception {
+        GADB db = GADB.openAndDrop(DB_DIR);
+        try (GAPopulation population = new GAPopulation(db, GADB.open(DB_DIR))) {
+            for (int i = 0; i < 12; i++) {
+                EDisMaxQuery q = new EDisMaxQuery("q");
+                q.getQF().add(new WeightableField("title^2"));
+                Experiment experiment = new Experiment("train_fold_0_gen_" + i + "_exp_0",
+                        new ServerConnection("http://solr"), q);
+                population.addExperiment(experiment);
+                population.setScore(experiment.getName(), i);
+            }
+            population.addCheckpoint(new GACheckpoint(0, 11, GACheckpoint.STATE.SCORED,
+                    0, Collections.singletonList("train_fold_0_gen_11_exp_0")));
+
+            //gen_1_ shouldn't pick up gen_10 or gen_11
+            List<ExperimentScorePair> best = population.getNBestExperiments(
+                    "train_fold_0_gen_1_", -1);
+            assertEquals(1, best.size());
+            assertEquals(1.0, best.get(0).getScore(), 0.0001);
+
+            best = population.getNBestExperiments("train_fold_0_", 3);
+            assertEquals(3, best.size());
+            assertEquals("train_fold_0_gen_11_exp_0", best.get(0).getExperiment().getName());
+            assertEquals("train_fold_0_gen_9_exp_0", best.get(2).getExperiment().getName());
+
+            population.flush();
+            assertEquals(12, db.getExperimentNames().size());
+            assertEquals(11, db.getCheckpoint(0).getGeneration());
+
+            //not in memory after a new fold, but still available from the db
+            population.clear();
+            assertNull(population.getScore("train_fold_0_gen_3_exp_0"));
+            assertEquals("train_fold_0_gen_3_exp_0",
+                    population.getExperiment("train_fold_0_gen_3_exp_0").getName());
+        }
+        db.close();
+    }
+
+    @Test
+    public void testPopulationWritesWhileGAThreadWrites() throws Exception {
+        GADB db = GADB.openAndDrop(DB_DIR);
+        try (GAPopulation population = new GAPopulation(db, GADB.open(DB_DIR))) {
+            for (int i = 0; i < 200; i++) {
+                population.addExperiment(newExperiment("train_fold_0_gen_0_exp_" + i));
+                population.addCheckpoint(new GACheckpoint(0, i, GACheckpoint.STATE.SCORED,
+                        0, Collections.emptyList()));
+                //the GA thread keeps using its own handle while the writer runs
+                db.addExperiment(newExperiment("test_" + i));
+                db.getCheckpoint(0);
+                db.getExperimentNames();
+            }
+            population.flush();
+            assertEquals(400, db.getExperimentNames().size());
+            assertEquals(199, db.getCheckpoint(0).getGeneration());
+        }
+        db.close();
+    }
+
+    private static Experiment newExperiment(String name) {
+        EDisMaxQuery q = new EDisMaxQuery("q");
+        q.getQF().add(new WeightableField("title^2"));
+        return new Experiment(name, new ServerConnection("http://solr"), q);
+    }
+}
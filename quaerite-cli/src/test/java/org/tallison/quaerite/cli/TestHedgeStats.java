@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.metrics.Metrics;
+
+public class TestHedgeStats {
+
+    @AfterEach
+    public void tearDown() {
+        Metrics.disable();
+        Metrics.reset();
+    }
+
+    @Test
+    public void testDelay() {
+        HedgeStats stats = new HedgeStats(95);
+        //not enough samples to hedge yet
+        for (int i = 0; i < 49; i++) {
+            stats.record(i, false, false);
+        }
+        assertEquals(-1, stats.getDelayMillis());
+        stats.record(49, false, false);
+        //95th percentile of 0..49
+        assertEquals(47, stats.getDelayMillis());
+        //recalculated every 20 samples after that
+        for (int i = 50; i < 110; i++) {
+            stats.record(i, false, false);
+        }
+        assertEquals(104, stats.getDelayMillis());
+        stats.record(1000, true, true);
+        assertEquals(111, stats.getSearches());
+        assertEquals(1, stats.getHedged());
+        assertEquals(1, stats.getHedgeWins());
+    }
+
+    @Test
+    public void testMetrics() {
+        Metrics.enable();
+        Metrics.reset();
+        HedgeStats stats = new HedgeStats(95);
+        stats.record(10, false, false);
+        stats.record(10, true, false);
+        stats.record(10, true, true);
+        assertEquals(2, Metrics.counter("search.hedged").getCount());
+        assertEquals(1, Metrics.counter("search.hedge.won").getCount());
+    }
+
+    @Test
+    public void testBadPercentile() {
+        assertThrows(IllegalArgumentException.class, () -> new HedgeStats(0));
+        assertThrows(IllegalArgumentException.class, () -> new HedgeStats(101));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.commons.io.FileUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.db.ExperimentDB;
+
+public class TestQuaeriteDaemon {
+
+    private static Path DIR;
+
+    @BeforeAll
+    public static void setUp() throws IOException {
+        DIR = Files.createTempDirectory("q-daemon-");
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        //the daemon keeps the db open
+        try (ExperimentDB experimentDB = ExperimentDB.open(DIR.resolve("db"));
+                Statement st = experimentDB.getConnection().createStatement()) {
+            st.execute("SHUTDOWN");
+        }
+        ExperimentDB.setKeepOpen(false);
+        FileUtils.deleteDirectory(DIR.toFile());
+    }
+
+    @Test
+    public void testJobs() throws Exception {
+        try (QuaeriteDaemon daemon = new QuaeriteDaemon(0);
+                CloseableHttpClient client = HttpClients.createDefault()) {
+            daemon.start();
+            String url = daemon.getUrl();
+
+            assertEquals(400, post(client, url + "/jobs", "{\"tool\":\"Nope\"}").status);
+            //missing required args
+            assertEquals(400, post(client, url + "/jobs",
+                    "{\"tool\":\"DumpExperiments\",\"args\":[]}").status);
+            assertEquals(400, post(client, url + "/jobs", "not json").status);
+
+            //run twice against the same db
+            for (int i = 0; i < 2; i++) {
+                Path out = DIR.resolve("experiments_" + i + ".json");
+                JsonArray args = new JsonArray();
+                args.add("-db");
+                args.add(DIR.resolve("db").toString());
+                args.add("-f");
+                args.add(out.toString());
+                JsonObject job = new JsonObject();
+                job.addProperty("tool", "DumpExperiments");
+                job.add("args", args);
+                Response response = post(client, url + "/jobs", job.toString());
+                assertEquals(202, response.status);
+                int id = response.json.getAsJsonObject().get("id").getAsInt();
+
+                List<JsonObject> events = events(client, url + "/jobs/" + id + "/events");
+                JsonObject last = events.get(events.size() - 1);
+                assertEquals("SUCCEEDED", last.get("state").getAsString());
+                assertTrue(Files.isRegularFile(out));
+
+                response = get(client, url + "/jobs/" + id);
+                assertEquals(200, response.status);
+                assertEquals("SUCCEEDED",
+                        response.json.getAsJsonObject().get("state").getAsString());
+            }
+            Response response = get(client, url + "/jobs");
+            assertEquals(2, response.json.getAsJsonArray().size());
+            assertEquals(404, get(client, url + "/jobs/100").status);
+
+            assertEquals(200, post(client, url + "/shutdown", "").status);
+            daemon.awaitShutdown();
+        }
+    }
+
+    private static Response post(CloseableHttpClient client, String url, String body)
+            throws IOException {
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        return new Response(client.execute(post));
+    }
+
+    private static Response get(CloseableHttpClient client, String url) throws IOException {
+        return new Response(client.execute(new HttpGet(url)));
+    }
+
+    private static List<JsonObject> events(CloseableHttpClient client, String url)
+            throws IOException {
+        List<JsonObject> events = new ArrayList<>();
+        HttpResponse response = client.execute(new HttpGet(url));
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                response.getEntity().getContent(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while (line != null) {
+                events.add(JsonParser.parseString(line).getAsJsonObject());
+                line = reader.readLine();
+            }
+        }
+        return events;
+    }
+
+    private static class Response {
+        private final int status;
+        private final JsonElement json;
+
+        Response(HttpResponse response) throws IOException {
+            status = response.getStatusLine().getStatusCode();
+            json = JsonParser.parseString(EntityUtils.toString(response.getEntity(),
+                    StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Test;
+
+public class TestRunStatus {
+
+    private static final long SECOND = 1000000000L;
+
+    @Test
+    public void testThroughputAndEta() {
+        RunStatus status = new RunStatus("test");
+        assertEquals(-1, status.getQueriesPerSecond());
+        assertEquals(-1, status.getEtaSeconds());
+        status.setExperimentsPlanned(3);
+        long start = System.nanoTime();
+        //takes the first sample
+        status.experimentStarted("a", 100);
+        for (int i = 0; i < 50; i++) {
+            status.queryFinished(true);
+        }
+        status.tick(start + 10 * SECOND);
+        assertEquals(5.0, status.getQueriesPerSecond(), 0.01);
+        //50 left in this experiment and 100 in each of the other two
+        assertEquals(50.0, status.getEtaSeconds(), 0.1);
+
+        //samples less than a second apart are dropped
+        for (int i = 0; i < 50; i++) {
+            status.queryFinished(true);
+        }
+        status.tick(start + 10 * SECOND + 1);
+        assertEquals(5.0, status.getQueriesPerSecond(), 0.01);
+        status.tick(start + 20 * SECOND);
+        assertEquals(5.0, status.getQueriesPerSecond(), 0.01);
+        assertEquals(40.0, status.getEtaSeconds(), 0.1);
+    }
+
+    @Test
+    public void testMovingWindow() {
+        RunStatus status = new RunStatus("test");
+        status.experimentStarted("a", 100000);
+        long start = System.nanoTime();
+        //slow at first, then 10 queries per second
+        for (int i = 1; i <= RunStatus.WINDOW + 10; i++) {
+            int queries = (i <= 10) ? 1 : 10;
+            for (int j = 0; j < queries; j++) {
+                status.queryFinished(true);
+            }
+            status.tick(start + i * SECOND);
+        }
+        assertEquals(10.0, status.getQueriesPerSecond(), 0.01);
+    }
+
+    @Test
+    public void testErrorsAndBest() {
+        RunStatus status = new RunStatus("test");
+        status.searchStarted();
+        status.searchStarted();
+        status.searchStarted();
+        status.searchFinished(true);
+        status.searchFinished(false);
+        assertEquals(0.5, status.getErrorRate(), 0.0001);
+
+        status.setFold(0, 2);
+        status.updateBest("a", 0.5);
+        status.updateBest("b", 0.7);
+        status.updateBest("c", 0.6);
+        //e.g. the statistic was missing; this must not break the json
+        status.updateBest("d", Double.NaN);
+        JsonObject json = JsonParser.parseString(
+                new Gson().toJson(status.toMap())).getAsJsonObject();
+        assertEquals(1, json.getAsJsonObject("searches").get("inFlight").getAsInt());
+        assertEquals("b", json.getAsJsonObject("best").get("experiment").getAsString());
+        //best is per fold
+        status.setFold(1, 2);
+        assertFalse(status.toMap().containsKey("best"));
+        status.updateBest("e", Double.NaN);
+        assertFalse(status.toMap().containsKey("best"));
+    }
+
+    @Test
+    public void testServer() throws Exception {
+        RunStatus status = new RunStatus("test");
+        status.setExperimentsPlanned(2);
+        status.experimentStarted("exp1", 10);
+        status.queryFinished(true);
+        try (StatusServer server = new StatusServer(status, 0);
+                CloseableHttpClient client = HttpClients.createDefault()) {
+            server.start();
+            HttpResponse response = client.execute(new HttpGet(server.getUrl()));
+            assertEquals(200, response.getStatusLine().getStatusCode());
+            JsonObject json = JsonParser.parseString(EntityUtils.toString(
+                    response.getEntity(), StandardCharsets.UTF_8)).getAsJsonObject();
+            assertEquals("test", json.get("job").getAsString());
+            JsonObject experiments = json.getAsJsonObject("experiments");
+            assertEquals(2, experiments.get("planned").getAsInt());
+            assertEquals("exp1", experiments.get("current").getAsString());
+            assertEquals(1, experiments.get("currentQueriesDone").getAsInt());
+
+            response = client.execute(new HttpGet(server.getUrl().replace("/status", "/metrics")));
+            assertEquals(200, response.getStatusLine().getStatusCode());
+            EntityUtils.consume(response.getEntity());
+
+            response = client.execute(new HttpGet(server.getUrl().replace("/status", "/nope")));
+            assertEquals(404, response.getStatusLine().getStatusCode());
+            EntityUtils.consume(response.getEntity());
+        }
+    }
+
+    @Test
+    public void testBadPort() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new StatusServer(new RunStatus("test"), 70000));
+    }
+}
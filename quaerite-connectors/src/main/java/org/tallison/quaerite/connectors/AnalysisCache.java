@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * Bounded, thread safe, least recently used cache of analysis results
+ * by field and string.  Clients are single threaded, so threads that
+ * talk to the same search server should share one of these; see
+ * {@link #getShared(String)}.
+ * <p>
+ * The cache can be saved to and loaded from a file (one json array
+ * [field, string, [tokens]] per line) so that later runs against
+ * an unchanged schema don't have to repeat the analysis.
+ * </p>
+ */
+public class AnalysisCache {
+
+    public static final int DEFAULT_MAX_SIZE = 100000;
+
+    private static final Gson GSON = new Gson();
+    private static final Map<String, AnalysisCache> SHARED = new HashMap<>();
+
+    private final Map<Key, List<String>> cache;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param url search server url
+     * @return the cache shared by all clients of this url
+     */
+    public static synchronized AnalysisCache getShared(String url) {
+        return SHARED.computeIfAbsent(url, u -> new AnalysisCache(DEFAULT_MAX_SIZE));
+    }
+
+    public AnalysisCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be > 0");
+        }
+        this.cache = new LinkedHashMap<Key, List<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<String>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return a copy of the cached tokens or null if they aren't cached
+     */
+    public synchronized List<String> get(String field, String string) {
+        List<String> tokens = cache.get(new Key(field, string));
+        if (tokens == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new ArrayList<>(tokens);
+    }
+
+    public synchronized void put(String field, String string, List<String> tokens) {
+        cache.put(new Key(field, string),
+                Collections.unmodifiableList(new ArrayList<>(tokens)));
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Adds the entries in the file to this cache.
+     *
+     * @param file file written by {@link #save(Path)}
+     * @throws IOException
+     */
+    public void load(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                if (line.trim().length() > 0) {
+                    JsonArray arr = JsonParser.parseString(line).getAsJsonArray();
+                    List<String> tokens = new ArrayList<>();
+                    for (JsonElement t : arr.get(2).getAsJsonArray()) {
+                        tokens.add(t.getAsString());
+                    }
+                    put(arr.get(0).getAsString(), arr.get(1).getAsString(), tokens);
+                }
+                line = reader.readLine();
+            }
+        }
+    }
+
+    public synchronized void save(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            //oldest first so that a reload keeps the same eviction order
+            for (Map.Entry<Key, List<String>> e : cache.entrySet()) {
+                JsonArray arr = new JsonArray();
+                arr.add(e.getKey().field);
+                arr.add(e.getKey().string);
+                arr.add(GSON.toJsonTree(e.getValue()));
+                writer.write(GSON.toJson(arr));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static class Key {
+        private final String field;
+        private final String string;
+
+        Key(String field, String string) {
+            this.field = field;
+            this.string = string;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return field.equals(key.field) && string.equals(key.string);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(field, string);
+        }
+    }
+}
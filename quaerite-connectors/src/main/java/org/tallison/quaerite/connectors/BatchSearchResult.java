@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import org.tallison.quaerite.core.SearchResultSet;
+
+/**
+ * Result for a single query in {@link SearchClient#searchBatch(java.util.List)}.
+ * Either the result set or the exception is non-null.
+ */
+public class BatchSearchResult {
+
+    private final SearchResultSet resultSet;
+    private final Exception exception;
+
+    public BatchSearchResult(SearchResultSet resultSet) {
+        this.resultSet = resultSet;
+        this.exception = null;
+    }
+
+    public BatchSearchResult(Exception exception) {
+        this.resultSet = null;
+        this.exception = exception;
+    }
+
+    public boolean isSuccess() {
+        return exception == null;
+    }
+
+    /**
+     *
+     * @return the result set or null if this query failed
+     */
+    public SearchResultSet getResultSet() {
+        return resultSet;
+    }
+
+    /**
+     *
+     * @return the exception or null if this query succeeded
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchSearchResult{" +
+                "resultSet=" + resultSet +
+                ", exception=" + exception +
+                '}';
+    }
+}
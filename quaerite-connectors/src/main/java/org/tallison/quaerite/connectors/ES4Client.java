@@ -31,4 +31,10 @@ public class ES4Client extends ES6Client {
     BooleanClause.OCCUR getFilterOccur() {
         return BooleanClause.OCCUR.MUST;
     }
+
+    @Override
+    public boolean supportsSlicedScroll() {
+        //sliced scrolls were added in 5.0
+        return false;
+    }
 }
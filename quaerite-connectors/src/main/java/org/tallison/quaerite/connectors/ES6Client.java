@@ -16,6 +16,10 @@
  */
 package org.tallison.quaerite.connectors;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import com.google.gson.JsonObject;
@@ -32,6 +36,22 @@ public class ES6Client extends ESClient {
         return JsonUtil.getPrimitive(hits, "total", -1l);
     }
 
+    @Override
+    Map<String, Object> getMGetRequest(Collection<String> ids) {
+        //the ids shorthand requires a type in the url, and the index
+        //may not use _doc; docs without a _type match any type
+        List<Map<String, Object>> docs = new ArrayList<>();
+        for (String id : ids) {
+            docs.add(Collections.singletonMap("_id", id));
+        }
+        return Collections.singletonMap("docs", docs);
+    }
+
+    @Override
+    public boolean supportsPointInTime() {
+        return false;
+    }
+
     @Override
     void trackTotalHits(Map<String, Object> map, boolean b) {
         //ES6 and lower doesn't allow this.
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.custom.CustomAnalyzer;
+import org.tallison.quaerite.core.util.JsonUtil;
+
+/**
+ * Rebuilds an Elasticsearch analyzer from the index's analysis settings
+ * (index.analysis in _settings) with Lucene's analysis SPI.
+ * <p>
+ * This covers the built-in analyzers standard, simple, whitespace,
+ * keyword, stop and english, and custom analyzers built from the
+ * more common tokenizers, token filters and char filters.  Anything else,
+ * including word lists stored in files on the ES server (e.g. stopwords_path),
+ * causes an IllegalArgumentException.
+ * </p>
+ */
+class ESAnalyzerBuilder {
+
+    private static final String DEFAULT = "default";
+    private static final String STANDARD = "standard";
+
+    //es name -> lucene spi name
+    private static final Map<String, String> TOKENIZERS = new HashMap<>();
+    private static final Map<String, String> TOKEN_FILTERS = new HashMap<>();
+    private static final Map<String, String> CHAR_FILTERS = new HashMap<>();
+    //es param -> lucene param
+    private static final Map<String, String> PARAMS = new HashMap<>();
+    //es stemmer language -> lucene spi name
+    private static final Map<String, String> STEMMERS = new HashMap<>();
+    //es defaults that differ from lucene's
+    private static final Map<String, Map<String, String>> DEFAULTS = new HashMap<>();
+
+    static {
+        TOKENIZERS.put(STANDARD, "standard");
+        TOKENIZERS.put("whitespace", "whitespace");
+        TOKENIZERS.put("keyword", "keyword");
+        TOKENIZERS.put("letter", "letter");
+        TOKENIZERS.put("classic", "classic");
+        TOKENIZERS.put("uax_url_email", "uax29UrlEmail");
+        TOKENIZERS.put("pattern", "pattern");
+        TOKENIZERS.put("ngram", "nGram");
+        TOKENIZERS.put("edge_ngram", "edgeNGram");
+        TOKENIZERS.put("path_hierarchy", "pathHierarchy");
+
+        TOKEN_FILTERS.put("lowercase", "lowercase");
+        TOKEN_FILTERS.put("uppercase", "uppercase");
+        TOKEN_FILTERS.put("asciifolding", "asciiFolding");
+        TOKEN_FILTERS.put("porter_stem", "porterStem");
+        TOKEN_FILTERS.put("kstem", "kStem");
+        TOKEN_FILTERS.put("stop", "stop");
+        TOKEN_FILTERS.put("synonym", "synonym");
+        TOKEN_FILTERS.put("synonym_graph", "synonymGraph");
+        TOKEN_FILTERS.put("snowball", "snowballPorter");
+        TOKEN_FILTERS.put("shingle", "shingle");
+        TOKEN_FILTERS.put("ngram", "nGram");
+        TOKEN_FILTERS.put("edge_ngram", "edgeNGram");
+        TOKEN_FILTERS.put("length", "length");
+        TOKEN_FILTERS.put("trim", "trim");
+        TOKEN_FILTERS.put("truncate", "truncate");
+        TOKEN_FILTERS.put("reverse", "reverseString");
+        TOKEN_FILTERS.put("decimal_digit", "decimalDigit");
+        TOKEN_FILTERS.put("apostrophe", "apostrophe");
+        TOKEN_FILTERS.put("classic", "classic");
+        TOKEN_FILTERS.put("cjk_width", "cjkWidth");
+        TOKEN_FILTERS.put("flatten_graph", "flattenGraph");
+        TOKEN_FILTERS.put("remove_duplicates", "removeDuplicates");
+        TOKEN_FILTERS.put("keyword_repeat", "keywordRepeat");
+
+        CHAR_FILTERS.put("html_strip", "htmlStrip");
+        CHAR_FILTERS.put("mapping", "mapping");
+        CHAR_FILTERS.put("pattern_replace", "patternReplace");
+
+        PARAMS.put("max_token_length", "maxTokenLength");
+        PARAMS.put("min_gram", "minGramSize");
+        PARAMS.put("max_gram", "maxGramSize");
+        PARAMS.put("preserve_original", "preserveOriginal");
+        PARAMS.put("ignore_case", "ignoreCase");
+        PARAMS.put("min_shingle_size", "minShingleSize");
+        PARAMS.put("max_shingle_size", "maxShingleSize");
+        PARAMS.put("output_unigrams", "outputUnigrams");
+        PARAMS.put("token_separator", "tokenSeparator");
+        PARAMS.put("filler_token", "fillerToken");
+        PARAMS.put("escaped_tags", "escapedTags");
+        PARAMS.put("pattern", "pattern");
+        PARAMS.put("replacement", "replacement");
+        PARAMS.put("group", "group");
+        PARAMS.put("delimiter", "delimiter");
+        PARAMS.put("min", "min");
+        PARAMS.put("max", "max");
+        PARAMS.put("length", "prefixLength");
+        PARAMS.put("language", "language");
+        PARAMS.put("expand", "expand");
+        PARAMS.put("lenient", "lenient");
+        PARAMS.put("format", "format");
+
+        STEMMERS.put("english", "porterStem");
+        STEMMERS.put("porter", "porterStem");
+        STEMMERS.put("light_english", "kStem");
+        STEMMERS.put("minimal_english", "englishMinimalStem");
+        STEMMERS.put("possessive_english", "englishPossessive");
+
+        DEFAULTS.put("edgeNGram", params("minGramSize", "1", "maxGramSize", "2"));
+        DEFAULTS.put("nGram", params("minGramSize", "1", "maxGramSize", "2"));
+        DEFAULTS.put("length", params("min", "0", "max", Integer.toString(Integer.MAX_VALUE)));
+        DEFAULTS.put("truncate", params("prefixLength", "10"));
+    }
+
+    /**
+     * @param analyzerName name of the analyzer, or null for the index's default analyzer
+     * @param analysis the index.analysis settings; may be null
+     * @return the analyzer
+     * @throws IOException
+     * @throws IllegalArgumentException if a component isn't supported
+     */
+    static Analyzer build(String analyzerName, JsonObject analysis) throws IOException {
+        if (analysis == null) {
+            analysis = new JsonObject();
+        }
+        JsonObject definitions = getObject(analysis, "analyzer");
+        if (analyzerName == null) {
+            analyzerName = definitions.has(DEFAULT) ? DEFAULT : STANDARD;
+        }
+        JsonObject definition = getObject(definitions, analyzerName);
+        String type = JsonUtil.getPrimitive(definition, "type",
+                definition.has("tokenizer") ? "custom" : analyzerName);
+
+        LocalResourceLoader resourceLoader = new LocalResourceLoader();
+        CustomAnalyzer.Builder builder = CustomAnalyzer.builder(resourceLoader);
+        if (type.equals("custom")) {
+            for (String charFilter : getNames(definition, "char_filter")) {
+                Component c = getComponent(analysis, "char_filter", charFilter,
+                        CHAR_FILTERS, resourceLoader);
+                builder.addCharFilter(c.name, c.params);
+            }
+            Component tokenizer = getComponent(analysis, "tokenizer",
+                    JsonUtil.getPrimitive(definition, "tokenizer", STANDARD),
+                    TOKENIZERS, resourceLoader);
+            builder.withTokenizer(tokenizer.name, tokenizer.params);
+            for (String filter : getNames(definition, "filter")) {
+                Component c = getComponent(analysis, "filter", filter,
+                        TOKEN_FILTERS, resourceLoader);
+                builder.addTokenFilter(c.name, c.params);
+            }
+            return builder.build();
+        }
+        //built-in analyzers; only the stopwords can be configured here
+        for (String key : definition.keySet()) {
+            if (!key.equals("type") && !key.equals("stopwords")) {
+                throw new IllegalArgumentException("unsupported param '" + key +
+                        "' for analyzer type: " + type);
+            }
+        }
+        switch (type) {
+            case STANDARD:
+                builder.withTokenizer("standard").addTokenFilter("lowercase");
+                addStop(builder, definition, "_none_", resourceLoader);
+                break;
+            case "simple":
+                builder.withTokenizer("letter").addTokenFilter("lowercase");
+                break;
+            case "whitespace":
+                builder.withTokenizer("whitespace");
+                break;
+            case "keyword":
+                builder.withTokenizer("keyword");
+                break;
+            case "stop":
+                builder.withTokenizer("letter").addTokenFilter("lowercase");
+                addStop(builder, definition, "_english_", resourceLoader);
+                break;
+            case "english":
+                builder.withTokenizer("standard")
+                        .addTokenFilter("englishPossessive")
+                        .addTokenFilter("lowercase");
+                addStop(builder, definition, "_english_", resourceLoader);
+                builder.addTokenFilter("porterStem");
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported analyzer type: " + type);
+        }
+        return builder.build();
+    }
+
+    private static void addStop(CustomAnalyzer.Builder builder, JsonObject definition,
+                                String dflt, LocalResourceLoader resourceLoader)
+            throws IOException {
+        Map<String, String> params = new HashMap<>();
+        JsonElement stopwords = definition.has("stopwords") ?
+                definition.get("stopwords") : new JsonObject();
+        if (stopwords.isJsonObject()) {
+            //not set
+            if (dflt.equals("_none_")) {
+                return;
+            }
+        } else if (!addStopwords(stopwords, params, resourceLoader)) {
+            return;
+        }
+        builder.addTokenFilter("stop", params);
+    }
+
+    //returns false if there are no stopwords
+    private static boolean addStopwords(JsonElement stopwords, Map<String, String> params,
+                                        LocalResourceLoader resourceLoader) {
+        if (stopwords.isJsonArray()) {
+            params.put("words", resourceLoader.addInline(getStrings(stopwords)));
+            return true;
+        }
+        String s = stopwords.getAsString();
+        if (s.equals("_none_")) {
+            return false;
+        } else if (s.equals("_english_")) {
+            //lucene's stop filter defaults to the same english list
+            return true;
+        }
+        throw new IllegalArgumentException("unsupported stopwords: " + s);
+    }
+
+    private static Component getComponent(JsonObject analysis, String section, String name,
+                                          Map<String, String> luceneNames,
+                                          LocalResourceLoader resourceLoader) {
+        JsonObject definition = getObject(getObject(analysis, section), name);
+        String type = JsonUtil.getPrimitive(definition, "type", name);
+        Map<String, String> params = new HashMap<>();
+        String luceneName = luceneNames.get(type);
+        if (section.equals("filter") && type.equals("stemmer")) {
+            String language = JsonUtil.getPrimitive(definition, "language",
+                    JsonUtil.getPrimitive(definition, "name", "english"));
+            luceneName = STEMMERS.get(language);
+            if (luceneName == null) {
+                throw new IllegalArgumentException("unsupported stemmer: " + language);
+            }
+            return new Component(luceneName, params);
+        }
+        if (luceneName == null) {
+            throw new IllegalArgumentException("unsupported " + section + ": " + type);
+        }
+        if (DEFAULTS.containsKey(luceneName)) {
+            params.putAll(DEFAULTS.get(luceneName));
+        }
+        for (Map.Entry<String, JsonElement> e : definition.entrySet()) {
+            String key = e.getKey();
+            JsonElement value = e.getValue();
+            if (key.equals("type")) {
+                continue;
+            } else if (key.equals("stopwords")) {
+                if (!addStopwords(value, params, resourceLoader)) {
+                    params.put("words", resourceLoader.addInline(Collections.EMPTY_LIST));
+                }
+            } else if (key.equals("synonyms")) {
+                params.put("synonyms", resourceLoader.addInline(getStrings(value)));
+            } else if (key.equals("mappings")) {
+                params.put("mapping", resourceLoader.addInline(toLuceneMappings(value)));
+            } else if (PARAMS.containsKey(key)) {
+                String v = value.isJsonArray() ?
+                        String.join(",", getStrings(value)) : value.getAsString();
+                params.put(PARAMS.get(key), v);
+            } else {
+                throw new IllegalArgumentException("unsupported param '" + key +
+                        "' for " + section + ": " + type);
+            }
+        }
+        return new Component(luceneName, params);
+    }
+
+    //es: a => b; lucene: "a" => "b"
+    private static List<String> toLuceneMappings(JsonElement mappings) {
+        List<String> ret = new ArrayList<>();
+        for (String mapping : getStrings(mappings)) {
+            int i = mapping.indexOf("=>");
+            if (i < 0) {
+                throw new IllegalArgumentException("bad mapping: " + mapping);
+            }
+            ret.add(quote(mapping.substring(0, i)) + " => " + quote(mapping.substring(i + 2)));
+        }
+        return ret;
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.trim().replace("\"", "\\\"") + "\"";
+    }
+
+    private static List<String> getNames(JsonObject definition, String key) {
+        if (!definition.has(key)) {
+            return Collections.EMPTY_LIST;
+        }
+        return getStrings(definition.get(key));
+    }
+
+    private static List<String> getStrings(JsonElement element) {
+        List<String> ret = new ArrayList<>();
+        if (element.isJsonArray()) {
+            for (JsonElement el : element.getAsJsonArray()) {
+                ret.add(el.getAsString());
+            }
+        } else {
+            ret.add(element.getAsString());
+        }
+        return ret;
+    }
+
+    private static JsonObject getObject(JsonObject parent, String key) {
+        if (parent.has(key) && parent.get(key).isJsonObject()) {
+            return parent.getAsJsonObject(key);
+        }
+        return new JsonObject();
+    }
+
+    private static Map<String, String> params(String... args) {
+        Map<String, String> ret = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            ret.put(args[i], args[i + 1]);
+        }
+        return Collections.unmodifiableMap(ret);
+    }
+
+    private static class Component {
+        private final String name;
+        private final Map<String, String> params;
+
+        Component(String name, Map<String, String> params) {
+            this.name = name;
+            this.params = params;
+        }
+    }
+}
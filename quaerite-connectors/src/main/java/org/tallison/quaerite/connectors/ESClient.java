@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,6 +31,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -42,11 +47,15 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.HttpClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
 import org.tallison.quaerite.core.FacetResult;
 import org.tallison.quaerite.core.SearchResultSet;
 import org.tallison.quaerite.core.StoredDocument;
+import org.tallison.quaerite.core.features.CustomHandler;
 import org.tallison.quaerite.core.features.QueryOperator;
 import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.metrics.Metrics;
+import org.tallison.quaerite.core.metrics.Timer;
 import org.tallison.quaerite.core.queries.BooleanClause;
 import org.tallison.quaerite.core.queries.BooleanQuery;
 import org.tallison.quaerite.core.queries.BoostingQuery;
@@ -80,9 +89,13 @@ public class ESClient extends SearchClient {
 
     static Logger LOG = LogManager.getLogger(ESClient.class);
 
+    private static final Timer BUILD_TIMER = Metrics.timer("search.build");
+
     private final String url;//must include esbase and es collection; must end in /
     private final String esBase;//must end in /
     private final String esCollection;//has no /
+    private volatile int[] serverVersion;
+    private int idGrabberSlices = -1;
 
 
     public ESClient(String url, HttpClient httpClient) {
@@ -106,7 +119,9 @@ public class ESClient extends SearchClient {
     @Override
     public SearchResultSet search(QueryRequest query) throws SearchClientException, IOException {
         long start = System.currentTimeMillis();
+        long buildStart = BUILD_TIMER.start();
         String jsonQuery = buildJsonQuery(query, query.getFieldsToRetrieve());
+        BUILD_TIMER.stop(buildStart);
         if (LOG.isTraceEnabled()) {
             LOG.trace(jsonQuery);
         }
@@ -123,6 +138,85 @@ public class ESClient extends SearchClient {
         return getResultSet(root, start);
     }
 
+    /**
+     * Sends the queries via _msearch (and _msearch/template for
+     * {@link TemplateQuery}s) instead of one _search per query.
+     * Errors for individual queries are returned in the
+     * corresponding {@link BatchSearchResult}.
+     * <p>
+     * The elapsed time of each result set is the time for its whole
+     * multi-search request.
+     */
+    @Override
+    public List<BatchSearchResult> searchBatch(List<QueryRequest> queries)
+            throws SearchClientException, IOException {
+        BatchSearchResult[] results = new BatchSearchResult[queries.size()];
+        List<Integer> queryIndices = new ArrayList<>();
+        List<Integer> templateIndices = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            if (queries.get(i).getQuery() instanceof TemplateQuery) {
+                templateIndices.add(i);
+            } else {
+                queryIndices.add(i);
+            }
+        }
+        multiSearch("_msearch", queries, queryIndices, results);
+        multiSearch("_msearch/template", queries, templateIndices, results);
+        return Arrays.asList(results);
+    }
+
+    private void multiSearch(String endpoint, List<QueryRequest> queries,
+                             List<Integer> indices, BatchSearchResult[] results)
+            throws SearchClientException, IOException {
+        if (indices.size() == 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long buildStart = BUILD_TIMER.start();
+        String ndjson = buildMultiSearch(queries, indices);
+        BUILD_TIMER.stop(buildStart);
+        if (LOG.isTraceEnabled()) {
+            LOG.trace(ndjson);
+        }
+        JsonResponse json = isCompressRequests() ?
+                postJson(url + endpoint, writer -> writer.write(ndjson), true) :
+                postJson(url + endpoint, ndjson);
+        if (json.getStatus() != 200) {
+            throw new SearchClientException(json.getMsg() + "\nfor " + ndjson);
+        }
+        JsonArray responses = json.getJson().getAsJsonObject().getAsJsonArray("responses");
+        if (responses == null || responses.size() != indices.size()) {
+            throw new SearchClientException("expected " + indices.size() +
+                    " responses from " + endpoint + ", but got: " +
+                    ((responses == null) ? "none" : responses.size()));
+        }
+        for (int i = 0; i < indices.size(); i++) {
+            JsonObject response = responses.get(i).getAsJsonObject();
+            BatchSearchResult result;
+            if (response.has("error")) {
+                result = new BatchSearchResult(new SearchClientException(
+                        response.get("error") + "\nfor " +
+                                buildJsonQuery(queries.get(indices.get(i)),
+                                        queries.get(indices.get(i)).getFieldsToRetrieve())));
+            } else {
+                result = new BatchSearchResult(getResultSet(response, start));
+            }
+            results[indices.get(i)] = result;
+        }
+    }
+
+    String buildMultiSearch(List<QueryRequest> queries, List<Integer> indices)
+            throws IOException, SearchClientException {
+        StringBuilder sb = new StringBuilder();
+        for (int i : indices) {
+            QueryRequest query = queries.get(i);
+            //the index is in the url, so the header is empty
+            sb.append("{}\n");
+            sb.append(buildJsonQuery(query, query.getFieldsToRetrieve())).append("\n");
+        }
+        return sb.toString();
+    }
+
     public long getDF(String field, String term)
             throws IOException, SearchClientException {
         Query q = new TermQuery(field, term);
@@ -265,7 +359,120 @@ public class ESClient extends SearchClient {
             throw new SearchClientException(json.getMsg() + "\nfor " + jsonQuery);
         }
         JsonElement root = json.getJson();
-        return getResultSet(root, start);
+        SearchResultSet resultSet = getResultSet(root, start);
+        //the scroll id may change from one page to the next
+        resultSet.setScrollId(JsonUtil.getPrimitive(root, "_scroll_id", scrollId));
+        return resultSet;
+    }
+
+    /**
+     * Releases the resources held by the scrolls rather
+     * than waiting for them to time out.
+     *
+     * @param scrollIds scroll ids to clear
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public void clearScroll(String ... scrollIds) throws IOException, SearchClientException {
+        String json = GSON.toJson(wrapAMap("scroll_id", Arrays.asList(scrollIds)));
+        JsonResponse response = deleteJson(esBase + "_search/scroll", json);
+        //404 means that the scroll has already expired
+        if (response.getStatus() != 200 && response.getStatus() != 404) {
+            throw new SearchClientException(response.getMsg());
+        }
+    }
+
+    /**
+     * @param minutesAlive minutes to keep the point in time alive
+     * @return the id of the new point in time
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public String openPointInTime(int minutesAlive) throws IOException, SearchClientException {
+        JsonResponse response = postJson(url + "_pit?keep_alive=" + minutesAlive + "m", "");
+        if (response.getStatus() != 200) {
+            throw new SearchClientException(response.getMsg());
+        }
+        return JsonUtil.getPrimitive(response.getJson(), "id", "");
+    }
+
+    public void closePointInTime(String pitId) throws IOException, SearchClientException {
+        JsonResponse response = deleteJson(esBase + "_pit",
+                GSON.toJson(wrapAMap("id", pitId)));
+        if (response.getStatus() != 200 && response.getStatus() != 404) {
+            throw new SearchClientException(response.getMsg());
+        }
+    }
+
+    /**
+     * Point in time with the _shard_doc tiebreaker requires 7.12
+     *
+     * @return whether the cluster supports point in time searches
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public boolean supportsPointInTime() throws IOException, SearchClientException {
+        int[] version = getServerVersion();
+        return version[0] > 7 || (version[0] == 7 && version[1] >= 12);
+    }
+
+    public boolean supportsSlicedScroll() {
+        return true;
+    }
+
+    /**
+     * @return major and minor version of the cluster
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    int[] getServerVersion() throws IOException, SearchClientException {
+        if (serverVersion != null) {
+            return serverVersion;
+        }
+        JsonResponse response = getJson(esBase);
+        if (response.getStatus() != 200) {
+            throw new SearchClientException(response.getMsg());
+        }
+        String number = response.getJson().getAsJsonObject()
+                .getAsJsonObject("version").get("number").getAsString();
+        String[] parts = number.split("\\.");
+        serverVersion = new int[]{Integer.parseInt(parts[0]),
+                (parts.length > 1) ? Integer.parseInt(parts[1]) : 0};
+        return serverVersion;
+    }
+
+    /**
+     * @return the number of primary shards in the collection or
+     * -1 if that couldn't be determined
+     */
+    int getNumberOfShards() {
+        try {
+            JsonResponse response = getJson(url + "_settings/index.number_of_shards");
+            if (response.getStatus() != 200) {
+                return -1;
+            }
+            //the collection may be an alias for several indices
+            int shards = 0;
+            JsonObject root = response.getJson().getAsJsonObject();
+            for (String index : root.keySet()) {
+                JsonObject indexSettings = root.getAsJsonObject(index)
+                        .getAsJsonObject("settings").getAsJsonObject("index");
+                shards += indexSettings.get("number_of_shards").getAsInt();
+            }
+            return shards;
+        } catch (IOException | SearchClientException | RuntimeException e) {
+            LOG.warn("couldn't get the number of shards", e);
+            return -1;
+        }
+    }
+
+    /**
+     * @param slices number of concurrent slices for the id grabber; if
+     *               this is &lt; 1, the grabber uses one slice per shard,
+     *               up to the number of copier threads
+     */
+    public void setIdGrabberSlices(int slices) {
+        this.idGrabberSlices = slices;
     }
 
     public Map<String, Integer> getTermVectors(String id, String field)
@@ -293,7 +500,7 @@ public class ESClient extends SearchClient {
         return termVectors;
     }
 
-    private SearchResultSet getResultSet(JsonElement root, long start)
+    SearchResultSet getResultSet(JsonElement root, long start)
             throws IOException, SearchClientException {
         long queryTime = JsonUtil.getPrimitive(root, "took", -1l);
         JsonObject hits = (JsonObject) ((JsonObject) root).get("hits");
@@ -320,7 +527,7 @@ public class ESClient extends SearchClient {
         }
     }
 
-    private String buildJsonQuery(QueryRequest query, List<String> fieldsToRetrieve)
+    String buildJsonQuery(QueryRequest query, List<String> fieldsToRetrieve)
             throws IOException, SearchClientException {
         Map<String, Object> queryMap = getQueryMap(query, fieldsToRetrieve);
         if (query.getSortField() != null) {
@@ -596,26 +803,54 @@ public class ESClient extends SearchClient {
     @Override
     public void addDocuments(List<StoredDocument> documents) throws IOException,
             SearchClientException {
-        StringBuilder sb = new StringBuilder();
-        for (StoredDocument sd : documents) {
-            Map<String, Object> fields = sd.getFields();
-            String id = sd.getId();
-            String indexJson = getBulkIndexJson(id);
-            sb.append(indexJson).append("\n");
-            sb.append(GSON.toJson(fields)).append("\n");
-        }
-        //System.out.println(sb.toString());
-        JsonResponse response = postJson(url + "/_bulk", sb.toString());
-        if (response.getStatus() != 200) {
+        List<StoredDocument> rejected = tryAddDocuments(documents);
+        if (rejected.size() > 0) {
+            throw new SearchClientException("es rejected " + rejected.size() +
+                    " of " + documents.size() + " documents");
+        }
+    }
+
+    /**
+     * Streams the bulk request and returns the documents whose
+     * items were rejected with a 429.
+     */
+    @Override
+    public List<StoredDocument> tryAddDocuments(List<StoredDocument> documents)
+            throws IOException, SearchClientException {
+        if (documents.size() == 0) {
+            return Collections.EMPTY_LIST;
+        }
+        JsonResponse response = postJson(url + "_bulk", writer -> {
+            for (StoredDocument sd : documents) {
+                writer.write(getBulkIndexJson(sd.getId()));
+                writer.write("\n");
+                GSON.toJson(sd.getFields(), writer);
+                writer.write("\n");
+            }
+        }, isCompressRequests());
+        if (response.getStatus() == 429) {
+            return documents;
+        } else if (response.getStatus() != 200) {
             throw new SearchClientException(response.getMsg());
-        } else {
-            //if there's a single error, throw the full json.
-            //this has not been thoroughly tested with versions of es < 7
-            String value = response.getJson().getAsJsonObject().get("errors").getAsString();
-            if (value.equals("true")) {
-                throw new SearchClientException(response.getJson().toString());
+        }
+        JsonObject root = response.getJson().getAsJsonObject();
+        if (!JsonUtil.getPrimitive(root, "errors", false)) {
+            return Collections.EMPTY_LIST;
+        }
+        //items are in the order of the request
+        List<StoredDocument> rejected = new ArrayList<>();
+        JsonArray items = root.getAsJsonArray("items");
+        for (int i = 0; i < items.size(); i++) {
+            JsonObject item = items.get(i).getAsJsonObject().getAsJsonObject("index");
+            long status = JsonUtil.getPrimitive(item, "status", -1l);
+            if (status == 429) {
+                rejected.add(documents.get(i));
+            } else if (item.has("error")) {
+                //this has not been thoroughly tested with versions of es < 7
+                throw new SearchClientException(item.toString());
             }
         }
+        return rejected;
     }
 
     private String getBulkIndexJson(String id) {
@@ -649,6 +884,72 @@ public class ESClient extends SearchClient {
         return jsonArrayToDocs(docs, excludeFields);
     }
 
+    /**
+     * Uses _mget without the _source if the idField is _id, otherwise
+     * falls back to a terms query.
+     */
+    @Override
+    public Set<String> getExistingIds(String idField, Collection<String> ids,
+                                      CustomHandler customHandler)
+            throws IOException, SearchClientException {
+        if (!_ID.equals(idField)) {
+            return super.getExistingIds(idField, ids, customHandler);
+        }
+        Set<String> existing = new HashSet<>();
+        if (ids.size() == 0) {
+            return existing;
+        }
+        JsonResponse response = postJson(url + "_mget?_source=false",
+                GSON.toJson(getMGetRequest(ids)));
+        if (response.getStatus() != 200) {
+            throw new SearchClientException(response.getMsg());
+        }
+        JsonArray docs = response.getJson().getAsJsonObject().getAsJsonArray("docs");
+        for (JsonElement el : docs) {
+            if (JsonUtil.getPrimitive(el, "found", false)) {
+                existing.add(JsonUtil.getPrimitive(el, _ID, ""));
+            }
+        }
+        return existing;
+    }
+
+    Map<String, Object> getMGetRequest(Collection<String> ids) {
+        return wrapAMap("ids", ids);
+    }
+
+    /**
+     * Based on the index uuids and the primaries' document and
+     * indexing counts.  Indexing counts are reset when nodes restart,
+     * which only makes the version change more often than necessary.
+     */
+    @Override
+    public String getIndexVersion() throws IOException, SearchClientException {
+        JsonResponse response = getJson(url + "_stats/docs,indexing");
+        if (response.getStatus() != 200) {
+            throw new SearchClientException(response.getMsg());
+        }
+        JsonObject root = response.getJson().getAsJsonObject();
+        JsonObject primaries = root.getAsJsonObject("_all").getAsJsonObject("primaries");
+        JsonObject docs = primaries.getAsJsonObject("docs");
+        JsonObject indexing = primaries.getAsJsonObject("indexing");
+        StringBuilder sb = new StringBuilder();
+        List<String> indices = new ArrayList<>();
+        if (root.has("indices")) {
+            for (Map.Entry<String, JsonElement> e :
+                    root.getAsJsonObject("indices").entrySet()) {
+                indices.add(e.getKey() + "/" +
+                        JsonUtil.getPrimitive(e.getValue(), "uuid", ""));
+            }
+        }
+        Collections.sort(indices);
+        sb.append(StringUtils.join(indices, ","));
+        sb.append(":").append(JsonUtil.getPrimitive(docs, "count", -1l));
+        sb.append(":").append(JsonUtil.getPrimitive(docs, "deleted", -1l));
+        sb.append(":").append(JsonUtil.getPrimitive(indexing, "index_total", -1l));
+        sb.append(":").append(JsonUtil.getPrimitive(indexing, "delete_total", -1l));
+        return sb.toString();
+    }
+
     private List<StoredDocument> jsonArrayToDocs(JsonArray docs,
                                                  Set<String> excludeFields)
             throws IOException, SearchClientException {
@@ -741,8 +1042,21 @@ public class ESClient extends SearchClient {
                                   int copierThreads,
                                   Collection<Query> filterQueries)
             throws IOException, SearchClientException {
+        int slices = idGrabberSlices;
+        if (slices < 1) {
+            int shards = getNumberOfShards();
+            slices = (shards < 1) ? copierThreads : Math.min(shards, copierThreads);
+        }
+        if (!supportsSlicedScroll()) {
+            slices = 1;
+        }
+        if (slices > 1 && getServerConnection() == null) {
+            LOG.debug("can't create a client per slice without a server connection; " +
+                    "using one slice");
+            slices = 1;
+        }
         return new ESIdGrabber(getDefaultIdField(), ids, batchSize,
-                copierThreads, filterQueries);
+                copierThreads, filterQueries, Math.max(1, slices));
     }
 
     @Override
@@ -751,7 +1065,7 @@ public class ESClient extends SearchClient {
     }
 
     @Override
-    public List<String> analyze(String field, String string) throws SearchClientException {
+    protected List<String> doAnalyze(String field, String string) throws SearchClientException {
         Map<String, String> m = new HashMap<>();
         m.put("field", field);
         m.put("text", string);
@@ -773,6 +1087,119 @@ public class ESClient extends SearchClient {
         return tokens;
     }
 
+    /**
+     * Sends the strings as a text array in one _analyze request and
+     * splits the tokens by their offsets.  ES puts the values of a text
+     * array one offset gap (1, unless the analyzer sets another) apart.
+     * If any token's offsets fall outside of the value it's assigned to,
+     * e.g. because of a custom offset_gap, this falls back to analyzing
+     * one string at a time.
+     */
+    @Override
+    protected List<List<String>> doAnalyzeBatch(String field, List<String> strings)
+            throws IOException, SearchClientException {
+        if (strings.size() < 2) {
+            return super.doAnalyzeBatch(field, strings);
+        }
+        Map<String, Object> m = new HashMap<>();
+        m.put("field", field);
+        m.put("text", strings);
+        JsonResponse response = postJson(url + "_analyze", GSON.toJson(m));
+        if (response.getStatus() != 200) {
+            //e.g. too many tokens for one request
+            LOG.debug("batch analysis failed; analyzing one string at a time: " +
+                    response.getMsg());
+            return super.doAnalyzeBatch(field, strings);
+        }
+        long[] starts = new long[strings.size()];
+        List<List<String>> results = new ArrayList<>();
+        long offset = 0;
+        for (int i = 0; i < strings.size(); i++) {
+            starts[i] = offset;
+            offset += strings.get(i).length() + 1;
+            results.add(new ArrayList<>());
+        }
+        int i = 0;
+        for (JsonElement tokenObj :
+                response.getJson().getAsJsonObject().get("tokens").getAsJsonArray()) {
+            long start = JsonUtil.getPrimitive(tokenObj, "start_offset", 0L);
+            long end = JsonUtil.getPrimitive(tokenObj, "end_offset", start);
+            while (i < starts.length - 1 && start >= starts[i + 1]) {
+                i++;
+            }
+            if (start < starts[i] || end > starts[i] + strings.get(i).length()) {
+                LOG.debug("token offsets don't line up with an offset gap of 1; " +
+                        "analyzing one string at a time");
+                return super.doAnalyzeBatch(field, strings);
+            }
+            results.get(i).add(tokenObj.getAsJsonObject().get("token").getAsString());
+        }
+        return results;
+    }
+
+    @Override
+    protected Analyzer buildLocalAnalyzer(String field)
+            throws IOException, SearchClientException {
+        JsonResponse mappingResponse = getJson(url + "_mapping/field/" + encode(field));
+        if (mappingResponse.getStatus() != 200) {
+            return null;
+        }
+        JsonObject mapping = findFieldMapping(mappingResponse.getJson());
+        if (mapping == null) {
+            return null;
+        }
+        String type = JsonUtil.getPrimitive(mapping, "type", "");
+        String analyzer = JsonUtil.getPrimitive(mapping, "analyzer", null);
+        if (type.equals("keyword") ||
+                (type.equals("string") &&
+                        "not_analyzed".equals(JsonUtil.getPrimitive(mapping, "index", "")))) {
+            if (mapping.has("normalizer")) {
+                return null;
+            }
+            analyzer = "keyword";
+        } else if (!type.equals("text") && !type.equals("string")) {
+            return null;
+        }
+        JsonResponse settingsResponse = getJson(url + "_settings");
+        if (settingsResponse.getStatus() != 200) {
+            throw new SearchClientException(settingsResponse.getMsg());
+        }
+        JsonObject analysis = null;
+        //the first index, in case the collection is an alias
+        for (Map.Entry<String, JsonElement> e :
+                settingsResponse.getJson().getAsJsonObject().entrySet()) {
+            JsonObject index = e.getValue().getAsJsonObject()
+                    .getAsJsonObject("settings").getAsJsonObject("index");
+            if (index != null && index.has("analysis")) {
+                analysis = index.getAsJsonObject("analysis");
+            }
+            break;
+        }
+        return ESAnalyzerBuilder.build(analyzer, analysis);
+    }
+
+    //{index: {mappings: {[type: ]{field: {full_name: .., mapping: {field: {...}}}}}}}
+    private static JsonObject findFieldMapping(JsonElement el) {
+        if (!el.isJsonObject()) {
+            return null;
+        }
+        JsonObject obj = el.getAsJsonObject();
+        if (obj.has("mapping") && obj.get("mapping").isJsonObject()) {
+            for (Map.Entry<String, JsonElement> e :
+                    obj.getAsJsonObject("mapping").entrySet()) {
+                return e.getValue().isJsonObject() ? e.getValue().getAsJsonObject() : null;
+            }
+            return null;
+        }
+        for (Map.Entry<String, JsonElement> e : obj.entrySet()) {
+            JsonObject mapping = findFieldMapping(e.getValue());
+            if (mapping != null) {
+                return mapping;
+            }
+        }
+        return null;
+    }
+
     @Override
     public List<TokenDF> getTerms(String field, String lower,
                                   int limit, int minCount,
@@ -805,41 +1232,172 @@ public class ESClient extends SearchClient {
         return ret;
     }
 
+    /**
+     * Runs one scroll per slice (or one point in time search_after
+     * per slice if the cluster supports it) concurrently.  Each slice
+     * has its own client and blocks on adding ids to the queue when
+     * the copiers fall behind.
+     */
     private class ESIdGrabber extends IdGrabber {
 
+        private static final int MINUTES_ALIVE = 5;
+
+        private final int slices;
+        private final Set<String> pitIds = ConcurrentHashMap.newKeySet();
+
         public ESIdGrabber(String idField, ArrayBlockingQueue<Set<String>> ids,
                            int batchSize,
-                           int copierThreads, Collection<Query> filterQueries) {
+                           int copierThreads, Collection<Query> filterQueries,
+                           int slices) {
             super(idField, ids, batchSize, copierThreads, filterQueries);
+            this.slices = slices;
         }
 
         @Override
         public Integer call() throws Exception {
+            ExecutorService executorService = Executors.newFixedThreadPool(slices);
+            ExecutorCompletionService<Integer> completionService =
+                    new ExecutorCompletionService<>(executorService);
             try {
-                Map<String, Object> q = wrapAMap("query",
-                        wrapAMap("match_all", Collections.EMPTY_MAP));
-                q.put("size", Integer.toString(batchSize));
-                q.put("stored_fields", Collections.EMPTY_LIST);
-
-                Query query = new MatchAllDocsQuery();
-                QueryRequest queryRequest = new QueryRequest(query);
-                queryRequest.addFieldsToRetrieve(Collections.EMPTY_LIST);
-
-                SearchResultSet searchResultSet = startScroll(queryRequest, batchSize, 5);
-                String scrollId = searchResultSet.getScrollId();
-                while (searchResultSet.size() > 0) {
-                    Set<String> set = new HashSet<>();
-                    set.addAll(searchResultSet.getIds());
-                    LOG.debug("adding " + set.size());
-                    addSet(ids, set);
-                    searchResultSet = scrollNext(scrollId, 5);
+                boolean pit = supportsPointInTime();
+                if (pit) {
+                    pitIds.add(openPointInTime(MINUTES_ALIVE));
+                }
+                String pitId = pit ? pitIds.iterator().next() : null;
+                for (int i = 0; i < slices; i++) {
+                    final int slice = i;
+                    completionService.submit(() -> runSlice(slice, pitId));
+                }
+                long total = 0;
+                for (int i = 0; i < slices; i++) {
+                    //throws on the first failed slice
+                    total += completionService.take().get();
                 }
+                LOG.debug("id grabber finished " + slices + " slices; ids: " + total);
             } finally {
+                executorService.shutdownNow();
+                for (String pitId : pitIds) {
+                    try {
+                        closePointInTime(pitId);
+                    } catch (IOException | SearchClientException e) {
+                        LOG.warn("couldn't close point in time", e);
+                    }
+                }
                 LOG.debug("id grabber adding poison");
                 addPoison();
             }
             return -1;
         }
 
+        private int runSlice(int slice, String pitId) throws Exception {
+            //a single slice runs on this client; the grabber's thread is waiting on it
+            ESClient client = (slices == 1) ? ESClient.this : newSliceClient();
+            try {
+                return (pitId == null) ?
+                        scrollSlice(client, slice) : pitSlice(client, pitId, slice);
+            } finally {
+                if (client != ESClient.this) {
+                    client.close();
+                }
+            }
+        }
+
+        private ESClient newSliceClient() throws IOException, SearchClientException {
+            SearchClient client = SearchClientFactory.getClient(getServerConnection());
+            if (!(client instanceof ESClient)) {
+                client.close();
+                throw new SearchClientException("expected an ESClient for the slices, but got: " +
+                        client.getClass());
+            }
+            return (ESClient) client;
+        }
+
+        private int scrollSlice(ESClient client, int slice) throws Exception {
+            Map<String, Object> request = getIdRequest(client, "_doc", slice);
+            JsonObject root = post(client, url + "_search?scroll=" + MINUTES_ALIVE + "m",
+                    request);
+            String scrollId = JsonUtil.getPrimitive(root, "_scroll_id", "");
+            int total = 0;
+            try {
+                Set<String> set = getIds(root.getAsJsonObject("hits").getAsJsonArray("hits"));
+                while (set.size() > 0) {
+                    total += addSet(ids, set);
+                    Map<String, Object> next = new HashMap<>();
+                    next.put("scroll", MINUTES_ALIVE + "m");
+                    next.put("scroll_id", scrollId);
+                    root = post(client, esBase + "_search/scroll", next);
+                    scrollId = JsonUtil.getPrimitive(root, "_scroll_id", scrollId);
+                    set = getIds(root.getAsJsonObject("hits").getAsJsonArray("hits"));
+                }
+            } finally {
+                try {
+                    client.clearScroll(scrollId);
+                } catch (IOException | SearchClientException e) {
+                    LOG.warn("couldn't clear scroll", e);
+                }
+            }
+            return total;
+        }
+
+        private int pitSlice(ESClient client, String pitId, int slice) throws Exception {
+            Map<String, Object> request = getIdRequest(client, "_shard_doc", slice);
+            request.put("pit", wrapAMap("id", pitId, "keep_alive", MINUTES_ALIVE + "m"));
+            int total = 0;
+            while (true) {
+                JsonObject root = post(client, esBase + "_search", request);
+                //the pit id may change from one page to the next
+                String nextPitId = JsonUtil.getPrimitive(root, "pit_id", pitId);
+                if (!nextPitId.equals(pitId)) {
+                    pitId = nextPitId;
+                    pitIds.add(pitId);
+                    request.put("pit", wrapAMap("id", pitId,
+                            "keep_alive", MINUTES_ALIVE + "m"));
+                }
+                JsonArray hits = root.getAsJsonObject("hits").getAsJsonArray("hits");
+                Set<String> set = getIds(hits);
+                if (set.size() == 0) {
+                    return total;
+                }
+                total += addSet(ids, set);
+                JsonElement lastSort = hits.get(hits.size() - 1).getAsJsonObject().get("sort");
+                request.put("search_after", lastSort);
+            }
+        }
+
+        private Map<String, Object> getIdRequest(ESClient client, String sortField, int slice)
+                throws IOException, SearchClientException {
+            QueryRequest queryRequest = new QueryRequest(new MatchAllDocsQuery());
+            queryRequest.addFilterQueries(filterQueries);
+            Map<String, Object> request = client.getQueryMap(queryRequest,
+                    Collections.EMPTY_LIST);
+            request.remove("from");
+            request.put("size", batchSize);
+            request.put("_source", false);
+            client.trackTotalHits(request, false);
+            request.put("sort", Collections.singletonList(wrapAMap(sortField, "asc")));
+            //es rejects a slice with max = 1
+            if (slices > 1) {
+                request.put("slice", wrapAMap("id", slice, "max", slices));
+            }
+            return request;
+        }
+
+        private JsonObject post(ESClient client, String endpoint, Map<String, Object> request)
+                throws IOException, SearchClientException {
+            String json = GSON.toJson(request);
+            JsonResponse response = client.postJson(endpoint, json);
+            if (response.getStatus() != 200) {
+                throw new SearchClientException(response.getMsg() + "\nfor " + json);
+            }
+            return response.getJson().getAsJsonObject();
+        }
+
+        private Set<String> getIds(JsonArray hits) {
+            Set<String> set = new HashSet<>();
+            for (JsonElement hit : hits) {
+                set.add(JsonUtil.getPrimitive(hit, _ID, ""));
+            }
+            return set;
+        }
     }
 }
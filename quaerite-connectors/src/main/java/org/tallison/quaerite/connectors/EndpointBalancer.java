@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpHost;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Chooses among equivalent endpoints, e.g. Solr replicas or ES
+ * coordinating nodes, with the power of two choices: pick two
+ * endpoints at random and use the one with fewer outstanding requests.
+ * <p>
+ * Health checks are passive: an endpoint that fails
+ * {@link #EJECT_AFTER_FAILURES} requests in a row is ejected for a
+ * period that doubles with each consecutive ejection.  If every
+ * endpoint is ejected, the one due back first is used.
+ * </p>
+ * There is one balancer per set of endpoints so that the clients
+ * of all threads share the counts and the health of the endpoints.
+ */
+public class EndpointBalancer {
+
+    static Logger LOG = LogManager.getLogger(EndpointBalancer.class);
+
+    static final int EJECT_AFTER_FAILURES = 3;
+    static final long BASE_EJECTION_MILLIS = 5000;
+    static final long MAX_EJECTION_MILLIS = 300000;
+
+    private static final ConcurrentHashMap<List<HttpHost>, EndpointBalancer> BALANCERS =
+            new ConcurrentHashMap<>();
+
+    private final List<Endpoint> endpoints;
+
+    EndpointBalancer(List<HttpHost> hosts) {
+        if (hosts.size() == 0) {
+            throw new IllegalArgumentException("must have at least one endpoint");
+        }
+        List<Endpoint> tmp = new ArrayList<>();
+        for (HttpHost host : hosts) {
+            tmp.add(new Endpoint(host));
+        }
+        endpoints = Collections.unmodifiableList(tmp);
+    }
+
+    public static EndpointBalancer getInstance(List<HttpHost> hosts) {
+        return BALANCERS.computeIfAbsent(new ArrayList<>(hosts), EndpointBalancer::new);
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    Endpoint choose(Random random) {
+        return choose(random, null);
+    }
+
+    /**
+     * @param random random
+     * @param exclude endpoint to avoid, e.g. one that just failed, may be null
+     * @return the endpoint to use
+     */
+    Endpoint choose(Random random, Endpoint exclude) {
+        long now = System.currentTimeMillis();
+        List<Endpoint> candidates = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint != exclude && endpoint.ejectedUntil <= now) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.size() == 0) {
+            //fail open on the endpoint that is due back first
+            Endpoint next = null;
+            for (Endpoint endpoint : endpoints) {
+                if (endpoint == exclude && endpoints.size() > 1) {
+                    continue;
+                }
+                if (next == null || endpoint.ejectedUntil < next.ejectedUntil) {
+                    next = endpoint;
+                }
+            }
+            return next;
+        } else if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        int a = random.nextInt(candidates.size());
+        int b = random.nextInt(candidates.size() - 1);
+        if (b >= a) {
+            b++;
+        }
+        Endpoint endpointA = candidates.get(a);
+        Endpoint endpointB = candidates.get(b);
+        return (endpointB.outstanding.get() < endpointA.outstanding.get()) ?
+                endpointB : endpointA;
+    }
+
+    public static class Endpoint {
+        private final HttpHost host;
+        private final AtomicInteger outstanding = new AtomicInteger(0);
+        private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
+        private final AtomicInteger consecutiveEjections = new AtomicInteger(0);
+        private final AtomicLong requests = new AtomicLong(0);
+        private final AtomicLong failures = new AtomicLong(0);
+        private volatile long ejectedUntil = 0;
+
+        Endpoint(HttpHost host) {
+            this.host = host;
+        }
+
+        public HttpHost getHost() {
+            return host;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public long getRequests() {
+            return requests.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public boolean isEjected() {
+            return ejectedUntil > System.currentTimeMillis();
+        }
+
+        void start() {
+            requests.incrementAndGet();
+            outstanding.incrementAndGet();
+        }
+
+        void end() {
+            outstanding.decrementAndGet();
+        }
+
+        void success() {
+            consecutiveFailures.set(0);
+            consecutiveEjections.set(0);
+        }
+
+        void failure() {
+            failures.incrementAndGet();
+            if (consecutiveFailures.incrementAndGet() >= EJECT_AFTER_FAILURES) {
+                consecutiveFailures.set(0);
+                int ejections = Math.min(consecutiveEjections.getAndIncrement(), 16);
+                long millis = Math.min(MAX_EJECTION_MILLIS, BASE_EJECTION_MILLIS << ejections);
+                ejectedUntil = System.currentTimeMillis() + millis;
+                LOG.warn("ejecting " + host + " for " + millis + " ms");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Endpoint{" +
+                    "host=" + host +
+                    ", outstanding=" + outstanding +
+                    ", requests=" + requests +
+                    ", failures=" + failures +
+                    ", ejected=" + isEjected() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Spreads the requests for one logical server across equivalent
+ * endpoints that differ only by scheme, host and port.
+ * <p>
+ * Requests that target any of the endpoints are sent to the
+ * endpoint chosen by the {@link EndpointBalancer}; other requests
+ * pass through unchanged.  Connection failures and 5xx responses count
+ * against an endpoint's health.  A request that fails with an
+ * IOException is retried once on each of the other endpoints if its
+ * body can be resent.
+ */
+public class LoadBalancingHttpClient extends CloseableHttpClient {
+
+    static Logger LOG = LogManager.getLogger(LoadBalancingHttpClient.class);
+
+    private final CloseableHttpClient delegate;
+    private final EndpointBalancer balancer;
+    private final Set<HttpHost> hosts = new HashSet<>();
+
+    /**
+     * @param delegate client that does the work
+     * @param urls equivalent urls, e.g. http://solr1:8983/solr/tmdb and
+     *             http://solr2:8983/solr/tmdb
+     */
+    public LoadBalancingHttpClient(CloseableHttpClient delegate, List<String> urls) {
+        this.delegate = delegate;
+        List<HttpHost> endpoints = new ArrayList<>();
+        String path = null;
+        for (String url : urls) {
+            URI uri = URI.create(url.trim());
+            String thisPath = stripSlash(uri.getRawPath());
+            if (path == null) {
+                path = thisPath;
+            } else if (!path.equals(thisPath)) {
+                throw new IllegalArgumentException("all endpoints must have the same path: '" +
+                        path + "' vs. '" + thisPath + "'");
+            }
+            HttpHost host = normalize(URIUtils.extractHost(uri));
+            if (host == null) {
+                throw new IllegalArgumentException("couldn't find host in: " + url);
+            }
+            if (hosts.add(host)) {
+                endpoints.add(host);
+            }
+        }
+        this.balancer = EndpointBalancer.getInstance(endpoints);
+    }
+
+    public EndpointBalancer getBalancer() {
+        return balancer;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request,
+                                              HttpContext context)
+            throws IOException, ClientProtocolException {
+        if (target == null || !hosts.contains(normalize(target))) {
+            return delegate.execute(target, request, context);
+        }
+        EndpointBalancer.Endpoint endpoint = balancer.choose(ThreadLocalRandom.current());
+        int attempts = 0;
+        while (true) {
+            rewrite(request, endpoint.getHost());
+            endpoint.start();
+            CloseableHttpResponse response;
+            try {
+                response = delegate.execute(endpoint.getHost(), request, context);
+            } catch (IOException e) {
+                endpoint.end();
+                if (isAborted(request)) {
+                    //aborted by the caller, e.g. the loser of a hedged search
+                    throw e;
+                }
+                endpoint.failure();
+                if (++attempts >= balancer.getEndpoints().size() || !isRepeatable(request)) {
+                    throw e;
+                }
+                LOG.warn("retrying on another endpoint after failure on " +
+                        endpoint.getHost(), e);
+                endpoint = balancer.choose(ThreadLocalRandom.current(), endpoint);
+                continue;
+            }
+            if (response.getStatusLine().getStatusCode() >= 500) {
+                endpoint.failure();
+            } else {
+                endpoint.success();
+            }
+            return endOnClose(response, endpoint);
+        }
+    }
+
+    //the request counts as outstanding until its response is closed
+    private static CloseableHttpResponse endOnClose(CloseableHttpResponse response,
+                                                    EndpointBalancer.Endpoint endpoint) {
+        AtomicBoolean ended = new AtomicBoolean(false);
+        return (CloseableHttpResponse) Proxy.newProxyInstance(
+                CloseableHttpResponse.class.getClassLoader(),
+                new Class[]{CloseableHttpResponse.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && ended.compareAndSet(false, true)) {
+                        endpoint.end();
+                    }
+                    try {
+                        return method.invoke(response, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static void rewrite(HttpRequest request, HttpHost host) throws ClientProtocolException {
+        if (!(request instanceof HttpRequestBase)) {
+            return;
+        }
+        HttpRequestBase requestBase = (HttpRequestBase) request;
+        URI uri = requestBase.getURI();
+        if (uri == null || !uri.isAbsolute()) {
+            return;
+        }
+        try {
+            requestBase.setURI(URIUtils.rewriteURI(uri, host));
+        } catch (URISyntaxException e) {
+            throw new ClientProtocolException(e);
+        }
+    }
+
+    private static boolean isAborted(HttpRequest request) {
+        return request instanceof HttpRequestBase && ((HttpRequestBase) request).isAborted();
+    }
+
+    private static boolean isRepeatable(HttpRequest request) {
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            return entity == null || entity.isRepeatable();
+        }
+        return true;
+    }
+
+    private static HttpHost normalize(HttpHost host) {
+        if (host == null || host.getPort() > -1) {
+            return host;
+        }
+        int port = "https".equalsIgnoreCase(host.getSchemeName()) ? 443 : 80;
+        return new HttpHost(host.getHostName(), port, host.getSchemeName());
+    }
+
+    private static String stripSlash(String path) {
+        if (path == null) {
+            return "";
+        }
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    @Override
+    @Deprecated
+    public HttpParams getParams() {
+        return delegate.getParams();
+    }
+
+    @Override
+    @Deprecated
+    public ClientConnectionManager getConnectionManager() {
+        return delegate.getConnectionManager();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
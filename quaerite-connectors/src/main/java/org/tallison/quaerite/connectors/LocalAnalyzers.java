@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+/**
+ * Analyzers that were rebuilt from the search server's analysis
+ * definitions, by field.  A field maps to null if its chain couldn't
+ * be rebuilt locally; callers fall back to the server for that field.
+ * <p>
+ * Like the clients, this is not thread safe.
+ * </p>
+ */
+class LocalAnalyzers implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(LocalAnalyzers.class);
+
+    interface AnalyzerBuilder {
+        Analyzer build(String field) throws IOException, SearchClientException;
+    }
+
+    private final Map<String, Analyzer> analyzers = new HashMap<>();
+    private final AnalyzerBuilder builder;
+
+    LocalAnalyzers(AnalyzerBuilder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * @return the tokens or null if this field has to be analyzed by the server
+     */
+    List<String> analyze(String field, String string) throws IOException {
+        Analyzer analyzer = getAnalyzer(field);
+        if (analyzer == null) {
+            return null;
+        }
+        return analyze(analyzer, field, string);
+    }
+
+    private Analyzer getAnalyzer(String field) {
+        if (analyzers.containsKey(field)) {
+            return analyzers.get(field);
+        }
+        Analyzer analyzer = null;
+        try {
+            analyzer = builder.build(field);
+            if (analyzer == null) {
+                LOG.warn("can't analyze '" + field + "' locally; " +
+                        "falling back to the search server");
+            }
+        } catch (IOException | SearchClientException | RuntimeException e) {
+            //the lucene factories throw IllegalArgumentExceptions for
+            //params they don't support
+            LOG.warn("can't analyze '" + field + "' locally; " +
+                    "falling back to the search server", e);
+        }
+        analyzers.put(field, analyzer);
+        return analyzer;
+    }
+
+    static List<String> analyze(Analyzer analyzer, String field, String string)
+            throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream tokenStream = analyzer.tokenStream(field, string)) {
+            CharTermAttribute termAtt = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                tokens.add(termAtt.toString());
+            }
+            tokenStream.end();
+        }
+        return tokens;
+    }
+
+    @Override
+    public void close() {
+        for (Analyzer analyzer : analyzers.values()) {
+            if (analyzer != null) {
+                analyzer.close();
+            }
+        }
+        analyzers.clear();
+    }
+}
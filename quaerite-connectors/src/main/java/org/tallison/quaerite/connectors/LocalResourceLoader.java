@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.util.ClasspathResourceLoader;
+import org.apache.lucene.analysis.util.ResourceLoader;
+
+/**
+ * Resource loader for analysis components that were rebuilt from a
+ * search server's definitions.  Resources are either inline lists
+ * (e.g. stopwords in the ES settings) or files that are fetched from
+ * the server.
+ */
+class LocalResourceLoader implements ResourceLoader {
+
+    interface Fetcher {
+        byte[] fetch(String resource) throws IOException;
+    }
+
+    private final Map<String, byte[]> resources = new HashMap<>();
+    private final Fetcher fetcher;
+    private final ClasspathResourceLoader classpathLoader =
+            new ClasspathResourceLoader(LocalResourceLoader.class);
+
+    LocalResourceLoader() {
+        this(null);
+    }
+
+    LocalResourceLoader(Fetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * @param lines lines of the resource
+     * @return the name to use for the resource in the component's params
+     */
+    String addInline(List<String> lines) {
+        String name = "inline-" + resources.size() + ".txt";
+        resources.put(name, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        return name;
+    }
+
+    @Override
+    public InputStream openResource(String resource) throws IOException {
+        byte[] bytes = resources.get(resource);
+        if (bytes == null) {
+            if (fetcher == null) {
+                throw new IOException("couldn't find resource: " + resource);
+            }
+            bytes = fetcher.fetch(resource);
+            resources.put(resource, bytes);
+        }
+        return new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public <T> Class<? extends T> findClass(String cname, Class<T> expectedType) {
+        return classpathLoader.findClass(cname, expectedType);
+    }
+
+    @Override
+    public <T> T newInstance(String cname, Class<T> expectedType) {
+        return classpathLoader.newInstance(cname, expectedType);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.IOException;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Sends requests through the delegate and appends each response, with
+ * its latency, to the {@link RequestRecordings} so that a run can be
+ * replayed offline with the {@link ReplayHttpClient}.
+ * <p>
+ * Because this records at the http layer, it works for every
+ * SearchClient, including the version probe in the {@link SearchClientFactory}.
+ */
+public class RecordingHttpClient extends CloseableHttpClient {
+
+    private final CloseableHttpClient delegate;
+    private final RequestRecordings recordings;
+
+    public RecordingHttpClient(CloseableHttpClient delegate, RequestRecordings recordings) {
+        this.delegate = delegate;
+        this.recordings = recordings;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request,
+                                              HttpContext context)
+            throws IOException, ClientProtocolException {
+        byte[] requestBody = RequestRecordings.readBody(request);
+        String key = RequestRecordings.getKey(target, request, requestBody);
+        long start = System.currentTimeMillis();
+        int status;
+        byte[] body;
+        try (CloseableHttpResponse response = delegate.execute(target, request, context)) {
+            status = response.getStatusLine().getStatusCode();
+            HttpEntity entity = response.getEntity();
+            body = (entity == null) ? new byte[0] : EntityUtils.toByteArray(entity);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        recordings.append(key, status, elapsed, body);
+        return RequestRecordings.toResponse(status, body);
+    }
+
+    @Override
+    @Deprecated
+    public HttpParams getParams() {
+        return delegate.getParams();
+    }
+
+    @Override
+    @Deprecated
+    public ClientConnectionManager getConnectionManager() {
+        return delegate.getConnectionManager();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
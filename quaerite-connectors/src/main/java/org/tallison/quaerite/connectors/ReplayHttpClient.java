@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.IOException;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Answers requests from {@link RequestRecordings} without touching
+ * the network.  A request that wasn't recorded fails with a
+ * ClientProtocolException.
+ * <p>
+ * If the latencyFactor is greater than 0, each response is delayed
+ * by its recorded latency times the factor; 0 replays as fast as possible.
+ */
+public class ReplayHttpClient extends CloseableHttpClient {
+
+    private final CloseableHttpClient delegate;
+    private final RequestRecordings recordings;
+    private final double latencyFactor;
+
+    /**
+     * @param delegate client that is never sent a request; it is only closed
+     * @param recordings recordings to replay
+     * @param latencyFactor multiplier for the recorded latencies
+     */
+    public ReplayHttpClient(CloseableHttpClient delegate, RequestRecordings recordings,
+                            double latencyFactor) {
+        if (latencyFactor < 0) {
+            throw new IllegalArgumentException("latencyFactor must be >= 0: " + latencyFactor);
+        }
+        this.delegate = delegate;
+        this.recordings = recordings;
+        this.latencyFactor = latencyFactor;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request,
+                                              HttpContext context)
+            throws IOException, ClientProtocolException {
+        byte[] requestBody = RequestRecordings.readBody(request);
+        String key = RequestRecordings.getKey(target, request, requestBody);
+        RequestRecordings.Recording recording = recordings.get(key);
+        if (recording == null) {
+            throw new ClientProtocolException("no recording in " + recordings.getPath() +
+                    " for: " + request.getRequestLine());
+        }
+        long delay = Math.round(recording.getLatencyMillis() * latencyFactor);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+        return RequestRecordings.toResponse(recording.getStatus(), recording.getBody());
+    }
+
+    @Override
+    @Deprecated
+    public HttpParams getParams() {
+        return delegate.getParams();
+    }
+
+    @Override
+    @Deprecated
+    public ClientConnectionManager getConnectionManager() {
+        return delegate.getConnectionManager();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Append-only file of http responses keyed by a hash of the
+ * rendered request: method, absolute url and body.
+ * <p>
+ * Each record is: a marker, the key, the status, the latency
+ * in milliseconds, and the deflated response body.  A record that
+ * was cut off, e.g. by a crash, ends the file when it is read.
+ * <p>
+ * This is thread safe.
+ */
+public class RequestRecordings implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(RequestRecordings.class);
+
+    private static final int RECORD_MARKER = 0x51524543;//QREC
+
+    private final Path path;
+    private final boolean loadBodies;
+    private final Map<String, Recording> recordings = new ConcurrentHashMap<>();
+    private DataOutputStream outputStream;
+
+    private RequestRecordings(Path path, boolean loadBodies) {
+        this.path = path;
+        this.loadBodies = loadBodies;
+    }
+
+    /**
+     * Opens the file for appending new recordings; requests that
+     * are already in the file are not recorded again.
+     */
+    public static RequestRecordings openForRecording(Path path) throws IOException {
+        RequestRecordings recordings = new RequestRecordings(path, false);
+        recordings.load();
+        recordings.outputStream = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND)));
+        return recordings;
+    }
+
+    public static RequestRecordings openForReplay(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("can't find recordings file: " + path);
+        }
+        RequestRecordings recordings = new RequestRecordings(path, true);
+        recordings.load();
+        return recordings;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int size() {
+        return recordings.size();
+    }
+
+    public boolean contains(String key) {
+        return recordings.containsKey(key);
+    }
+
+    /**
+     * @param key key
+     * @return the recording or null if there isn't one
+     */
+    public Recording get(String key) {
+        return recordings.get(key);
+    }
+
+    public synchronized void append(String key, int status, long latencyMillis, byte[] body)
+            throws IOException {
+        if (outputStream == null) {
+            throw new IllegalStateException("not opened for recording");
+        }
+        if (recordings.containsKey(key)) {
+            return;
+        }
+        byte[] deflated = deflate(body);
+        outputStream.writeInt(RECORD_MARKER);
+        outputStream.writeUTF(key);
+        outputStream.writeInt(status);
+        outputStream.writeLong(latencyMillis);
+        outputStream.writeInt(deflated.length);
+        outputStream.write(deflated);
+        //keep what's been recorded if the run dies
+        outputStream.flush();
+        recordings.put(key, new Recording(status, latencyMillis, null));
+    }
+
+    private void load() throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        try (DataInputStream is = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int marker;
+                try {
+                    marker = is.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (marker != RECORD_MARKER) {
+                    throw new IOException("corrupt recordings file: " + path);
+                }
+                try {
+                    String key = is.readUTF();
+                    int status = is.readInt();
+                    long latency = is.readLong();
+                    byte[] deflated = new byte[is.readInt()];
+                    is.readFully(deflated);
+                    recordings.putIfAbsent(key,
+                            new Recording(status, latency, loadBodies ? deflated : null));
+                } catch (EOFException e) {
+                    LOG.warn("ignoring truncated last record in " + path);
+                    break;
+                }
+            }
+        }
+        LOG.info("loaded " + recordings.size() + " recordings from " + path);
+    }
+
+    /**
+     * @return hash of the method, absolute url and body of the request
+     */
+    static String getKey(HttpHost target, HttpRequest request, byte[] body) throws IOException {
+        String uri = request.getRequestLine().getUri();
+        if (!uri.startsWith("http://") && !uri.startsWith("https://") && target != null) {
+            uri = target.toURI() + uri;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getRequestLine().getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ' ');
+            digest.update(uri.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            if (body != null) {
+                digest.update(body);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format(Locale.US, "%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Reads the request's body, if any, and replaces the entity
+     * with one that can be sent again.
+     *
+     * @return the body or null if the request doesn't have one
+     */
+    static byte[] readBody(HttpRequest request) throws IOException {
+        if (!(request instanceof HttpEntityEnclosingRequest)) {
+            return null;
+        }
+        HttpEntityEnclosingRequest enclosing = (HttpEntityEnclosingRequest) request;
+        HttpEntity entity = enclosing.getEntity();
+        if (entity == null) {
+            return null;
+        }
+        byte[] body = EntityUtils.toByteArray(entity);
+        ByteArrayEntity copy = new ByteArrayEntity(body);
+        Header contentType = entity.getContentType();
+        if (contentType != null) {
+            copy.setContentType(contentType);
+        }
+        Header contentEncoding = entity.getContentEncoding();
+        if (contentEncoding != null) {
+            copy.setContentEncoding(contentEncoding);
+        }
+        enclosing.setEntity(copy);
+        return body;
+    }
+
+    static CloseableHttpResponse toResponse(int status, byte[] body) {
+        RecordedResponse response = new RecordedResponse(status);
+        response.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        return response;
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length / 4 + 16);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int len = deflater.deflate(buffer);
+                bos.write(buffer, 0, len);
+            }
+            return bos.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int len = inflater.inflate(buffer);
+                if (len == 0 && inflater.needsInput()) {
+                    throw new IOException("truncated recording");
+                }
+                bos.write(buffer, 0, len);
+            }
+            return bos.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (outputStream != null) {
+            outputStream.close();
+            outputStream = null;
+        }
+    }
+
+    public static class Recording {
+        private final int status;
+        private final long latencyMillis;
+        private final byte[] deflatedBody;
+
+        Recording(int status, long latencyMillis, byte[] deflatedBody) {
+            this.status = status;
+            this.latencyMillis = latencyMillis;
+            this.deflatedBody = deflatedBody;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public byte[] getBody() throws IOException {
+            if (deflatedBody == null) {
+                throw new IllegalStateException("bodies weren't loaded");
+            }
+            return inflate(deflatedBody);
+        }
+    }
+
+    private static class RecordedResponse extends BasicHttpResponse
+            implements CloseableHttpResponse {
+        RecordedResponse(int status) {
+            super(HttpVersion.HTTP_1_1, status, null);
+        }
+
+        @Override
+        public void close() {
+            //nothing to release
+        }
+    }
+}
@@ -17,36 +17,55 @@
 package org.tallison.quaerite.connectors;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonParser;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.EntityTemplate;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
 import org.tallison.quaerite.core.ExperimentConfig;
 import org.tallison.quaerite.core.FacetResult;
 import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.ServerConnection;
 import org.tallison.quaerite.core.StoredDocument;
+import org.tallison.quaerite.core.features.CustomHandler;
+import org.tallison.quaerite.core.metrics.Metrics;
+import org.tallison.quaerite.core.metrics.Timer;
 import org.tallison.quaerite.core.queries.Query;
+import org.tallison.quaerite.core.queries.TermsQuery;
 import org.tallison.quaerite.core.stats.TokenDF;
 
 /**
@@ -62,28 +81,307 @@ public abstract class SearchClient implements Closeable {
     public abstract SearchResultSet search(QueryRequest query)
             throws SearchClientException, IOException;
 
+    /**
+     * Runs several queries, in a single request to the search server
+     * if the client supports it.  This default implementation runs
+     * the queries one at a time.
+     * <p>
+     * Failures of individual queries are reported in the
+     * corresponding {@link BatchSearchResult}; this throws only if
+     * the batch as a whole failed.
+     *
+     * @param queries queries to run
+     * @return one result per query, in the order of the queries
+     * @throws SearchClientException
+     * @throws IOException
+     */
+    public List<BatchSearchResult> searchBatch(List<QueryRequest> queries)
+            throws SearchClientException, IOException {
+        List<BatchSearchResult> results = new ArrayList<>();
+        for (QueryRequest query : queries) {
+            try {
+                results.add(new BatchSearchResult(search(query)));
+            } catch (SearchClientException | IOException e) {
+                results.add(new BatchSearchResult(e));
+            }
+        }
+        return results;
+    }
+
     public abstract FacetResult facet(QueryRequest query)
             throws SearchClientException, IOException;
 
     static Logger LOG = LogManager.getLogger(SearchClient.class);
 
+    //time to the response headers, and then to read and parse the body
+    private static final Timer HTTP_TIMER = Metrics.timer("search.http");
+    private static final Timer PARSE_TIMER = Metrics.timer("search.parse");
+
+    //max strings per batch analysis request
+    private static final int ANALYZE_BATCH_SIZE = 100;
+
     private final HttpClient httpClient;
+    private boolean compressRequests = false;
+    //clients are used by one thread at a time, so there is
+    //at most one request in flight
+    private volatile HttpRequestBase currentRequest;
+    //set by abort() so that a request that hasn't reached execute yet
+    //is aborted too; cleared by clearAbort()
+    private volatile boolean aborted = false;
+    private LocalAnalyzers localAnalyzers;
+    private AnalysisCache analysisCache;
+    //null if the client wasn't created from a ServerConnection
+    private ServerConnection serverConnection;
 
     public SearchClient(HttpClient httpClient) {
         this.httpClient = httpClient;
     }
 
+    void setServerConnection(ServerConnection serverConnection) {
+        this.serverConnection = serverConnection;
+    }
+
+    /**
+     * @return the connection this client was created from, so that other threads
+     * can create their own clients, or null if it was created with its own httpclient
+     */
+    public ServerConnection getServerConnection() {
+        return serverConnection;
+    }
+
+    /**
+     * Responses are always gzip/deflate negotiated by the httpclient;
+     * this controls whether clients that support it also gzip the
+     * bodies of their large requests.
+     *
+     * @param compressRequests whether to gzip large request bodies
+     */
+    public void setCompressRequests(boolean compressRequests) {
+        this.compressRequests = compressRequests;
+    }
+
+    public boolean isCompressRequests() {
+        return compressRequests;
+    }
+
+    /**
+     * Aborts the request that is in flight, if any, e.g. the loser
+     * of a hedged search, and every request after it until
+     * {@link #clearAbort()} is called.  This may be called from another
+     * thread; the thread running the request gets an IOException.
+     */
+    public void abort() {
+        aborted = true;
+        HttpRequestBase request = currentRequest;
+        if (request != null) {
+            request.abort();
+        }
+    }
+
+    /**
+     * Lets requests run again after {@link #abort()}.  Call this once
+     * the aborted request's thread is done with this client.
+     */
+    public void clearAbort() {
+        aborted = false;
+    }
+
+    /**
+     * If true, {@link #analyze(String, String)} rebuilds each field's
+     * analysis chain from the server's definitions and runs it
+     * locally instead of sending a request per string.  Fields with
+     * components that can't be rebuilt are still analyzed by the server.
+     *
+     * @param localAnalysis whether to analyze locally when possible
+     */
+    public void setLocalAnalysis(boolean localAnalysis) {
+        if (localAnalysis && localAnalyzers == null) {
+            localAnalyzers = new LocalAnalyzers(this::buildLocalAnalyzer);
+        } else if (!localAnalysis && localAnalyzers != null) {
+            localAnalyzers.close();
+            localAnalyzers = null;
+        }
+    }
+
+    public boolean isLocalAnalysis() {
+        return localAnalyzers != null;
+    }
+
+    /**
+     * Caches the results of analysis by the search server.  Clients
+     * of the same server in different threads may share a cache.
+     *
+     * @param analysisCache cache or null to turn off caching
+     */
+    public void setAnalysisCache(AnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
+    public AnalysisCache getAnalysisCache() {
+        return analysisCache;
+    }
+
+    /**
+     * @return the tokens or null if local analysis is off or
+     * isn't available for this field
+     */
+    protected List<String> analyzeLocally(String field, String string) throws IOException {
+        if (localAnalyzers == null) {
+            return null;
+        }
+        return localAnalyzers.analyze(field, string);
+    }
+
+    /**
+     * Override to support local analysis.
+     *
+     * @param field field
+     * @return the field's index analyzer or null if it can't be built locally
+     */
+    protected Analyzer buildLocalAnalyzer(String field)
+            throws IOException, SearchClientException {
+        return null;
+    }
+
 
     protected byte[] getUrl(String url) throws SearchClientException {
         return HttpUtils.get(httpClient, url);
     }
 
     protected JsonResponse postJson(String url, String json) throws IOException {
+        return post(url, json, "application/json; charset=utf-8");
+    }
+
+    protected JsonResponse postXml(String url, String xml) throws IOException {
+        return post(url, xml, "application/xml; charset=utf-8");
+    }
+
+    /**
+     *
+     * @param url url to post to
+     * @param form already url-encoded parameters, e.g. q=x&amp;rows=10
+     * @return response
+     * @throws IOException
+     */
+    protected JsonResponse postForm(String url, String form) throws IOException {
+        return post(url, form, "application/x-www-form-urlencoded; charset=utf-8");
+    }
+
+    /**
+     * Posts the form and hands a successful response to the handler
+     * as it is streamed, rather than reading it all into memory.
+     *
+     * @param url url to post to
+     * @param form already url-encoded parameters
+     * @param handler handler for the body of a response with status 200
+     * @return the status and, if the status isn't 200, the message
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    protected JsonResponse postForm(String url, String form, ResponseStreamHandler handler)
+            throws IOException, SearchClientException {
+        HttpPost httpRequest = newPost(url, form,
+                "application/x-www-form-urlencoded; charset=utf-8");
+        HttpResponse response = null;
+        currentRequest = httpRequest;
+        //abort() may have run before currentRequest was set
+        if (aborted) {
+            httpRequest.abort();
+        }
+        try {
+            response = httpClient.execute(httpRequest);
+            int status = response.getStatusLine().getStatusCode();
+            if (status != 200) {
+                return new JsonResponse(status,
+                        new String(EntityUtils.toByteArray(response.getEntity()),
+                                StandardCharsets.UTF_8));
+            }
+            try (Reader reader = new BufferedReader(
+                    new InputStreamReader(response.getEntity().getContent(),
+                            StandardCharsets.UTF_8))) {
+                handler.handle(reader);
+            }
+            return new JsonResponse(status, JsonNull.INSTANCE);
+        } finally {
+            if (response != null && response instanceof CloseableHttpResponse) {
+                ((CloseableHttpResponse)response).close();
+            }
+            currentRequest = null;
+            httpRequest.releaseConnection();
+        }
+    }
+
+    /**
+     * Posts a body that is written as it is sent, e.g. a large
+     * bulk request, rather than being built in memory first.
+     *
+     * @param url url to post to
+     * @param bodyWriter writes the json body
+     * @return response
+     * @throws IOException
+     */
+    protected JsonResponse postJson(String url, RequestBodyWriter bodyWriter) throws IOException {
+        return postJson(url, bodyWriter, false);
+    }
+
+    /**
+     * @param url url to post to
+     * @param bodyWriter writes the json body
+     * @param gzip whether to gzip the body; the server must accept
+     *             Content-Encoding: gzip for requests
+     * @return response
+     * @throws IOException
+     */
+    protected JsonResponse postJson(String url, RequestBodyWriter bodyWriter, boolean gzip)
+            throws IOException {
         HttpPost httpRequest = new HttpPost(url);
-        ByteArrayEntity entity = new ByteArrayEntity(json.getBytes(StandardCharsets.UTF_8));
-        httpRequest.setEntity(entity);
+        EntityTemplate entity = new EntityTemplate(outputStream -> {
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            bodyWriter.write(writer);
+            writer.flush();
+        });
+        entity.setChunked(true);
+        httpRequest.setEntity(gzip ? new GzipCompressingEntity(entity) : entity);
         httpRequest.setHeader("Accept", "application/json");
         httpRequest.setHeader("Content-type", "application/json; charset=utf-8");
+        return execute(httpRequest);
+    }
+
+    /**
+     * Sends a DELETE with a json body, e.g. to clear a scroll
+     * or close a point in time in Elasticsearch.
+     *
+     * @param url url
+     * @param json json body
+     * @return response
+     * @throws IOException
+     */
+    protected JsonResponse deleteJson(String url, String json) throws IOException {
+        HttpDeleteWithBody httpRequest = new HttpDeleteWithBody(url);
+        setBody(httpRequest, json, "application/json; charset=utf-8");
+        return execute(httpRequest);
+    }
+
+    private static HttpPost newPost(String url, String body, String contentType) {
+        HttpPost httpRequest = new HttpPost(url);
+        setBody(httpRequest, body, contentType);
+        return httpRequest;
+    }
+
+    private static void setBody(HttpEntityEnclosingRequestBase httpRequest,
+                                String body, String contentType) {
+        ByteArrayEntity entity = new ByteArrayEntity(body.getBytes(StandardCharsets.UTF_8));
+        httpRequest.setEntity(entity);
+        httpRequest.setHeader("Accept", "application/json");
+        httpRequest.setHeader("Content-type", contentType);
+    }
+
+    private JsonResponse post(String url, String body, String contentType) throws IOException {
+        return execute(newPost(url, body, contentType));
+    }
+
+    private JsonResponse execute(HttpEntityEnclosingRequestBase httpRequest) throws IOException {
         //At one point, this was required because of connection already
         // bound exceptions on windows :(
         //httpPost.setHeader("Connection", "close");
@@ -91,10 +389,18 @@ public abstract class SearchClient implements Closeable {
         //try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
 
         HttpResponse response = null;
+        currentRequest = httpRequest;
+        //abort() may have run before currentRequest was set
+        if (aborted) {
+            httpRequest.abort();
+        }
         try {
+            long start = HTTP_TIMER.start();
             response = httpClient.execute(httpRequest);
+            HTTP_TIMER.stop(start);
             int status = response.getStatusLine().getStatusCode();
             if (status == 200) {
+                start = PARSE_TIMER.start();
                 try (Reader reader = new BufferedReader(
                         new InputStreamReader(response.getEntity().getContent(),
                                 StandardCharsets.UTF_8))) {
@@ -103,6 +409,8 @@ public abstract class SearchClient implements Closeable {
                         LOG.trace(element);
                     }
                     return new JsonResponse(200, element);
+                } finally {
+                    PARSE_TIMER.stop(start);
                 }
             } else {
                 return new JsonResponse(status,
@@ -113,11 +421,40 @@ public abstract class SearchClient implements Closeable {
             if (response != null && response instanceof CloseableHttpResponse) {
                 ((CloseableHttpResponse)response).close();
             }
+            currentRequest = null;
             httpRequest.releaseConnection();
         }
     }
 
 
+    /**
+     * HttpDelete doesn't allow a body
+     */
+    private static class HttpDeleteWithBody extends HttpEntityEnclosingRequestBase {
+        HttpDeleteWithBody(String url) {
+            setURI(URI.create(url));
+        }
+
+        @Override
+        public String getMethod() {
+            return HttpDelete.METHOD_NAME;
+        }
+    }
+
+    /**
+     * Writes a request body as it is streamed
+     */
+    protected interface RequestBodyWriter {
+        void write(Writer writer) throws IOException;
+    }
+
+    /**
+     * Handles a response body as it is streamed
+     */
+    protected interface ResponseStreamHandler {
+        void handle(Reader reader) throws IOException, SearchClientException;
+    }
+
     protected static String encode(String s) throws IllegalArgumentException {
         try {
             return URLEncoder.encode(s, StandardCharsets.UTF_8.name());
@@ -127,6 +464,9 @@ public abstract class SearchClient implements Closeable {
     }
 
     public void close() throws IOException {
+        if (localAnalyzers != null) {
+            localAnalyzers.close();
+        }
         if (httpClient instanceof  CloseableHttpClient) {
             ((CloseableHttpClient)httpClient).close();
         }
@@ -135,6 +475,25 @@ public abstract class SearchClient implements Closeable {
     public abstract void addDocuments(List<StoredDocument> buildDocuments)
             throws IOException, SearchClientException;
 
+    /**
+     * Adds the documents and returns those that the server rejected
+     * because it was overloaded, e.g. with a 429, so that the caller
+     * can back off and retry them.  Other failures throw.
+     * <p>
+     * This default implementation calls {@link #addDocuments(List)}
+     * and never returns rejected documents.
+     *
+     * @param documents documents to add
+     * @return the documents that should be retried
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public List<StoredDocument> tryAddDocuments(List<StoredDocument> documents)
+            throws IOException, SearchClientException {
+        addDocuments(documents);
+        return Collections.EMPTY_LIST;
+    }
+
     public abstract List<StoredDocument> getDocs(String idField, Set<String> ids,
                                                  Set<String> includeFields,
                                                  Set<String> excludeFields)
@@ -158,6 +517,62 @@ public abstract class SearchClient implements Closeable {
 
     public abstract String getDefaultIdField() throws IOException, SearchClientException;
 
+    /**
+     * Checks which of the ids exist in the index.  This default
+     * implementation runs a terms query on the idField; clients
+     * should override this with a more efficient lookup by id
+     * where one is available.
+     *
+     * @param idField id field
+     * @param ids ids to look for
+     * @param customHandler custom handler or null
+     * @return the ids that exist in the index
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public Set<String> getExistingIds(String idField, Collection<String> ids,
+                                      CustomHandler customHandler)
+            throws IOException, SearchClientException {
+        Set<String> existing = new HashSet<>();
+        if (ids.size() == 0) {
+            return existing;
+        }
+        TermsQuery termsQuery = new TermsQuery(idField, new ArrayList<>(ids));
+        QueryRequest q = new QueryRequest(termsQuery, customHandler, idField);
+        q.addFieldsToRetrieve(idField);
+        q.setNumResults(ids.size() * 2);
+        SearchResultSet searchResultSet = search(q);
+        Set<String> terms = new HashSet<>(termsQuery.getTerms());
+        for (int i = 0; i < searchResultSet.size(); i++) {
+            String id = searchResultSet.getId(i);
+            if (existing.contains(id)) {
+                LOG.warn("Found non-unique key: " + id);
+            }
+            if (!terms.contains(id)) {
+                LOG.error("Search returned an id I wasn't looking for: "
+                        + id +
+                        ". This is fatal and can mean that there's a default queryparser that" +
+                        " is not correctly parsing a terms query");
+            }
+            existing.add(id);
+        }
+        return existing;
+    }
+
+    /**
+     * Identifies the current state of the index so that information
+     * derived from it, e.g. which ids exist, can be cached.  The value
+     * must change whenever documents are added or removed; spurious
+     * changes only cost a cache miss.
+     *
+     * @return a version string or null if this isn't supported
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public String getIndexVersion() throws IOException, SearchClientException {
+        return null;
+    }
+
     public abstract void deleteAll() throws SearchClientException, IOException;
 
     public abstract IdGrabber getIdGrabber(ArrayBlockingQueue<Set<String>> ids,
@@ -190,9 +605,103 @@ public abstract class SearchClient implements Closeable {
      */
     public abstract Set<String> getSystemInternalFields();
 
-    public abstract List<String> analyze(String field, String string)
+    /**
+     * Analyzes the string with the field's index analyzer.  This
+     * runs the analysis locally or uses the cache if either is
+     * configured; otherwise, it asks the search server.
+     *
+     * @param field field
+     * @param string string to analyze
+     * @return tokens
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public List<String> analyze(String field, String string)
+            throws IOException, SearchClientException {
+        List<String> tokens = analyzeLocally(field, string);
+        if (tokens != null) {
+            return tokens;
+        }
+        if (analysisCache != null) {
+            tokens = analysisCache.get(field, string);
+            if (tokens != null) {
+                return tokens;
+            }
+        }
+        tokens = doAnalyze(field, string);
+        if (analysisCache != null) {
+            analysisCache.put(field, string, tokens);
+        }
+        return tokens;
+    }
+
+    /**
+     * Like {@link #analyze(String, String)}, but the strings that
+     * have to go to the search server are sent in as few requests
+     * as the client supports.
+     *
+     * @param field field
+     * @param strings strings to analyze
+     * @return the tokens for each string, in the order of the strings
+     * @throws IOException
+     * @throws SearchClientException
+     */
+    public List<List<String>> analyzeBatch(String field, List<String> strings)
+            throws IOException, SearchClientException {
+        List<List<String>> results = new ArrayList<>();
+        List<Integer> remote = new ArrayList<>();
+        for (int i = 0; i < strings.size(); i++) {
+            String s = strings.get(i);
+            List<String> tokens = analyzeLocally(field, s);
+            if (tokens == null && analysisCache != null) {
+                tokens = analysisCache.get(field, s);
+            }
+            if (tokens == null) {
+                remote.add(i);
+            }
+            results.add(tokens);
+        }
+        int start = 0;
+        while (start < remote.size()) {
+            int end = Math.min(remote.size(), start + ANALYZE_BATCH_SIZE);
+            List<String> batch = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                batch.add(strings.get(remote.get(i)));
+            }
+            List<List<String>> analyzed = doAnalyzeBatch(field, batch);
+            for (int i = start; i < end; i++) {
+                List<String> tokens = analyzed.get(i - start);
+                results.set(remote.get(i), tokens);
+                if (analysisCache != null) {
+                    analysisCache.put(field, strings.get(remote.get(i)), tokens);
+                }
+            }
+            start = end;
+        }
+        return results;
+    }
+
+    /**
+     * Analyzes the string on the search server
+     */
+    protected abstract List<String> doAnalyze(String field, String string)
             throws IOException, SearchClientException;
 
+    /**
+     * Analyzes the strings on the search server.  This default
+     * implementation sends one request per string.
+     *
+     * @return the tokens for each string, in the order of the strings
+     */
+    protected List<List<String>> doAnalyzeBatch(String field, List<String> strings)
+            throws IOException, SearchClientException {
+        List<List<String>> results = new ArrayList<>();
+        for (String s : strings) {
+            results.add(doAnalyze(field, s));
+        }
+        return results;
+    }
+
     public abstract List<TokenDF> getTerms(String field, String lower,
                                            int limit, int minCount, boolean includeTf)
             throws IOException, SearchClientException;
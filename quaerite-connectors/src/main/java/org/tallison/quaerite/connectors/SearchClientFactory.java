@@ -21,6 +21,9 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,10 +31,59 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.tallison.quaerite.core.ServerConnection;
 
 public class SearchClientFactory {
 
+    //in the quaerite-lucene module, which depends on this module
+    private static final String LUCENE_URL_PREFIX = "lucene:";
+    private static final String LUCENE_CLIENT = "org.tallison.quaerite.lucene.LuceneClient";
+
+    private static RequestRecordings RECORDINGS = null;
+    private static boolean REPLAY = false;
+    private static double REPLAY_LATENCY_FACTOR = 0.0;
+
+    //engine and version keyed by scheme://host:port
+    private static final Map<String, ServerVersion> VERSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Clients created after this call record every response to the file.
+     * Requests that were already recorded are not recorded again.
+     */
+    public static synchronized void record(Path recordings) throws IOException {
+        stopRecordingOrReplaying();
+        RECORDINGS = RequestRecordings.openForRecording(recordings);
+        REPLAY = false;
+    }
+
+    /**
+     * Clients created after this call answer every request from the
+     * recordings file and never touch the network.
+     *
+     * @param recordings file written during a run with {@link #record(Path)}
+     * @param latencyFactor multiplier for the recorded latencies; 0 replays
+     *                      as fast as possible
+     */
+    public static synchronized void replay(Path recordings, double latencyFactor)
+            throws IOException {
+        if (latencyFactor < 0) {
+            throw new IllegalArgumentException("latencyFactor must be >= 0: " + latencyFactor);
+        }
+        stopRecordingOrReplaying();
+        RECORDINGS = RequestRecordings.openForReplay(recordings);
+        REPLAY = true;
+        REPLAY_LATENCY_FACTOR = latencyFactor;
+    }
+
+    public static synchronized void stopRecordingOrReplaying() throws IOException {
+        if (RECORDINGS != null) {
+            RECORDINGS.close();
+        }
+        RECORDINGS = null;
+        REPLAY = false;
+    }
+
     public static SearchClient getClient(String url) throws IOException,
             SearchClientException {
         return getClient(new ServerConnection(url));
@@ -39,22 +91,71 @@ public class SearchClientFactory {
 
     public static SearchClient getClient(ServerConnection connection)
             throws IOException, SearchClientException {
-        return getClient(connection.getURL(),
-                HttpUtils.getClient(
-                        connection.getURL(),
-                        connection.getUser(),
-                        connection.getPassword()));
+        if (connection.getURL().startsWith(LUCENE_URL_PREFIX)) {
+            return getLuceneClient(connection.getURL());
+        }
+        HttpClient httpClient = HttpUtils.getClient(
+                connection.getURL(),
+                connection.getUser(),
+                connection.getPassword());
+        if (connection.getURLs().size() > 1) {
+            httpClient = new LoadBalancingHttpClient(
+                    (CloseableHttpClient) httpClient, connection.getURLs());
+        }
+        SearchClient client = getClient(connection.getURL(), httpClient);
+        client.setCompressRequests(connection.isCompress());
+        client.setServerConnection(connection);
+        return client;
     }
 
     public static SearchClient getClient(String url, HttpClient httpClient)
             throws IOException, SearchClientException {
+        if (url.startsWith(LUCENE_URL_PREFIX)) {
+            return getLuceneClient(url);
+        }
+        httpClient = wrapForRecordOrReplay(httpClient);
         Matcher m = Pattern.compile("(https?://[^/]+)").matcher(url);
         if (!m.find()) {
             throw new SearchClientException(
                     "Couldn't find domain in this url:" + url);
         }
+        String domain = m.group(1);
+        //the version requests have to be recorded or replayed
+        boolean useCache = !isRecordingOrReplaying();
+        ServerVersion serverVersion = useCache ? VERSIONS.get(domain) : null;
+        if (serverVersion == null) {
+            serverVersion = getServerVersion(domain, httpClient);
+            if (useCache) {
+                VERSIONS.put(domain, serverVersion);
+            }
+        }
+        switch (serverVersion.engine) {
+            case SOLR4:
+                return new Solr4Client(url, httpClient, serverVersion.major,
+                        serverVersion.minor);
+            case SOLR:
+                return new SolrClient(url, httpClient);
+            case ES4:
+                return new ES4Client(url, httpClient);
+            case ES6:
+                return new ES6Client(url, httpClient);
+            default:
+                return new ESClient(url, httpClient);
+        }
+    }
+
+    /**
+     * The engine and version of each server are cached for the life of
+     * the jvm.  Call this if a server might have been swapped out for
+     * a different version, e.g. in a long-lived daemon.
+     */
+    public static void clearVersionCache() {
+        VERSIONS.clear();
+    }
 
-        String solrSystem = m.group(1) + "/solr/admin/info/system?wt=json";
+    private static ServerVersion getServerVersion(String domain, HttpClient httpClient)
+            throws IOException, SearchClientException {
+        String solrSystem = domain + "/solr/admin/info/system?wt=json";
         try {
             byte[] bytes = HttpUtils.get(httpClient, solrSystem);
             try (Reader reader = new InputStreamReader(
@@ -72,17 +173,13 @@ public class SearchClientFactory {
                 int major = Integer.parseInt(version.substring(0, firstPeriod));
                 int minor = Integer.parseInt(version.substring(firstPeriod + 1,
                         secondPeriod));
-                if (major < 7) {
-                    return new Solr4Client(url, httpClient, minor);
-                } else {
-                    return new SolrClient(url, httpClient);
-                }
+                return new ServerVersion((major < 7) ? ENGINE.SOLR4 : ENGINE.SOLR,
+                        major, minor);
             }
         } catch (SearchClientException e) {
             //swallow and try es
         }
-        String es = m.group(1);
-        byte[] bytes = HttpUtils.get(httpClient, es);
+        byte[] bytes = HttpUtils.get(httpClient, domain);
         try (Reader reader = new InputStreamReader(
                 new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
             JsonObject root = new JsonParser().parse(reader).getAsJsonObject();
@@ -90,18 +187,65 @@ public class SearchClientFactory {
             String number = version.get("number").getAsString();
             String major = number.substring(0, 1);
             if (major.equals("2") || major.equals("3") || major.equals("4")) {
-                return new ES4Client(url, httpClient);
+                return new ServerVersion(ENGINE.ES4, Integer.parseInt(major), -1);
             } else if (major.equals("6")) {
-                return new ES6Client(url, httpClient);
+                return new ServerVersion(ENGINE.ES6, 6, -1);
             } else if (major.equals("7")) {
-                return new ESClient(url, httpClient);
+                return new ServerVersion(ENGINE.ES, 7, -1);
             } else {
                 throw new IllegalArgumentException(
                         "I regret that I don't yet support: " + number);
             }
         } catch (IOException e) {
             throw new SearchClientException(
-                    "Couldn't find right client for: " + url);
+                    "Couldn't find right client for: " + domain);
+        }
+    }
+
+    private static SearchClient getLuceneClient(String url) throws SearchClientException {
+        try {
+            return (SearchClient) Class.forName(LUCENE_CLIENT)
+                    .getConstructor(String.class).newInstance(url);
+        } catch (ClassNotFoundException e) {
+            throw new SearchClientException("quaerite-lucene must be on the classpath for: " +
+                    url);
+        } catch (ReflectiveOperationException e) {
+            throw new SearchClientException(e);
+        }
+    }
+
+    private static synchronized boolean isRecordingOrReplaying() {
+        return RECORDINGS != null;
+    }
+
+    private static synchronized HttpClient wrapForRecordOrReplay(HttpClient httpClient) {
+        if (RECORDINGS == null) {
+            return httpClient;
+        }
+        if (REPLAY) {
+            return new ReplayHttpClient((CloseableHttpClient) httpClient, RECORDINGS,
+                    REPLAY_LATENCY_FACTOR);
+        }
+        return new RecordingHttpClient((CloseableHttpClient) httpClient, RECORDINGS);
+    }
+
+    private enum ENGINE {
+        SOLR4,
+        SOLR,
+        ES4,
+        ES6,
+        ES
+    }
+
+    private static class ServerVersion {
+        private final ENGINE engine;
+        private final int major;
+        private final int minor;
+
+        ServerVersion(ENGINE engine, int major, int minor) {
+            this.engine = engine;
+            this.major = major;
+            this.minor = minor;
         }
     }
 }
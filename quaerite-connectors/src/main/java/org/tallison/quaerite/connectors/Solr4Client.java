@@ -39,16 +39,30 @@ public class Solr4Client extends SolrClient {
 
     static Logger LOG = LogManager.getLogger(Solr4Client.class);
 
+    private final int majorVersion;
     private final int minorVersion;
     /**
      * @param url url to Solr including /collection
      */
     protected Solr4Client(String url, HttpClient httpClient,
                           int minorVersion) throws IOException, SearchClientException {
+        this(url, httpClient, 4, minorVersion);
+    }
+
+    /**
+     * @param url url to Solr including /collection
+     */
+    protected Solr4Client(String url, HttpClient httpClient, int majorVersion,
+                          int minorVersion) throws IOException, SearchClientException {
         super(url, httpClient);
+        this.majorVersion = majorVersion;
         this.minorVersion = minorVersion;
     }
 
+    private boolean isAtLeast4x(int minor) {
+        return majorVersion > 4 || minorVersion >= minor;
+    }
+
 
     @Override
     public List<StoredDocument> getDocs(String idField, Set<String> ids,
@@ -175,11 +189,21 @@ public class Solr4Client extends SolrClient {
         sb.append("&q.op=OR");
     }
 
+    @Override
+    boolean supportsCursorMark() {
+        return isAtLeast4x(7);
+    }
+
+    @Override
+    boolean supportsExport() {
+        return isAtLeast4x(10);
+    }
+
     @Override
     public Set<String> getCopyFields() throws IOException, SearchClientException {
         //is this when the schema api was introduced?
         //TODO: if necessary, figure out how to do this back in the day
-        if (minorVersion < 10) {
+        if (!isAtLeast4x(10)) {
             LOG.warn("can't get copy fields via schema in < 4.10");
             return Collections.EMPTY_SET;
         }
@@ -191,7 +215,7 @@ public class Solr4Client extends SolrClient {
             throws IOException, SearchClientException {
         //is this when the schema api was introduced?
         //TODO: if necessary, figure out how to do this back in the day
-        if (minorVersion < 10) {
+        if (!isAtLeast4x(10)) {
             LOG.warn("Can't get default id field with schema API, returning 'id'");
             return "id";
         }
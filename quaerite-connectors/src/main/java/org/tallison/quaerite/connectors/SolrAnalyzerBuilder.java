@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.custom.CustomAnalyzer;
+import org.apache.lucene.analysis.util.CharFilterFactory;
+import org.apache.lucene.analysis.util.TokenFilterFactory;
+import org.apache.lucene.analysis.util.TokenizerFactory;
+import org.tallison.quaerite.core.util.JsonUtil;
+
+/**
+ * Rebuilds the index analyzer of a Solr field type from the
+ * schema api's json, e.g. /schema/fieldtypes/text_general.
+ * Components are identified by their factory class (solr.LowerCaseFilterFactory)
+ * or by their name (lowercase) and are looked up in Lucene's analysis SPI.
+ * <p>
+ * Solr-specific components (e.g. managed resources) aren't available
+ * here and cause an IllegalArgumentException.
+ * </p>
+ */
+class SolrAnalyzerBuilder {
+
+    private static final String STR_FIELD = "solr.StrField";
+
+    private static Map<String, String> TOKENIZERS;
+    private static Map<String, String> TOKEN_FILTERS;
+    private static Map<String, String> CHAR_FILTERS;
+
+    /**
+     * @param fieldType the "fieldType" object from the schema api
+     * @param resourceLoader loader for the resources, e.g. stopwords.txt
+     * @return analyzer or null if this type of field isn't analyzed
+     * by an analysis chain
+     * @throws IOException
+     * @throws IllegalArgumentException if a component isn't supported
+     */
+    static Analyzer build(JsonObject fieldType, LocalResourceLoader resourceLoader)
+            throws IOException {
+        JsonObject analyzer = null;
+        if (fieldType.has("indexAnalyzer")) {
+            analyzer = fieldType.getAsJsonObject("indexAnalyzer");
+        } else if (fieldType.has("analyzer")) {
+            analyzer = fieldType.getAsJsonObject("analyzer");
+        }
+        if (analyzer == null) {
+            if (STR_FIELD.equals(JsonUtil.getPrimitive(fieldType, "class", ""))) {
+                return new KeywordAnalyzer();
+            }
+            return null;
+        }
+        if (analyzer.has("class")) {
+            String className = analyzer.get("class").getAsString();
+            return resourceLoader.newInstance(className, Analyzer.class);
+        }
+        loadSPINames();
+        CustomAnalyzer.Builder builder = CustomAnalyzer.builder(resourceLoader);
+        if (analyzer.has("charFilters")) {
+            for (JsonElement charFilter : analyzer.getAsJsonArray("charFilters")) {
+                JsonObject obj = charFilter.getAsJsonObject();
+                builder.addCharFilter(getName(obj, CHAR_FILTERS), getParams(obj));
+            }
+        }
+        JsonObject tokenizer = analyzer.getAsJsonObject("tokenizer");
+        if (tokenizer == null) {
+            throw new IllegalArgumentException("analyzer must have a tokenizer");
+        }
+        builder.withTokenizer(getName(tokenizer, TOKENIZERS), getParams(tokenizer));
+        if (analyzer.has("filters")) {
+            for (JsonElement filter : analyzer.getAsJsonArray("filters")) {
+                JsonObject obj = filter.getAsJsonObject();
+                builder.addTokenFilter(getName(obj, TOKEN_FILTERS), getParams(obj));
+            }
+        }
+        return builder.build();
+    }
+
+    private static String getName(JsonObject component, Map<String, String> spiNames) {
+        if (component.has("name")) {
+            return component.get("name").getAsString();
+        }
+        String className = JsonUtil.getPrimitive(component, "class", "");
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        String name = spiNames.get(simpleName);
+        if (name == null) {
+            throw new IllegalArgumentException("unsupported analysis component: " + className);
+        }
+        return name;
+    }
+
+    private static Map<String, String> getParams(JsonObject component) {
+        Map<String, String> params = new HashMap<>();
+        for (Map.Entry<String, JsonElement> e : component.entrySet()) {
+            if (e.getKey().equals("class") || e.getKey().equals("name")) {
+                continue;
+            }
+            params.put(e.getKey(), e.getValue().getAsString());
+        }
+        return params;
+    }
+
+    private static synchronized void loadSPINames() {
+        if (TOKENIZERS != null) {
+            return;
+        }
+        TOKENIZERS = bySimpleName(TokenizerFactory.availableTokenizers(),
+                TokenizerFactory::lookupClass);
+        TOKEN_FILTERS = bySimpleName(TokenFilterFactory.availableTokenFilters(),
+                TokenFilterFactory::lookupClass);
+        CHAR_FILTERS = bySimpleName(CharFilterFactory.availableCharFilters(),
+                CharFilterFactory::lookupClass);
+    }
+
+    //factory class simple name -> spi name
+    private static Map<String, String> bySimpleName(Set<String> names,
+                                                    Function<String, Class<?>> lookup) {
+        Map<String, String> ret = new HashMap<>();
+        for (String name : names) {
+            ret.put(lookup.apply(name).getSimpleName(), name);
+        }
+        return Collections.unmodifiableMap(ret);
+    }
+}
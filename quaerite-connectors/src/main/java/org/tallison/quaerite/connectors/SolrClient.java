@@ -18,12 +18,8 @@ package org.tallison.quaerite.connectors;
 
 import static org.tallison.quaerite.core.features.CustomHandler.DEFAULT_HANDLER;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -32,19 +28,20 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.HttpClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
 import org.tallison.quaerite.core.FacetResult;
 import org.tallison.quaerite.core.SearchResultSet;
 import org.tallison.quaerite.core.StoredDocument;
@@ -53,6 +50,8 @@ import org.tallison.quaerite.core.features.ParameterizableString;
 import org.tallison.quaerite.core.features.QF;
 import org.tallison.quaerite.core.features.QueryOperator;
 import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.metrics.Metrics;
+import org.tallison.quaerite.core.metrics.Timer;
 import org.tallison.quaerite.core.queries.DisMaxQuery;
 import org.tallison.quaerite.core.queries.EDisMaxQuery;
 import org.tallison.quaerite.core.queries.LuceneQuery;
@@ -62,6 +61,7 @@ import org.tallison.quaerite.core.queries.TermQuery;
 import org.tallison.quaerite.core.queries.TermsQuery;
 import org.tallison.quaerite.core.stats.TokenDF;
 import org.tallison.quaerite.core.stats.TokenDFTF;
+import org.tallison.quaerite.core.util.JsonUtil;
 
 /**
  * This should work with versions >= Solr 7.x
@@ -79,11 +79,17 @@ public class SolrClient extends SearchClient {
 
     static Logger LOG = LogManager.getLogger(SolrClient.class);
 
+    private static final Timer BUILD_TIMER = Metrics.timer("search.build");
+
     static final Gson GSON = new Gson();
     private static String DEFAULT_ID_FIELD = "id";
 
     final String url;
     String idField;
+    //experiment-invariant params of the last dismax/edismax request
+    RequestTemplate requestTemplate;
+    //real-time get requires the update log; set to false if /get fails
+    private boolean realTimeGet = true;
 
     /**
      * @param url url to Solr including /collection
@@ -93,15 +99,23 @@ public class SolrClient extends SearchClient {
         this.url = url;
     }
 
+    /**
+     * Posts the request parameters as a form body rather than
+     * sending them in the url, so there's no limit on the length
+     * of the request.
+     */
     @Override
     public SearchResultSet search(QueryRequest query) throws SearchClientException, IOException {
 
-        String url = generateRequestURL(query);
+        long buildStart = BUILD_TIMER.start();
+        String handlerUrl = getHandlerUrl(query);
+        String params = generateRequestParams(query);
+        BUILD_TIMER.stop(buildStart);
         if (LOG.isTraceEnabled()) {
-            LOG.trace(url);
+            LOG.trace(handlerUrl + "?" + params);
         }
         long start = System.currentTimeMillis();
-        JsonResponse response = getJson(url);
+        JsonResponse response = postForm(handlerUrl, params);
         if (LOG.isTraceEnabled()) {
             LOG.trace(response);
         }
@@ -112,7 +126,48 @@ public class SolrClient extends SearchClient {
         return translateResponse(elapsed, response.getJson());
     }
 
-    private SearchResultSet translateResponse(long totalTime, JsonElement root)
+    /**
+     * Runs one page of a cursorMark query.  The request must be sorted
+     * on the uniqueKey and start at 0.
+     *
+     * @param query query request
+     * @param cursorMark cursor mark, or "*" for the first page
+     * @return results with the next cursor mark stored as the scroll id
+     * @throws SearchClientException
+     * @throws IOException
+     */
+    SearchResultSet cursorSearch(QueryRequest query, String cursorMark)
+            throws SearchClientException, IOException {
+        String params = generateRequestParams(query) + "&cursorMark=" + encode(cursorMark);
+        long start = System.currentTimeMillis();
+        JsonResponse response = postForm(getHandlerUrl(query), params);
+        if (response.getStatus() != 200) {
+            throw new SearchClientException(response.getMsg());
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        SearchResultSet resultSet = translateResponse(elapsed, response.getJson());
+        resultSet.setScrollId(JsonUtil.getPrimitive(response.getJson(),
+                "nextCursorMark", cursorMark));
+        return resultSet;
+    }
+
+    /**
+     *
+     * @return whether cursorMark paging is available (Solr &gt;= 4.7)
+     */
+    boolean supportsCursorMark() {
+        return true;
+    }
+
+    /**
+     *
+     * @return whether the /export handler is available (Solr &gt;= 4.10)
+     */
+    boolean supportsExport() {
+        return true;
+    }
+
+    SearchResultSet translateResponse(long totalTime, JsonElement root)
             throws IOException, SearchClientException {
         //TODO: figure out what queryTime means/is as diff from total
         long queryTime = 0;
@@ -129,16 +184,55 @@ public class SolrClient extends SearchClient {
     }
 
     String generateRequestURL(QueryRequest queryRequest) {
+        return getHandlerUrl(queryRequest) + "?" + generateRequestParams(queryRequest);
+    }
+
+    private String getHandlerUrl(QueryRequest queryRequest) {
         StringBuilder sb = new StringBuilder();
         sb.append(url);
         if (!url.endsWith("/")) {
             sb.append("/");
         }
+        sb.append(getHandler(queryRequest).getHandler());
+        return sb.toString();
+    }
+
+    private static CustomHandler getHandler(QueryRequest queryRequest) {
         CustomHandler handler = queryRequest.getCustomHandler();
-        handler = (handler == null) ? DEFAULT_HANDLER : handler;
-        sb.append(handler.getHandler());
-        sb.append("?");
+        return (handler == null) ? DEFAULT_HANDLER : handler;
+    }
 
+    /**
+     * For dismax and edismax queries, everything but the query string
+     * is the same for every query in an experiment.  Those parameters
+     * are rendered once and reused until the request changes; only the
+     * query string is encoded per call.
+     *
+     * @param queryRequest request
+     * @return url-encoded request parameters
+     */
+    String generateRequestParams(QueryRequest queryRequest) {
+        CustomHandler handler = getHandler(queryRequest);
+        if (!(queryRequest.getQuery() instanceof DisMaxQuery)) {
+            return buildRequestParams(queryRequest, handler);
+        }
+        RequestTemplate template = requestTemplate;
+        if (template == null || !template.matches(queryRequest, handler)) {
+            template = new RequestTemplate(queryRequest, handler,
+                    buildRequestParams(queryRequest, handler));
+            requestTemplate = template;
+        }
+        DisMaxQuery query = (DisMaxQuery) queryRequest.getQuery();
+        return template.params + "&" + handler.getCustomQueryKey() + "=" +
+                encode(query.getQueryString());
+    }
+
+    /**
+     * For dismax and edismax queries, this does not include the
+     * query string.
+     */
+    private String buildRequestParams(QueryRequest queryRequest, CustomHandler handler) {
+        StringBuilder sb = new StringBuilder();
         /* TODO: make this configurable; turn off for now
             if (!StringUtils.isBlank(queryRequest.getCustomHandler())) {
                 sb.append("qq=");
@@ -245,7 +339,7 @@ public class SolrClient extends SearchClient {
             sb.append("&ps2=" + query.getPs2().getValue());
         }
         if (query.getPs3() != null) {
-            sb.append("&ps2=" + query.getPs3().getValue());
+            sb.append("&ps3=" + query.getPs3().getValue());
         }
 
         addDisMaxParams((DisMaxQuery) query, handler, sb);
@@ -253,9 +347,7 @@ public class SolrClient extends SearchClient {
 
     private void addDisMaxParams(DisMaxQuery query, CustomHandler handler,
                                  StringBuilder sb) {
-
-        sb.append("&").append(handler.getCustomQueryKey())
-                .append("=").append(encode(query.getQueryString()));
+        //the query string is added in generateRequestParams
         QF qf = query.getQF();
         int i = 0;
         for (WeightableField f : qf.getWeightableFields()) {
@@ -315,15 +407,11 @@ public class SolrClient extends SearchClient {
 
     @Override
     public FacetResult facet(QueryRequest query) throws SearchClientException, IOException {
-        String url = generateRequestURL(query);
-        byte[] bytes = getUrl(url);
-        JsonParser parser = new JsonParser();
-        JsonElement root = null;
-        try (Reader reader = new BufferedReader(
-                new InputStreamReader(
-                        new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
-            root = parser.parse(reader);
+        JsonResponse jsonResponse = postForm(getHandlerUrl(query), generateRequestParams(query));
+        if (jsonResponse.getStatus() != 200) {
+            throw new SearchClientException(jsonResponse.getMsg());
         }
+        JsonElement root = jsonResponse.getJson();
         JsonObject response = (JsonObject) ((JsonObject) root).get("response");
         long totalDocs = response.get("numFound").getAsLong();
         JsonObject facetCounts = (JsonObject) ((JsonObject) root).get("facet_counts");
@@ -349,19 +437,40 @@ public class SolrClient extends SearchClient {
 
     @Override
     public void addDocuments(List<StoredDocument> buildDocuments) throws IOException, SearchClientException {
-        List<Map<String, Object>> data = new ArrayList<>();
-        String idField = getDefaultIdField();
-        for (StoredDocument d : buildDocuments) {
-            Map<String, Object> doc = d.getFields();
-            doc.put(idField, d.getId());
-            data.add(doc);
+        if (tryAddDocuments(buildDocuments).size() > 0) {
+            throw new SearchClientException("solr rejected the update as overloaded");
         }
-        String json = GSON.toJson(data);
+    }
+
+    /**
+     * Streams the update; Solr accepts or rejects the update as a whole,
+     * so this returns all of the documents if Solr is overloaded.
+     */
+    @Override
+    public List<StoredDocument> tryAddDocuments(List<StoredDocument> buildDocuments)
+            throws IOException, SearchClientException {
+        String idField = getDefaultIdField();
+        RequestBodyWriter bodyWriter = writer -> {
+            writer.write('[');
+            for (int i = 0; i < buildDocuments.size(); i++) {
+                StoredDocument d = buildDocuments.get(i);
+                Map<String, Object> doc = d.getFields();
+                doc.put(idField, d.getId());
+                if (i > 0) {
+                    writer.write(',');
+                }
+                GSON.toJson(doc, writer);
+            }
+            writer.write(']');
+        };
         JsonResponse response = postJson(url +
-                "/update/json?commitWithin=10000", json);
-        if (response.getStatus() != 200) {
+                "/update/json?commitWithin=10000", bodyWriter);
+        if (response.getStatus() == 429 || response.getStatus() == 503) {
+            return buildDocuments;
+        } else if (response.getStatus() != 200) {
             throw new SearchClientException(response.getMsg());
         }
+        return Collections.EMPTY_LIST;
     }
 
     @Override
@@ -471,6 +580,73 @@ public class SolrClient extends SearchClient {
         return idField;
     }
 
+    /**
+     * Uses the real-time get handler if the idField is the uniqueKey
+     * and there's no custom handler, otherwise falls back to a terms
+     * query.
+     */
+    @Override
+    public Set<String> getExistingIds(String idField, Collection<String> ids,
+                                      CustomHandler customHandler)
+            throws IOException, SearchClientException {
+        if (!realTimeGet || customHandler != null ||
+                !getDefaultIdField().equals(idField)) {
+            return super.getExistingIds(idField, ids, customHandler);
+        }
+        Set<String> existing = new HashSet<>();
+        if (ids.size() == 0) {
+            return existing;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("fl=").append(encode(idField));
+        for (String id : ids) {
+            sb.append("&id=").append(encode(id));
+        }
+        sb.append(JSON_RESPONSE);
+        JsonResponse response = postForm(url + "/get", sb.toString());
+        if (response.getStatus() != 200) {
+            LOG.warn("real-time get failed; falling back to terms queries: " +
+                    response.getMsg());
+            realTimeGet = false;
+            return super.getExistingIds(idField, ids, customHandler);
+        }
+        JsonObject root = response.getJson().getAsJsonObject();
+        List<JsonElement> docs = new ArrayList<>();
+        if (root.has("response")) {
+            for (JsonElement doc : root.getAsJsonObject("response").getAsJsonArray("docs")) {
+                docs.add(doc);
+            }
+        } else if (root.has("doc") && !root.get("doc").isJsonNull()) {
+            //a single id returns a single doc
+            docs.add(root.get("doc"));
+        }
+        for (JsonElement doc : docs) {
+            existing.add(JsonUtil.getPrimitive(doc, idField, ""));
+        }
+        return existing;
+    }
+
+    /**
+     * Based on the version and document counts from luke for the core
+     * that handles the request and the number of documents in the
+     * whole collection.
+     */
+    @Override
+    public String getIndexVersion() throws IOException, SearchClientException {
+        JsonResponse luke = getJson(url + "/admin/luke?numTerms=0&show=index" + JSON_RESPONSE);
+        if (luke.getStatus() != 200) {
+            throw new SearchClientException(luke.getMsg());
+        }
+        JsonElement index = luke.getJson().getAsJsonObject().get("index");
+        QueryRequest queryRequest = new QueryRequest(new MatchAllDocsQuery());
+        queryRequest.setNumResults(0);
+        long numFound = search(queryRequest).getTotalHits();
+        return JsonUtil.getPrimitive(index, "version", -1l) +
+                ":" + JsonUtil.getPrimitive(index, "numDocs", -1l) +
+                ":" + JsonUtil.getPrimitive(index, "maxDoc", -1l) +
+                ":" + numFound;
+    }
+
     @Override
     public void deleteAll() throws SearchClientException, IOException {
         String json = "{ \"delete\": {\"query\":\"*:*\"} }";
@@ -491,7 +667,7 @@ public class SolrClient extends SearchClient {
     }
 
     @Override
-    public List<String> analyze(String field, String string)
+    protected List<String> doAnalyze(String field, String string)
             throws IOException, SearchClientException {
         StringBuilder request = new StringBuilder();
         request.append(url);
@@ -506,16 +682,132 @@ public class SolrClient extends SearchClient {
         JsonObject analysisNode = root.get("analysis").getAsJsonObject();
         JsonObject fieldNamesNode = analysisNode.get("field_names").getAsJsonObject();
         JsonObject fieldNode = fieldNamesNode.get(field).getAsJsonObject();
-        JsonArray indexArr = fieldNode.getAsJsonArray("index");
-        JsonArray lastStep = indexArr.get(indexArr.size() - 1).getAsJsonArray();
+        return getLastStepTokens(fieldNode.get("index"));
+    }
+
+    /**
+     * Analyzes all of the strings in one request to the document
+     * analysis handler, as values of a single document.  If that
+     * handler isn't available, this falls back to one request per string.
+     */
+    @Override
+    protected List<List<String>> doAnalyzeBatch(String field, List<String> strings)
+            throws IOException, SearchClientException {
+        if (strings.size() < 2) {
+            return super.doAnalyzeBatch(field, strings);
+        }
+        String idField = getDefaultIdField();
+        StringBuilder xml = new StringBuilder();
+        xml.append("<docs><doc>");
+        appendXmlField(xml, idField, "1");
+        for (String s : strings) {
+            appendXmlField(xml, field, s);
+        }
+        xml.append("</doc></docs>");
+        JsonResponse response = postXml(url + "/analysis/document?wt=json", xml.toString());
+        if (response.getStatus() != 200) {
+            LOG.debug("document analysis failed; analyzing one string at a time: " +
+                    response.getMsg());
+            return super.doAnalyzeBatch(field, strings);
+        }
+        //analysis -> doc id -> field -> index -> value -> steps
+        JsonElement doc = response.getJson().getAsJsonObject()
+                .getAsJsonObject("analysis").get("1");
+        JsonObject values = null;
+        if (doc != null && doc.isJsonObject() &&
+                doc.getAsJsonObject().has(field)) {
+            values = doc.getAsJsonObject().getAsJsonObject(field).getAsJsonObject("index");
+        }
+        List<List<String>> results = new ArrayList<>();
+        for (String s : strings) {
+            if (values != null && values.has(s)) {
+                results.add(getLastStepTokens(values.get(s)));
+            } else {
+                //e.g. empty strings
+                results.add(doAnalyze(field, s));
+            }
+        }
+        return results;
+    }
+
+    //steps are a flat list: [step name, tokens, step name, tokens...]
+    private static List<String> getLastStepTokens(JsonElement steps) {
+        JsonElement lastStep = null;
+        if (steps.isJsonArray()) {
+            JsonArray arr = steps.getAsJsonArray();
+            lastStep = arr.get(arr.size() - 1);
+        } else {
+            for (Map.Entry<String, JsonElement> e : steps.getAsJsonObject().entrySet()) {
+                lastStep = e.getValue();
+            }
+        }
         List<String> tokens = new ArrayList<>();
-        for (JsonElement el : lastStep) {
+        for (JsonElement el : lastStep.getAsJsonArray()) {
             String t = el.getAsJsonObject().get("text").getAsString();
             tokens.add(t);
         }
         return tokens;
     }
 
+    private static void appendXmlField(StringBuilder xml, String name, String value) {
+        xml.append("<field name=\"").append(escapeXml(name)).append("\">")
+                .append(escapeXml(value)).append("</field>");
+    }
+
+    private static String escapeXml(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    protected Analyzer buildLocalAnalyzer(String field)
+            throws IOException, SearchClientException {
+        //the schema api doesn't resolve dynamic fields; those fall back to the server
+        JsonResponse fieldResponse = getJson(url + "/schema/fields/" + encode(field) +
+                "?wt=json");
+        if (fieldResponse.getStatus() != 200) {
+            return null;
+        }
+        String type = JsonUtil.getPrimitive(
+                fieldResponse.getJson().getAsJsonObject().get("field"), "type", null);
+        if (type == null) {
+            return null;
+        }
+        JsonResponse typeResponse = getJson(url + "/schema/fieldtypes/" + encode(type) +
+                "?wt=json");
+        if (typeResponse.getStatus() != 200) {
+            throw new SearchClientException(typeResponse.getMsg());
+        }
+        LocalResourceLoader.Fetcher fetcher = resource -> {
+            try {
+                return getUrl(url + "/admin/file?file=" + encode(resource));
+            } catch (SearchClientException e) {
+                throw new IOException(e);
+            }
+        };
+        return SolrAnalyzerBuilder.build(
+                typeResponse.getJson().getAsJsonObject().getAsJsonObject("fieldType"),
+                new LocalResourceLoader(fetcher));
+    }
+
     @Override
     public List<TokenDF> getTerms(String field, String lower,
                                   int limit, int minCount,
@@ -566,8 +858,70 @@ public class SolrClient extends SearchClient {
         return termDFList;
     }
 
+    /**
+     * Rendered parameters for everything in a dismax/edismax request
+     * except the query string, and what's needed to tell whether
+     * they can be reused for another request.
+     */
+    static class RequestTemplate {
+        private final DisMaxQuery query;
+        private final String handler;
+        private final String customQueryKey;
+        private final List<String> fieldsToRetrieve;
+        private final List<Query> filterQueries;
+        private final int start;
+        private final int numResults;
+        private final String sortField;
+        private final QueryRequest.SORT_ORDER sortOrder;
+        private final String facetField;
+        private final String params;
+
+        RequestTemplate(QueryRequest queryRequest, CustomHandler handler, String params) {
+            this.query = withoutQueryString((DisMaxQuery) queryRequest.getQuery());
+            this.handler = handler.getHandler();
+            this.customQueryKey = handler.getCustomQueryKey();
+            this.fieldsToRetrieve = new ArrayList<>(queryRequest.getFieldsToRetrieve());
+            this.filterQueries = new ArrayList<>(queryRequest.getFilterQueries());
+            this.start = queryRequest.getStart();
+            this.numResults = queryRequest.getNumResults();
+            this.sortField = queryRequest.getSortField();
+            this.sortOrder = queryRequest.getSortOrder();
+            this.facetField = queryRequest.getFacetField();
+            this.params = params;
+        }
+
+        boolean matches(QueryRequest queryRequest, CustomHandler handler) {
+            return start == queryRequest.getStart() &&
+                    numResults == queryRequest.getNumResults() &&
+                    sortOrder == queryRequest.getSortOrder() &&
+                    query.getClass().equals(queryRequest.getQuery().getClass()) &&
+                    query.equals(withoutQueryString((DisMaxQuery) queryRequest.getQuery())) &&
+                    this.handler.equals(handler.getHandler()) &&
+                    customQueryKey.equals(handler.getCustomQueryKey()) &&
+                    fieldsToRetrieve.equals(queryRequest.getFieldsToRetrieve()) &&
+                    filterQueries.equals(queryRequest.getFilterQueries()) &&
+                    Objects.equals(sortField, queryRequest.getSortField()) &&
+                    Objects.equals(facetField, queryRequest.getFacetField());
+        }
+
+        private static DisMaxQuery withoutQueryString(DisMaxQuery query) {
+            DisMaxQuery cp = query.deepCopy();
+            cp.setQueryString(null);
+            return cp;
+        }
+    }
+
+    /**
+     * Enumerates ids with the /export handler if it's available and
+     * the id field has docValues, otherwise with cursorMark paging.
+     * Both have a constant cost per page, unlike start/rows paging.
+     * Start/rows paging is only used for versions of Solr without
+     * cursorMark.
+     */
     class SolrIdGrabber extends IdGrabber {
 
+        private static final int PAGE_SIZE = 10000;
+
         public SolrIdGrabber(String idField, ArrayBlockingQueue<Set<String>> ids,
                              int batchSize, int copierThreads,
                              Collection<Query> filterQueries) {
@@ -576,38 +930,104 @@ public class SolrClient extends SearchClient {
 
         @Override
         public Integer call() throws Exception {
-            int start = 0;
-            int totalAdded = 0;
-            int idSize = 10000;
+            int totalAdded = -1;
             try {
-                QueryRequest queryRequest =
-                        buildQueryRequest(idField, start, idSize, filterQueries);
-                SearchResultSet rs = search(queryRequest);
-
-                while (rs.size() > 0) {
-                    Set<String> set = new HashSet<>();
-                    List<String> ids = rs.getIds();
-                    for (int i = 0; i < ids.size(); i++) {
-                        set.add(ids.get(i));
-                        if (set.size() > batchSize) {
-                            totalAdded += addSet(set);
-                            set = new HashSet<>();
-                        }
-                    }
-                    if (set.size() > 0) {
-                        totalAdded += addSet(set);
+                if (supportsExport()) {
+                    totalAdded = export();
+                }
+                //export isn't available or couldn't be used
+                if (totalAdded < 0) {
+                    if (supportsCursorMark()) {
+                        totalAdded = cursor();
+                    } else {
+                        totalAdded = page();
                     }
-                    LOG.info("ids added: " + totalAdded);
-                    start += idSize;
-                    queryRequest = buildQueryRequest(idField, start, idSize,
-                            filterQueries);
-                    rs = search(queryRequest);
                 }
-                LOG.debug("id grabber is finishing" + start);
+                LOG.debug("id grabber is finishing: " + totalAdded);
             } finally {
                 addPoison();
             }
-            return -1;
+            return totalAdded;
+        }
+
+        /**
+         * @return the number of ids added or -1 if /export couldn't be used
+         */
+        private int export() throws IOException, SearchClientException {
+            StringBuilder sb = new StringBuilder();
+            sb.append("q=").append(encode("*:*"));
+            for (Query q : filterQueries) {
+                appendFilterQuery(q, sb);
+            }
+            sb.append("&sort=").append(encode(idField + " asc"));
+            sb.append("&fl=").append(encode(idField));
+            sb.append(JSON_RESPONSE);
+            ExportHandler handler = new ExportHandler();
+            JsonResponse response = postForm(url + "/export", sb.toString(), handler);
+            if (response.getStatus() != 200 || handler.exception != null) {
+                String msg = (response.getStatus() != 200) ?
+                        response.getMsg() : handler.exception;
+                if (handler.totalAdded > 0) {
+                    throw new SearchClientException("export failed after adding " +
+                            handler.totalAdded + " ids: " + msg);
+                }
+                LOG.info("couldn't use /export; falling back to cursorMark: " + msg);
+                return -1;
+            }
+            return handler.totalAdded;
+        }
+
+        private int cursor() throws IOException, SearchClientException,
+                InterruptedException {
+            int totalAdded = 0;
+            QueryRequest queryRequest = buildQueryRequest(idField, 0, PAGE_SIZE,
+                    filterQueries);
+            String cursorMark = "*";
+            while (true) {
+                SearchResultSet rs = cursorSearch(queryRequest, cursorMark);
+                totalAdded += addIds(rs.getIds());
+                LOG.info("ids added: " + totalAdded);
+                if (rs.size() == 0 || cursorMark.equals(rs.getScrollId())) {
+                    break;
+                }
+                cursorMark = rs.getScrollId();
+            }
+            return totalAdded;
+        }
+
+        private int page() throws IOException, SearchClientException,
+                InterruptedException {
+            int start = 0;
+            int totalAdded = 0;
+            QueryRequest queryRequest =
+                    buildQueryRequest(idField, start, PAGE_SIZE, filterQueries);
+            SearchResultSet rs = search(queryRequest);
+
+            while (rs.size() > 0) {
+                totalAdded += addIds(rs.getIds());
+                LOG.info("ids added: " + totalAdded);
+                start += PAGE_SIZE;
+                queryRequest = buildQueryRequest(idField, start, PAGE_SIZE,
+                        filterQueries);
+                rs = search(queryRequest);
+            }
+            return totalAdded;
+        }
+
+        private int addIds(List<String> ids) throws InterruptedException {
+            int added = 0;
+            Set<String> set = new HashSet<>();
+            for (String id : ids) {
+                set.add(id);
+                if (set.size() >= batchSize) {
+                    added += addSet(set);
+                    set = new HashSet<>();
+                }
+            }
+            if (set.size() > 0) {
+                added += addSet(set);
+            }
+            return added;
         }
 
         private QueryRequest buildQueryRequest(String idField, int start,
@@ -625,14 +1045,90 @@ public class SolrClient extends SearchClient {
 
 
         private int addSet(Set<String> set) throws InterruptedException {
-            int sz = set.size();
-            boolean added = ids.offer(set, 1, TimeUnit.SECONDS);
-            LOG.debug("id adder: " + added + " " + ids.size());
-            while (!added) {
-                added = ids.offer(set, 1, TimeUnit.SECONDS);
-                LOG.debug("waiting to add");
+            return addSet(ids, set);
+        }
+
+        /**
+         * Reads the ids from the /export response as it's streamed,
+         * adding them to the queue in batches.
+         */
+        private class ExportHandler implements ResponseStreamHandler {
+            private int totalAdded = 0;
+            private String exception = null;
+
+            @Override
+            public void handle(Reader reader) throws IOException, SearchClientException {
+                JsonReader jsonReader = new JsonReader(reader);
+                jsonReader.beginObject();
+                while (jsonReader.hasNext()) {
+                    if ("response".equals(jsonReader.nextName())) {
+                        readResponse(jsonReader);
+                        if (exception != null) {
+                            return;
+                        }
+                    } else {
+                        jsonReader.skipValue();
+                    }
+                }
+                jsonReader.endObject();
+            }
+
+            private void readResponse(JsonReader jsonReader)
+                    throws IOException, SearchClientException {
+                jsonReader.beginObject();
+                while (jsonReader.hasNext()) {
+                    if ("docs".equals(jsonReader.nextName())) {
+                        readDocs(jsonReader);
+                        if (exception != null) {
+                            return;
+                        }
+                    } else {
+                        jsonReader.skipValue();
+                    }
+                }
+                jsonReader.endObject();
+            }
+
+            private void readDocs(JsonReader jsonReader)
+                    throws IOException, SearchClientException {
+                Set<String> set = new HashSet<>();
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    jsonReader.beginObject();
+                    while (jsonReader.hasNext()) {
+                        String name = jsonReader.nextName();
+                        if (name.equals(idField)) {
+                            set.add(jsonReader.nextString());
+                        } else if (name.equals("EXCEPTION")) {
+                            //errors are reported as a doc
+                            exception = jsonReader.nextString();
+                        } else {
+                            jsonReader.skipValue();
+                        }
+                    }
+                    jsonReader.endObject();
+                    if (exception != null) {
+                        return;
+                    }
+                    if (set.size() >= batchSize) {
+                        totalAdded += add(set);
+                        set = new HashSet<>();
+                    }
+                }
+                jsonReader.endArray();
+                if (set.size() > 0) {
+                    totalAdded += add(set);
+                }
+                LOG.info("ids added: " + totalAdded);
+            }
+
+            private int add(Set<String> set) throws SearchClientException {
+                try {
+                    return addSet(set);
+                } catch (InterruptedException e) {
+                    throw new SearchClientException(e);
+                }
             }
-            return sz;
         }
     }
 }
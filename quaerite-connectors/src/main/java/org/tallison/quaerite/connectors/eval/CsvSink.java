@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors.eval;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.scorers.Scorer;
+
+/**
+ * Writes one row per successful query with the same columns as
+ * per_query_scores.csv, and, optionally, the aggregate statistics as
+ * experiment, query set, scorer, statistic, value rows.
+ * <p>
+ * Rows are written as they arrive; nothing is held in memory.
+ */
+public class CsvSink implements EvaluationSink {
+
+    private final Path perQueryFile;
+    private final Path aggregatesFile;
+    private BufferedWriter writer;
+    private String experimentName;
+
+    /**
+     * @param perQueryFile file for the per query scores
+     * @param aggregatesFile file for the aggregate statistics; may be null
+     */
+    public CsvSink(Path perQueryFile, Path aggregatesFile) {
+        this.perQueryFile = perQueryFile;
+        this.aggregatesFile = aggregatesFile;
+    }
+
+    @Override
+    public void start(Experiment experiment, List<Scorer> scorers) throws IOException {
+        close();
+        experimentName = experiment.getName();
+        writer = Files.newBufferedWriter(perQueryFile, StandardCharsets.UTF_8);
+        writer.write("QUERY_ID,QUERY_NAME,QUERY_SET,QUERY_COUNT,EXPERIMENT");
+        for (Scorer scorer : scorers) {
+            writer.write(",");
+            writer.write(clean(scorer.getName().toUpperCase(Locale.US)));
+        }
+        writer.write("\n");
+    }
+
+    @Override
+    public void accept(QueryEvaluation queryEvaluation) throws IOException {
+        if (!queryEvaluation.isSuccess()) {
+            return;
+        }
+        QueryInfo queryInfo = queryEvaluation.getQueryInfo();
+        writer.write(clean(queryInfo.getQueryId()));
+        writer.write(",");
+        writer.write(clean(queryInfo.getQueryStrings().toString()));
+        writer.write(",");
+        writer.write(clean(queryInfo.getQuerySet()));
+        writer.write(",");
+        writer.write(Integer.toString(queryInfo.getQueryCount()));
+        writer.write(",");
+        writer.write(clean(experimentName));
+        for (Double score : queryEvaluation.getScores().values()) {
+            writer.write(",");
+            writer.write(Double.toString(score));
+        }
+        writer.write("\n");
+    }
+
+    @Override
+    public void finish(EvaluationResult evaluationResult) throws IOException {
+        close();
+        if (aggregatesFile == null) {
+            return;
+        }
+        try (BufferedWriter aggWriter =
+                     Files.newBufferedWriter(aggregatesFile, StandardCharsets.UTF_8)) {
+            aggWriter.write("EXPERIMENT,QUERY_SET,SCORER,STATISTIC,VALUE\n");
+            for (Map.Entry<String, Map<String, Map<String, Double>>> scorer :
+                    evaluationResult.getStatistics().entrySet()) {
+                for (Map.Entry<String, Map<String, Double>> querySet :
+                        scorer.getValue().entrySet()) {
+                    for (Map.Entry<String, Double> stat : querySet.getValue().entrySet()) {
+                        aggWriter.write(clean(evaluationResult.getExperimentName()));
+                        aggWriter.write(",");
+                        aggWriter.write(clean(querySet.getKey()));
+                        aggWriter.write(",");
+                        aggWriter.write(clean(scorer.getKey()));
+                        aggWriter.write(",");
+                        aggWriter.write(clean(stat.getKey()));
+                        aggWriter.write(",");
+                        aggWriter.write(Double.toString(stat.getValue()));
+                        aggWriter.write("\n");
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    static String clean(String string) {
+        if (string == null) {
+            return "";
+        }
+        string = string.replaceAll("[\r\n]", " ");
+        if (string.contains(",") || string.contains("\"")) {
+            string = "\"" + string.replaceAll("\"", "\"\"") + "\"";
+        }
+        return string;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors.eval;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.QueryRequest;
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.queries.Query;
+import org.tallison.quaerite.core.scorers.Scorer;
+
+/**
+ * Returns each query's scores as soon as its search finishes.  Use
+ * {@link #getResult()} for the aggregate statistics once the iterator
+ * has been exhausted.
+ * <p>
+ * This is not thread safe.
+ */
+public class EvaluationIterator implements Iterator<QueryEvaluation>, Closeable {
+
+    static Logger LOG = LogManager.getLogger(EvaluationIterator.class);
+
+    private static final Object DONE = new Object();
+    private static final long OFFER_MILLIS = 100;
+
+    private final Experiment experiment;
+    private final List<Scorer> scorers;
+    private final ConcurrentLinkedQueue<Judgments> judgments;
+    private final ArrayBlockingQueue<Object> results;
+    private final ExecutorService executorService;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final String idField;
+    private final int maxRows;
+    private final int numThreads;
+    private final long start = System.nanoTime();
+    private volatile boolean closed = false;
+    private QueryEvaluation next;
+    private int finishedThreads = 0;
+    private int queries = 0;
+    private int failed = 0;
+    private EvaluationResult result;
+
+    EvaluationIterator(Experiment experiment, List<Scorer> scorers, List<Judgments> judgmentsList,
+                       String idField, int maxRows, int numThreads, int queueSize) {
+        this.experiment = experiment;
+        this.scorers = scorers;
+        this.judgments = new ConcurrentLinkedQueue<>(judgmentsList);
+        this.results = new ArrayBlockingQueue<>(queueSize);
+        this.idField = idField;
+        this.maxRows = maxRows;
+        this.numThreads = numThreads;
+        this.executorService = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread t = new Thread(r, "quaerite-evaluator");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < numThreads; i++) {
+            executorService.submit(new QueryRunner());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && finishedThreads < numThreads && !closed) {
+            Object o;
+            try {
+                o = results.take();
+            } catch (InterruptedException e) {
+                close();
+                throw new RuntimeException(e);
+            }
+            if (o == DONE) {
+                finishedThreads++;
+                Throwable t = failure.get();
+                if (t != null) {
+                    close();
+                    throw new RuntimeException("evaluation of " + experiment.getName() +
+                            " failed", t);
+                }
+            } else {
+                next = (QueryEvaluation) o;
+                queries++;
+                if (!next.isSuccess()) {
+                    failed++;
+                }
+            }
+        }
+        if (next == null && result == null && !closed) {
+            result = new EvaluationResult(experiment.getName(), scorers, queries, failed,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            close();
+        }
+        return next != null;
+    }
+
+    @Override
+    public QueryEvaluation next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        QueryEvaluation ret = next;
+        next = null;
+        return ret;
+    }
+
+    /**
+     * @return the aggregate statistics
+     * @throws IllegalStateException if the iterator has not been exhausted
+     */
+    public EvaluationResult getResult() {
+        if (result == null) {
+            throw new IllegalStateException("The iterator must be read to the end " +
+                    "before the result is available");
+        }
+        return result;
+    }
+
+    /**
+     * Stops the search threads if they're still running
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        executorService.shutdownNow();
+        results.clear();
+    }
+
+    //returns false if the iterator was closed before the object could be added
+    private boolean put(Object o) throws InterruptedException {
+        while (!closed) {
+            if (results.offer(o, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class QueryRunner implements Runnable {
+        //thread safe clone of the query
+        private final Query query = experiment.getQuery();
+
+        @Override
+        public void run() {
+            try (SearchClient searchClient =
+                         SearchClientFactory.getClient(experiment.getServerConnection())) {
+                Judgments current = judgments.poll();
+                while (current != null && put(evaluate(searchClient, current))) {
+                    current = judgments.poll();
+                }
+            } catch (InterruptedException e) {
+                //closed
+                return;
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+            try {
+                put(DONE);
+            } catch (InterruptedException e) {
+                //closed
+            }
+        }
+
+        private QueryEvaluation evaluate(SearchClient searchClient, Judgments judgments) {
+            query.setQueryStrings(judgments.getQueryStrings());
+            QueryRequest queryRequest = new QueryRequest(query,
+                    experiment.getCustomHandler(), idField);
+            queryRequest.addFieldsToRetrieve(idField);
+            if (experiment.getFilterQueries().size() > 0) {
+                queryRequest.addFilterQueries(experiment.getFilterQueries());
+            }
+            queryRequest.setNumResults(maxRows);
+
+            SearchResultSet searchResultSet = null;
+            Exception exception = null;
+            int tries = 0;
+            while (searchResultSet == null && tries++ < Evaluator.MAX_RETRIES) {
+                try {
+                    searchResultSet = searchClient.search(queryRequest);
+                } catch (SearchClientException | IOException e) {
+                    LOG.warn("error getting results for: " + judgments.getQueryStrings(), e);
+                    exception = e;
+                }
+            }
+            if (searchResultSet == null) {
+                return new QueryEvaluation(judgments.getQueryInfo(), exception);
+            }
+            Map<String, Double> scores = new LinkedHashMap<>();
+            for (Scorer scorer : scorers) {
+                scores.put(scorer.getName(),
+                        Evaluator.score(scorer, judgments, searchResultSet));
+            }
+            return new QueryEvaluation(judgments.getQueryInfo(), searchResultSet, scores);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors.eval;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.scorers.Scorer;
+
+/**
+ * The aggregate statistics of each scorer for each query set after
+ * every query in an evaluation has been scored
+ */
+public class EvaluationResult {
+
+    private final String experimentName;
+    private final int queries;
+    private final int failed;
+    private final long elapsedMillis;
+    //scorer name -> query set -> statistic name -> value
+    private final Map<String, Map<String, Map<String, Double>>> statistics;
+    //scorer name -> primary statistic across all query sets
+    private final Map<String, Double> primaryStatistics;
+
+    EvaluationResult(String experimentName, Iterable<Scorer> scorers,
+                     int queries, int failed, long elapsedMillis) {
+        this.experimentName = experimentName;
+        this.queries = queries;
+        this.failed = failed;
+        this.elapsedMillis = elapsedMillis;
+        Map<String, Map<String, Map<String, Double>>> stats = new LinkedHashMap<>();
+        Map<String, Double> primary = new LinkedHashMap<>();
+        for (Scorer scorer : scorers) {
+            Map<String, Map<String, Double>> byQuerySet = new TreeMap<>();
+            for (String querySet : scorer.getQuerySets()) {
+                byQuerySet.put(querySet, Collections.unmodifiableMap(
+                        new LinkedHashMap<>(scorer.getSummaryStatistics(querySet))));
+            }
+            stats.put(scorer.getName(), Collections.unmodifiableMap(byQuerySet));
+            primary.put(scorer.getName(), (scorer.getSize() == 0) ? Double.NaN :
+                    scorer.getPrimaryStatistic(QueryInfo.DEFAULT_QUERY_SET));
+        }
+        this.statistics = Collections.unmodifiableMap(stats);
+        this.primaryStatistics = Collections.unmodifiableMap(primary);
+    }
+
+    public String getExperimentName() {
+        return experimentName;
+    }
+
+    /**
+     * @return number of queries, including those that failed
+     */
+    public int getQueries() {
+        return queries;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return scorer name -&gt; query set -&gt; statistic name -&gt; value; the
+     * {@link QueryInfo#DEFAULT_QUERY_SET} covers all of the queries
+     */
+    public Map<String, Map<String, Map<String, Double>>> getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return the primary statistic for the scorer over all the queries
+     * or NaN if nothing was scored
+     */
+    public double getPrimaryStatistic(String scorerName) {
+        Double value = primaryStatistics.get(scorerName);
+        if (value == null) {
+            throw new IllegalArgumentException("I don't know about this scorer: " + scorerName);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluationResult{" +
+                "experimentName='" + experimentName + '\'' +
+                ", queries=" + queries +
+                ", failed=" + failed +
+                ", elapsedMillis=" + elapsedMillis +
+                ", primaryStatistics=" + primaryStatistics +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors.eval;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.scorers.Scorer;
+
+/**
+ * Receives the results of an {@link Evaluator#evaluate} as they arrive.
+ * The methods are called from the caller's thread, one at a time.
+ */
+public interface EvaluationSink extends Closeable {
+
+    void start(Experiment experiment, List<Scorer> scorers) throws IOException;
+
+    /**
+     * Called once per query, in the order in which the queries finish
+     */
+    void accept(QueryEvaluation queryEvaluation) throws IOException;
+
+    void finish(EvaluationResult evaluationResult) throws IOException;
+}
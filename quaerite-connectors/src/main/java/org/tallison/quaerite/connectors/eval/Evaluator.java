@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors.eval;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.JudgmentList;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.scorers.JudgmentScorer;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.core.scorers.SearchResultSetScorer;
+
+/**
+ * Runs a single experiment against a judgment list in process, without
+ * the experiment database.
+ * <p>
+ * Results can be pulled one query at a time via {@link #iterate(JudgmentList)}
+ * or pushed to the {@link EvaluationSink}s via {@link #evaluate(JudgmentList)}.
+ * The per query results are handed off as they arrive through a bounded
+ * queue; the only per query state that is kept is the score that each
+ * scorer needs for its aggregate statistics.
+ * <p>
+ * The scorers are reset at the start of each evaluation, so a list of scorers
+ * may only be used by one evaluation at a time.
+ */
+public class Evaluator {
+
+    static final int MAX_RETRIES = 2;
+    static final int DEFAULT_QUEUE_SIZE = 100;
+
+    private final Experiment experiment;
+    private final List<Scorer> scorers;
+    private final List<EvaluationSink> sinks = new ArrayList<>();
+    private String idField;
+    private int maxRows = -1;
+    private int numThreads = 1;
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+
+    public Evaluator(Experiment experiment, List<Scorer> scorers) {
+        if (scorers.size() == 0) {
+            throw new IllegalArgumentException("must specify at least one scorer");
+        }
+        this.experiment = experiment;
+        this.scorers = Collections.unmodifiableList(new ArrayList<>(scorers));
+    }
+
+    /**
+     * @param idField document id field; if not set, the search client's default is used
+     */
+    public Evaluator setIdField(String idField) {
+        this.idField = idField;
+        return this;
+    }
+
+    /**
+     * @param maxRows number of results to retrieve per query; if not set,
+     *                the largest atN of the scorers is used
+     */
+    public Evaluator setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    public Evaluator setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("numThreads must be > 0");
+        }
+        this.numThreads = numThreads;
+        return this;
+    }
+
+    /**
+     * @param queueSize maximum number of query results waiting to be consumed
+     *                  before the search threads block
+     */
+    public Evaluator setQueueSize(int queueSize) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("queueSize must be > 0");
+        }
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    /**
+     * The caller is responsible for closing the sinks.
+     */
+    public Evaluator addSink(EvaluationSink sink) {
+        sinks.add(sink);
+        return this;
+    }
+
+    public Experiment getExperiment() {
+        return experiment;
+    }
+
+    public List<Scorer> getScorers() {
+        return scorers;
+    }
+
+    /**
+     * Runs every query in the judgment list, sends each result to the sinks,
+     * and then sends the aggregate results to the sinks.
+     *
+     * @return the aggregate results
+     */
+    public EvaluationResult evaluate(JudgmentList judgmentList)
+            throws IOException, SearchClientException {
+        try (EvaluationIterator iterator = iterate(judgmentList)) {
+            for (EvaluationSink sink : sinks) {
+                sink.start(experiment, scorers);
+            }
+            while (iterator.hasNext()) {
+                QueryEvaluation queryEvaluation = iterator.next();
+                for (EvaluationSink sink : sinks) {
+                    sink.accept(queryEvaluation);
+                }
+            }
+            EvaluationResult result = iterator.getResult();
+            for (EvaluationSink sink : sinks) {
+                sink.finish(result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Starts running the queries in the background.  The iterator returns
+     * results in the order in which they finish, and it must be closed if it
+     * is not read to the end.  The sinks are not called.
+     */
+    public EvaluationIterator iterate(JudgmentList judgmentList)
+            throws IOException, SearchClientException {
+        int rows = maxRows;
+        if (rows < 0) {
+            for (Scorer scorer : scorers) {
+                rows = Math.max(rows, scorer.getAtN());
+            }
+        }
+        if (rows < 0) {
+            throw new IllegalArgumentException("Either set maxRows or at least one of the " +
+                    "scorers must have the 'atN' param set to a value >= 0");
+        }
+        String id = idField;
+        if (id == null) {
+            try (SearchClient searchClient =
+                         SearchClientFactory.getClient(experiment.getServerConnection())) {
+                id = searchClient.getDefaultIdField();
+            }
+        }
+        for (Scorer scorer : scorers) {
+            scorer.reset();
+        }
+        return new EvaluationIterator(experiment, scorers, judgmentList.getJudgmentsList(),
+                id, rows, numThreads, queueSize);
+    }
+
+    /**
+     * Scores a single query's results with any type of scorer.
+     *
+     * @return the score
+     * @throws IllegalArgumentException if the scorer is neither a
+     * {@link JudgmentScorer} nor a {@link SearchResultSetScorer}
+     */
+    public static double score(Scorer scorer, Judgments judgments,
+                               SearchResultSet searchResultSet) {
+        if (scorer instanceof JudgmentScorer) {
+            return ((JudgmentScorer) scorer).score(judgments, searchResultSet);
+        } else if (scorer instanceof SearchResultSetScorer) {
+            return ((SearchResultSetScorer) scorer).score(judgments.getQueryInfo(),
+                    searchResultSet);
+        }
+        throw new IllegalArgumentException("Scorer class not yet supported: "
+                + scorer.getClass());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors.eval;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.scorers.Scorer;
+
+/**
+ * Keeps every {@link QueryEvaluation}, e.g. for tests.  Unless
+ * search results are kept, only the scores are held.
+ */
+public class InMemorySink implements EvaluationSink {
+
+    private final boolean keepSearchResults;
+    private final List<QueryEvaluation> evaluations = new ArrayList<>();
+    private EvaluationResult result;
+
+    public InMemorySink() {
+        this(false);
+    }
+
+    public InMemorySink(boolean keepSearchResults) {
+        this.keepSearchResults = keepSearchResults;
+    }
+
+    @Override
+    public void start(Experiment experiment, List<Scorer> scorers) {
+        evaluations.clear();
+        result = null;
+    }
+
+    @Override
+    public void accept(QueryEvaluation queryEvaluation) {
+        if (keepSearchResults || !queryEvaluation.isSuccess()) {
+            evaluations.add(queryEvaluation);
+        } else {
+            evaluations.add(new QueryEvaluation(queryEvaluation.getQueryInfo(), null,
+                    queryEvaluation.getScores()));
+        }
+    }
+
+    @Override
+    public void finish(EvaluationResult evaluationResult) {
+        this.result = evaluationResult;
+    }
+
+    public List<QueryEvaluation> getEvaluations() {
+        return Collections.unmodifiableList(evaluations);
+    }
+
+    /**
+     * @return the result or null if the evaluation hasn't finished
+     */
+    public EvaluationResult getResult() {
+        return result;
+    }
+
+    @Override
+    public void close() {
+        //nothing to close
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors.eval;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.SearchResultSet;
+
+/**
+ * The scores for one query, or the exception if the search failed
+ */
+public class QueryEvaluation {
+
+    private final QueryInfo queryInfo;
+    private final SearchResultSet searchResultSet;
+    private final Map<String, Double> scores;
+    private final Exception exception;
+
+    QueryEvaluation(QueryInfo queryInfo, SearchResultSet searchResultSet,
+                    Map<String, Double> scores) {
+        this.queryInfo = queryInfo;
+        this.searchResultSet = searchResultSet;
+        this.scores = Collections.unmodifiableMap(scores);
+        this.exception = null;
+    }
+
+    QueryEvaluation(QueryInfo queryInfo, Exception exception) {
+        this.queryInfo = queryInfo;
+        this.searchResultSet = null;
+        this.scores = Collections.emptyMap();
+        this.exception = exception;
+    }
+
+    public QueryInfo getQueryInfo() {
+        return queryInfo;
+    }
+
+    public boolean isSuccess() {
+        return exception == null;
+    }
+
+    /**
+     * @return the search results or null if the search failed
+     */
+    public SearchResultSet getSearchResultSet() {
+        return searchResultSet;
+    }
+
+    /**
+     * @return scores keyed by scorer name, in the order of the scorers;
+     * empty if the search failed
+     */
+    public Map<String, Double> getScores() {
+        return scores;
+    }
+
+    /**
+     * @return the last exception if the search failed, otherwise null
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryEvaluation{" +
+                "queryInfo=" + queryInfo +
+                ", scores=" + scores +
+                ", exception=" + exception +
+                '}';
+    }
+}
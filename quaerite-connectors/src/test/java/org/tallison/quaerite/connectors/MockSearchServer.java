@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpInetConnection;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+/**
+ * Local http server for the connector tests that answers each path
+ * with whatever json its handler returns and records every request.
+ * Paths without a handler get a 404.
+ */
+class MockSearchServer implements Closeable {
+
+    interface Handler {
+        /**
+         * @return json body of a 200 response
+         */
+        String handle(Request request);
+    }
+
+    static class Request {
+        final String method;
+        final String path;
+        //decompressed if it was gzipped
+        final String body;
+        //form parameters from the query string and an urlencoded body
+        final Map<String, String> params;
+        final String contentEncoding;
+        final int remotePort;
+
+        Request(String method, String path, String body, Map<String, String> params,
+                String contentEncoding, int remotePort) {
+            this.method = method;
+            this.path = path;
+            this.body = body;
+            this.params = params;
+            this.contentEncoding = contentEncoding;
+            this.remotePort = remotePort;
+        }
+    }
+
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+
+    /**
+     * @param path path including the leading slash, e.g. /tmdb/_search
+     * @param handler handler for requests to exactly that path
+     */
+    void handle(String path, Handler handler) {
+        handlers.put(path, handler);
+    }
+
+    void start() throws IOException {
+        server = ServerBootstrap.bootstrap()
+                .setLocalAddress(InetAddress.getLoopbackAddress())
+                .setListenerPort(0)
+                .registerHandler("*", this::handle)
+                .create();
+        server.start();
+    }
+
+    /**
+     * @return scheme://host:port without a trailing slash
+     */
+    String getUrl() {
+        return "http://127.0.0.1:" + server.getLocalPort();
+    }
+
+    List<Request> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    List<Request> getRequests(String path) {
+        List<Request> ret = new ArrayList<>();
+        for (Request r : requests) {
+            if (r.path.equals(path)) {
+                ret.add(r);
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (server != null) {
+            server.shutdown(0, TimeUnit.SECONDS);
+            server = null;
+            //the next server may get this port
+            SearchClientFactory.clearVersionCache();
+        }
+    }
+
+    private void handle(HttpRequest httpRequest, HttpResponse httpResponse,
+                        HttpContext context) throws IOException {
+        URI uri = URI.create(httpRequest.getRequestLine().getUri());
+        Header encoding = httpRequest.getFirstHeader("Content-Encoding");
+        String body = readBody(httpRequest, encoding);
+        Map<String, String> params = new LinkedHashMap<>();
+        parseParams(uri.getRawQuery(), params);
+        Header contentType = httpRequest.getFirstHeader("Content-Type");
+        if (contentType != null && contentType.getValue().contains("x-www-form-urlencoded")) {
+            parseParams(body, params);
+        }
+        Object connection = context.getAttribute(HttpCoreContext.HTTP_CONNECTION);
+        int remotePort = (connection instanceof HttpInetConnection) ?
+                ((HttpInetConnection) connection).getRemotePort() : -1;
+        Request request = new Request(httpRequest.getRequestLine().getMethod(),
+                uri.getPath(), body, params,
+                (encoding == null) ? null : encoding.getValue(), remotePort);
+        requests.add(request);
+
+        Handler handler = handlers.get(request.path);
+        String json;
+        if (handler == null) {
+            httpResponse.setStatusCode(404);
+            json = "{\"error\":\"no handler for " + request.path + "\"}";
+        } else {
+            json = handler.handle(request);
+        }
+        httpResponse.setEntity(new ByteArrayEntity(json.getBytes(StandardCharsets.UTF_8),
+                ContentType.APPLICATION_JSON));
+    }
+
+    private static String readBody(HttpRequest request, Header encoding) throws IOException {
+        if (!(request instanceof HttpEntityEnclosingRequest)) {
+            return "";
+        }
+        InputStream is = ((HttpEntityEnclosingRequest) request).getEntity().getContent();
+        if (encoding != null && "gzip".equalsIgnoreCase(encoding.getValue())) {
+            is = new GZIPInputStream(is);
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (InputStream toClose = is) {
+            byte[] buffer = new byte[8192];
+            int read = toClose.read(buffer);
+            while (read > -1) {
+                bos.write(buffer, 0, read);
+                read = toClose.read(buffer);
+            }
+        }
+        return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void parseParams(String raw, Map<String, String> params) {
+        if (raw == null || raw.isEmpty()) {
+            return;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) {
+                continue;
+            }
+            try {
+                params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+                        URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TestAnalysisCache {
+
+    @Test
+    public void testEviction() {
+        AnalysisCache cache = new AnalysisCache(2);
+        cache.put("f", "a", Arrays.asList("a"));
+        cache.put("f", "b", Arrays.asList("b"));
+        //touch a so that b is the least recently used
+        assertEquals(Arrays.asList("a"), cache.get("f", "a"));
+        cache.put("f", "c", Arrays.asList("c"));
+        assertEquals(2, cache.size());
+        assertNull(cache.get("f", "b"));
+        assertNull(cache.get("g", "a"));
+        assertEquals(Arrays.asList("c"), cache.get("f", "c"));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testCopies() {
+        AnalysisCache cache = new AnalysisCache(10);
+        cache.put("f", "a b", Arrays.asList("a", "b"));
+        List<String> tokens = cache.get("f", "a b");
+        tokens.add("c");
+        assertEquals(Arrays.asList("a", "b"), cache.get("f", "a b"));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        AnalysisCache cache = new AnalysisCache(10);
+        cache.put("title", "The \"Fox\"\n", Arrays.asList("fox"));
+        cache.put("title", "the", Collections.EMPTY_LIST);
+        Path file = Files.createTempFile("quaerite-analysis", ".json");
+        try {
+            cache.save(file);
+            AnalysisCache loaded = new AnalysisCache(10);
+            loaded.load(file);
+            assertEquals(2, loaded.size());
+            assertEquals(Arrays.asList("fox"), loaded.get("title", "The \"Fox\"\n"));
+            assertEquals(Collections.EMPTY_LIST, loaded.get("title", "the"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
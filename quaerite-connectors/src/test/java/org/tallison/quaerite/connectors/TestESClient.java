@@ -17,6 +17,7 @@
 package org.tallison.quaerite.connectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
@@ -157,6 +158,27 @@ public class TestESClient {
 
     }
 
+    @Test
+    public void testSearchBatch() throws Exception {
+        SearchClient client = SearchClientFactory.getClient(TMDB_URL);
+        List<QueryRequest> queryRequests = new ArrayList<>();
+        for (String title : new String[]{"psycho", "title:[", "psycho"}) {
+            queryRequests.add(new QueryRequest(
+                    new LuceneQuery("title", title),
+                    null, client.getDefaultIdField()));
+        }
+        List<BatchSearchResult> results = client.searchBatch(queryRequests);
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        //unparseable query is reported for that query only
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+
+        SearchResultSet single = client.search(queryRequests.get(0));
+        assertEquals(single.getIds(), results.get(0).getResultSet().getIds());
+        assertEquals(single.getIds(), results.get(2).getResultSet().getIds());
+    }
+
     @Test
     public void testFilterQuery() throws Exception {
         SearchClient client = SearchClientFactory.getClient(TMDB_URL);
@@ -213,6 +235,36 @@ public class TestESClient {
         assertTrue(hits.contains("42254"));
 
     }
+    @Test
+    public void testSlicedIDGrabbing() throws Exception {
+        ESClient searchClient = (ESClient) SearchClientFactory.getClient(TMDB_URL);
+        for (int slices : new int[]{1, 3}) {
+            searchClient.setIdGrabberSlices(slices);
+            ArrayBlockingQueue<Set<String>> ids = new ArrayBlockingQueue<>(10);
+            IdGrabber grabber = searchClient.getIdGrabber(ids, 1000, 2, Collections.EMPTY_SET);
+            Thread producer = new Thread(new FutureTask(grabber));
+            producer.start();
+            Set<String> allIds = new HashSet<>();
+            int idCount = 0;
+            int poison = 0;
+            while (poison < 2) {
+                Set<String> set = ids.poll(1, TimeUnit.SECONDS);
+                if (set == null) {
+                    continue;
+                } else if (set.size() == 0) {
+                    poison++;
+                    continue;
+                }
+                idCount += set.size();
+                allIds.addAll(set);
+            }
+            producer.join();
+            //each id is enumerated exactly once across the slices
+            assertEquals(27846, idCount);
+            assertEquals(idCount, allIds.size());
+        }
+    }
+
     @Test
     public void testGetDocs() throws Exception {
         Set<String> ids = new HashSet<>();
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+public class TestESIdGrabber {
+
+    private static final int NUM_DOCS = 1000;
+
+    @Test
+    public void testSlicesUseTheirOwnClients() throws Exception {
+        try (MockSearchServer server = new MockSearchServer()) {
+            server.handle("/", r -> "{\"version\":{\"number\":\"7.17.9\"}}");
+            server.handle("/tmdb/_pit", r -> "{\"id\":\"pit\"}");
+            server.handle("/_pit", r -> "{\"succeeded\":true}");
+            server.handle("/_search", TestESIdGrabber::pointInTimeSearch);
+            server.start();
+            try (ESClient client = (ESClient) SearchClientFactory.getClient(
+                    server.getUrl() + "/tmdb")) {
+                client.setIdGrabberSlices(3);
+                ArrayBlockingQueue<Set<String>> queue = new ArrayBlockingQueue<>(10);
+                IdGrabber grabber = client.getIdGrabber(queue, 50, 2, Collections.EMPTY_SET);
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                try {
+                    Future<Integer> future = executor.submit(grabber);
+                    Set<String> ids = new HashSet<>();
+                    int poisons = 0;
+                    while (poisons < 2) {
+                        Set<String> batch = queue.poll(30, TimeUnit.SECONDS);
+                        if (batch.isEmpty()) {
+                            poisons++;
+                        }
+                        ids.addAll(batch);
+                    }
+                    future.get();
+                    assertEquals(NUM_DOCS, ids.size());
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+            assertEquals(1, server.getRequests("/tmdb/_pit").size());
+            assertEquals(1, server.getRequests("/_pit").size());
+            //each slice pages on its own client, so on its own connection
+            Set<Integer> ports = new HashSet<>();
+            for (MockSearchServer.Request r : server.getRequests("/_search")) {
+                ports.add(r.remotePort);
+            }
+            assertEquals(3, ports.size());
+        }
+    }
+
+    //pages through docs 0..NUM_DOCS-1 in order; only the slice and search_after matter
+    private static String pointInTimeSearch(MockSearchServer.Request request) {
+        JsonObject root = JsonParser.parseString(request.body).getAsJsonObject();
+        int size = root.get("size").getAsInt();
+        int slice = 0;
+        int maxSlices = 1;
+        if (root.has("slice")) {
+            slice = root.getAsJsonObject("slice").get("id").getAsInt();
+            maxSlices = root.getAsJsonObject("slice").get("max").getAsInt();
+        }
+        int docNum = 0;
+        if (root.has("search_after")) {
+            docNum = root.getAsJsonArray("search_after").get(0).getAsInt() + 1;
+        }
+        JsonArray hits = new JsonArray();
+        while (docNum < NUM_DOCS && hits.size() < size) {
+            if (docNum % maxSlices == slice) {
+                JsonObject hit = new JsonObject();
+                hit.addProperty("_id", "doc-" + docNum);
+                JsonArray sort = new JsonArray();
+                sort.add(docNum);
+                hit.add("sort", sort);
+                hits.add(hit);
+            }
+            docNum++;
+        }
+        JsonObject hitsObj = new JsonObject();
+        hitsObj.add("hits", hits);
+        JsonObject response = new JsonObject();
+        response.addProperty("pit_id", "pit");
+        response.add("hits", hitsObj);
+        return response.toString();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.StoredDocument;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.queries.MultiMatchQuery;
+
+/**
+ * These don't need a running ES instance; they check what the
+ * client sends to a {@link MockSearchServer}.
+ */
+public class TestESRequests {
+
+    private static final String EMPTY_RESULTS =
+            "{\"took\":1,\"hits\":{\"total\":{\"value\":0,\"relation\":\"eq\"},\"hits\":[]}}";
+
+    private MockSearchServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new MockSearchServer();
+        server.handle("/", r -> "{\"version\":{\"number\":\"7.17.9\"}}");
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testCompressRequests() throws Exception {
+        server.handle("/tmdb/_msearch", TestESRequests::multiSearch);
+        server.handle("/tmdb/_bulk", r -> "{\"took\":1,\"errors\":false,\"items\":[]}");
+        List<QueryRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            MultiMatchQuery q = new MultiMatchQuery("query " + i);
+            q.getQF().add(new WeightableField("title"));
+            batch.add(new QueryRequest(q));
+        }
+        List<StoredDocument> docs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            StoredDocument doc = new StoredDocument("doc-" + i);
+            doc.addNonBlankField("title", "title " + i);
+            docs.add(doc);
+        }
+        try (SearchClient client = SearchClientFactory.getClient(server.getUrl() + "/tmdb")) {
+            //off by default
+            client.searchBatch(batch);
+            client.addDocuments(docs);
+            assertNull(server.getRequests("/tmdb/_msearch").get(0).contentEncoding);
+            assertNull(server.getRequests("/tmdb/_bulk").get(0).contentEncoding);
+
+            client.setCompressRequests(true);
+            for (BatchSearchResult r : client.searchBatch(batch)) {
+                assertTrue(r.isSuccess());
+            }
+            client.addDocuments(docs);
+            MockSearchServer.Request msearch = server.getRequests("/tmdb/_msearch").get(1);
+            assertEquals("gzip", msearch.contentEncoding);
+            assertTrue(msearch.body.contains("query 2"));
+            MockSearchServer.Request bulk = server.getRequests("/tmdb/_bulk").get(1);
+            assertEquals("gzip", bulk.contentEncoding);
+            assertTrue(bulk.body.contains("title 2"));
+        }
+    }
+
+    @Test
+    public void testES6ExistingIdsWithoutType() throws Exception {
+        server.handle("/", r -> "{\"version\":{\"number\":\"6.8.23\"}}");
+        //an index whose type isn't _doc
+        server.handle("/tmdb/_mget", r -> "{\"docs\":[" +
+                "{\"_index\":\"tmdb\",\"_type\":\"movie\",\"_id\":\"a\",\"found\":true}," +
+                "{\"_index\":\"tmdb\",\"_type\":\"_all\",\"_id\":\"b\",\"found\":false}]}");
+        try (SearchClient client = SearchClientFactory.getClient(server.getUrl() + "/tmdb")) {
+            assertTrue(client instanceof ES6Client);
+            assertEquals(new HashSet<>(Arrays.asList("a")),
+                    client.getExistingIds("_id", Arrays.asList("a", "b"), null));
+        }
+        List<MockSearchServer.Request> mgets = server.getRequests("/tmdb/_mget");
+        assertEquals(1, mgets.size());
+        JsonArray docs = JsonParser.parseString(mgets.get(0).body).getAsJsonObject()
+                .getAsJsonArray("docs");
+        assertEquals(2, docs.size());
+        assertEquals("a", docs.get(0).getAsJsonObject().get("_id").getAsString());
+        assertNull(docs.get(0).getAsJsonObject().get("_type"));
+    }
+
+    @Test
+    public void testAnalyzeBatchWithOffsetGap() throws Exception {
+        try (SearchClient client = SearchClientFactory.getClient(server.getUrl() + "/tmdb")) {
+            List<String> strings = Arrays.asList("The quick", "brown FOX", "jumped");
+            List<List<String>> expected = Arrays.asList(Arrays.asList("the", "quick"),
+                    Arrays.asList("brown", "fox"), Arrays.asList("jumped"));
+
+            server.handle("/tmdb/_analyze", r -> analyze(r, 1));
+            assertEquals(expected, client.analyzeBatch("title", strings));
+            assertEquals(1, server.getRequests("/tmdb/_analyze").size());
+
+            //e.g. an analyzer with a custom offset_gap
+            server.handle("/tmdb/_analyze", r -> analyze(r, 100));
+            assertEquals(expected, client.analyzeBatch("body", strings));
+            //the batch request, then one request per string
+            assertEquals(5, server.getRequests("/tmdb/_analyze").size());
+        }
+    }
+
+    @Test
+    public void testAbortBeforeRequest() throws Exception {
+        server.handle("/tmdb/_search", r -> EMPTY_RESULTS);
+        MultiMatchQuery q = new MultiMatchQuery("query");
+        q.getQF().add(new WeightableField("title"));
+        try (SearchClient client = SearchClientFactory.getClient(server.getUrl() + "/tmdb")) {
+            //e.g. the loser of a hedged search that hadn't sent its request yet
+            client.abort();
+            assertThrows(IOException.class, () -> client.search(new QueryRequest(q)));
+            assertThrows(IOException.class, () -> client.search(new QueryRequest(q)));
+            assertEquals(0, server.getRequests("/tmdb/_search").size());
+
+            client.clearAbort();
+            assertEquals(0, client.search(new QueryRequest(q)).size());
+            assertEquals(1, server.getRequests("/tmdb/_search").size());
+        }
+    }
+
+    //lowercased letter runs; the values of a text array are offsetGap apart
+    private static String analyze(MockSearchServer.Request request, int offsetGap) {
+        JsonElement text = JsonParser.parseString(request.body).getAsJsonObject().get("text");
+        List<String> values = new ArrayList<>();
+        if (text.isJsonArray()) {
+            for (JsonElement v : text.getAsJsonArray()) {
+                values.add(v.getAsString());
+            }
+        } else {
+            values.add(text.getAsString());
+        }
+        JsonArray tokens = new JsonArray();
+        int offset = 0;
+        for (String value : values) {
+            Matcher m = Pattern.compile("\\p{L}+").matcher(value);
+            while (m.find()) {
+                JsonObject token = new JsonObject();
+                token.addProperty("token", m.group().toLowerCase(Locale.US));
+                token.addProperty("start_offset", offset + m.start());
+                token.addProperty("end_offset", offset + m.end());
+                tokens.add(token);
+            }
+            offset += value.length() + offsetGap;
+        }
+        JsonObject root = new JsonObject();
+        root.add("tokens", tokens);
+        return root.toString();
+    }
+
+    //an empty result for each query in the ndjson
+    private static String multiSearch(MockSearchServer.Request request) {
+        int queries = request.body.trim().split("\n").length / 2;
+        StringBuilder sb = new StringBuilder("{\"responses\":[");
+        for (int i = 0; i < queries; i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append(EMPTY_RESULTS);
+        }
+        return sb.append("]}").toString();
+    }
+}
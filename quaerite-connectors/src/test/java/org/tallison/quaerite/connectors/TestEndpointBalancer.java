@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.http.HttpHost;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.Test;
+
+public class TestEndpointBalancer {
+
+    @Test
+    public void testPowerOfTwoChoices() {
+        EndpointBalancer balancer = new EndpointBalancer(hosts(3));
+        EndpointBalancer.Endpoint busy = balancer.getEndpoints().get(0);
+        for (int i = 0; i < 10; i++) {
+            busy.start();
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            //with three endpoints, the busy one is always paired with a less busy one
+            assertNotEquals(busy, balancer.choose(random));
+        }
+    }
+
+    @Test
+    public void testEjection() {
+        EndpointBalancer balancer = new EndpointBalancer(hosts(2));
+        EndpointBalancer.Endpoint bad = balancer.getEndpoints().get(0);
+        EndpointBalancer.Endpoint good = balancer.getEndpoints().get(1);
+        for (int i = 0; i < EndpointBalancer.EJECT_AFTER_FAILURES - 1; i++) {
+            bad.failure();
+        }
+        assertFalse(bad.isEjected());
+        bad.failure();
+        assertTrue(bad.isEjected());
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            assertSame(good, balancer.choose(random));
+        }
+        //fail open if everything is ejected
+        for (int i = 0; i < EndpointBalancer.EJECT_AFTER_FAILURES; i++) {
+            good.failure();
+        }
+        assertTrue(good.isEjected());
+        assertSame(bad, balancer.choose(random));
+    }
+
+    @Test
+    public void testExclude() {
+        EndpointBalancer balancer = new EndpointBalancer(hosts(2));
+        Random random = new Random(42);
+        EndpointBalancer.Endpoint first = balancer.getEndpoints().get(0);
+        for (int i = 0; i < 100; i++) {
+            assertNotEquals(first, balancer.choose(random, first));
+        }
+    }
+
+    @Test
+    public void testSharedAcrossClients() {
+        List<String> urls = Arrays.asList("http://solr1:8983/solr/tmdb",
+                "http://solr2:8983/solr/tmdb/");
+        LoadBalancingHttpClient a = new LoadBalancingHttpClient(HttpClients.createDefault(), urls);
+        LoadBalancingHttpClient b = new LoadBalancingHttpClient(HttpClients.createDefault(), urls);
+        assertSame(a.getBalancer(), b.getBalancer());
+        assertEquals(2, a.getBalancer().getEndpoints().size());
+    }
+
+    @Test
+    public void testDifferentPaths() {
+        assertThrows(IllegalArgumentException.class, () -> new LoadBalancingHttpClient(
+                HttpClients.createDefault(), Arrays.asList("http://solr1:8983/solr/tmdb",
+                        "http://solr2:8983/solr/other")));
+    }
+
+    private static List<HttpHost> hosts(int n) {
+        List<HttpHost> hosts = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            hosts.add(new HttpHost("host" + i, 8983, "http"));
+        }
+        return hosts;
+    }
+}
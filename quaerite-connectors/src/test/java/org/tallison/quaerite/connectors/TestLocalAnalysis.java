@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.lucene.analysis.Analyzer;
+import org.junit.jupiter.api.Test;
+
+public class TestLocalAnalysis {
+
+    @Test
+    public void testSolrFieldType() throws Exception {
+        String json = "{\"name\":\"text_en\",\"class\":\"solr.TextField\"," +
+                "\"indexAnalyzer\":{" +
+                "\"charFilters\":[{\"class\":\"solr.HTMLStripCharFilterFactory\"}]," +
+                "\"tokenizer\":{\"class\":\"solr.StandardTokenizerFactory\"}," +
+                "\"filters\":[{\"class\":\"solr.StopFilterFactory\"," +
+                "\"words\":\"stopwords.txt\",\"ignoreCase\":\"true\"}," +
+                "{\"name\":\"lowercase\"}," +
+                "{\"class\":\"solr.PorterStemFilterFactory\"}]}," +
+                "\"queryAnalyzer\":{\"tokenizer\":{\"class\":\"solr.KeywordTokenizerFactory\"}}}";
+        LocalResourceLoader.Fetcher fetcher = resource -> {
+            assertEquals("stopwords.txt", resource);
+            return "the\nof".getBytes(StandardCharsets.UTF_8);
+        };
+        try (Analyzer analyzer = SolrAnalyzerBuilder.build(parse(json),
+                new LocalResourceLoader(fetcher))) {
+            assertEquals(Arrays.asList("quick", "brown", "fox", "jump"),
+                    analyze(analyzer, "<b>The</b> quick brown foxes of jumping"));
+        }
+    }
+
+    @Test
+    public void testSolrStrField() throws Exception {
+        String json = "{\"name\":\"string\",\"class\":\"solr.StrField\"}";
+        try (Analyzer analyzer = SolrAnalyzerBuilder.build(parse(json),
+                new LocalResourceLoader())) {
+            assertEquals(Arrays.asList("The Quick fox"), analyze(analyzer, "The Quick fox"));
+        }
+        assertNull(SolrAnalyzerBuilder.build(
+                parse("{\"name\":\"pint\",\"class\":\"solr.IntPointField\"}"),
+                new LocalResourceLoader()));
+    }
+
+    @Test
+    public void testSolrUnsupported() throws Exception {
+        String json = "{\"name\":\"managed\",\"class\":\"solr.TextField\"," +
+                "\"analyzer\":{\"tokenizer\":{\"class\":\"solr.StandardTokenizerFactory\"}," +
+                "\"filters\":[{\"class\":\"solr.ManagedStopFilterFactory\"," +
+                "\"managed\":\"english\"}]}}";
+        assertThrows(IllegalArgumentException.class,
+                () -> SolrAnalyzerBuilder.build(parse(json), new LocalResourceLoader()));
+    }
+
+    @Test
+    public void testESCustom() throws Exception {
+        String json = "{\"analyzer\":{\"my_analyzer\":{\"type\":\"custom\"," +
+                "\"char_filter\":[\"html_strip\",\"my_mapping\"]," +
+                "\"tokenizer\":\"standard\"," +
+                "\"filter\":[\"lowercase\",\"my_stop\",\"my_synonyms\",\"my_stemmer\"]}}," +
+                "\"char_filter\":{\"my_mapping\":{\"type\":\"mapping\"," +
+                "\"mappings\":[\"& => and\"]}}," +
+                "\"filter\":{\"my_stop\":{\"type\":\"stop\",\"stopwords\":[\"the\",\"and\"]}," +
+                "\"my_synonyms\":{\"type\":\"synonym\",\"synonyms\":[\"fox => wolf\"]}," +
+                "\"my_stemmer\":{\"type\":\"stemmer\",\"language\":\"light_english\"}}}";
+        try (Analyzer analyzer = ESAnalyzerBuilder.build("my_analyzer", parse(json))) {
+            assertEquals(Arrays.asList("quick", "brown", "wolf", "hound"),
+                    analyze(analyzer, "<p>The quick brown fox & hounds</p>"));
+        }
+    }
+
+    @Test
+    public void testESBuiltIn() throws Exception {
+        try (Analyzer analyzer = ESAnalyzerBuilder.build(null, null)) {
+            assertEquals(Arrays.asList("the", "quick", "fox"), analyze(analyzer, "The quick fox"));
+        }
+        try (Analyzer analyzer = ESAnalyzerBuilder.build("english", null)) {
+            assertEquals(Arrays.asList("fox", "jump"), analyze(analyzer, "The fox's jumping"));
+        }
+        String json = "{\"analyzer\":{\"default\":{\"type\":\"standard\"," +
+                "\"stopwords\":\"_english_\"}}}";
+        try (Analyzer analyzer = ESAnalyzerBuilder.build(null, parse(json))) {
+            assertEquals(Arrays.asList("quick", "fox"), analyze(analyzer, "The quick fox"));
+        }
+    }
+
+    @Test
+    public void testESUnsupported() throws Exception {
+        String json = "{\"analyzer\":{\"my_analyzer\":{\"tokenizer\":\"standard\"," +
+                "\"filter\":[\"my_stop\"]}}," +
+                "\"filter\":{\"my_stop\":{\"type\":\"stop\"," +
+                "\"stopwords_path\":\"analysis/stopwords.txt\"}}}";
+        assertThrows(IllegalArgumentException.class,
+                () -> ESAnalyzerBuilder.build("my_analyzer", parse(json)));
+        assertThrows(IllegalArgumentException.class,
+                () -> ESAnalyzerBuilder.build("fingerprint", null));
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        LocalAnalyzers localAnalyzers = new LocalAnalyzers(field -> {
+            if (field.equals("unsupported")) {
+                throw new IllegalArgumentException("unsupported");
+            }
+            return ESAnalyzerBuilder.build("whitespace", null);
+        });
+        assertEquals(Arrays.asList("a", "B"), localAnalyzers.analyze("text", "a B"));
+        assertNull(localAnalyzers.analyze("unsupported", "a B"));
+        localAnalyzers.close();
+    }
+
+    private static List<String> analyze(Analyzer analyzer, String s) throws Exception {
+        return LocalAnalyzers.analyze(analyzer, "f", s);
+    }
+
+    private static JsonObject parse(String json) {
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestRequestRecordings {
+
+    private Path recordingsFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        recordingsFile = Files.createTempFile("quaerite-recordings", ".bin");
+        Files.delete(recordingsFile);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(recordingsFile);
+    }
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        EchoHttpClient echo = new EchoHttpClient();
+        try (RequestRecordings recordings = RequestRecordings.openForRecording(recordingsFile)) {
+            CloseableHttpClient client = new RecordingHttpClient(echo, recordings);
+            assertEquals("POST {\"q\":\"a\"}", execute(client, post("{\"q\":\"a\"}")));
+            assertEquals("POST {\"q\":\"b\"}", execute(client, post("{\"q\":\"b\"}")));
+            assertEquals("GET ", execute(client, new HttpGet("http://localhost:8983/solr")));
+            //already recorded
+            execute(client, post("{\"q\":\"a\"}"));
+            assertEquals(4, echo.calls.get());
+            assertEquals(3, recordings.size());
+        }
+
+        try (RequestRecordings recordings = RequestRecordings.openForReplay(recordingsFile)) {
+            assertEquals(3, recordings.size());
+            CloseableHttpClient client = new ReplayHttpClient(echo, recordings, 0.0);
+            assertEquals("POST {\"q\":\"b\"}", execute(client, post("{\"q\":\"b\"}")));
+            assertEquals("POST {\"q\":\"a\"}", execute(client, post("{\"q\":\"a\"}")));
+            assertEquals("GET ", execute(client, new HttpGet("http://localhost:8983/solr")));
+            assertThrows(ClientProtocolException.class,
+                    () -> execute(client, post("{\"q\":\"c\"}")));
+            //nothing went to the delegate
+            assertEquals(4, echo.calls.get());
+        }
+    }
+
+    @Test
+    public void testTruncatedRecording() throws Exception {
+        try (RequestRecordings recordings = RequestRecordings.openForRecording(recordingsFile)) {
+            CloseableHttpClient client = new RecordingHttpClient(new EchoHttpClient(), recordings);
+            execute(client, post("{\"q\":\"a\"}"));
+        }
+        //simulate a run that died part way through writing a record
+        Files.write(recordingsFile, new byte[]{0x51, 0x52, 0x45, 0x43, 0, 64},
+                StandardOpenOption.APPEND);
+        try (RequestRecordings recordings = RequestRecordings.openForReplay(recordingsFile)) {
+            assertEquals(1, recordings.size());
+        }
+    }
+
+    private static HttpPost post(String json) {
+        HttpPost post = new HttpPost("http://localhost:9200/tmdb/_search");
+        post.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+        return post;
+    }
+
+    private static String execute(CloseableHttpClient client, HttpRequest request)
+            throws IOException {
+        try (CloseableHttpResponse response = client.execute(
+                HttpHost.create("http://localhost:9200"), request)) {
+            assertEquals(200, response.getStatusLine().getStatusCode());
+            return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        }
+    }
+
+    //returns the method and the request body
+    private static class EchoHttpClient extends CloseableHttpClient {
+        private final AtomicInteger calls = new AtomicInteger(0);
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request,
+                                                  HttpContext context) throws IOException {
+            calls.incrementAndGet();
+            byte[] body = RequestRecordings.readBody(request);
+            String echo = request.getRequestLine().getMethod() + " " +
+                    (body == null ? "" : new String(body, StandardCharsets.UTF_8));
+            return RequestRecordings.toResponse(200, echo.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        @Deprecated
+        public HttpParams getParams() {
+            return null;
+        }
+
+        @Override
+        @Deprecated
+        public ClientConnectionManager getConnectionManager() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -25,6 +25,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -226,6 +229,31 @@ public class TestSolrClient {
         assertEquals("brün", tokens.get(1));
     }
 
+    @Test
+    public void testIDGrabbing() throws Exception {
+        SearchClient searchClient = SearchClientFactory.getClient(TMDB_URL);
+        ArrayBlockingQueue<Set<String>> ids = new ArrayBlockingQueue<>(10);
+        IdGrabber grabber = searchClient.getIdGrabber(ids, 1000, 1, Collections.EMPTY_SET);
+        Thread producer = new Thread(new FutureTask(grabber));
+        producer.start();
+        Set<String> allIds = new HashSet<>();
+        int idCount = 0;
+        while (true) {
+            Set<String> set = ids.poll(1, TimeUnit.SECONDS);
+            if (set == null) {
+                continue;
+            } else if (set.size() == 0) {
+                break;
+            }
+            idCount += set.size();
+            allIds.addAll(set);
+        }
+        producer.join();
+        //each id is enumerated exactly once
+        assertEquals(27846, idCount);
+        assertEquals(idCount, allIds.size());
+    }
+
     @Test
     public void testQueryOperator() throws Exception {
         QueryStrings qStrings = new QueryStrings();
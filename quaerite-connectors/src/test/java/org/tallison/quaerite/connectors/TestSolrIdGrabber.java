@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.Test;
+
+public class TestSolrIdGrabber {
+
+    private static final int NUM_DOCS = 25;
+
+    @Test
+    public void testSolr4WithoutExportOrCursorMark() throws Exception {
+        try (MockSearchServer server = new MockSearchServer()) {
+            server.handle("/solr/tmdb/schema/uniquekey", r -> "{\"uniqueKey\":\"id\"}");
+            server.handle("/solr/tmdb/select", TestSolrIdGrabber::select);
+            server.start();
+            //4.6 predates both cursorMark (4.7) and /export (4.10)
+            try (Solr4Client client = new Solr4Client(server.getUrl() + "/solr/tmdb",
+                    HttpClients.createDefault(), 4, 6)) {
+                assertFalse(client.supportsExport());
+                assertFalse(client.supportsCursorMark());
+                ArrayBlockingQueue<Set<String>> queue = new ArrayBlockingQueue<>(100);
+                IdGrabber grabber = client.getIdGrabber(queue, 10, 1, Collections.EMPTY_SET);
+                assertEquals(NUM_DOCS, grabber.call().intValue());
+
+                Set<String> ids = new HashSet<>();
+                Set<String> batch = queue.take();
+                while (!batch.isEmpty()) {
+                    ids.addAll(batch);
+                    batch = queue.take();
+                }
+                assertEquals(NUM_DOCS, ids.size());
+            }
+            assertTrue(server.getRequests("/solr/tmdb/export").isEmpty());
+            for (MockSearchServer.Request r : server.getRequests("/solr/tmdb/select")) {
+                assertFalse(r.params.containsKey("cursorMark"));
+            }
+        }
+    }
+
+    //pages through docs 0..NUM_DOCS-1 by start and rows
+    private static String select(MockSearchServer.Request request) {
+        int start = Integer.parseInt(request.params.getOrDefault("start", "0"));
+        int rows = Integer.parseInt(request.params.getOrDefault("rows", "10"));
+        JsonArray docs = new JsonArray();
+        for (int i = start; i < Math.min(NUM_DOCS, start + rows); i++) {
+            JsonObject doc = new JsonObject();
+            doc.addProperty("id", "doc-" + i);
+            docs.add(doc);
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("numFound", NUM_DOCS);
+        response.add("docs", docs);
+        JsonObject root = new JsonObject();
+        root.add("response", response);
+        return root.toString();
+    }
+}
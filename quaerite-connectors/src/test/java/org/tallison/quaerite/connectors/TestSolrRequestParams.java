@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.connectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.features.CustomHandler;
+import org.tallison.quaerite.core.features.PS3;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.queries.EDisMaxQuery;
+import org.tallison.quaerite.core.queries.TermQuery;
+
+/**
+ * These don't need a running Solr instance; they only
+ * check the rendering of the request parameters.
+ */
+public class TestSolrRequestParams {
+
+    @Test
+    public void testReuse() throws Exception {
+        try (SolrClient client = new SolrClient("http://localhost:8983/solr/tmdb",
+                HttpClients.createDefault())) {
+            EDisMaxQuery query = new EDisMaxQuery();
+            query.getQF().add(new WeightableField("title^2"));
+            query.setPs3(new PS3(3));
+
+            String red = client.generateRequestParams(newRequest(query, "red"));
+            SolrClient.RequestTemplate template = client.requestTemplate;
+            String blue = client.generateRequestParams(newRequest(query, "blue car"));
+            //only the query string changed
+            assertSame(template, client.requestTemplate);
+            assertTrue(red.endsWith("&q=red"));
+            assertTrue(blue.endsWith("&q=blue+car"));
+            assertEquals(red.substring(0, red.length() - "red".length()),
+                    blue.substring(0, blue.length() - "blue+car".length()));
+            assertTrue(red.contains("&qf=title%5E2"));
+            assertTrue(red.contains("&ps3=3"));
+            assertTrue(red.contains("&rows=20"));
+
+            //changing anything but the query string must not reuse the old params
+            query.getQF().add(new WeightableField("overview"));
+            String overview = client.generateRequestParams(newRequest(query, "red"));
+            assertNotSame(template, client.requestTemplate);
+            assertTrue(overview.contains("&qf=overview"));
+
+            QueryRequest rows = newRequest(query, "red");
+            rows.setNumResults(5);
+            assertTrue(client.generateRequestParams(rows).contains("&rows=5"));
+
+            query.setQueryStrings(queryStrings("red"));
+            QueryRequest custom = new QueryRequest(query,
+                    new CustomHandler("custom", "qq"), "id");
+            String customParams = client.generateRequestParams(custom);
+            assertTrue(customParams.endsWith("&qq=red"));
+            assertFalse(customParams.contains("&q="));
+        }
+    }
+
+    @Test
+    public void testNonDisMax() throws Exception {
+        try (SolrClient client = new SolrClient("http://localhost:8983/solr/tmdb",
+                HttpClients.createDefault())) {
+            QueryRequest request = new QueryRequest(new TermQuery("title", "red"));
+            assertEquals("http://localhost:8983/solr/tmdb/select?" +
+                            client.generateRequestParams(request),
+                    client.generateRequestURL(request));
+            assertTrue(client.generateRequestParams(request)
+                    .contains("&q=%7B%21raw+f%3Dtitle%7Dred"));
+        }
+    }
+
+    private static QueryRequest newRequest(EDisMaxQuery query, String queryString) {
+        query.setQueryStrings(queryStrings(queryString));
+        QueryRequest request = new QueryRequest(query, null, "id");
+        request.addFieldsToRetrieve("id");
+        request.setNumResults(20);
+        return request;
+    }
+
+    private static QueryStrings queryStrings(String queryString) {
+        QueryStrings queryStrings = new QueryStrings();
+        queryStrings.addQueryString(QueryStrings.DEFAULT_QUERY_NAME, queryString);
+        return queryStrings;
+    }
+}
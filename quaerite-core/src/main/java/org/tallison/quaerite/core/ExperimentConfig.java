@@ -22,10 +22,14 @@ import org.apache.commons.lang3.StringUtils;
 public class ExperimentConfig {
 
     public static final int DEFAULT_NUM_THREADS = 6;
+    public static final int DEFAULT_SEARCH_BATCH_SIZE = 1;
+    public static final double DEFAULT_HEDGE_PERCENTILE = -1.0;
 
     private int numThreads = DEFAULT_NUM_THREADS;
     private String idField = StringUtils.EMPTY;
     private long sleep = -1;
+    private int searchBatchSize = DEFAULT_SEARCH_BATCH_SIZE;
+    private double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
 
     public int getNumThreads() {
         return numThreads;
@@ -45,7 +49,32 @@ public class ExperimentConfig {
     public void setSleep(long sleep) {
         this.sleep = sleep;
     }
-    
+
+    /**
+     *
+     * @return number of queries each thread sends to the search server
+     * in a single request; 1 means no batching
+     */
+    public int getSearchBatchSize() {
+        return searchBatchSize;
+    }
+
+    public void setSearchBatchSize(int searchBatchSize) {
+        this.searchBatchSize = searchBatchSize;
+    }
+
+    /**
+     *
+     * @return percentile (0-100) of the observed latency after which
+     * a duplicate of a slow search is sent; &lt;= 0 means no hedging
+     */
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
 
 
     @Override
@@ -57,6 +86,8 @@ public class ExperimentConfig {
 
         if (numThreads != that.numThreads) return false;
         if (sleep != that.sleep) return false;
+        if (searchBatchSize != that.searchBatchSize) return false;
+        if (Double.compare(hedgePercentile, that.hedgePercentile) != 0) return false;
         return idField != null ? idField.equals(that.idField) : that.idField == null;
     }
 
@@ -65,6 +96,8 @@ public class ExperimentConfig {
         int result = numThreads;
         result = 31 * result + (idField != null ? idField.hashCode() : 0);
         result = 31 * result + (int) (sleep ^ (sleep >>> 32));
+        result = 31 * result + searchBatchSize;
+        result = 31 * result + Double.hashCode(hedgePercentile);
         return result;
     }
 }
@@ -19,6 +19,8 @@ package org.tallison.quaerite.core;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -35,7 +37,6 @@ import org.tallison.quaerite.core.scorers.Scorer;
 import org.tallison.quaerite.core.serializers.FeatureFactorySerializer;
 import org.tallison.quaerite.core.serializers.QuerySerializer;
 import org.tallison.quaerite.core.serializers.ScorerListSerializer;
-import org.tallison.quaerite.core.util.MathUtil;
 
 public class ExperimentFactory {
 
@@ -134,18 +135,23 @@ public class ExperimentFactory {
 
 
     public Experiment generateRandomExperiment(String name) {
+        return generateRandomExperiment(name, ThreadLocalRandom.current());
+    }
+
+    public Experiment generateRandomExperiment(String name, Random random) {
         FeatureFactory serverConnectionFactory = featureFactories.get(
                 ServerConnection.NAME);
-        ServerConnection serverConnection = (ServerConnection)serverConnectionFactory.random();
+        ServerConnection serverConnection = (ServerConnection)serverConnectionFactory.random(random);
         CustomHandler customHandler = null;
         CustomHandlerFactory customHandlerfactory =
                 (CustomHandlerFactory)featureFactories.get(
                         CustomHandlerFactory.NAME);
         if (customHandlerfactory != null) {
-            customHandler = customHandlerfactory.random();
+            customHandler = customHandlerfactory.random(random);
         }
         QueryFactory queryListFactory = (QueryFactory)featureFactories.get(QueryFactory.NAME);
-        Experiment rand = new Experiment(name, serverConnection, customHandler, queryListFactory.random());
+        Experiment rand = new Experiment(name, serverConnection, customHandler,
+                queryListFactory.random(random));
         addFilterQueries(rand);
         return rand;
     }
@@ -189,40 +195,45 @@ public class ExperimentFactory {
     }
 
     public Pair<Experiment, Experiment> crossover(Experiment parentA, Experiment parentB) {
+        return crossover(parentA, parentB, ThreadLocalRandom.current());
+    }
+
+    public Pair<Experiment, Experiment> crossover(Experiment parentA, Experiment parentB,
+                                                  Random random) {
         ServerConnectionFeatureFactory featureFactory =
                 (ServerConnectionFeatureFactory) featureFactories.get(
                         ServerConnection.NAME);
         Pair<ServerConnection, ServerConnection> urls =
                 featureFactory.crossover(
                 parentA.getServerConnection(),
-                parentB.getServerConnection());
+                parentB.getServerConnection(), random);
         Pair<CustomHandler, CustomHandler> customHandlers = Pair.of(null, null);
         if (featureFactories.get(CustomHandlerFactory.NAME) != null) {
             customHandlers = featureFactories.get(
                     CustomHandlerFactory.NAME)
                     .crossover(parentA.getCustomHandler(),
-                            parentB.getCustomHandler());
+                            parentB.getCustomHandler(), random);
         }
 
         QueryFactory queryFactory = (QueryFactory)featureFactories.get(
                 QueryFactory.NAME);
 
-        Pair<Query, Query> queries = queryFactory.crossover(parentA.getQuery(), parentB.getQuery());
+        Pair<Query, Query> queries = queryFactory.crossover(parentA.getQuery(), parentB.getQuery(), random);
 
-        ServerConnection urlA = (MathUtil.RANDOM.nextFloat() <= 0.5) ?
+        ServerConnection urlA = (random.nextFloat() <= 0.5) ?
                 urls.getLeft()
                 : urls.getRight();
-        CustomHandler customHandlerA = (MathUtil.RANDOM.nextFloat() <= 0.5) ?
+        CustomHandler customHandlerA = (random.nextFloat() <= 0.5) ?
                 customHandlers.getLeft() : customHandlers.getRight();
-        Query queryA = (MathUtil.RANDOM.nextFloat() <= 0.5) ?
+        Query queryA = (random.nextFloat() <= 0.5) ?
                 queries.getLeft() : queries.getRight();
         Experiment childA = new Experiment("childA", urlA,
                 customHandlerA, queryA);
 
-        ServerConnection urlB = (MathUtil.RANDOM.nextFloat() <= 0.5) ? urls.getLeft() : urls.getRight();
-        CustomHandler customHandlerB = (MathUtil.RANDOM.nextFloat() <= 0.5) ?
+        ServerConnection urlB = (random.nextFloat() <= 0.5) ? urls.getLeft() : urls.getRight();
+        CustomHandler customHandlerB = (random.nextFloat() <= 0.5) ?
                 customHandlers.getLeft() : customHandlers.getRight();
-        Query queryB = (MathUtil.RANDOM.nextFloat() <= 0.5) ?
+        Query queryB = (random.nextFloat() <= 0.5) ?
                 queries.getLeft() : queries.getRight();
         Experiment childB = new Experiment("childB", urlB,
                 customHandlerB, queryB);
@@ -233,31 +244,36 @@ public class ExperimentFactory {
     }
 
     public Experiment mutate(Experiment parent, float mutationProbability, float mutationAmplitude) {
+        return mutate(parent, mutationProbability, mutationAmplitude, ThreadLocalRandom.current());
+    }
+
+    public Experiment mutate(Experiment parent, float mutationProbability, float mutationAmplitude,
+                             Random random) {
         Experiment mutated = parent.deepCopy();
-        if (MathUtil.RANDOM.nextFloat() < mutationProbability) {
+        if (random.nextFloat() < mutationProbability) {
             ServerConnectionFeatureFactory featureFactory =
                     (ServerConnectionFeatureFactory)featureFactories.get(
                             ServerConnection.NAME);
             ServerConnection serverConnection = featureFactory.mutate(
                     mutated.getServerConnection(),
-                    mutationProbability, mutationAmplitude);
+                    mutationProbability, mutationAmplitude, random);
             mutated.setServerConnection(serverConnection);
         }
 
-        if (MathUtil.RANDOM.nextFloat() < mutationProbability &&
+        if (random.nextFloat() < mutationProbability &&
                 featureFactories.get(CustomHandlerFactory.NAME) != null) {
             CustomHandler customHandler = mutated.getCustomHandler();
             CustomHandler mutatedHandler =
                     ((CustomHandlerFactory)featureFactories.get(CustomHandlerFactory.NAME))
-                            .mutate(customHandler, mutationProbability, mutationAmplitude);
+                            .mutate(customHandler, mutationProbability, mutationAmplitude, random);
             mutated.setCustomHandler(mutatedHandler);
         }
 
-        if (MathUtil.RANDOM.nextFloat() < mutationProbability) {
+        if (random.nextFloat() < mutationProbability) {
             Query q = mutated.getQuery();
             Query mutatedQuery =
                     ((QueryFactory)featureFactories.get(QueryFactory.NAME))
-                            .mutate(q, mutationProbability, mutationAmplitude);
+                            .mutate(q, mutationProbability, mutationAmplitude, random);
             mutated.setQuery(mutatedQuery);
         }
         addFilterQueries(mutated);
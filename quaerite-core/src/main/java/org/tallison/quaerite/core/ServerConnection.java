@@ -16,6 +16,11 @@
  */
 package org.tallison.quaerite.core;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
 import org.tallison.quaerite.core.features.Feature;
 
 public class ServerConnection implements Feature {
@@ -24,15 +29,32 @@ public class ServerConnection implements Feature {
     private final String url;
     private final String user;
     private final String password;
+    //gzip large request bodies, e.g. es bulk and msearch requests
+    private final boolean compress;
+    //equivalent endpoints, e.g. solr replicas or es coordinating nodes,
+    //that differ from the url only by scheme, host and port
+    private final List<String> replicas;
 
     public ServerConnection(String url) {
         this(url, null, null);
     }
 
     public ServerConnection(String url, String user, String password) {
+        this(url, user, password, false);
+    }
+
+    public ServerConnection(String url, String user, String password, boolean compress) {
+        this(url, user, password, compress, null);
+    }
+
+    public ServerConnection(String url, String user, String password, boolean compress,
+                            List<String> replicas) {
         this.url = url;
         this.user = user;
         this.password = password;
+        this.compress = compress;
+        this.replicas = (replicas == null || replicas.size() == 0) ?
+                null : Collections.unmodifiableList(new ArrayList<>(replicas));
     }
 
     public String getURL() {
@@ -47,6 +69,22 @@ public class ServerConnection implements Feature {
         return password;
     }
 
+    public boolean isCompress() {
+        return compress;
+    }
+
+    /**
+     * @return the url followed by the urls of any replicas
+     */
+    public List<String> getURLs() {
+        List<String> urls = new ArrayList<>();
+        urls.add(url);
+        if (replicas != null) {
+            urls.addAll(replicas);
+        }
+        return urls;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -54,6 +92,8 @@ public class ServerConnection implements Feature {
 
         ServerConnection that = (ServerConnection) o;
 
+        if (compress != that.compress) return false;
+        if (!Objects.equals(replicas, that.replicas)) return false;
         if (url != null ? !url.equals(that.url) : that.url != null)
             return false;
         if (user != null ? !user.equals(that.user) : that.user != null) return false;
@@ -65,6 +105,8 @@ public class ServerConnection implements Feature {
         int result = url.hashCode();
         result = 31 * result + (user != null ? user.hashCode() : 0);
         result = 31 * result + (password != null ? password.hashCode() : 0);
+        result = 31 * result + (compress ? 1 : 0);
+        result = 31 * result + Objects.hashCode(replicas);
         return result;
     }
 
@@ -74,6 +116,8 @@ public class ServerConnection implements Feature {
                 "url='" + url + '\'' +
                 ", user='" + user + '\'' +
                 ", password='" + password + '\'' +
+                ", compress=" + compress +
+                ", replicas=" + replicas +
                 '}';
     }
 
@@ -84,6 +128,7 @@ public class ServerConnection implements Feature {
 
     @Override
     public Object deepCopy() {
-        return new ServerConnection(this.url, this.user, this.password);
+        return new ServerConnection(this.url, this.user, this.password, this.compress,
+                this.replicas);
     }
 }
@@ -18,13 +18,13 @@ package org.tallison.quaerite.core.features.factories;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.tallison.quaerite.core.features.NegativeBoost;
 import org.tallison.quaerite.core.queries.BoostingQuery;
 import org.tallison.quaerite.core.queries.Query;
 import org.tallison.quaerite.core.queries.SingleStringQuery;
-import org.tallison.quaerite.core.util.MathUtil;
 
 public class BoostingQueryFactory extends QueryFactory<BoostingQuery> {
 
@@ -67,26 +67,26 @@ public class BoostingQueryFactory extends QueryFactory<BoostingQuery> {
     }
 
     @Override
-    public BoostingQuery random() {
+    public BoostingQuery random(Random random) {
         return new BoostingQuery(
-                (SingleStringQuery)positive.random(),
-                (SingleStringQuery)negative.random(),
-                negativeBoostFactory.random()
+                (SingleStringQuery)positive.random(random),
+                (SingleStringQuery)negative.random(random),
+                negativeBoostFactory.random(random)
         );
     }
 
     @Override
     public BoostingQuery mutate(BoostingQuery query, double probability,
-                                double amplitude) {
-        if (MathUtil.RANDOM.nextFloat() > probability) {
+                                double amplitude, Random random) {
+        if (random.nextFloat() > probability) {
             return query.deepCopy();
         }
         Query mutatedPositive = positive.mutate(query.getPositiveQuery(),
-                probability, amplitude);
+                probability, amplitude, random);
         Query mutatedNegative = negative.mutate(query.getNegativeQuery(),
-                probability, amplitude);
+                probability, amplitude, random);
         NegativeBoost mutatedNegativeBoost = negativeBoostFactory.mutate(
-                query.getNegativeBoost(), probability, amplitude);
+                query.getNegativeBoost(), probability, amplitude, random);
 
         return new BoostingQuery(
                 (SingleStringQuery)mutatedPositive,
@@ -95,18 +95,19 @@ public class BoostingQueryFactory extends QueryFactory<BoostingQuery> {
     }
 
     @Override
-    public Pair<BoostingQuery, BoostingQuery> crossover(BoostingQuery parentA, BoostingQuery parentB) {
+    public Pair<BoostingQuery, BoostingQuery> crossover(BoostingQuery parentA, BoostingQuery parentB,
+                                                        Random random) {
         Query positiveA = parentA.getPositiveQuery();
         Query positiveB = parentB.getPositiveQuery();
         Pair<Query, Query> crossedOverPositive =
-                positive.crossover(positiveA, positiveB);
+                positive.crossover(positiveA, positiveB, random);
         Pair<Query, Query> crossedOverNegative =
-                negative.crossover(parentA.getNegativeQuery(), parentB.getNegativeQuery());
+                negative.crossover(parentA.getNegativeQuery(), parentB.getNegativeQuery(), random);
         Pair<NegativeBoost, NegativeBoost> negativeBoosts =
                 negativeBoostFactory.crossover(parentA.getNegativeBoost(),
-                        parentB.getNegativeBoost());
+                        parentB.getNegativeBoost(), random);
 
-        if (MathUtil.RANDOM.nextFloat() < 0.5) {
+        if (random.nextFloat() < 0.5) {
             BoostingQuery a = new BoostingQuery(
                     (SingleStringQuery)crossedOverPositive.getLeft(),
                     (SingleStringQuery)crossedOverNegative.getRight(),
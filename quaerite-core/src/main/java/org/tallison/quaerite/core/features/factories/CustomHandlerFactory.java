@@ -18,6 +18,7 @@ package org.tallison.quaerite.core.features.factories;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.tallison.quaerite.core.features.CustomHandler;
@@ -52,18 +53,19 @@ public class CustomHandlerFactory implements FeatureFactory<CustomHandler> {
     }
 
     @Override
-    public CustomHandler random() {
-        int i = MathUtil.RANDOM.nextInt(0, customHandlerList.size());
+    public CustomHandler random(Random random) {
+        int i = MathUtil.getRandomInt(0, customHandlerList.size(), random);
         return customHandlerList.get(i);
     }
 
     @Override
-    public CustomHandler mutate(CustomHandler feature, double probability, double amplitude) {
+    public CustomHandler mutate(CustomHandler feature, double probability, double amplitude, Random random) {
         return feature;
     }
 
     @Override
-    public Pair<CustomHandler, CustomHandler> crossover(CustomHandler parentA, CustomHandler parentB) {
+    public Pair<CustomHandler, CustomHandler> crossover(CustomHandler parentA, CustomHandler parentB,
+                                                        Random random) {
         return Pair.of(parentA.deepCopy(), parentB.deepCopy());
     }
 
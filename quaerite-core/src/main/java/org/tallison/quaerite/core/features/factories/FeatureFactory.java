@@ -17,6 +17,8 @@
 package org.tallison.quaerite.core.features.factories;
 
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.tallison.quaerite.core.features.Feature;
@@ -32,9 +34,25 @@ public interface FeatureFactory<T extends Feature> {
 
     List<T> permute(int maxSize);
 
-    T random();
+    /**
+     * Implementations must draw all randomness from <code>random</code>
+     * so that runs with a seeded random are reproducible.
+     */
+    T random(Random random);
+
+    T mutate(T feature, double probability, double amplitude, Random random);
+
+    Pair<T,T> crossover(T parentA, T parentB, Random random);
+
+    default T random() {
+        return random(ThreadLocalRandom.current());
+    }
 
-    T mutate(T feature, double probability, double amplitude);
+    default T mutate(T feature, double probability, double amplitude) {
+        return mutate(feature, probability, amplitude, ThreadLocalRandom.current());
+    }
 
-    Pair<T,T> crossover(T parentA, T parentB);
+    default Pair<T,T> crossover(T parentA, T parentB) {
+        return crossover(parentA, parentB, ThreadLocalRandom.current());
+    }
 }
@@ -28,8 +28,6 @@ import org.tallison.quaerite.core.util.MathUtil;
 
 public class FloatFeatureFactory<T extends FloatFeature>
         extends AbstractFeatureFactory<T> {
-
-    private final Random random = new Random();
     private final float min;
     private final float max;
     List<Float> floats;
@@ -59,7 +57,7 @@ public class FloatFeatureFactory<T extends FloatFeature>
     }
 
     @Override
-    public T random() {
+    public T random(Random random) {
         float f = floats.get(random.nextInt(floats.size()));
         return newInstance(f);
     }
@@ -80,25 +78,34 @@ public class FloatFeatureFactory<T extends FloatFeature>
         return floats;
     }
 
+    public float getMin() {
+        return min;
+    }
+
+    public float getMax() {
+        return max;
+    }
+
     @Override
-    public T mutate(T floatFeature, double probability, double amplitude) {
-        if (MathUtil.RANDOM.nextDouble() <= probability) {
-            return newInstance(MathUtil.calcMutatedWeight(floatFeature.getValue(), min, max, amplitude));
+    public T mutate(T floatFeature, double probability, double amplitude, Random random) {
+        if (random.nextDouble() <= probability) {
+            return newInstance(MathUtil.calcMutatedWeight(floatFeature.getValue(), min, max, amplitude,
+                    random));
         } else {
             return newInstance(floatFeature.getValue());
         }
     }
 
     @Override
-    public Pair<T, T> crossover(T parentA, T parentB) {
-        if (MathUtil.RANDOM.nextFloat() > 0.5) {
+    public Pair<T, T> crossover(T parentA, T parentB, Random random) {
+        if (random.nextFloat() > 0.5) {
             return Pair.of(parentB, parentA);
         } else {
             return Pair.of(parentA, parentB);
         }
     }
 
-    private T newInstance(float f) {
+    public T newInstance(float f) {
         try {
             Constructor cstr = clazz.getConstructor(float.class);
             return (T)cstr.newInstance(f);
@@ -28,8 +28,6 @@ import org.tallison.quaerite.core.util.MathUtil;
 
 public class IntFeatureFactory<T extends IntFeature>
         extends AbstractFeatureFactory<T> {
-
-    private final Random random = new Random();
     private final int min;
     private final int max;
     List<Integer> integers;
@@ -59,7 +57,7 @@ public class IntFeatureFactory<T extends IntFeature>
     }
 
     @Override
-    public T random() {
+    public T random(Random random) {
         int i = integers.get(random.nextInt(integers.size()));
         return newInstance(i);
     }
@@ -81,20 +79,21 @@ public class IntFeatureFactory<T extends IntFeature>
     }
 
     @Override
-    public T mutate(T intFeature, double probability, double amplitude) {
-        if (MathUtil.RANDOM.nextDouble() <= probability) {
-            return newInstance(MathUtil.calcMutatedWeight(intFeature.getValue(), min, max, amplitude));
+    public T mutate(T intFeature, double probability, double amplitude, Random random) {
+        if (random.nextDouble() <= probability) {
+            return newInstance(MathUtil.calcMutatedWeight(intFeature.getValue(), min, max, amplitude,
+                    random));
         } else {
             return newInstance(intFeature.getValue());
         }
     }
 
     @Override
-    public Pair<T, T> crossover(T parentA, T parentB) {
+    public Pair<T, T> crossover(T parentA, T parentB, Random random) {
         if (parentA == null) {
             System.out.println(parentA + " : " + parentB);
         }
-        if (MathUtil.RANDOM.nextFloat() > 0.5) {
+        if (random.nextFloat() > 0.5) {
             return Pair.of(parentB, parentA);
         } else {
             return Pair.of(parentA, parentB);
@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -240,10 +241,10 @@ public class ParameterizableStringFactory<T extends ParameterizableString>
     }
 
     @Override
-    public T random() {
+    public T random(Random random) {
         float[] newVals = new float[valueSets.length];
         for (int i = 0; i < valueSets.length; i++) {
-            newVals[i] = valueSets[i].random();
+            newVals[i] = valueSets[i].random(random);
         }
         return newInstance(newVals);
     }
@@ -284,21 +285,21 @@ public class ParameterizableStringFactory<T extends ParameterizableString>
     }
 
     @Override
-    public T mutate(T parameterizableString, double probability, double amplitude) {
+    public T mutate(T parameterizableString, double probability, double amplitude, Random random) {
         float[] values = getValues(parameterizableString);
         int numMutations = (int) FastMath.floor(amplitude * values.length);
         numMutations = (numMutations == 0) ? 1 : numMutations;
         for (int i = 0; i < values.length; i++) {
-            if (MathUtil.RANDOM.nextDouble() <= probability) {
+            if (random.nextDouble() <= probability) {
                 values[i] = MathUtil.calcMutatedWeight(values[i],
-                        valueSets[i].getMin(), valueSets[i].getMax(), amplitude);
+                        valueSets[i].getMin(), valueSets[i].getMax(), amplitude, random);
             }
         }
         return newInstance(values);
     }
 
     @Override
-    public Pair<T, T> crossover(T parentA, T parentB) {
+    public Pair<T, T> crossover(T parentA, T parentB, Random random) {
         assertEqualFactoryIds(parentA.getFactoryId(), parentB.getFactoryId());
         assertEqualFactoryIds(getFactoryId(), parentA.getFactoryId());
         float[] valsA = getValues(parentA);
@@ -318,12 +319,12 @@ public class ParameterizableStringFactory<T extends ParameterizableString>
             //childA could == childB and that is ok
             //this does not guarantee equal distribution of values
             //from the two parents
-            if (MathUtil.RANDOM.nextFloat() > 0.5) {
+            if (random.nextFloat() > 0.5) {
                 childA[i] = valsA[i];
             } else {
                 childA[i] = valsB[i];
             }
-            if (MathUtil.RANDOM.nextFloat() > 0.5) {
+            if (random.nextFloat() > 0.5) {
                 childB[i] = valsA[i];
             } else {
                 childB[i] = valsB[i];
@@ -332,19 +333,19 @@ public class ParameterizableStringFactory<T extends ParameterizableString>
         return Pair.of(newInstance(childA), newInstance(childB));
     }
 
-    private void insert(Set<String> mutated, double amplitude) {
-        //int i = MathUtil.RANDOM.nextInt(maxSetSize);
+    private void insert(Set<String> mutated, double amplitude, Random random) {
+        //int i = random.nextInt(maxSetSize);
         //mutated.add(factories.get(i));
     }
 
-    private void remove(Set<String> mutated) {
+    private void remove(Set<String> mutated, Random random) {
         if (mutated.size() == 0) {
             return;
         }
         ArrayList<String> tmp = new ArrayList<>();
         tmp.addAll(mutated);
-        Collections.shuffle(tmp);
-        int index = MathUtil.RANDOM.nextInt(tmp.size());
+        Collections.shuffle(tmp, random);
+        int index = random.nextInt(tmp.size());
         tmp.remove(index);
         mutated.clear();
         mutated.addAll(tmp);
@@ -441,8 +442,8 @@ public class ParameterizableStringFactory<T extends ParameterizableString>
             return max;
         }
 
-        float random() {
-            return MathUtil.getRandomFloat(min, max);
+        float random(Random random) {
+            return MathUtil.getRandomFloat(min, max, random);
         }
     }
 }
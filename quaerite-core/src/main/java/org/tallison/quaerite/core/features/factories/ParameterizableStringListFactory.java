@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -88,15 +89,15 @@ public class ParameterizableStringListFactory<T extends ParameterizableStringLis
 
 
     @Override
-    public T random() {
-        int numFields = MathUtil.RANDOM.nextInt(minSetSize, maxSetSize + 1);
+    public T random(Random random) {
+        int numFields = MathUtil.getRandomInt(minSetSize, maxSetSize + 1, random);
 
         List<ParameterizableStringFactory> tmp = new ArrayList<>();
         tmp.addAll(factories);
-        Collections.shuffle(tmp);
+        Collections.shuffle(tmp, random);
         List<ParameterizableString> ret = new ArrayList<>();
         for (int i = 0; i < numFields; i++) {
-            ret.add(tmp.get(i).random());
+            ret.add(tmp.get(i).random(random));
         }
         return (T)newInstance(ret);
     }
@@ -146,7 +147,7 @@ public class ParameterizableStringListFactory<T extends ParameterizableStringLis
 
     @Override
     public T mutate(ParameterizableStringListFeature listFeature,
-                                                   double probability, double amplitude) {
+                                                   double probability, double amplitude, Random random) {
         List<ParameterizableString> mutated = new ArrayList<>();
 
         int numMutations = (int) FastMath.floor(amplitude * factories.size());
@@ -157,30 +158,30 @@ public class ParameterizableStringListFactory<T extends ParameterizableStringLis
         }
 
         for (int i = 0; i < numMutations; i++) {
-            MUTATE_OPERATION op = nextMutateOperation();
+            MUTATE_OPERATION op = nextMutateOperation(random);
             switch (op) {
                 case INSERT:
                     //do the inverse of insert if mutated is already as full as it can get
                     if (mutated.size() == factoryMap.size() ||
                             (maxSetSize > -1 && mutated.size() >= maxSetSize)) {
-                        remove(mutated);
+                        remove(mutated, random);
                     } else {
-                        insert(mutated, amplitude);
+                        insert(mutated, amplitude, random);
                     }
                     break;
                 case MUTATE:
                     if (mutated.size() < minSetSize) {
-                        insert(mutated, amplitude);
+                        insert(mutated, amplitude, random);
                     } else {
-                        modify(mutated, amplitude);
+                        modify(mutated, amplitude, random);
                     }
                     break;
                 case REMOVE:
                     //do the inverse if nothing can be removed
                     if (mutated.size() < minSetSize) {
-                        insert(mutated, amplitude);
+                        insert(mutated, amplitude, random);
                     } else {
-                        remove(mutated);
+                        remove(mutated, random);
                     }
                     break;
 
@@ -188,7 +189,7 @@ public class ParameterizableStringListFactory<T extends ParameterizableStringLis
         }
         List<ParameterizableString> ret = new ArrayList<>();
         while (mutated.size() < minSetSize) {
-            insert(mutated, amplitude);
+            insert(mutated, amplitude, random);
         }
         for (ParameterizableString s : mutated) {
             ret.add(s);
@@ -197,7 +198,7 @@ public class ParameterizableStringListFactory<T extends ParameterizableStringLis
     }
 
     @Override
-    public Pair<T, T> crossover(T parentA, T parentB) {
+    public Pair<T, T> crossover(T parentA, T parentB, Random random) {
 
         Set<String> union = new HashSet<>();
         for (ParameterizableString p : parentA.getParameterizableStrings()) {
@@ -210,36 +211,36 @@ public class ParameterizableStringListFactory<T extends ParameterizableStringLis
         //this crossover allows for more from one parent than another
         //we can change if we want exclusive passing of traits
         List<String> uniques = new ArrayList<>(union);
-        Collections.shuffle(uniques);
+        Collections.shuffle(uniques, random);
         List<String> childA = new ArrayList<>();
-        int numA = MathUtil.RANDOM.nextInt(minSetSize, maxSetSize);
+        int numA = MathUtil.getRandomInt(minSetSize, maxSetSize, random);
         int sz = numA >= uniques.size() ? uniques.size() : numA;
 
         for (int i = 0; i < sz; i++) {
             childA.add(uniques.get(i));
         }
-        Collections.shuffle(uniques);
+        Collections.shuffle(uniques, random);
         List<String> childB = new ArrayList<>();
-        int numB = MathUtil.RANDOM.nextInt(minSetSize, maxSetSize);
+        int numB = MathUtil.getRandomInt(minSetSize, maxSetSize, random);
         sz = numB >= uniques.size() ? uniques.size() : numB;
         for (int i = 0; i < sz; i++) {
             childB.add(uniques.get(i));
         }
 
         return Pair.of(
-                (T)buildCrossOver(childA, parentA, parentB),
-                (T)buildCrossOver(childB, parentA, parentB)
+                (T)buildCrossOver(childA, parentA, parentB, random),
+                (T)buildCrossOver(childB, parentA, parentB, random)
         );
     }
 
-    private T buildCrossOver(List<String> factoryIds, T parentA, T parentB) {
+    private T buildCrossOver(List<String> factoryIds, T parentA, T parentB, Random random) {
         List<ParameterizableString> result = new ArrayList<>();
         for (String id : factoryIds) {
             ParameterizableString pA = parentA.get(id);
             ParameterizableString pB = parentB.get(id);
             if (pA != null && pB != null) {
                 Pair<ParameterizableString, ParameterizableString> pair =
-                        factoryMap.get(id).crossover(pA, pB);
+                        factoryMap.get(id).crossover(pA, pB, random);
                 result.add(pair.getLeft());
             } else if (pA == null) {
                 result.add(pB);
@@ -253,17 +254,17 @@ public class ParameterizableStringListFactory<T extends ParameterizableStringLis
     }
 
 
-    private void modify(List<ParameterizableString> mutated, double amplitude) {
+    private void modify(List<ParameterizableString> mutated, double amplitude, Random random) {
         if (mutated.size() == 0) {
             return;
         }
-        int index = MathUtil.RANDOM.nextInt(mutated.size());
+        int index = random.nextInt(mutated.size());
 
         ParameterizableStringFactory fact = factoryMap.get(mutated.get(index).getFactoryId());
-        fact.mutate(mutated.get(index), 1.0, amplitude);
+        fact.mutate(mutated.get(index), 1.0, amplitude, random);
     }
 
-    private void insert(List<ParameterizableString> mutated, double amplitude) {
+    private void insert(List<ParameterizableString> mutated, double amplitude, Random random) {
         //if there's an 'insert' operation, what are the candidates
         List<String> newFeatures = new ArrayList<>();
         Set<String> existingFeatures = new HashSet<>();
@@ -278,21 +279,21 @@ public class ParameterizableStringListFactory<T extends ParameterizableStringLis
         if (newFeatures.size() == 0) {
             return;
         }
-        String newId = newFeatures.get(MathUtil.RANDOM.nextInt(newFeatures.size()));
+        String newId = newFeatures.get(random.nextInt(newFeatures.size()));
         ParameterizableStringFactory fact = factoryMap.get(newId);
-        mutated.add(fact.random());
+        mutated.add(fact.random(random));
     }
 
-    private void remove(List<ParameterizableString> mutated) {
+    private void remove(List<ParameterizableString> mutated, Random random) {
         if (mutated.size() == 0) {
             return;
         }
-        int index = MathUtil.RANDOM.nextInt(mutated.size());
+        int index = random.nextInt(mutated.size());
         mutated.remove(index);
     }
 
-    static MUTATE_OPERATION nextMutateOperation() {
-        double r = MathUtil.RANDOM.nextDouble();
+    static MUTATE_OPERATION nextMutateOperation(Random random) {
+        double r = random.nextDouble();
         if ((r -= DEFAULT_PROBABILITY_INSERT) < 0.0) {
             return MUTATE_OPERATION.INSERT;
         } else if ((r -= DEFAULT_PROBABILITY_MODIFY) < 0.0) {
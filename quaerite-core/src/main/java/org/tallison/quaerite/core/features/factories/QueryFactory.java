@@ -23,12 +23,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.tallison.quaerite.core.features.Feature;
 import org.tallison.quaerite.core.queries.DisMaxQuery;
 import org.tallison.quaerite.core.queries.Query;
-import org.tallison.quaerite.core.util.MathUtil;
 
 public class QueryFactory<T extends Query> extends AbstractFeatureFactory<T> {
 
@@ -71,43 +71,43 @@ public class QueryFactory<T extends Query> extends AbstractFeatureFactory<T> {
 
 
     @Override
-    public T random() {
+    public T random(Random random) {
         T q = newInstance();
         for (FeatureFactory factory : factories) {
-            Feature f = factory.random();
+            Feature f = factory.random(random);
             setFeature(q, f);
         }
         return (T)q;
     }
 
     @Override
-    public T mutate(T query, double probability, double amplitude) {
-        if (MathUtil.RANDOM.nextFloat() > probability) {
+    public T mutate(T query, double probability, double amplitude, Random random) {
+        if (random.nextFloat() > probability) {
             return (T)query.deepCopy();
         }
         int numMods = (int)Math.ceil(factories.size() * amplitude);
         List<FeatureFactory> tmp = new ArrayList<>(factories);
-        Collections.shuffle(tmp);
+        Collections.shuffle(tmp, random);
         T cp = (T)query.deepCopy();
         for (int i = 0; i < numMods; i++) {
             FeatureFactory fact = tmp.get(i);
             Feature feature = getFeature(cp, (AbstractFeatureFactory)fact);
-            feature = fact.mutate(feature, probability, amplitude);
+            feature = fact.mutate(feature, probability, amplitude, random);
             setFeature(cp, feature);
         }
         return cp;
     }
 
     @Override
-    public Pair<T, T> crossover(T parentA, T parentB) {
+    public Pair<T, T> crossover(T parentA, T parentB, Random random) {
         T childA = (T)parentA.deepCopy();
         T childB = (T)parentB.deepCopy();
         for (int i = 0; i < factories.size(); i++) {
             FeatureFactory fact = factories.get(i);
             Feature featA = getFeature(childA, (AbstractFeatureFactory)fact);
             Feature featB = getFeature(childB, (AbstractFeatureFactory)fact);
-            Pair<Feature, Feature> p = fact.crossover(featA, featB);
-            if (MathUtil.RANDOM.nextFloat() < 0.5) {
+            Pair<Feature, Feature> p = fact.crossover(featA, featB, random);
+            if (random.nextFloat() < 0.5) {
                 setFeature(childA, p.getLeft());
                 setFeature(childB, p.getRight());
             } else {
@@ -132,7 +132,11 @@ public class QueryFactory<T extends Query> extends AbstractFeatureFactory<T> {
         factories.add(factory);
     }
 
-    private void setFeature(Query q, Object obj) {
+    public List<FeatureFactory> getFactories() {
+        return factories;
+    }
+
+    public void setFeature(Query q, Object obj) {
         String className = obj.getClass().getSimpleName();
         //stinky -- figure out how to fix this
         if (q instanceof DisMaxQuery && className.equals("DisMaxBoost")) {
@@ -174,7 +178,7 @@ public class QueryFactory<T extends Query> extends AbstractFeatureFactory<T> {
         }
     }
 
-    private Feature getFeature(Query q, AbstractFeatureFactory obj) {
+    public Feature getFeature(Query q, AbstractFeatureFactory obj) {
         String className = obj.getName();
         //total hack for q.op; TODO this is stinky...clean it up
         if (className.equals("q.op")) {
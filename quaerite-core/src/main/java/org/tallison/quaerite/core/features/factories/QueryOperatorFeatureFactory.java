@@ -18,6 +18,7 @@ package org.tallison.quaerite.core.features.factories;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -109,13 +110,13 @@ public class QueryOperatorFeatureFactory<T extends QueryOperator>
     }
 
     @Override
-    public T random() {
+    public T random(Random random) {
         List<QueryOperator.OPERATOR> ops = new ArrayList<>(operatorSet);
         QueryOperator.OPERATOR op;
         if (ops.size() == 1) {
             op = ops.get(0);
         } else {
-            if (MathUtil.RANDOM.nextFloat() < 0.20) {
+            if (random.nextFloat() < 0.20) {
                 op = QueryOperator.OPERATOR.AND;
             } else {
                 op = QueryOperator.OPERATOR.OR;
@@ -123,21 +124,21 @@ public class QueryOperatorFeatureFactory<T extends QueryOperator>
         }
         if (op.equals(QueryOperator.OPERATOR.OR)) {
             if (integers != null && floats != null) {
-                float r = MathUtil.RANDOM.nextFloat();
+                float r = random.nextFloat();
                 if (r < 0.4) {
-                    return newRandFloat();
+                    return newRandFloat(random);
                 } else if (r < 0.8) {
-                    return newRandInt();
+                    return newRandInt(random);
                 }
             } else if (integers != null) {
-                if (MathUtil.RANDOM.nextFloat() < 0.8) {
-                    return newRandInt();
+                if (random.nextFloat() < 0.8) {
+                    return newRandInt(random);
                 } else {
                     return (T) new QueryOperator(QueryOperator.OPERATOR.OR);
                 }
             } else if (floats != null) {
-                if (MathUtil.RANDOM.nextFloat() < 0.8) {
-                    return newRandFloat();
+                if (random.nextFloat() < 0.8) {
+                    return newRandFloat(random);
                 } else {
                     return (T) new QueryOperator(QueryOperator.OPERATOR.OR);
                 }
@@ -147,14 +148,14 @@ public class QueryOperatorFeatureFactory<T extends QueryOperator>
         return (T) new QueryOperator(QueryOperator.OPERATOR.AND);
     }
 
-    private T newRandFloat() {
+    private T newRandFloat(Random random) {
         return (T) new QueryOperator(QueryOperator.OPERATOR.OR,
-                MathUtil.getRandomFloat(minFloat, maxFloat));
+                MathUtil.getRandomFloat(minFloat, maxFloat, random));
     }
 
-    private T newRandInt() {
+    private T newRandInt(Random random) {
         return (T) new QueryOperator(QueryOperator.OPERATOR.OR,
-                MathUtil.getRandomInt(minInt, maxInt));
+                MathUtil.getRandomInt(minInt, maxInt, random));
     }
 
     /**
@@ -164,26 +165,26 @@ public class QueryOperatorFeatureFactory<T extends QueryOperator>
      * @return
      */
     @Override
-    public T mutate(T feature, double probability, double amplitude) {
-        if (MathUtil.RANDOM.nextDouble() > probability) {
+    public T mutate(T feature, double probability, double amplitude, Random random) {
+        if (random.nextDouble() > probability) {
             return feature;
         }
 
         if (operatorSet.size() == 1) {
-            return mutateParam(feature.getOperator(), feature, amplitude);
+            return mutateParam(feature.getOperator(), feature, amplitude, random);
         }
-        QueryOperator.OPERATOR op = (MathUtil.RANDOM.nextFloat() < 0.5) ?
+        QueryOperator.OPERATOR op = (random.nextFloat() < 0.5) ?
                 QueryOperator.OPERATOR.AND : QueryOperator.OPERATOR.OR;
-        return mutateParam(op, feature, amplitude);
+        return mutateParam(op, feature, amplitude, random);
     }
 
     //TODO -- fill this in
-    private T mutateParam(QueryOperator.OPERATOR operator, T feature, double amplitude) {
-        return random();
+    private T mutateParam(QueryOperator.OPERATOR operator, T feature, double amplitude, Random random) {
+        return random(random);
     }
 
     @Override
-    public Pair<T, T> crossover(T parentA, T parentB) {
-        return Pair.of(random(), random());
+    public Pair<T, T> crossover(T parentA, T parentB, Random random) {
+        return Pair.of(random(random), random(random));
     }
 }
@@ -19,6 +19,7 @@ package org.tallison.quaerite.core.features.factories;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.tallison.quaerite.core.ServerConnection;
@@ -44,21 +45,21 @@ public class ServerConnectionFeatureFactory
     }
 
     @Override
-    public ServerConnection random() {
+    public ServerConnection random(Random random) {
         return serverConnections.get(MathUtil.getRandomInt(0,
-                serverConnections.size()));
+                serverConnections.size(), random));
     }
 
     @Override
     public ServerConnection mutate(ServerConnection feature,
-                                   double probability, double amplitude) {
+                                   double probability, double amplitude, Random random) {
         return feature;
     }
 
     @Override
     public Pair<ServerConnection, ServerConnection> crossover(
-            ServerConnection parentA, ServerConnection parentB) {
-        if (MathUtil.RANDOM.nextFloat() < 0.5f) {
+            ServerConnection parentA, ServerConnection parentB, Random random) {
+        if (random.nextFloat() < 0.5f) {
             return Pair.of(parentA, parentB);
         }
         return Pair.of(parentB, parentA);
@@ -22,7 +22,6 @@ import java.util.Random;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.tallison.quaerite.core.features.StringFeature;
-import org.tallison.quaerite.core.util.MathUtil;
 
 /**
  * This implements a basic set of options, where only one
@@ -31,7 +30,6 @@ import org.tallison.quaerite.core.util.MathUtil;
  */
 public class StringFeatureFactory<T extends StringFeature>
         extends AbstractFeatureFactory<T> {
-    Random random = new Random();
     final List<StringFeature> features;
 
     public StringFeatureFactory(String name, Class<?extends StringFeature> clazz, List<String> strings) {
@@ -65,14 +63,14 @@ public class StringFeatureFactory<T extends StringFeature>
     }
 
     @Override
-    public T random() {
+    public T random(Random random) {
         int i = random.nextInt(features.size());
         return (T)features.get(i);
     }
 
     @Override
-    public T mutate(T stringFeature, double probability, double amplitude) {
-        if (MathUtil.RANDOM.nextDouble() < probability) {
+    public T mutate(T stringFeature, double probability, double amplitude, Random random) {
+        if (random.nextDouble() < probability) {
             int i = random.nextInt(features.size());
             return (T)features.get(i);
         }
@@ -80,8 +78,8 @@ public class StringFeatureFactory<T extends StringFeature>
     }
 
     @Override
-    public Pair<T, T> crossover(T parentA, T parentB) {
-        if (MathUtil.RANDOM.nextFloat() < 0.5) {
+    public Pair<T, T> crossover(T parentA, T parentB, Random random) {
+        if (random.nextFloat() < 0.5) {
             return Pair.of((T)parentB.deepCopy(), (T)parentA.deepCopy());
         } else {
             return Pair.of((T)parentA.deepCopy(), (T)parentB.deepCopy());
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -79,12 +80,12 @@ public class StringListFeatureFactory<T extends StringListFeature>
     }
 
     @Override
-    public T random() {
-        int numFields = MathUtil.RANDOM.nextInt(minSetSize, maxSetSize);
+    public T random(Random random) {
+        int numFields = MathUtil.getRandomInt(minSetSize, maxSetSize, random);
 
         List<String> tmp = new ArrayList<>();
         tmp.addAll(features);
-        Collections.shuffle(tmp);
+        Collections.shuffle(tmp, random);
         List<String> ret = new ArrayList<>();
         for (int i = 0; i < numFields; i++) {
             ret.add(tmp.get(i));
@@ -127,7 +128,7 @@ public class StringListFeatureFactory<T extends StringListFeature>
     }
 
     @Override
-    public T mutate(T stringListFeature, double probability, double amplitude) {
+    public T mutate(T stringListFeature, double probability, double amplitude, Random random) {
         Set<String> mutated = new HashSet<>();
 
         int numMutations = (int) FastMath.floor(amplitude * features.size());
@@ -135,29 +136,29 @@ public class StringListFeatureFactory<T extends StringListFeature>
 
         mutated.addAll(stringListFeature.getAll());
         for (int i = 0; i < numMutations; i++) {
-            MUTATE_OPERATION op = nextMutateOperation();
+            MUTATE_OPERATION op = nextMutateOperation(random);
             switch (op) {
                 case INSERT:
                     //do the inverse of insert if mutated is already as full as it can get
                     if (mutated.size() >= maxSetSize) {
-                        remove(mutated);
+                        remove(mutated, random);
                     } else {
-                        insert(mutated, amplitude);
+                        insert(mutated, amplitude, random);
                     }
                     break;
                 case REMOVE:
                     //do the inverse if nothing can be removed
                     if (mutated.size() < minSetSize) {
-                        insert(mutated, amplitude);
+                        insert(mutated, amplitude, random);
                     } else {
-                        remove(mutated);
+                        remove(mutated, random);
                     }
                     break;
             }
         }
         List<String> ret = new ArrayList<>();
         while (mutated.size() < minSetSize) {
-            insert(mutated, amplitude);
+            insert(mutated, amplitude, random);
         }
         for (String s : mutated) {
             ret.add(s);
@@ -166,7 +167,7 @@ public class StringListFeatureFactory<T extends StringListFeature>
     }
 
     @Override
-    public Pair<T, T> crossover(T parentA, T parentB) {
+    public Pair<T, T> crossover(T parentA, T parentB, Random random) {
         Set<String> union = new HashSet<>();
         union.addAll(parentA.getAll());
         union.addAll(parentB.getAll());
@@ -174,17 +175,17 @@ public class StringListFeatureFactory<T extends StringListFeature>
         //this crossover allows for more from one parent than another
         //we can change if we want exclusive passing of traits
         List<String> uniques = new ArrayList<>(union);
-        Collections.shuffle(uniques);
+        Collections.shuffle(uniques, random);
         List<String> childA = new ArrayList<>();
-        int numA = MathUtil.RANDOM.nextInt(minSetSize, maxSetSize);
+        int numA = MathUtil.getRandomInt(minSetSize, maxSetSize, random);
         int sz = numA >= uniques.size() ? uniques.size() : numA;
 
         for (int i = 0; i < sz; i++) {
             childA.add(uniques.get(i));
         }
-        Collections.shuffle(uniques);
+        Collections.shuffle(uniques, random);
         List<String> childB = new ArrayList<>();
-        int numB = MathUtil.RANDOM.nextInt(minSetSize, maxSetSize);
+        int numB = MathUtil.getRandomInt(minSetSize, maxSetSize, random);
         sz = numB >= uniques.size() ? uniques.size() : numB;
         for (int i = 0; i < sz; i++) {
             childB.add(uniques.get(i));
@@ -192,26 +193,26 @@ public class StringListFeatureFactory<T extends StringListFeature>
         return Pair.of((T)parentA.build(childA), (T)parentB.build(childB));
     }
 
-    private void insert(Set<String> mutated, double amplitude) {
-        int i = MathUtil.RANDOM.nextInt(maxSetSize);
+    private void insert(Set<String> mutated, double amplitude, Random random) {
+        int i = random.nextInt(maxSetSize);
         mutated.add(features.get(i));
     }
 
-    private void remove(Set<String> mutated) {
+    private void remove(Set<String> mutated, Random random) {
         if (mutated.size() == 0) {
             return;
         }
         ArrayList<String> tmp = new ArrayList<>();
         tmp.addAll(mutated);
-        Collections.shuffle(tmp);
-        int index = MathUtil.RANDOM.nextInt(tmp.size());
+        Collections.shuffle(tmp, random);
+        int index = random.nextInt(tmp.size());
         tmp.remove(index);
         mutated.clear();
         mutated.addAll(tmp);
     }
 
-    static MUTATE_OPERATION nextMutateOperation() {
-        double r = MathUtil.RANDOM.nextDouble();
+    static MUTATE_OPERATION nextMutateOperation(Random random) {
+        double r = random.nextDouble();
         if ((r -= DEFAULT_PROBABILITY_INSERT) < 0.0) {
             return MUTATE_OPERATION.INSERT;
         } else {
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -110,22 +111,44 @@ public class WeightableListFeatureFactory<T extends WeightableListFeature>
         return defaultWeights;
     }
 
+    public float getMin() {
+        return min;
+    }
+
+    public float getMax() {
+        return max;
+    }
+
+    public int getMinSetSize() {
+        return minSetSize;
+    }
+
+    public int getMaxSetSize() {
+        return maxSetSize;
+    }
+
+    public T newInstance(List<WeightableField> weightableFields) {
+        T ret = newInstance(getName());
+        ret.addAll(weightableFields);
+        return ret;
+    }
+
     @Override
-    public T random() {
+    public T random(Random random) {
         T ret = (T) newInstance(getName());
         if (maxSetSize > -1) {
             List<WeightableField> tmp = new ArrayList<>();
             tmp.addAll(features.getWeightableFields());
-            Collections.shuffle(tmp, MathUtil.RANDOM);
-            int numFeatures = MathUtil.RANDOM.nextInt(minSetSize,
-                    Math.min(tmp.size(), maxSetSize) + 1);
+            Collections.shuffle(tmp, random);
+            int numFeatures = MathUtil.getRandomInt(minSetSize,
+                    Math.min(tmp.size(), maxSetSize) + 1, random);
             for (int i = 0; i < numFeatures; i++) {
                 WeightableField field = tmp.get(i);
                 if (field.hasWeight()) {
                     ret.add(field);
                 } else {
                     ret.add(new WeightableField(field.getFeature(),
-                            MathUtil.getRandomFloat(min, max)));
+                            MathUtil.getRandomFloat(min, max, random)));
                 }
             }
         } else {
@@ -134,7 +157,7 @@ public class WeightableListFeatureFactory<T extends WeightableListFeature>
                     ret.add(field);
                 } else {
                     ret.add(new WeightableField(field.getFeature(),
-                            MathUtil.getRandomFloat(min, max)));
+                            MathUtil.getRandomFloat(min, max, random)));
                 }
             }
         }
@@ -208,7 +231,7 @@ public class WeightableListFeatureFactory<T extends WeightableListFeature>
     }
 
     @Override
-    public T mutate(T weightableListFeature, double probability, double amplitude) {
+    public T mutate(T weightableListFeature, double probability, double amplitude, Random random) {
         List<WeightableField> mutated = new ArrayList<>();
 
         int numMutations = (int) FastMath.floor(amplitude * featureMap.size());
@@ -216,30 +239,30 @@ public class WeightableListFeatureFactory<T extends WeightableListFeature>
 
         mutated.addAll(weightableListFeature.getWeightableFields());
         for (int i = 0; i < numMutations; i++) {
-            MUTATE_OPERATION op = nextMutateOperation();
+            MUTATE_OPERATION op = nextMutateOperation(random);
             switch (op) {
                 case INSERT:
                     //do the inverse of insert if mutated is already as full as it can get
                     if (mutated.size() == featureMap.size() ||
                             (maxSetSize > -1 && mutated.size() >= maxSetSize)) {
-                        remove(mutated);
+                        remove(mutated, random);
                     } else {
-                        insert(mutated, amplitude);
+                        insert(mutated, amplitude, random);
                     }
                     break;
                 case MODIFY:
                     if (mutated.size() < minSetSize) {
-                        insert(mutated, amplitude);
+                        insert(mutated, amplitude, random);
                     } else {
-                        modify(mutated, amplitude);
+                        modify(mutated, amplitude, random);
                     }
                     break;
                 case REMOVE:
                     //do the inverse if nothing can be removed
                     if (mutated.size() < minSetSize) {
-                        insert(mutated, amplitude);
+                        insert(mutated, amplitude, random);
                     } else {
-                        remove(mutated);
+                        remove(mutated, random);
                     }
                     break;
             }
@@ -247,7 +270,7 @@ public class WeightableListFeatureFactory<T extends WeightableListFeature>
         }
         //make sure there's at least one value
         while (mutated.size() < minSetSize) {
-            insert(mutated, amplitude);
+            insert(mutated, amplitude, random);
         }
         T ret = newInstance(getName());
         ret.addAll(mutated);
@@ -255,7 +278,7 @@ public class WeightableListFeatureFactory<T extends WeightableListFeature>
     }
 
     @Override
-    public Pair<T, T> crossover(T parentA, T parentB) {
+    public Pair<T, T> crossover(T parentA, T parentB, Random random) {
         T childA = newInstance(parentA.getName());
         T childB = newInstance(parentB.getName());
         Map<String, List<WeightableField>> union = new HashMap<>();
@@ -276,31 +299,31 @@ public class WeightableListFeatureFactory<T extends WeightableListFeature>
             union.put(f.getFeature(), fields);
         }
         List<String> keys = new ArrayList<>(union.keySet());
-        Collections.shuffle(keys);
+        Collections.shuffle(keys, random);
         for (int i = 0; i < parentA.getWeightableFields().size() && i < keys.size(); i++) {
             String k = keys.get(i);
             List<WeightableField> fields = union.get(k);
-            int index = MathUtil.RANDOM.nextInt(0, fields.size());
+            int index = MathUtil.getRandomInt(0, fields.size(), random);
             childA.add(fields.get(index));
         }
-        Collections.shuffle(keys);
+        Collections.shuffle(keys, random);
         for (int i = 0; i < parentB.getWeightableFields().size() && i < keys.size(); i++) {
             String k = keys.get(i);
             List<WeightableField> fields = union.get(k);
-            int index = MathUtil.RANDOM.nextInt(0, fields.size());
+            int index = MathUtil.getRandomInt(0, fields.size(), random);
             childB.add(fields.get(index));
         }
         return Pair.of(childA, childB);
     }
 
-    private void modify(List<WeightableField> mutated, double amplitude) {
+    private void modify(List<WeightableField> mutated, double amplitude, Random random) {
         if (mutated.size() == 0) {
             return;
         }
-        int index = MathUtil.RANDOM.nextInt(mutated.size());
+        int index = random.nextInt(mutated.size());
         WeightableField existing = mutated.remove(index);
 
-        float weight = MathUtil.calcMutatedWeight(existing.getWeight(), min, max, amplitude);
+        float weight = MathUtil.calcMutatedWeight(existing.getWeight(), min, max, amplitude, random);
         if (!MathUtil.equals(weight, 0.0f, 0.01f)) {
             WeightableField mutatedFeature =
                     new WeightableField(existing.getFeature(), weight);
@@ -308,7 +331,7 @@ public class WeightableListFeatureFactory<T extends WeightableListFeature>
         }
     }
 
-    private void insert(List<WeightableField> mutated, double amplitude) {
+    private void insert(List<WeightableField> mutated, double amplitude, Random random) {
         //if there's an 'insert' operation, what are the candidates
         List<String> newFeatures = new ArrayList<>();
         Set<String> existingFeatures = new HashSet<>();
@@ -323,23 +346,23 @@ public class WeightableListFeatureFactory<T extends WeightableListFeature>
         if (newFeatures.size() == 0) {
             return;
         }
-        String newFeatureName = newFeatures.get(MathUtil.RANDOM.nextInt(newFeatures.size()));
+        String newFeatureName = newFeatures.get(random.nextInt(newFeatures.size()));
         float mid = (float) ((double) min / (double) max);
         mutated.add(
                 new WeightableField(newFeatureName,
-                        MathUtil.calcMutatedWeight(mid, min, max, amplitude)));
+                        MathUtil.calcMutatedWeight(mid, min, max, amplitude, random)));
     }
 
-    private void remove(List<WeightableField> mutated) {
+    private void remove(List<WeightableField> mutated, Random random) {
         if (mutated.size() == 0) {
             return;
         }
-        int index = MathUtil.RANDOM.nextInt(mutated.size());
+        int index = random.nextInt(mutated.size());
         mutated.remove(index);
     }
 
-    static MUTATE_OPERATION nextMutateOperation() {
-        double r = MathUtil.RANDOM.nextDouble();
+    static MUTATE_OPERATION nextMutateOperation(Random random) {
+        double r = random.nextDouble();
         if ((r -= DEFAULT_PROBABILITY_INSERT) < 0.0) {
             return MUTATE_OPERATION.INSERT;
         } else if ((r -= DEFAULT_PROBABILITY_MODIFY) < 0.0) {
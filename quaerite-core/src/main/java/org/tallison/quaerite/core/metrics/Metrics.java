@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Process wide registry of timers and counters for the hot paths of a
+ * run: building requests, http, json parsing, scoring, db inserts and
+ * queue waits.  Metrics are disabled by default, in which case they
+ * cost a volatile read and nothing else.
+ */
+public class Metrics {
+
+    static Logger LOG = LogManager.getLogger(Metrics.class);
+
+    public static final String JMX_DOMAIN = "org.tallison.quaerite";
+
+    private static volatile boolean ENABLED = false;
+    private static boolean JMX = false;
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static void enable() {
+        ENABLED = true;
+    }
+
+    public static void disable() {
+        ENABLED = false;
+    }
+
+    /**
+     * Registers the current and future metrics with the platform MBeanServer
+     */
+    public static synchronized void enableJmx() {
+        if (JMX) {
+            return;
+        }
+        JMX = true;
+        for (Timer timer : TIMERS.values()) {
+            register("Timer", timer.getName(), timer);
+        }
+        for (Counter counter : COUNTERS.values()) {
+            register("Counter", counter.getName(), counter);
+        }
+    }
+
+    public static Timer timer(String name) {
+        Timer timer = TIMERS.get(name);
+        if (timer != null) {
+            return timer;
+        }
+        synchronized (Metrics.class) {
+            timer = TIMERS.get(name);
+            if (timer == null) {
+                timer = new Timer(name);
+                TIMERS.put(name, timer);
+                if (JMX) {
+                    register("Timer", name, timer);
+                }
+            }
+            return timer;
+        }
+    }
+
+    public static Counter counter(String name) {
+        Counter counter = COUNTERS.get(name);
+        if (counter != null) {
+            return counter;
+        }
+        synchronized (Metrics.class) {
+            counter = COUNTERS.get(name);
+            if (counter == null) {
+                counter = new Counter(name);
+                COUNTERS.put(name, counter);
+                if (JMX) {
+                    register("Counter", name, counter);
+                }
+            }
+            return counter;
+        }
+    }
+
+    /**
+     * @return timers sorted by name
+     */
+    public static List<Timer> getTimers() {
+        return new ArrayList<>(TIMERS.values());
+    }
+
+    /**
+     * @return counters sorted by name
+     */
+    public static List<Counter> getCounters() {
+        return new ArrayList<>(COUNTERS.values());
+    }
+
+    /**
+     * Zeroes every metric, e.g. between runs in the same jvm
+     */
+    public static void reset() {
+        for (Timer timer : TIMERS.values()) {
+            timer.reset();
+        }
+        for (Counter counter : COUNTERS.values()) {
+            counter.reset();
+        }
+    }
+
+    private static void register(String type, String name, Object mbean) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + type +
+                    ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (JMException e) {
+            LOG.warn("couldn't register " + name + " with jmx", e);
+        }
+    }
+}
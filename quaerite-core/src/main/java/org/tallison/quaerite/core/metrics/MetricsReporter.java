@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.metrics;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Periodically logs every metric that has been used and, optionally,
+ * appends them to a csv file.  Rates are per second since the previous
+ * report.  A last report is made on close.
+ */
+public class MetricsReporter implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(MetricsReporter.class);
+
+    private static final String CSV_HEADER = "timestamp,type,name,count,rate_per_sec," +
+            "mean_ms,p50_ms,p90_ms,p99_ms,max_ms,total_ms";
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final Path csv;
+    private final ScheduledExecutorService executorService =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-reporter");
+                t.setDaemon(true);
+                return t;
+            });
+    private final Map<String, Long> lastCounts = new HashMap<>();
+    private long lastReport = System.nanoTime();
+
+    /**
+     * @param csv file to append to, or null to only log
+     */
+    public MetricsReporter(Path csv) {
+        this.csv = csv;
+    }
+
+    public void start(long intervalSeconds) {
+        if (intervalSeconds < 1) {
+            throw new IllegalArgumentException("interval must be >= 1 second");
+        }
+        executorService.scheduleAtFixedRate(this::reportQuietly, intervalSeconds,
+                intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void report() throws IOException {
+        long now = System.nanoTime();
+        double seconds = Math.max(1, now - lastReport) / 1e9;
+        lastReport = now;
+        long timestamp = System.currentTimeMillis();
+        StringBuilder csvRows = new StringBuilder();
+        for (Timer timer : Metrics.getTimers()) {
+            Snapshot s = timer.getSnapshot();
+            if (s.getCount() == 0) {
+                continue;
+            }
+            double rate = (s.getCount() - lastCount("timer." + timer.getName(),
+                    s.getCount())) / seconds;
+            LOG.info(String.format(Locale.US,
+                    "%s: count=%d rate=%.1f/s mean=%.3fms p50=%.3fms p90=%.3fms " +
+                            "p99=%.3fms max=%.3fms total=%.1fms",
+                    timer.getName(), s.getCount(), rate, millis(s.getMeanNanos()),
+                    millis(s.getQuantileNanos(0.5)), millis(s.getQuantileNanos(0.9)),
+                    millis(s.getQuantileNanos(0.99)), millis(s.getMaxNanos()),
+                    millis(s.getTotalNanos())));
+            csvRows.append(String.format(Locale.US,
+                    "%d,timer,%s,%d,%.3f,%.4f,%.4f,%.4f,%.4f,%.4f,%.3f%n",
+                    timestamp, timer.getName(), s.getCount(), rate,
+                    millis(s.getMeanNanos()), millis(s.getQuantileNanos(0.5)),
+                    millis(s.getQuantileNanos(0.9)), millis(s.getQuantileNanos(0.99)),
+                    millis(s.getMaxNanos()), millis(s.getTotalNanos())));
+        }
+        for (Counter counter : Metrics.getCounters()) {
+            long count = counter.getCount();
+            if (count == 0) {
+                continue;
+            }
+            double rate = (count - lastCount("counter." + counter.getName(), count)) / seconds;
+            LOG.info(String.format(Locale.US, "%s: count=%d rate=%.1f/s",
+                    counter.getName(), count, rate));
+            csvRows.append(String.format(Locale.US, "%d,counter,%s,%d,%.3f,,,,,,%n",
+                    timestamp, counter.getName(), count, rate));
+        }
+        if (csv != null && csvRows.length() > 0) {
+            boolean writeHeader = !Files.isRegularFile(csv) || Files.size(csv) == 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (writeHeader) {
+                    writer.write(CSV_HEADER);
+                    writer.newLine();
+                }
+                writer.write(csvRows.toString());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        executorService.shutdownNow();
+        report();
+    }
+
+    private void reportQuietly() {
+        try {
+            report();
+        } catch (IOException e) {
+            LOG.warn("couldn't write metrics to " + csv, e);
+        }
+    }
+
+    //returns the previous count and stores the current one
+    private long lastCount(String key, long count) {
+        Long last = lastCounts.put(key, count);
+        return (last == null) ? 0 : last;
+    }
+
+    private static double millis(double nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
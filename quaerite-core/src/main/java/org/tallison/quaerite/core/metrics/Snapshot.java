@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.metrics;
+
+/**
+ * Point in time copy of a {@link Timer}'s histogram.  Percentiles are
+ * accurate to within the width of a histogram bucket, which is 1/8th
+ * of the power of two below the value.
+ */
+public class Snapshot {
+
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] buckets;
+
+    Snapshot(long count, long totalNanos, long maxNanos, long[] buckets) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.buckets = buckets;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return (count == 0) ? 0.0 : (double) totalNanos / (double) count;
+    }
+
+    /**
+     * @param quantile from 0 to 1, e.g. 0.99
+     * @return middle of the bucket that holds the quantile, but no more
+     * than the max
+     */
+    public long getQuantileNanos(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1: " + quantile);
+        }
+        long histogramCount = 0;
+        for (long c : buckets) {
+            histogramCount += c;
+        }
+        if (histogramCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * histogramCount));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                long lower = Timer.lowerBound(i);
+                long mid = lower + (Timer.lowerBound(i + 1) - lower) / 2;
+                return Math.min(mid, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times a phase and keeps a log-linear histogram of the times.
+ * Typical use is with a static timer from {@link Metrics#timer(String)}:
+ * <pre>
+ *     long start = TIMER.start();
+ *     try {
+ *         ...
+ *     } finally {
+ *         TIMER.stop(start);
+ *     }
+ * </pre>
+ * While metrics are disabled, {@link #start()} doesn't read the clock
+ * and {@link #stop(long)} does nothing.
+ */
+public class Timer implements TimerMXBean {
+
+    //each power of two is split into 2^SUB_BITS buckets
+    private static final int SUB_BITS = 3;
+    private static final int NUM_BUCKETS = 64 << SUB_BITS;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+    Timer(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return start time to pass to {@link #stop(long)}, or -1 if metrics
+     * are disabled
+     */
+    public long start() {
+        return Metrics.isEnabled() ? System.nanoTime() : -1;
+    }
+
+    /**
+     * @param start value returned by {@link #start()}
+     */
+    public void stop(long start) {
+        if (start != -1) {
+            update(System.nanoTime() - start);
+        }
+    }
+
+    public void update(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        buckets.incrementAndGet(bucket(nanos));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Snapshot getSnapshot() {
+        long[] copy = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            copy[i] = buckets.get(i);
+        }
+        return new Snapshot(count.sum(), totalNanos.sum(), maxNanos.get(), copy);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getTotalMillis() {
+        return totalNanos.sum() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return getSnapshot().getMeanNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMedianMillis() {
+        return getSnapshot().getQuantileNanos(0.5) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double get90thPercentileMillis() {
+        return getSnapshot().getQuantileNanos(0.9) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double get99thPercentileMillis() {
+        return getSnapshot().getQuantileNanos(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / NANOS_PER_MILLI;
+    }
+
+    void reset() {
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < (1 << SUB_BITS)) {
+            return (int) nanos;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) ((nanos >>> (exp - SUB_BITS)) & ((1 << SUB_BITS) - 1));
+        return ((exp - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    //inverse of bucket()
+    static long lowerBound(int bucket) {
+        if (bucket < (1 << SUB_BITS)) {
+            return bucket;
+        }
+        int exp = (bucket >> SUB_BITS) + SUB_BITS - 1;
+        long sub = bucket & ((1 << SUB_BITS) - 1);
+        if (exp > 62) {
+            return Long.MAX_VALUE;
+        }
+        return ((1L << SUB_BITS) + sub) << (exp - SUB_BITS);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.optimization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+/**
+ * Ask/tell implementation of (mu/mu_w, lambda)-CMA-ES with rank-one
+ * and rank-mu covariance updates.  This maximizes fitness, and all
+ * solutions are kept within the unit hypercube by clipping.
+ * <p>
+ * Each call to {@link #ask()} returns a population of <code>lambda</code>
+ * candidates, which can be evaluated in any order (or in parallel); pass the
+ * candidates and their fitness back via {@link #tell(List, double[])}.
+ * <p>
+ * See Hansen, "The CMA Evolution Strategy: A Tutorial", 2016.
+ * <p>
+ * This is not thread safe.
+ */
+public class CMAES {
+
+    private final int n;
+    private final int lambda;
+    private final int mu;
+    private final double[] weights;
+    private final double mueff;
+    private final double cc;
+    private final double cs;
+    private final double c1;
+    private final double cmu;
+    private final double damps;
+    private final double chiN;
+    private final Random random;
+
+    private RealVector mean;
+    private double sigma;
+    private RealMatrix c;
+    private RealMatrix b;
+    private double[] d;
+    private RealMatrix invSqrtC;
+    private RealVector pc;
+    private RealVector ps;
+    private int generation = 0;
+
+    /**
+     * @param initialMean starting point; each value should be in [0,1]
+     * @param sigma initial step size
+     * @param lambda population size; if < 2, the default 4 + 3 ln(n) is used
+     * @param random source of randomness
+     */
+    public CMAES(double[] initialMean, double sigma, int lambda, Random random) {
+        this.n = initialMean.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("Must have at least one dimension");
+        }
+        this.lambda = (lambda < 2) ? getDefaultLambda(n) : lambda;
+        this.mu = this.lambda / 2;
+        this.random = random;
+
+        double[] w = new double[mu];
+        double sum = 0.0;
+        for (int i = 0; i < mu; i++) {
+            w[i] = Math.log(mu + 0.5) - Math.log(i + 1);
+            sum += w[i];
+        }
+        double sumSq = 0.0;
+        for (int i = 0; i < mu; i++) {
+            w[i] /= sum;
+            sumSq += w[i] * w[i];
+        }
+        this.weights = w;
+        this.mueff = 1.0 / sumSq;
+
+        this.cc = (4.0 + mueff / n) / (n + 4.0 + 2.0 * mueff / n);
+        this.cs = (mueff + 2.0) / (n + mueff + 5.0);
+        this.c1 = 2.0 / ((n + 1.3) * (n + 1.3) + mueff);
+        this.cmu = Math.min(1.0 - c1,
+                2.0 * (mueff - 2.0 + 1.0 / mueff) / ((n + 2.0) * (n + 2.0) + mueff));
+        this.damps = 1.0 + 2.0 * Math.max(0.0, Math.sqrt((mueff - 1.0) / (n + 1.0)) - 1.0) + cs;
+        this.chiN = Math.sqrt(n) * (1.0 - 1.0 / (4.0 * n) + 1.0 / (21.0 * n * n));
+
+        this.mean = new ArrayRealVector(clip(initialMean));
+        this.sigma = sigma;
+        this.c = MatrixUtils.createRealIdentityMatrix(n);
+        this.b = MatrixUtils.createRealIdentityMatrix(n);
+        this.d = new double[n];
+        Arrays.fill(d, 1.0);
+        this.invSqrtC = MatrixUtils.createRealIdentityMatrix(n);
+        this.pc = new ArrayRealVector(n);
+        this.ps = new ArrayRealVector(n);
+    }
+
+    public static int getDefaultLambda(int dimensions) {
+        return 4 + (int) Math.floor(3.0 * Math.log(dimensions));
+    }
+
+    /**
+     * @return a new population of <code>lambda</code> candidates
+     */
+    public List<double[]> ask() {
+        List<double[]> population = new ArrayList<>();
+        for (int k = 0; k < lambda; k++) {
+            double[] z = new double[n];
+            for (int i = 0; i < n; i++) {
+                z[i] = d[i] * random.nextGaussian();
+            }
+            RealVector y = b.operate(new ArrayRealVector(z, false));
+            population.add(clip(mean.add(y.mapMultiply(sigma)).toArray()));
+        }
+        return population;
+    }
+
+    /**
+     * Updates the distribution.
+     *
+     * @param population candidates, typically from the last call to {@link #ask()}
+     * @param fitness fitness for each candidate; higher is better
+     */
+    public void tell(List<double[]> population, double[] fitness) {
+        if (population.size() != fitness.length) {
+            throw new IllegalArgumentException("population size (" + population.size() +
+                    ") must equal number of fitness values (" + fitness.length + ")");
+        }
+        if (population.size() < mu) {
+            throw new IllegalArgumentException("Need at least " + mu + " evaluated candidates");
+        }
+        Integer[] order = new Integer[population.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(fitness[y], fitness[x]));
+
+        RealVector oldMean = mean;
+        RealVector newMean = new ArrayRealVector(n);
+        RealVector[] ys = new RealVector[mu];
+        for (int i = 0; i < mu; i++) {
+            RealVector x = new ArrayRealVector(population.get(order[i]));
+            newMean = newMean.add(x.mapMultiply(weights[i]));
+            ys[i] = x.subtract(oldMean).mapDivide(sigma);
+        }
+        mean = newMean;
+        RealVector yw = mean.subtract(oldMean).mapDivide(sigma);
+
+        generation++;
+        ps = ps.mapMultiply(1.0 - cs)
+                .add(invSqrtC.operate(yw).mapMultiply(Math.sqrt(cs * (2.0 - cs) * mueff)));
+        double psNorm = ps.getNorm();
+        boolean hsig = psNorm / Math.sqrt(1.0 - Math.pow(1.0 - cs, 2.0 * generation)) / chiN
+                < 1.4 + 2.0 / (n + 1.0);
+        pc = pc.mapMultiply(1.0 - cc);
+        if (hsig) {
+            pc = pc.add(yw.mapMultiply(Math.sqrt(cc * (2.0 - cc) * mueff)));
+        }
+
+        RealMatrix rankOne = pc.outerProduct(pc);
+        if (! hsig) {
+            rankOne = rankOne.add(c.scalarMultiply(cc * (2.0 - cc)));
+        }
+        RealMatrix rankMu = new Array2DRowRealMatrix(n, n);
+        for (int i = 0; i < mu; i++) {
+            rankMu = rankMu.add(ys[i].outerProduct(ys[i]).scalarMultiply(weights[i]));
+        }
+        c = c.scalarMultiply(1.0 - c1 - cmu)
+                .add(rankOne.scalarMultiply(c1))
+                .add(rankMu.scalarMultiply(cmu));
+
+        sigma *= Math.exp((cs / damps) * (psNorm / chiN - 1.0));
+        updateEigenSystem();
+    }
+
+    private void updateEigenSystem() {
+        //enforce symmetry
+        c = c.add(c.transpose()).scalarMultiply(0.5);
+        EigenDecomposition eigen = new EigenDecomposition(c);
+        b = eigen.getV();
+        double[] eigenValues = eigen.getRealEigenvalues();
+        double[] invD = new double[n];
+        for (int i = 0; i < n; i++) {
+            d[i] = Math.sqrt(Math.max(eigenValues[i], 1e-20));
+            invD[i] = 1.0 / d[i];
+        }
+        invSqrtC = b.multiply(MatrixUtils.createRealDiagonalMatrix(invD))
+                .multiply(b.transpose());
+    }
+
+    public double[] getMean() {
+        return mean.toArray();
+    }
+
+    public double getSigma() {
+        return sigma;
+    }
+
+    public int getLambda() {
+        return lambda;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    private static double[] clip(double[] x) {
+        double[] ret = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            ret[i] = Math.min(1.0, Math.max(0.0, x[i]));
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.optimization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ExperimentFactory;
+import org.tallison.quaerite.core.features.Feature;
+import org.tallison.quaerite.core.features.FloatFeature;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.features.WeightableListFeature;
+import org.tallison.quaerite.core.features.factories.AbstractFeatureFactory;
+import org.tallison.quaerite.core.features.factories.FeatureFactory;
+import org.tallison.quaerite.core.features.factories.FloatFeatureFactory;
+import org.tallison.quaerite.core.features.factories.QueryFactory;
+import org.tallison.quaerite.core.features.factories.WeightableListFeatureFactory;
+import org.tallison.quaerite.core.queries.Query;
+
+/**
+ * Maps the continuous parameters of an experiment's query onto the unit
+ * hypercube: one dimension per field in each {@link WeightableListFeatureFactory}
+ * (e.g. qf, pf, pf2, pf3) and one per {@link FloatFeatureFactory} (e.g. tie).
+ * Each dimension is scaled by the min/max of its factory; if a weightable
+ * list factory has no range, its dimensions only model whether a field is present.
+ * <p>
+ * A weighted field whose value is near the bottom of its range is dropped from the
+ * list, subject to the factory's min and max set sizes.
+ * <p>
+ * All other features (server connection, custom handler, discrete query features)
+ * are taken from the template experiment when decoding.
+ */
+public class ContinuousParameterSpace {
+
+    private static final double DROP_THRESHOLD = 0.05;
+
+    private final QueryFactory<?> queryFactory;
+    private final List<Dimension> dimensions = new ArrayList<>();
+
+    public ContinuousParameterSpace(ExperimentFactory experimentFactory) {
+        this.queryFactory = (QueryFactory<?>) experimentFactory.getFeatureFactories()
+                .get(QueryFactory.NAME);
+        for (FeatureFactory factory : queryFactory.getFactories()) {
+            if (factory instanceof WeightableListFeatureFactory) {
+                WeightableListFeatureFactory wlff = (WeightableListFeatureFactory) factory;
+                for (WeightableField f : wlff.getFeatures().getWeightableFields()) {
+                    dimensions.add(new Dimension(wlff,
+                            wlff.getFeatures().getName() + ":" + f.getFeature(),
+                            f.getFeature(), wlff.getMin(), wlff.getMax()));
+                }
+            } else if (factory instanceof FloatFeatureFactory) {
+                FloatFeatureFactory fff = (FloatFeatureFactory) factory;
+                if (fff.getMax() > fff.getMin()) {
+                    dimensions.add(new Dimension(fff, fff.newInstance(fff.getMin()).getName(),
+                            null, fff.getMin(), fff.getMax()));
+                }
+            }
+        }
+    }
+
+    public int getDimensions() {
+        return dimensions.size();
+    }
+
+    /**
+     * @return the names of the dimensions, e.g. "qf:title" or "tie"
+     */
+    public List<String> getDimensionNames() {
+        List<String> names = new ArrayList<>();
+        for (Dimension d : dimensions) {
+            names.add(d.name);
+        }
+        return names;
+    }
+
+    public double[] encode(Experiment experiment) {
+        Query query = experiment.getQuery();
+        double[] x = new double[dimensions.size()];
+        Map<FeatureFactory, Feature> features = new HashMap<>();
+        for (int i = 0; i < dimensions.size(); i++) {
+            Dimension d = dimensions.get(i);
+            if (! features.containsKey(d.factory)) {
+                features.put(d.factory, queryFactory.getFeature(query,
+                        (AbstractFeatureFactory) d.factory));
+            }
+            Feature feature = features.get(d.factory);
+            double value = d.min;
+            if (feature instanceof FloatFeature) {
+                value = ((FloatFeature) feature).getValue();
+            } else if (feature instanceof WeightableListFeature) {
+                for (WeightableField f : ((WeightableListFeature) feature).getWeightableFields()) {
+                    if (f.getFeature().equals(d.field)) {
+                        value = f.hasWeight() ? f.getWeight() : 1.0;
+                    }
+                }
+            }
+            x[i] = d.normalize(value);
+        }
+        return x;
+    }
+
+    public Experiment decode(Experiment template, double[] x, String name) {
+        if (x.length != dimensions.size()) {
+            throw new IllegalArgumentException("Expected " + dimensions.size() +
+                    " dimensions, but got " + x.length);
+        }
+        Query query = template.getQuery();
+        Map<WeightableListFeatureFactory, List<Integer>> lists = new LinkedHashMap<>();
+        for (int i = 0; i < dimensions.size(); i++) {
+            Dimension d = dimensions.get(i);
+            if (d.factory instanceof FloatFeatureFactory) {
+                queryFactory.setFeature(query,
+                        ((FloatFeatureFactory) d.factory).newInstance(d.denormalize(x[i])));
+            } else {
+                WeightableListFeatureFactory wlff = (WeightableListFeatureFactory) d.factory;
+                List<Integer> indices = lists.get(wlff);
+                if (indices == null) {
+                    indices = new ArrayList<>();
+                    lists.put(wlff, indices);
+                }
+                indices.add(i);
+            }
+        }
+        for (Map.Entry<WeightableListFeatureFactory, List<Integer>> e : lists.entrySet()) {
+            queryFactory.setFeature(query, buildWeightableList(e.getKey(), e.getValue(), x));
+        }
+        Experiment experiment = new Experiment(name, template.getServerConnection(),
+                template.getCustomHandler(), query);
+        experiment.addFilterQueries(template.getFilterQueries());
+        return experiment;
+    }
+
+    private WeightableListFeature buildWeightableList(WeightableListFeatureFactory factory,
+                                                      List<Integer> indices, double[] x) {
+        List<Integer> sorted = new ArrayList<>(indices);
+        sorted.sort((a, b) -> Double.compare(x[b], x[a]));
+        int maxSize = (factory.getMaxSetSize() > -1) ? factory.getMaxSetSize() : sorted.size();
+        List<WeightableField> fields = new ArrayList<>();
+        for (int i : sorted) {
+            if (fields.size() >= maxSize) {
+                break;
+            }
+            Dimension d = dimensions.get(i);
+            if (x[i] >= DROP_THRESHOLD || fields.size() < factory.getMinSetSize()) {
+                fields.add(new WeightableField(d.field, d.getWeight(x[i])));
+            }
+        }
+        return factory.newInstance(fields);
+    }
+
+    private static class Dimension {
+        private final FeatureFactory factory;
+        private final String name;
+        private final String field;
+        private final float min;
+        private final float max;
+        private final boolean presenceOnly;
+
+        Dimension(FeatureFactory factory, String name, String field, float min, float max) {
+            this.factory = factory;
+            this.name = name;
+            this.field = field;
+            this.min = min;
+            this.max = max;
+            this.presenceOnly = max <= min;
+        }
+
+        double normalize(double value) {
+            if (presenceOnly) {
+                return (value > 0.0) ? 1.0 : 0.0;
+            }
+            return Math.min(1.0, Math.max(0.0, (value - min) / (max - min)));
+        }
+
+        float denormalize(double x) {
+            return (float) (min + Math.min(1.0, Math.max(0.0, x)) * (max - min));
+        }
+
+        float getWeight(double x) {
+            if (presenceOnly) {
+                return (max > 0.0f) ? max : 1.0f;
+            }
+            //weightable fields are dropped rather than given a weight of 0
+            return Math.max(denormalize(x), 0.1f);
+        }
+    }
+}
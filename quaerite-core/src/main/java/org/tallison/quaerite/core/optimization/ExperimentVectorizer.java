@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.optimization;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.tallison.quaerite.core.Experiment;
+
+/**
+ * Flattens an experiment into a sparse numeric vector so that
+ * experiments can be compared by a surrogate model.
+ * <p>
+ * Numeric values are used as is, strings in lists (e.g. "title^2.0" in a qf)
+ * become a dimension per field with the weight as the value (1.0 if unweighted),
+ * and all other strings become one-hot dimensions. Missing dimensions are 0.
+ * <p>
+ * The experiment's name is ignored.
+ */
+public class ExperimentVectorizer {
+
+    private static final Pattern WEIGHTED_FIELD =
+            Pattern.compile("(.*?)\\^((?:\\d+)(?:\\.\\d+)?)");
+
+    public static Map<String, Double> vectorize(Experiment experiment) {
+        JsonObject root = JsonParser.parseString(experiment.toJson()).getAsJsonObject();
+        root.remove("name");
+        Map<String, Double> vector = new TreeMap<>();
+        flatten("", root, false, vector);
+        return vector;
+    }
+
+    private static void flatten(String path, JsonElement el, boolean inList,
+                                Map<String, Double> vector) {
+        if (el == null || el.isJsonNull()) {
+            return;
+        }
+        if (el.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> e : ((JsonObject) el).entrySet()) {
+                flatten(path + "/" + e.getKey(), e.getValue(), false, vector);
+            }
+        } else if (el.isJsonArray()) {
+            for (JsonElement child : (JsonArray) el) {
+                flatten(path, child, true, vector);
+            }
+        } else {
+            addPrimitive(path, (JsonPrimitive) el, inList, vector);
+        }
+    }
+
+    private static void addPrimitive(String path, JsonPrimitive primitive, boolean inList,
+                                     Map<String, Double> vector) {
+        if (primitive.isNumber()) {
+            vector.put(path, primitive.getAsDouble());
+            return;
+        } else if (primitive.isBoolean()) {
+            vector.put(path, primitive.getAsBoolean() ? 1.0 : 0.0);
+            return;
+        }
+        String s = primitive.getAsString();
+        if (! inList) {
+            vector.put(path + "=" + s, 1.0);
+            return;
+        }
+        Matcher m = WEIGHTED_FIELD.matcher(s);
+        if (m.matches()) {
+            vector.put(path + "/" + m.group(1), Double.parseDouble(m.group(2)));
+        } else {
+            vector.put(path + "/" + s, 1.0);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.optimization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Simple multivariate Tree-structured Parzen Estimator surrogate.
+ * <p>
+ * Observations are split into the best <code>gamma</code> fraction
+ * (higher scores are better) and the rest; a Gaussian kernel density is
+ * fit to each, and candidates are ranked by l(x)/g(x).
+ * <p>
+ * Batches are selected with a "constant liar": each selected candidate
+ * is added to the bad set before the next one is picked, which pushes
+ * the rest of the batch away from it.
+ * <p>
+ * This is not thread safe.
+ */
+public class TreeParzenEstimator {
+
+    public static final double DEFAULT_GAMMA = 0.25;
+
+    private static final double MIN_BANDWIDTH = 0.05;
+
+    private final double gamma;
+    private final List<Map<String, Double>> observations = new ArrayList<>();
+    private final List<Double> scores = new ArrayList<>();
+
+    public TreeParzenEstimator() {
+        this(DEFAULT_GAMMA);
+    }
+
+    public TreeParzenEstimator(double gamma) {
+        if (gamma <= 0.0 || gamma >= 1.0) {
+            throw new IllegalArgumentException("gamma must be > 0 and < 1: " + gamma);
+        }
+        this.gamma = gamma;
+    }
+
+    public void addObservation(Map<String, Double> x, double score) {
+        observations.add(x);
+        scores.add(score);
+    }
+
+    public int size() {
+        return observations.size();
+    }
+
+    /**
+     * @param candidates candidate vectors
+     * @param batchSize maximum number of candidates to select
+     * @return indices into <code>candidates</code> in the order selected;
+     * candidates identical to an observation or an earlier selection are skipped
+     */
+    public List<Integer> selectBatch(List<Map<String, Double>> candidates, int batchSize) {
+        Set<Map<String, Double>> seen = new HashSet<>(observations);
+        List<Integer> selected = new ArrayList<>();
+        if (observations.size() < 2) {
+            for (int i = 0; i < candidates.size() && selected.size() < batchSize; i++) {
+                if (seen.add(candidates.get(i))) {
+                    selected.add(i);
+                }
+            }
+            return selected;
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < scores.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        int numGood = Math.max(1, (int) Math.ceil(gamma * observations.size()));
+        List<Map<String, Double>> good = new ArrayList<>();
+        List<Map<String, Double>> bad = new ArrayList<>();
+        for (int i = 0; i < order.size(); i++) {
+            if (i < numGood) {
+                good.add(observations.get(order.get(i)));
+            } else {
+                bad.add(observations.get(order.get(i)));
+            }
+        }
+        Map<String, Double> bandwidths = calcBandwidths(candidates);
+
+        while (selected.size() < batchSize) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < candidates.size(); i++) {
+                Map<String, Double> candidate = candidates.get(i);
+                if (seen.contains(candidate)) {
+                    continue;
+                }
+                double score = logDensity(candidate, good, bandwidths);
+                if (bad.size() > 0) {
+                    score -= logDensity(candidate, bad, bandwidths);
+                }
+                if (best < 0 || score > bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            selected.add(best);
+            seen.add(candidates.get(best));
+            bad.add(candidates.get(best));
+        }
+        return selected;
+    }
+
+    /**
+     * Scott's rule per dimension over the observations, with a floor
+     * so that dimensions that haven't varied yet don't dominate.
+     */
+    private Map<String, Double> calcBandwidths(List<Map<String, Double>> candidates) {
+        Set<String> dims = new HashSet<>();
+        for (Map<String, Double> x : observations) {
+            dims.addAll(x.keySet());
+        }
+        for (Map<String, Double> x : candidates) {
+            dims.addAll(x.keySet());
+        }
+        int n = observations.size();
+        double scott = Math.pow(n, -1.0 / 5.0);
+        Map<String, Double> bandwidths = new HashMap<>();
+        for (String dim : dims) {
+            double sum = 0.0;
+            double sumSq = 0.0;
+            for (Map<String, Double> x : observations) {
+                double v = get(x, dim);
+                sum += v;
+                sumSq += v * v;
+            }
+            double mean = sum / n;
+            double variance = Math.max(0.0, sumSq / n - mean * mean);
+            bandwidths.put(dim, Math.max(MIN_BANDWIDTH, Math.sqrt(variance) * scott));
+        }
+        return bandwidths;
+    }
+
+    private static double logDensity(Map<String, Double> x, List<Map<String, Double>> points,
+                                     Map<String, Double> bandwidths) {
+        double[] logKernels = new double[points.size()];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < points.size(); i++) {
+            Map<String, Double> p = points.get(i);
+            double sum = 0.0;
+            for (Map.Entry<String, Double> e : bandwidths.entrySet()) {
+                double diff = (get(x, e.getKey()) - get(p, e.getKey())) / e.getValue();
+                sum += diff * diff;
+            }
+            logKernels[i] = -0.5 * sum;
+            max = Math.max(max, logKernels[i]);
+        }
+        //log-sum-exp; the normalizing constants are shared by l(x) and g(x)
+        double sum = 0.0;
+        for (double logKernel : logKernels) {
+            sum += Math.exp(logKernel - max);
+        }
+        return max + Math.log(sum / points.size());
+    }
+
+    private static double get(Map<String, Double> x, String dim) {
+        Double v = x.get(dim);
+        return (v == null) ? 0.0 : v;
+    }
+}
@@ -62,9 +62,9 @@ public abstract class MultiFieldQuery extends SingleStringQuery {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof MultiFieldQuery)) return false;
-        if (! super.equals(o));
         MultiFieldQuery that = (MultiFieldQuery) o;
-        return  Objects.equals(qf, that.qf) &&
+        return  Objects.equals(getQueryString(), that.getQueryString()) &&
+                Objects.equals(qf, that.qf) &&
                 Objects.equals(tie, that.tie) &&
                 Objects.equals(qOp, that.qOp);
     }
@@ -54,7 +54,7 @@ public abstract class SingleStringQuery extends Query {
         return used;
     }
 
-    protected void setQueryString(String queryString) {
+    public void setQueryString(String queryString) {
         this.queryString = queryString;
     }
     public String getQueryString() {
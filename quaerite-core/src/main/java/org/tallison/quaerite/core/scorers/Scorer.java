@@ -100,6 +100,18 @@ public abstract class Scorer {
      */
     public abstract String getPrimaryStatisticName();
 
+    /**
+     *
+     * @param querySet queryset
+     * @return the value of the primary statistic for the specified queryset
+     */
+    public double getPrimaryStatistic(String querySet) {
+        //the primary statistic name is the scorer's name + "_" + statistic name
+        String statName = getPrimaryStatisticName().substring(getName().length() + 1);
+        Double value = getSummaryStatistics(querySet).get(statName);
+        return (value == null) ? Double.NaN : value;
+    }
+
     public Map<QueryInfo, Double> getScores() {
         Map<QueryInfo, Double> ret = new HashMap<>();
         ret.putAll(scores);
@@ -144,7 +144,10 @@ public class FeatureFactorySerializer extends AbstractFeatureSerializer
                         connectObj.get("user").getAsString() : null;
                 String pw = (connectObj.has("password")) ?
                         connectObj.get("password").getAsString() : null;
-                connections.add(new ServerConnection(url, user, pw));
+                boolean compress = connectObj.has("compress") &&
+                        connectObj.get("compress").getAsBoolean();
+                connections.add(new ServerConnection(url, user, pw, compress,
+                        getReplicas(connectObj)));
             }
         } else if (el.isJsonObject()) {
             JsonObject connectObj = el.getAsJsonObject();
@@ -153,12 +156,25 @@ public class FeatureFactorySerializer extends AbstractFeatureSerializer
                     connectObj.get("user").getAsString() : null;
             String pw = (connectObj.has("password")) ?
                     connectObj.get("password").getAsString() : null;
-            connections.add(new ServerConnection(url, user, pw));
+            boolean compress = connectObj.has("compress") &&
+                    connectObj.get("compress").getAsBoolean();
+            connections.add(new ServerConnection(url, user, pw, compress,
+                    getReplicas(connectObj)));
         }
         return new ServerConnectionFeatureFactory(connections);
     }
 
 
+    private static List<String> getReplicas(JsonObject connectObj) {
+        List<String> replicas = new ArrayList<>();
+        if (connectObj.has("replicas")) {
+            for (JsonElement replica : connectObj.getAsJsonArray("replicas")) {
+                replicas.add(replica.getAsString());
+            }
+        }
+        return replicas;
+    }
+
     private FeatureFactory buildCustomHandlerFactory(JsonObject obj) {
         CustomHandlerFactory customHandlerFactory = new CustomHandlerFactory();
         for (String handler : obj.keySet()) {
@@ -33,7 +33,7 @@ public class JsonUtil {
             return dflt;
         }
         JsonElement el = ((JsonObject)root).get(key);
-        if (! el.isJsonPrimitive()) {
+        if (el == null || ! el.isJsonPrimitive()) {
             return dflt;
         }
         return ((JsonPrimitive)el).getAsLong();
@@ -44,12 +44,23 @@ public class JsonUtil {
             return dflt;
         }
         JsonElement el = ((JsonObject)root).get(key);
-        if (! el.isJsonPrimitive()) {
+        if (el == null || ! el.isJsonPrimitive()) {
             return dflt;
         }
         return ((JsonPrimitive)el).getAsString();
     }
 
+    public static boolean getPrimitive(JsonElement root, String key, boolean dflt) {
+        if (! root.isJsonObject()) {
+            return dflt;
+        }
+        JsonElement el = ((JsonObject)root).get(key);
+        if (el == null || ! el.isJsonPrimitive()) {
+            return dflt;
+        }
+        return ((JsonPrimitive)el).getAsBoolean();
+    }
+
     public static List<String> jsonArrToStringList(JsonElement v) {
         List<String> vals = new ArrayList<>();
         if (! v.isJsonArray()) {
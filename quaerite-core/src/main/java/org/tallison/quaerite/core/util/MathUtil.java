@@ -29,12 +29,16 @@ import org.tallison.quaerite.core.stats.ExperimentScorePair;
 
 public class MathUtil {
 
-    public static ThreadLocalRandom RANDOM = ThreadLocalRandom.current();
     //used in the fitness proportion calculation
     //the smaller this value, the less weight goes to the less fit
     private static final double EPSILON = 0.001;
 
     public static float calcMutatedWeight(Float currentValue, float min, float max, double amplitude) {
+        return calcMutatedWeight(currentValue, min, max, amplitude, ThreadLocalRandom.current());
+    }
+
+    public static float calcMutatedWeight(Float currentValue, float min, float max, double amplitude,
+                                          Random random) {
         if (amplitude < 0 || amplitude > 1.0) {
             throw new IllegalArgumentException("amplitude must be >= 0 and <= 1");
         }
@@ -58,10 +62,15 @@ public class MathUtil {
         adjustedMin = (adjustedMin < min) ? min : adjustedMin;
         adjustedMax = (adjustedMax > max) ? max : adjustedMax;
 
-        return getRandomFloat(adjustedMin, adjustedMax);
+        return getRandomFloat(adjustedMin, adjustedMax, random);
     }
 
     public static int calcMutatedWeight(Integer currentValue, int min, int max, double amplitude) {
+        return calcMutatedWeight(currentValue, min, max, amplitude, ThreadLocalRandom.current());
+    }
+
+    public static int calcMutatedWeight(Integer currentValue, int min, int max, double amplitude,
+                                        Random random) {
         if (amplitude < 0 || amplitude > 1.0) {
             throw new IllegalArgumentException("amplitude must be >= 0 and <= 1");
         }
@@ -87,14 +96,18 @@ public class MathUtil {
         if (adjustedMin == adjustedMax) {
             return adjustedMin;
         }
-        return getRandomInt(adjustedMin, adjustedMax);
+        return getRandomInt(adjustedMin, adjustedMax, random);
     }
 
 
 
     public static float getRandomFloat(float min, float max) {
+        return getRandomFloat(min, max, ThreadLocalRandom.current());
+    }
+
+    public static float getRandomFloat(float min, float max, Random random) {
         //TODO -- fix potential overflow/underflow
-        return min + RANDOM.nextFloat() * (max - min);
+        return min + random.nextFloat() * (max - min);
     }
 
     public static List<ExperimentScorePair> calcFitnessProportions(List<ExperimentScorePair> scorePairs) {
@@ -124,7 +137,7 @@ public class MathUtil {
     }
 
     public static Experiment select(List<ExperimentScorePair> fitnessProportions) {
-        return select(fitnessProportions, RANDOM);
+        return select(fitnessProportions, ThreadLocalRandom.current());
     }
 
     public static boolean equals(float f1, float f2, float delta) {
@@ -140,7 +153,7 @@ public class MathUtil {
         }
         return false;
     }
-    static Experiment select(List<ExperimentScorePair> fitnessProportions, Random random) {
+    public static Experiment select(List<ExperimentScorePair> fitnessProportions, Random random) {
         double r = random.nextDouble();
         for (ExperimentScorePair p : fitnessProportions) {
             if ((r -= p.getScore()) < 0.0) {
@@ -151,10 +164,10 @@ public class MathUtil {
     }
 
     public static GAOperation nextGAOperation(GAConfig gaConfig) {
-        return nextGAOperation(gaConfig, RANDOM);
+        return nextGAOperation(gaConfig, ThreadLocalRandom.current());
     }
 
-    static GAOperation nextGAOperation(GAConfig gaConfig, Random random) {
+    public static GAOperation nextGAOperation(GAConfig gaConfig, Random random) {
         double r = random.nextDouble();
         if ((r -= gaConfig.getCrossoverProbability()) < 0.0) {
             return GAOperation.CROSSOVER;
@@ -166,6 +179,30 @@ public class MathUtil {
     }
 
     public static int getRandomInt(int min, int max) {
-        return RANDOM.nextInt(min, max);
+        return ThreadLocalRandom.current().nextInt(min, max);
+    }
+
+    /**
+     * Same as {@link ThreadLocalRandom#nextInt(int, int)} but for any Random.
+     *
+     * @param min inclusive
+     * @param max exclusive
+     * @param random
+     * @return
+     */
+    public static int getRandomInt(int min, int max, Random random) {
+        if (min >= max) {
+            throw new IllegalArgumentException("max (" + max + ") must be > min (" + min + ")");
+        }
+        int n = max - min;
+        if (n > 0) {
+            return min + random.nextInt(n);
+        }
+        //the range overflowed
+        int r = random.nextInt();
+        while (r < min || r >= max) {
+            r = random.nextInt();
+        }
+        return r;
     }
 }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.util;
+
+import java.util.Random;
+
+/**
+ * A seed that can be split into independent child seeds, e.g.
+ * run -&gt; fold -&gt; generation -&gt; individual.
+ * <p>
+ * A child's seed depends only on its parent's seed and its index, so the
+ * random numbers that, say, the fifth individual of a generation gets don't
+ * depend on how many random numbers were drawn for the other individuals
+ * or on which thread builds it.  Given the same root seed, a GA run makes the
+ * same choices every time.
+ * <p>
+ * The mixing function is SplitMix64's.
+ */
+public class SplittableSeed {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    //keeps a Random built from this seed from sharing a stream with a child
+    private static final long RANDOM_SALT = 0x632be59bd9b4e019L;
+
+    private final long seed;
+
+    public SplittableSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return a seed from a non-deterministic source
+     */
+    public static SplittableSeed newSeed() {
+        return new SplittableSeed(mix64(System.nanoTime()) ^ new Random().nextLong());
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param index index of the child, e.g. the fold or the generation
+     * @return the child seed for this index
+     */
+    public SplittableSeed split(long index) {
+        return new SplittableSeed(mix64(seed + GOLDEN_GAMMA * (index + 1)));
+    }
+
+    /**
+     * @return a new Random seeded from this seed; each call returns a
+     * Random that produces the same sequence.  A Random should be used by
+     * only one thread.
+     */
+    public Random newRandom() {
+        return new Random(mix64(seed ^ RANDOM_SALT));
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return "SplittableSeed{" +
+                "seed=" + seed +
+                '}';
+    }
+}
@@ -28,6 +28,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -340,4 +341,37 @@ public class TestExperimentSet {
         assertNull(peopleTitleExperiment.getServerConnection().getUser());
         assertNull(peopleTitleExperiment.getServerConnection().getPassword());
     }
+
+    @Test
+    public void testReplicas() throws Exception {
+        ExperimentSet experimentSet = loadRoundTripped("experiments_solr_replicas.json");
+        assertEquals(Arrays.asList("http://localhost:8983/solr/tmdb",
+                "http://localhost:8984/solr/tmdb", "http://solr2:8983/solr/tmdb"),
+                experimentSet.getExperiment("title").getServerConnection().getURLs());
+        assertEquals(1,
+                experimentSet.getExperiment("overview").getServerConnection().getURLs().size());
+    }
+
+    @Test
+    public void testCompress() throws Exception {
+        ExperimentSet experimentSet = loadRoundTripped("experiments_es_compress.json");
+        assertTrue(experimentSet.getExperiment("title").getServerConnection().isCompress());
+        assertFalse(experimentSet.getExperiment("overview").getServerConnection().isCompress());
+    }
+
+    //loads the test document and checks that it survives serialization;
+    //returns the deserialized copy
+    private static ExperimentSet loadRoundTripped(String testDocument) throws Exception {
+        ExperimentSet experimentSet = null;
+        try (Reader reader =
+                     new BufferedReader(new InputStreamReader(
+                             TestExperimentSet.class.getResourceAsStream(
+                                     "/test-documents/" + testDocument),
+                             StandardCharsets.UTF_8))) {
+            experimentSet = ExperimentSet.fromJson(reader);
+        }
+        ExperimentSet revivified = ExperimentSet.fromJson(new StringReader(experimentSet.toJson()));
+        assertEquals(experimentSet, revivified);
+        return revivified;
+    }
 }
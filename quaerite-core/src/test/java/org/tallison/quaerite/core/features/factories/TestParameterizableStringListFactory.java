@@ -46,8 +46,8 @@ public class TestParameterizableStringListFactory {
                 TestParam.class, paramString2));
         factories.add(new ParameterizableStringFactory("bf", "0",
                 TestParam.class, paramString3));
-        ParameterizableStringListFactory parameterizableStringListFactory =
-                new ParameterizableStringListFactory(
+        ParameterizableStringListFactory<TestParamList> parameterizableStringListFactory =
+                new ParameterizableStringListFactory<>(
                 "name", TestParamList.class, factories, 1, 3);
 
         int min = -1;
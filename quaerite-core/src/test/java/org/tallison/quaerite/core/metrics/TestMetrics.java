@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class TestMetrics {
+
+    @AfterEach
+    public void tearDown() {
+        Metrics.disable();
+        Metrics.reset();
+    }
+
+    @Test
+    public void testDisabled() {
+        Timer timer = Metrics.timer("test.disabled");
+        Counter counter = Metrics.counter("test.disabled");
+        long start = timer.start();
+        assertEquals(-1, start);
+        timer.stop(start);
+        counter.inc();
+        counter.add(10);
+        assertEquals(0, timer.getCount());
+        assertEquals(0, counter.getCount());
+    }
+
+    @Test
+    public void testCounter() {
+        Metrics.enable();
+        Counter counter = Metrics.counter("test.counter");
+        assertSame(counter, Metrics.counter("test.counter"));
+        counter.inc();
+        counter.add(10);
+        assertEquals(11, counter.getCount());
+        Metrics.reset();
+        assertEquals(0, counter.getCount());
+    }
+
+    @Test
+    public void testBuckets() {
+        long last = -1;
+        //the last bucket tops out at Long.MAX_VALUE
+        for (int i = 0; i < Timer.bucket(Long.MAX_VALUE); i++) {
+            long lower = Timer.lowerBound(i);
+            assertTrue(lower > last, "bucket " + i);
+            assertEquals(i, Timer.bucket(lower));
+            assertEquals(i, Timer.bucket(Timer.lowerBound(i + 1) - 1));
+            last = lower;
+        }
+        assertEquals(Timer.bucket(Long.MAX_VALUE), Timer.bucket(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testQuantiles() {
+        Metrics.enable();
+        Timer timer = Metrics.timer("test.quantiles");
+        for (int i = 1; i <= 1000; i++) {
+            timer.update(i * 1000000L);
+        }
+        Snapshot snapshot = timer.getSnapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1000000000L, snapshot.getMaxNanos());
+        assertEquals(500.5, timer.getMeanMillis(), 0.001);
+        //buckets are within 12.5% of the value
+        assertEquals(500.0, timer.getMedianMillis(), 500.0 * 0.125);
+        assertEquals(900.0, timer.get90thPercentileMillis(), 900.0 * 0.125);
+        assertEquals(990.0, timer.get99thPercentileMillis(), 990.0 * 0.125);
+        assertTrue(timer.get99thPercentileMillis() <= timer.getMaxMillis());
+        assertEquals(1000.0, timer.getMaxMillis(), 0.001);
+    }
+
+    @Test
+    public void testReporter() throws Exception {
+        Metrics.enable();
+        Metrics.timer("test.reporter").update(2000000);
+        Metrics.counter("test.reporter").add(3);
+        Path dir = Files.createTempDirectory("q-metrics-");
+        Path csv = dir.resolve("metrics.csv");
+        try {
+            try (MetricsReporter reporter = new MetricsReporter(csv)) {
+                reporter.report();
+            }
+            List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+            assertTrue(lines.get(0).startsWith("timestamp,type,name,count"));
+            int timers = 0;
+            int counters = 0;
+            for (String line : lines) {
+                String[] cols = line.split(",", -1);
+                if (cols[1].equals("timer") && cols[2].equals("test.reporter")) {
+                    assertEquals("1", cols[3]);
+                    timers++;
+                } else if (cols[1].equals("counter") && cols[2].equals("test.reporter")) {
+                    assertEquals("3", cols[3]);
+                    counters++;
+                }
+            }
+            //one from report() and one from close(); one header
+            assertEquals(2, timers);
+            assertEquals(2, counters);
+            assertEquals(1, lines.stream().filter(l -> l.startsWith("timestamp")).count());
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.delete(dir);
+        }
+    }
+}
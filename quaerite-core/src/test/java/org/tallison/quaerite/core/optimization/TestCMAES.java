@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.optimization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ExperimentFactory;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.queries.EDisMaxQuery;
+
+public class TestCMAES {
+
+    @Test
+    public void testConvergence() {
+        //correlated quadratic with the optimum at (0.2, 0.6, 0.9)
+        double[] target = new double[]{0.2, 0.6, 0.9};
+        CMAES cmaes = new CMAES(new double[]{0.5, 0.5, 0.5}, 0.3, -1, new Random(42));
+        assertEquals(CMAES.getDefaultLambda(3), cmaes.getLambda());
+        for (int g = 0; g < 100; g++) {
+            List<double[]> population = cmaes.ask();
+            double[] fitness = new double[population.size()];
+            for (int i = 0; i < population.size(); i++) {
+                double[] x = population.get(i);
+                for (double v : x) {
+                    assertTrue(v >= 0.0 && v <= 1.0);
+                }
+                double d0 = x[0] - target[0];
+                double d1 = x[1] - target[1];
+                double d2 = x[2] - target[2];
+                fitness[i] = -(d0 * d0 + 10 * (d0 + d1) * (d0 + d1) + d2 * d2);
+            }
+            cmaes.tell(population, fitness);
+        }
+        double[] mean = cmaes.getMean();
+        for (int i = 0; i < target.length; i++) {
+            assertEquals(target[i], mean[i], 0.01);
+        }
+    }
+
+    @Test
+    public void testParameterSpace() throws Exception {
+        ExperimentFactory experimentFactory = ExperimentFactory.fromJson(
+                newReader("/test-documents/experiment_features_solr_1.json"));
+        ContinuousParameterSpace space = new ContinuousParameterSpace(experimentFactory);
+        //4 qf fields + tie
+        assertEquals(5, space.getDimensions());
+        assertEquals("qf:title", space.getDimensionNames().get(0));
+        assertEquals("tie", space.getDimensionNames().get(4));
+
+        Experiment template = experimentFactory.generateRandomExperiment("template");
+        //qf weights range from 0 to 7; tie from 0 to 0.2
+        Experiment decoded = space.decode(template,
+                new double[]{1.0, 0.0, 0.5, 0.01, 0.5}, "decoded");
+        EDisMaxQuery q = (EDisMaxQuery) decoded.getQuery();
+        List<WeightableField> fields = q.getQF().getWeightableFields();
+        assertEquals(2, fields.size());
+        assertEquals("title", fields.get(0).getFeature());
+        assertEquals(7.0f, fields.get(0).getWeight(), 0.001);
+        assertEquals("people", fields.get(1).getFeature());
+        assertEquals(3.5f, fields.get(1).getWeight(), 0.001);
+        assertEquals(0.1f, q.getTie().getValue(), 0.001);
+        assertEquals(template.getServerConnection(), decoded.getServerConnection());
+
+        double[] encoded = space.encode(decoded);
+        assertEquals(1.0, encoded[0], 0.001);
+        assertEquals(0.0, encoded[1], 0.001);
+        assertEquals(0.5, encoded[2], 0.001);
+        assertEquals(0.0, encoded[3], 0.001);
+        assertEquals(0.5, encoded[4], 0.001);
+    }
+
+    private Reader newReader(String path) {
+        return new BufferedReader(
+                new InputStreamReader(
+                        TestCMAES.class.getResourceAsStream(path),
+                        StandardCharsets.UTF_8
+                )
+        );
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.optimization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.features.QF;
+import org.tallison.quaerite.core.features.TIE;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.queries.EDisMaxQuery;
+
+public class TestTreeParzenEstimator {
+
+    @Test
+    public void testVectorize() {
+        EDisMaxQuery q = new EDisMaxQuery();
+        QF qf = new QF();
+        qf.add(new WeightableField("title", 2.0f));
+        qf.add(new WeightableField("overview"));
+        q.setQF(qf);
+        q.setTie(new TIE(0.3f));
+        Experiment experiment = new Experiment("a",
+                new ServerConnection("http://localhost:8983/solr/tmdb"), q);
+        Map<String, Double> v = ExperimentVectorizer.vectorize(experiment);
+        assertEquals(2.0, v.get("/query/edismax/qf/title"), 0.0001);
+        assertEquals(1.0, v.get("/query/edismax/qf/overview"), 0.0001);
+        assertEquals(0.3, v.get("/query/edismax/tie"), 0.0001);
+        assertEquals(1.0,
+                v.get("/serverConnection/url=http://localhost:8983/solr/tmdb"), 0.0001);
+
+        //name is ignored
+        experiment.setName("b");
+        assertEquals(v, ExperimentVectorizer.vectorize(experiment));
+    }
+
+    @Test
+    public void testSelectBatch() {
+        //score peaks at x=0.7
+        TreeParzenEstimator tpe = new TreeParzenEstimator();
+        for (int i = 0; i <= 10; i++) {
+            double x = i / 10.0;
+            tpe.addObservation(vec(x), 1.0 - Math.abs(0.7 - x));
+        }
+        List<Map<String, Double>> candidates = new ArrayList<>();
+        candidates.add(vec(0.05));
+        candidates.add(vec(0.72));
+        candidates.add(vec(0.33));
+        candidates.add(vec(0.55));
+        //already observed
+        candidates.add(vec(0.7));
+
+        List<Integer> batch = tpe.selectBatch(candidates, 2);
+        assertEquals(2, batch.size());
+        assertEquals(1, (int) batch.get(0));
+        assertFalse(batch.contains(4));
+
+        //never return more than the unseen candidates
+        assertEquals(4, tpe.selectBatch(candidates, 10).size());
+    }
+
+    private static Map<String, Double> vec(double x) {
+        Map<String, Double> v = new HashMap<>();
+        v.put("x", x);
+        return v;
+    }
+}
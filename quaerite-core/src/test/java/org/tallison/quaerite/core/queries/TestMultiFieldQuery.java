@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.queries;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.features.WeightableField;
+
+public class TestMultiFieldQuery {
+
+    @Test
+    public void testEqualsIncludesQueryString() {
+        EDisMaxQuery red = new EDisMaxQuery("red");
+        red.getQF().add(new WeightableField("title^2"));
+        EDisMaxQuery blue = red.deepCopy();
+        blue.setQueryString("blue");
+
+        assertNotEquals(red, blue);
+
+        blue.setQueryString("red");
+        assertEquals(red, blue);
+        assertEquals(red.hashCode(), blue.hashCode());
+
+        blue.getQF().add(new WeightableField("overview"));
+        assertNotEquals(red, blue);
+    }
+}
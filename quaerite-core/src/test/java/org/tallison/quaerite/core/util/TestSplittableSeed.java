@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.core.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.ExperimentFactory;
+
+public class TestSplittableSeed {
+
+    @Test
+    public void testSplit() {
+        SplittableSeed run = new SplittableSeed(42L);
+        assertEquals(run.split(3).split(-1).getSeed(),
+                new SplittableSeed(42L).split(3).split(-1).getSeed());
+        assertEquals(run.newRandom().nextLong(), run.newRandom().nextLong());
+
+        Set<Long> seeds = new HashSet<>();
+        for (int fold = 0; fold < 5; fold++) {
+            for (int gen = -1; gen < 20; gen++) {
+                for (int i = 0; i < 50; i++) {
+                    seeds.add(run.split(fold).split(gen).split(i).getSeed());
+                }
+            }
+        }
+        assertEquals(5 * 21 * 50, seeds.size());
+        assertNotEquals(run.split(1).split(2).getSeed(), run.split(2).split(1).getSeed());
+    }
+
+    @Test
+    public void testReproducibleOperators() throws Exception {
+        ExperimentFactory experimentFactory = ExperimentFactory.fromJson(
+                newReader("/test-documents/experiment_features_solr_1.json"));
+        SplittableSeed generation = new SplittableSeed(12345L).split(0).split(7);
+        for (int i = 0; i < 20; i++) {
+            Experiment a = experimentFactory.generateRandomExperiment("a",
+                    generation.split(i).newRandom());
+            Experiment b = experimentFactory.generateRandomExperiment("a",
+                    generation.split(i).newRandom());
+            assertEquals(a.toJson(), b.toJson());
+
+            Experiment mutatedA = experimentFactory.mutate(a, 0.8f, 0.8f,
+                    generation.split(i + 100).newRandom());
+            Experiment mutatedB = experimentFactory.mutate(b, 0.8f, 0.8f,
+                    generation.split(i + 100).newRandom());
+            assertEquals(mutatedA.toJson(), mutatedB.toJson());
+
+            Pair<Experiment, Experiment> childrenA = experimentFactory.crossover(a, mutatedA,
+                    generation.split(i + 200).newRandom());
+            Pair<Experiment, Experiment> childrenB = experimentFactory.crossover(b, mutatedB,
+                    generation.split(i + 200).newRandom());
+            assertEquals(childrenA.getLeft().toJson(), childrenB.getLeft().toJson());
+            assertEquals(childrenA.getRight().toJson(), childrenB.getRight().toJson());
+        }
+    }
+
+    private Reader newReader(String path) {
+        return new BufferedReader(
+                new InputStreamReader(
+                        TestSplittableSeed.class.getResourceAsStream(path),
+                        StandardCharsets.UTF_8
+                )
+        );
+    }
+}
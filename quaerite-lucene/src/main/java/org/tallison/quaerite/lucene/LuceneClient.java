@@ -0,0 +1,437 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.lucene;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopDocsCollector;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.tallison.quaerite.connectors.IdGrabber;
+import org.tallison.quaerite.connectors.QueryRequest;
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.core.FacetResult;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.StoredDocument;
+import org.tallison.quaerite.core.stats.TokenDF;
+import org.tallison.quaerite.core.stats.TokenDFTF;
+
+/**
+ * SearchClient over a local Lucene index, for evaluating experiments
+ * in process without a search server.  The url is the index
+ * directory with a lucene: prefix, e.g. lucene:/data/tmdb_index.
+ * <p>
+ * The index can be populated with {@link #addDocuments(List)}, e.g.
+ * with CopyIndex from Solr or Elasticsearch, and the fields are
+ * configured by the {@link LuceneSchema} in the index directory.
+ * <p>
+ * Like the other clients, each thread should have its own client;
+ * the clients for a directory share one index and searcher.
+ */
+public class LuceneClient extends SearchClient {
+
+    public static final String URL_PREFIX = "lucene:";
+
+    private final LuceneIndex index;
+    private final LuceneSchema schema;
+    private final LuceneQueryBuilder queryBuilder;
+
+    public LuceneClient(String url) throws IOException {
+        this(getIndexDir(url));
+    }
+
+    public LuceneClient(Path indexDir) throws IOException {
+        super(null);
+        this.index = LuceneIndex.open(indexDir);
+        this.schema = index.getSchema();
+        this.queryBuilder = new LuceneQueryBuilder(schema);
+    }
+
+    public static boolean isLuceneUrl(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    static Path getIndexDir(String url) {
+        if (!isLuceneUrl(url)) {
+            throw new IllegalArgumentException("url must start with '" +
+                    URL_PREFIX + "': " + url);
+        }
+        String path = url.substring(URL_PREFIX.length());
+        if (path.startsWith("//")) {
+            path = path.substring(2);
+        }
+        return Paths.get(path);
+    }
+
+    @Override
+    public SearchResultSet search(QueryRequest request) throws SearchClientException, IOException {
+        long start = System.currentTimeMillis();
+        Query query = queryBuilder.build(request.getQuery(), request.getFilterQueries());
+        int numHits = request.getStart() + request.getNumResults();
+        IndexSearcher searcher = index.acquire();
+        try {
+            if (numHits == 0) {
+                long totalHits = searcher.count(query);
+                long elapsed = System.currentTimeMillis() - start;
+                return new SearchResultSet(totalHits, elapsed, elapsed, Collections.EMPTY_LIST);
+            }
+            TopDocsCollector<?> collector;
+            if (request.getSortField() != null) {
+                collector = TopFieldCollector.create(getSort(request), numHits, Integer.MAX_VALUE);
+            } else {
+                collector = TopScoreDocCollector.create(numHits, Integer.MAX_VALUE);
+            }
+            searcher.search(query, collector);
+            TopDocs topDocs = collector.topDocs(request.getStart(), request.getNumResults());
+            Set<String> fields = new HashSet<>(request.getFieldsToRetrieve());
+            List<StoredDocument> documents = new ArrayList<>();
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                documents.add(toStoredDocument(searcher.doc(scoreDoc.doc), fields,
+                        Collections.EMPTY_SET));
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            return new SearchResultSet(topDocs.totalHits.value, elapsed, elapsed, documents);
+        } finally {
+            index.release(searcher);
+        }
+    }
+
+    private Sort getSort(QueryRequest request) throws SearchClientException {
+        String field = request.getSortField();
+        if (!schema.isKeyword(field)) {
+            throw new SearchClientException("can only sort on keyword fields: " + field);
+        }
+        return new Sort(new SortedSetSortField(field,
+                request.getSortOrder() == QueryRequest.SORT_ORDER.DESC));
+    }
+
+    @Override
+    public FacetResult facet(QueryRequest request) throws SearchClientException, IOException {
+        String field = request.getFacetField();
+        if (!schema.isKeyword(field)) {
+            throw new SearchClientException("can only facet on keyword fields: " + field);
+        }
+        Query query = queryBuilder.build(request.getQuery(), request.getFilterQueries());
+        FacetCollector collector = new FacetCollector(field);
+        IndexSearcher searcher = index.acquire();
+        try {
+            searcher.search(query, collector);
+            collector.flush();
+        } finally {
+            index.release(searcher);
+        }
+        if (collector.missing > 0) {
+            collector.counts.merge("null", collector.missing, Long::sum);
+        }
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(collector.counts.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> e : entries) {
+            if (request.getFacetLimit() > 0 && counts.size() >= request.getFacetLimit()) {
+                break;
+            }
+            counts.put(e.getKey(), e.getValue());
+        }
+        return new FacetResult(collector.totalDocs, counts);
+    }
+
+    @Override
+    public void addDocuments(List<StoredDocument> documents)
+            throws IOException, SearchClientException {
+        index.addDocuments(documents);
+    }
+
+    @Override
+    public List<StoredDocument> getDocs(String idField, Set<String> ids,
+                                        Set<String> includeFields,
+                                        Set<String> excludeFields)
+            throws IOException, SearchClientException {
+        List<StoredDocument> documents = new ArrayList<>();
+        if (ids.size() == 0) {
+            return documents;
+        }
+        List<BytesRef> terms = new ArrayList<>();
+        for (String id : ids) {
+            terms.add(new BytesRef(id));
+        }
+        IndexSearcher searcher = index.acquire();
+        try {
+            TopDocs topDocs = searcher.search(
+                    new org.apache.lucene.search.TermInSetQuery(idField, terms), ids.size());
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                documents.add(toStoredDocument(searcher.doc(scoreDoc.doc),
+                        includeFields, excludeFields));
+            }
+        } finally {
+            index.release(searcher);
+        }
+        return documents;
+    }
+
+    private StoredDocument toStoredDocument(Document document, Set<String> includeFields,
+                                            Set<String> excludeFields) {
+        StoredDocument storedDocument = new StoredDocument(document.get(schema.getIdField()));
+        for (IndexableField f : document.getFields()) {
+            String name = f.name();
+            if ((includeFields.size() == 0 || includeFields.contains(name)) &&
+                    !excludeFields.contains(name)) {
+                storedDocument.addNonBlankField(name, f.stringValue());
+            }
+        }
+        return storedDocument;
+    }
+
+    @Override
+    public Collection<? extends String> getCopyFields() {
+        return Collections.EMPTY_SET;
+    }
+
+    @Override
+    public String getDefaultIdField() {
+        return schema.getIdField();
+    }
+
+    @Override
+    public String getIndexVersion() throws IOException {
+        return index.getVersion();
+    }
+
+    @Override
+    public void deleteAll() throws IOException {
+        index.deleteAll();
+    }
+
+    @Override
+    public IdGrabber getIdGrabber(ArrayBlockingQueue<Set<String>> ids, int batchSize,
+                                  int copierThreads,
+                                  Collection<org.tallison.quaerite.core.queries.Query>
+                                          filterQueries) {
+        return new LuceneIdGrabber(getDefaultIdField(), ids, batchSize,
+                copierThreads, filterQueries);
+    }
+
+    @Override
+    public Set<String> getSystemInternalFields() {
+        return Collections.EMPTY_SET;
+    }
+
+    /**
+     * Runs the field's analyzer locally.
+     */
+    @Override
+    protected List<String> doAnalyze(String field, String string) throws SearchClientException {
+        return queryBuilder.analyze(field, string);
+    }
+
+    /**
+     * Like Solr's terms component: terms in index order after the
+     * lower bound (exclusive), with their document frequencies.
+     */
+    @Override
+    public List<TokenDF> getTerms(String field, String lower, int limit, int minCount,
+                                  boolean includeTf) throws IOException {
+        List<TokenDF> tokens = new ArrayList<>();
+        IndexSearcher searcher = index.acquire();
+        try {
+            Terms terms = MultiTerms.getTerms(searcher.getIndexReader(), field);
+            if (terms == null) {
+                return tokens;
+            }
+            TermsEnum termsEnum = terms.iterator();
+            BytesRef term;
+            if (lower == null || lower.isEmpty()) {
+                term = termsEnum.next();
+            } else {
+                BytesRef lowerBytes = new BytesRef(lower);
+                TermsEnum.SeekStatus status = termsEnum.seekCeil(lowerBytes);
+                if (status == TermsEnum.SeekStatus.END) {
+                    term = null;
+                } else if (status == TermsEnum.SeekStatus.FOUND) {
+                    term = termsEnum.next();
+                } else {
+                    term = termsEnum.term();
+                }
+            }
+            while (term != null && (limit < 0 || tokens.size() < limit)) {
+                int df = termsEnum.docFreq();
+                if (df >= minCount) {
+                    if (includeTf) {
+                        tokens.add(new TokenDFTF(term.utf8ToString(), df,
+                                termsEnum.totalTermFreq()));
+                    } else {
+                        tokens.add(new TokenDF(term.utf8ToString(), df));
+                    }
+                }
+                term = termsEnum.next();
+            }
+        } finally {
+            index.release(searcher);
+        }
+        return tokens;
+    }
+
+    /**
+     * Releases this client's hold on the index; the index is committed
+     * and closed when its last client is closed.
+     */
+    @Override
+    public void close() throws IOException {
+        index.close();
+    }
+
+    //counts the values of a keyword field in the matching documents
+    private static class FacetCollector extends SimpleCollector {
+        private final String field;
+        private final Map<String, Long> counts = new HashMap<>();
+        private long totalDocs = 0;
+        private long missing = 0;
+        private SortedSetDocValues docValues;
+        private long[] leafCounts;
+
+        FacetCollector(String field) {
+            this.field = field;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            flush();
+            docValues = DocValues.getSortedSet(context.reader(), field);
+            leafCounts = new long[(int) docValues.getValueCount()];
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            totalDocs++;
+            if (!docValues.advanceExact(doc)) {
+                missing++;
+                return;
+            }
+            long ord = docValues.nextOrd();
+            while (ord != SortedSetDocValues.NO_MORE_ORDS) {
+                leafCounts[(int) ord]++;
+                ord = docValues.nextOrd();
+            }
+        }
+
+        //ordinals are per segment, so map them to values at the end of each segment
+        void flush() throws IOException {
+            if (leafCounts == null) {
+                return;
+            }
+            for (int ord = 0; ord < leafCounts.length; ord++) {
+                if (leafCounts[ord] > 0) {
+                    counts.merge(docValues.lookupOrd(ord).utf8ToString(),
+                            leafCounts[ord], Long::sum);
+                }
+            }
+            leafCounts = null;
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+
+    private class LuceneIdGrabber extends IdGrabber {
+
+        LuceneIdGrabber(String idField, ArrayBlockingQueue<Set<String>> ids, int batchSize,
+                        int copierThreads,
+                        Collection<org.tallison.quaerite.core.queries.Query> filterQueries) {
+            super(idField, ids, batchSize, copierThreads, filterQueries);
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            IndexSearcher searcher = index.acquire();
+            try {
+                BooleanQuery.Builder builder = new BooleanQuery.Builder();
+                builder.add(new org.apache.lucene.search.MatchAllDocsQuery(),
+                        BooleanClause.Occur.MUST);
+                for (org.tallison.quaerite.core.queries.Query fq : filterQueries) {
+                    builder.add(queryBuilder.build(fq), BooleanClause.Occur.FILTER);
+                }
+                Weight weight = searcher.createWeight(searcher.rewrite(builder.build()),
+                        ScoreMode.COMPLETE_NO_SCORES, 1.0f);
+                Set<String> set = new HashSet<>();
+                for (LeafReaderContext context : searcher.getIndexReader().leaves()) {
+                    Scorer scorer = weight.scorer(context);
+                    if (scorer == null) {
+                        continue;
+                    }
+                    Bits liveDocs = context.reader().getLiveDocs();
+                    SortedSetDocValues idValues =
+                            DocValues.getSortedSet(context.reader(), idField);
+                    DocIdSetIterator iterator = scorer.iterator();
+                    int doc = iterator.nextDoc();
+                    while (doc != DocIdSetIterator.NO_MORE_DOCS) {
+                        if ((liveDocs == null || liveDocs.get(doc)) &&
+                                idValues.advanceExact(doc)) {
+                            set.add(idValues.lookupOrd(idValues.nextOrd()).utf8ToString());
+                            if (set.size() >= batchSize) {
+                                addSet(ids, set);
+                                set = new HashSet<>();
+                            }
+                        }
+                        doc = iterator.nextDoc();
+                    }
+                }
+                addSet(ids, set);
+            } finally {
+                index.release(searcher);
+                addPoison();
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.lucene;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.tallison.quaerite.core.StoredDocument;
+
+/**
+ * A local index that is shared by all of the {@link LuceneClient}s
+ * for the same directory in this jvm, so that searches from many
+ * threads go through one searcher.
+ * <p>
+ * An existing index is opened read only; the writer, and its
+ * write lock, are only taken when documents are added or deleted.
+ * Changes are visible to searches as soon as they're added and are
+ * committed when the last client closes the index.
+ * <p>
+ * This is thread safe.
+ */
+class LuceneIndex implements Closeable {
+
+    static Logger LOG = LogManager.getLogger(LuceneIndex.class);
+
+    private static final Map<Path, LuceneIndex> INDICES = new HashMap<>();
+
+    private final Path path;
+    private final LuceneSchema schema;
+    private final Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private int refCount = 0;
+
+    /**
+     * Opens the index or increments the reference count
+     * if it is already open.  Each call must be matched by a call
+     * to {@link #close()}.
+     */
+    static LuceneIndex open(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        synchronized (INDICES) {
+            LuceneIndex index = INDICES.get(key);
+            if (index == null) {
+                index = new LuceneIndex(key);
+                INDICES.put(key, index);
+            }
+            index.refCount++;
+            return index;
+        }
+    }
+
+    private LuceneIndex(Path path) throws IOException {
+        this.path = path;
+        this.schema = LuceneSchema.load(path);
+        this.directory = FSDirectory.open(path);
+        if (DirectoryReader.indexExists(directory)) {
+            searcherManager = new SearcherManager(directory, null);
+        } else {
+            openWriter();
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    LuceneSchema getSchema() {
+        return schema;
+    }
+
+    synchronized IndexSearcher acquire() throws IOException {
+        return searcherManager.acquire();
+    }
+
+    void release(IndexSearcher searcher) throws IOException {
+        //the searcher may have come from a manager that has since been replaced
+        searcher.getIndexReader().decRef();
+    }
+
+    /**
+     * Adds the documents, replacing any documents with the same ids.
+     */
+    synchronized void addDocuments(List<StoredDocument> documents) throws IOException {
+        IndexWriter w = openWriter();
+        String idField = schema.getIdField();
+        for (StoredDocument storedDocument : documents) {
+            w.updateDocument(new Term(idField, storedDocument.getId()),
+                    toLucene(storedDocument));
+        }
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    synchronized void deleteAll() throws IOException {
+        IndexWriter w = openWriter();
+        w.deleteAll();
+        w.commit();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    synchronized void commit() throws IOException {
+        if (writer != null) {
+            writer.commit();
+        }
+    }
+
+    /**
+     * @return the version of the reader that is currently searched;
+     * this changes with every change to the index
+     */
+    String getVersion() throws IOException {
+        IndexSearcher searcher = acquire();
+        try {
+            return Long.toString(((DirectoryReader) searcher.getIndexReader()).getVersion());
+        } finally {
+            release(searcher);
+        }
+    }
+
+    private IndexWriter openWriter() throws IOException {
+        if (writer != null) {
+            return writer;
+        }
+        IndexWriterConfig config = new IndexWriterConfig(schema.getAnalyzer());
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        //so that the index can be opened again with the same schema
+        schema.save(path);
+        if (searcherManager != null) {
+            searcherManager.close();
+        }
+        searcherManager = new SearcherManager(writer, null);
+        return writer;
+    }
+
+    private Document toLucene(StoredDocument storedDocument) {
+        Document document = new Document();
+        String idField = schema.getIdField();
+        addKeyword(document, idField, storedDocument.getId());
+        for (Map.Entry<String, Object> e : storedDocument.getFields().entrySet()) {
+            String field = e.getKey();
+            if (field.equals(idField)) {
+                continue;
+            }
+            List<?> values = (e.getValue() instanceof List) ?
+                    (List<?>) e.getValue() : Collections.singletonList(e.getValue());
+            for (Object value : values) {
+                if (value == null) {
+                    continue;
+                }
+                if (schema.isKeyword(field)) {
+                    addKeyword(document, field, value.toString());
+                } else {
+                    document.add(new TextField(field, value.toString(), Field.Store.YES));
+                }
+            }
+        }
+        return document;
+    }
+
+    private static void addKeyword(Document document, String field, String value) {
+        document.add(new StringField(field, value, Field.Store.YES));
+        //for sorting, faceting and grabbing ids
+        document.add(new SortedSetDocValuesField(field, new BytesRef(value)));
+    }
+
+    /**
+     * Decrements the reference count and closes the index,
+     * committing any changes, when it reaches 0.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (INDICES) {
+            if (--refCount > 0) {
+                return;
+            }
+            INDICES.remove(path);
+        }
+        synchronized (this) {
+            try {
+                searcherManager.close();
+                if (writer != null) {
+                    writer.commit();
+                    writer.close();
+                }
+            } finally {
+                directory.close();
+            }
+        }
+        LOG.debug("closed lucene index: " + path);
+    }
+}
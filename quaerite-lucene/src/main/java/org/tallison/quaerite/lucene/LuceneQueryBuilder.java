@@ -0,0 +1,420 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.lucene;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.QueryBuilder;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.core.features.Fuzziness;
+import org.tallison.quaerite.core.features.ParameterizableString;
+import org.tallison.quaerite.core.features.ParameterizableStringListFeature;
+import org.tallison.quaerite.core.features.QueryOperator;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.features.WeightableListFeature;
+import org.tallison.quaerite.core.queries.DisMaxQuery;
+import org.tallison.quaerite.core.queries.EDisMaxQuery;
+import org.tallison.quaerite.core.queries.LuceneQuery;
+import org.tallison.quaerite.core.queries.MultiMatchQuery;
+import org.tallison.quaerite.core.queries.TermsQuery;
+
+/**
+ * Translates quaerite queries into Lucene queries that approximate
+ * what Solr and Elasticsearch build for the same request.
+ * <p>
+ * dismax, edismax and cross_fields multi_match are term-centric: the
+ * query string is split on whitespace, each term becomes a
+ * disjunction max across the fields, and the terms are combined with
+ * the operator or minimum should match (Solr's sow=true).  Query syntax
+ * in dismax/edismax query strings is not parsed, and function
+ * boosts (bf, boost) aren't supported.
+ */
+class LuceneQueryBuilder {
+
+    private final Analyzer analyzer;
+    private final QueryBuilder queryBuilder;
+
+    LuceneQueryBuilder(LuceneSchema schema) {
+        this.analyzer = schema.getAnalyzer();
+        this.queryBuilder = new QueryBuilder(analyzer);
+    }
+
+    Query build(org.tallison.quaerite.core.queries.Query query) throws SearchClientException {
+        if (query instanceof MultiMatchQuery) {
+            return buildMultiMatch((MultiMatchQuery) query);
+        } else if (query instanceof EDisMaxQuery) {
+            return buildDisMax((DisMaxQuery) query, true);
+        } else if (query instanceof DisMaxQuery) {
+            return buildDisMax((DisMaxQuery) query, false);
+        } else if (query instanceof TermsQuery) {
+            TermsQuery termsQuery = (TermsQuery) query;
+            List<BytesRef> terms = new ArrayList<>();
+            for (String t : termsQuery.getTerms()) {
+                terms.add(new BytesRef(t));
+            }
+            return new TermInSetQuery(termsQuery.getField(), terms);
+        } else if (query instanceof org.tallison.quaerite.core.queries.TermQuery) {
+            org.tallison.quaerite.core.queries.TermQuery termQuery =
+                    (org.tallison.quaerite.core.queries.TermQuery) query;
+            return new TermQuery(new Term(termQuery.getField(), termQuery.getTerm()));
+        } else if (query instanceof org.tallison.quaerite.core.queries.MatchAllDocsQuery) {
+            return new MatchAllDocsQuery();
+        } else if (query instanceof LuceneQuery) {
+            LuceneQuery luceneQuery = (LuceneQuery) query;
+            return parse(luceneQuery.getDefaultField(), luceneQuery.getQueryString(),
+                    luceneQuery.getQueryOperator());
+        } else if (query instanceof org.tallison.quaerite.core.queries.BooleanQuery) {
+            return buildBoolean((org.tallison.quaerite.core.queries.BooleanQuery) query);
+        }
+        throw new SearchClientException("I regret that the lucene client doesn't yet support: " +
+                query.getName());
+    }
+
+    /**
+     * @return the query and the filter queries as required, non-scoring clauses
+     */
+    Query build(org.tallison.quaerite.core.queries.Query query,
+                List<org.tallison.quaerite.core.queries.Query> filterQueries)
+            throws SearchClientException {
+        Query q = build(query);
+        if (filterQueries.size() == 0) {
+            return q;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(q, BooleanClause.Occur.MUST);
+        for (org.tallison.quaerite.core.queries.Query fq : filterQueries) {
+            builder.add(build(fq), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    private Query buildBoolean(org.tallison.quaerite.core.queries.BooleanQuery bq)
+            throws SearchClientException {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        int should = 0;
+        boolean positive = false;
+        for (org.tallison.quaerite.core.queries.BooleanClause clause : bq.getClauses()) {
+            BooleanClause.Occur occur;
+            switch (clause.getOccur()) {
+                case MUST:
+                    occur = BooleanClause.Occur.MUST;
+                    positive = true;
+                    break;
+                case MUST_NOT:
+                    occur = BooleanClause.Occur.MUST_NOT;
+                    break;
+                case FILTER:
+                    occur = BooleanClause.Occur.FILTER;
+                    positive = true;
+                    break;
+                default:
+                    occur = BooleanClause.Occur.SHOULD;
+                    positive = true;
+                    should++;
+            }
+            builder.add(build(clause.getQuery()), occur);
+        }
+        if (!positive) {
+            //like es, a bool with only must_not clauses matches everything else
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER);
+        }
+        Float msm = bq.getMinShouldMatch();
+        if (msm != null) {
+            int mm = (msm < 1.0f) ? (int) (should * msm) : msm.intValue();
+            builder.setMinimumNumberShouldMatch(Math.min(mm, should));
+        }
+        return builder.build();
+    }
+
+    private Query buildMultiMatch(MultiMatchQuery query) throws SearchClientException {
+        String type = query.getMultiMatchType().getFeature();
+        String text = query.getQueryString();
+        QueryOperator qop = query.getQueryOperator();
+        float tie = (query.getTie() == null) ? 0.0f : query.getTie().getValue();
+        Query q;
+        if ("cross_fields".equals(type)) {
+            q = buildTermCentric(text, query.getQF(), tie, qop, false);
+        } else {
+            List<Query> fieldQueries = new ArrayList<>();
+            for (WeightableField field : query.getQF().getWeightableFields()) {
+                Query fieldQuery;
+                if ("phrase".equals(type)) {
+                    fieldQuery = queryBuilder.createPhraseQuery(field.getFeature(), text, 0);
+                } else {
+                    fieldQuery = applyMinShouldMatch(
+                            buildMatch(field.getFeature(), text, getOccur(qop, false),
+                                    query.getFuzziness()), qop);
+                }
+                if (fieldQuery != null) {
+                    fieldQueries.add(boost(fieldQuery, field.getWeight()));
+                }
+            }
+            if (fieldQueries.size() == 0) {
+                q = null;
+            } else if ("most_fields".equals(type)) {
+                BooleanQuery.Builder builder = new BooleanQuery.Builder();
+                for (Query fieldQuery : fieldQueries) {
+                    builder.add(fieldQuery, BooleanClause.Occur.SHOULD);
+                }
+                q = builder.build();
+            } else {
+                //best_fields and phrase
+                q = new DisjunctionMaxQuery(fieldQueries, tie);
+            }
+        }
+        if (q == null) {
+            return new MatchNoDocsQuery("no terms in: " + text);
+        }
+        return boost(q, query.getBoost().getValue());
+    }
+
+    private Query buildDisMax(DisMaxQuery query, boolean edismax) throws SearchClientException {
+        String text = query.getQueryString();
+        QueryOperator qop = query.getQueryOperator();
+        float tie = (query.getTie() == null) ? 0.0f : query.getTie().getValue();
+        //dismax defaults to mm=100%; edismax to q.op=OR
+        Query main = buildTermCentric(text, query.getQF(), tie, qop, !edismax);
+        if (main == null) {
+            return new MatchNoDocsQuery("no terms in: " + text);
+        }
+        if (hasStrings(query.getBF()) || hasStrings(query.getBoost())) {
+            throw new SearchClientException("I regret that the lucene client " +
+                    "doesn't support function boosts (bf, boost)");
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(main, BooleanClause.Occur.MUST);
+        int boosts = 0;
+        String[] terms = splitOnWhitespace(text);
+        int ps = (query.getPS() == null) ? 0 : query.getPS().getValue();
+        if (terms.length > 1) {
+            boosts += addPhraseBoosts(builder, query.getPF(), terms, terms.length, ps);
+        }
+        if (edismax) {
+            EDisMaxQuery eDisMaxQuery = (EDisMaxQuery) query;
+            int ps2 = (eDisMaxQuery.getPs2() == null) ? ps : eDisMaxQuery.getPs2().getValue();
+            int ps3 = (eDisMaxQuery.getPs3() == null) ? ps : eDisMaxQuery.getPs3().getValue();
+            boosts += addPhraseBoosts(builder, eDisMaxQuery.getPf2(), terms, 2, ps2);
+            boosts += addPhraseBoosts(builder, eDisMaxQuery.getPf3(), terms, 3, ps3);
+        }
+        if (hasStrings(query.getBQ())) {
+            String defaultField = query.getQF().get(0).getFeature();
+            for (ParameterizableString bq : query.getBQ().getParameterizableStrings()) {
+                builder.add(parse(defaultField, bq.toString(), QueryOperator.OPERATOR.OR),
+                        BooleanClause.Occur.SHOULD);
+                boosts++;
+            }
+        }
+        return (boosts == 0) ? main : builder.build();
+    }
+
+    /**
+     * Adds, per field, a boost for each run of shingleSize terms as a
+     * phrase with the given slop.
+     *
+     * @return the number of clauses that were added
+     */
+    private int addPhraseBoosts(BooleanQuery.Builder builder, WeightableListFeature fields,
+                                String[] terms, int shingleSize, int slop) {
+        if (fields == null || terms.length < shingleSize) {
+            return 0;
+        }
+        int added = 0;
+        for (WeightableField field : fields.getWeightableFields()) {
+            BooleanQuery.Builder shingles = new BooleanQuery.Builder();
+            int clauses = 0;
+            for (int i = 0; i + shingleSize <= terms.length; i++) {
+                String shingle = StringUtils.join(terms, ' ', i, i + shingleSize);
+                Query phrase = queryBuilder.createPhraseQuery(field.getFeature(), shingle, slop);
+                if (phrase != null) {
+                    shingles.add(phrase, BooleanClause.Occur.SHOULD);
+                    clauses++;
+                }
+            }
+            if (clauses > 0) {
+                builder.add(boost(shingles.build(), field.getWeight()),
+                        BooleanClause.Occur.SHOULD);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @return a disjunction max across the fields for each whitespace
+     * delimited term, combined by the operator, or null if none of the
+     * terms survive analysis
+     */
+    private Query buildTermCentric(String text, WeightableListFeature qf, float tie,
+                                   QueryOperator qop, boolean andByDefault) {
+        BooleanClause.Occur occur = getOccur(qop, andByDefault);
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        int clauses = 0;
+        for (String term : splitOnWhitespace(text)) {
+            List<Query> fieldQueries = new ArrayList<>();
+            for (WeightableField field : qf.getWeightableFields()) {
+                Query fieldQuery = queryBuilder.createBooleanQuery(field.getFeature(), term);
+                if (fieldQuery != null) {
+                    fieldQueries.add(boost(fieldQuery, field.getWeight()));
+                }
+            }
+            if (fieldQueries.size() > 0) {
+                builder.add(new DisjunctionMaxQuery(fieldQueries, tie), occur);
+                clauses++;
+            }
+        }
+        if (clauses == 0) {
+            return null;
+        }
+        return applyMinShouldMatch(builder.build(), qop);
+    }
+
+    private Query buildMatch(String field, String text, BooleanClause.Occur occur,
+                             Fuzziness fuzziness) throws SearchClientException {
+        String fuzzy = (fuzziness == null) ? Fuzziness.DEFAULT_FUZZINESS : fuzziness.getFeature();
+        if (Fuzziness.DEFAULT_FUZZINESS.equals(fuzzy)) {
+            return queryBuilder.createBooleanQuery(field, text, occur);
+        }
+        List<String> tokens = analyze(field, text);
+        if (tokens.size() == 0) {
+            return null;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String token : tokens) {
+            int edits = getMaxEdits(fuzzy, token);
+            Term term = new Term(field, token);
+            builder.add((edits == 0) ? new TermQuery(term) : new FuzzyQuery(term, edits), occur);
+        }
+        return builder.build();
+    }
+
+    private Query parse(String defaultField, String queryString,
+                        QueryOperator.OPERATOR operator) throws SearchClientException {
+        QueryParser parser = new QueryParser(defaultField, analyzer);
+        parser.setDefaultOperator(operator == QueryOperator.OPERATOR.AND ?
+                QueryParser.Operator.AND : QueryParser.Operator.OR);
+        try {
+            return parser.parse(queryString);
+        } catch (ParseException e) {
+            throw new SearchClientException(e);
+        }
+    }
+
+    List<String> analyze(String field, String text) throws SearchClientException {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream ts = analyzer.tokenStream(field, text)) {
+            CharTermAttribute termAtt = ts.addAttribute(CharTermAttribute.class);
+            ts.reset();
+            while (ts.incrementToken()) {
+                tokens.add(termAtt.toString());
+            }
+            ts.end();
+        } catch (IOException e) {
+            throw new SearchClientException(e);
+        }
+        return tokens;
+    }
+
+    private static BooleanClause.Occur getOccur(QueryOperator qop, boolean andByDefault) {
+        if (qop == null || qop.getOperator() == QueryOperator.OPERATOR.UNSPECIFIED) {
+            return andByDefault ? BooleanClause.Occur.MUST : BooleanClause.Occur.SHOULD;
+        }
+        return (qop.getOperator() == QueryOperator.OPERATOR.AND) ?
+                BooleanClause.Occur.MUST : BooleanClause.Occur.SHOULD;
+    }
+
+    /**
+     * Applies the mm to a boolean query of optional clauses, the way
+     * Solr does: a negative mm is the number or percentage of
+     * clauses that may be missing.
+     */
+    private static Query applyMinShouldMatch(Query query, QueryOperator qop) {
+        if (qop == null || qop.getOperator() != QueryOperator.OPERATOR.OR ||
+                qop.getMM() == QueryOperator.MM.NONE || !(query instanceof BooleanQuery)) {
+            return query;
+        }
+        BooleanQuery bq = (BooleanQuery) query;
+        int optional = 0;
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (BooleanClause clause : bq.clauses()) {
+            if (clause.getOccur() == BooleanClause.Occur.SHOULD) {
+                optional++;
+            }
+            builder.add(clause);
+        }
+        int mm;
+        if (qop.getMM() == QueryOperator.MM.INTEGER) {
+            int v = qop.getInt();
+            mm = (v < 0) ? optional + v : v;
+        } else {
+            float f = qop.getMmFloat();
+            int calc = (int) (optional * Math.abs(f));
+            mm = (f < 0) ? optional - calc : calc;
+        }
+        builder.setMinimumNumberShouldMatch(Math.max(0, Math.min(mm, optional)));
+        return builder.build();
+    }
+
+    //like es' AUTO: 0 edits for 1-2 characters, 1 for 3-5 and 2 for longer terms
+    private static int getMaxEdits(String fuzziness, String token) throws SearchClientException {
+        if ("AUTO".equals(fuzziness.toUpperCase(Locale.US))) {
+            int len = token.codePointCount(0, token.length());
+            return (len < 3) ? 0 : (len < 6) ? 1 : 2;
+        }
+        try {
+            return Math.min(FuzzyQuery.defaultMaxEdits, Integer.parseInt(fuzziness));
+        } catch (NumberFormatException e) {
+            throw new SearchClientException("can't parse fuzziness: " + fuzziness);
+        }
+    }
+
+    private static Query boost(Query query, Float weight) {
+        if (weight == null || weight == 1.0f) {
+            return query;
+        }
+        return new BoostQuery(query, weight);
+    }
+
+    private static boolean hasStrings(ParameterizableStringListFeature feature) {
+        return feature != null && feature.size() > 0;
+    }
+
+    private static String[] splitOnWhitespace(String text) {
+        String trimmed = StringUtils.trimToEmpty(text);
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+    }
+}
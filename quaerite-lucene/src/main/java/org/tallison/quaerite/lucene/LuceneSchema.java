@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.lucene;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+
+/**
+ * Which fields of a local index are keywords and how the text
+ * fields are analyzed.  This is stored as json in the index directory
+ * so that it can be written before the index is populated, e.g.
+ * <pre>
+ * {
+ *   "idField": "id",
+ *   "keywordFields": ["genres", "year"],
+ *   "defaultAnalyzer": "standard",
+ *   "analyzers": {"title_en": "english"}
+ * }
+ * </pre>
+ * The id field is always a keyword field.  Keyword fields are indexed
+ * as is, with doc values for sorting and faceting; all other fields are
+ * analyzed text.  The analyzers are: standard, english, whitespace and keyword.
+ */
+public class LuceneSchema {
+
+    public static final String SCHEMA_FILE = "quaerite-lucene.json";
+    public static final String DEFAULT_ID_FIELD = "id";
+    public static final String DEFAULT_ANALYZER = "standard";
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private String idField = DEFAULT_ID_FIELD;
+    private Set<String> keywordFields = new TreeSet<>();
+    private String defaultAnalyzer = DEFAULT_ANALYZER;
+    private Map<String, String> analyzers = new HashMap<>();
+
+    private transient Analyzer analyzer;
+
+    /**
+     * @param indexDir index directory
+     * @return the schema stored in the index directory or the default
+     * schema if there isn't one
+     * @throws IOException
+     */
+    public static LuceneSchema load(Path indexDir) throws IOException {
+        Path schemaFile = indexDir.resolve(SCHEMA_FILE);
+        if (!Files.isRegularFile(schemaFile)) {
+            return new LuceneSchema();
+        }
+        try (Reader reader = Files.newBufferedReader(schemaFile, StandardCharsets.UTF_8)) {
+            LuceneSchema schema = GSON.fromJson(reader, LuceneSchema.class);
+            schema.validate();
+            return schema;
+        }
+    }
+
+    public void save(Path indexDir) throws IOException {
+        Files.createDirectories(indexDir);
+        try (Writer writer = Files.newBufferedWriter(indexDir.resolve(SCHEMA_FILE),
+                StandardCharsets.UTF_8)) {
+            GSON.toJson(this, writer);
+        }
+    }
+
+    public String getIdField() {
+        return idField;
+    }
+
+    public void setIdField(String idField) {
+        this.idField = idField;
+        analyzer = null;
+    }
+
+    public boolean isKeyword(String field) {
+        return idField.equals(field) || keywordFields.contains(field);
+    }
+
+    public void addKeywordField(String field) {
+        keywordFields.add(field);
+        analyzer = null;
+    }
+
+    public void setDefaultAnalyzer(String defaultAnalyzer) {
+        this.defaultAnalyzer = defaultAnalyzer;
+        analyzer = null;
+    }
+
+    public void setAnalyzer(String field, String analyzerName) {
+        analyzers.put(field, analyzerName);
+        analyzer = null;
+    }
+
+    /**
+     * @return analyzer that applies the right analysis to each field
+     */
+    public synchronized Analyzer getAnalyzer() {
+        if (analyzer == null) {
+            Map<String, Analyzer> perField = new HashMap<>();
+            perField.put(idField, new KeywordAnalyzer());
+            for (String f : keywordFields) {
+                perField.put(f, new KeywordAnalyzer());
+            }
+            for (Map.Entry<String, String> e : analyzers.entrySet()) {
+                if (!isKeyword(e.getKey())) {
+                    perField.put(e.getKey(), buildAnalyzer(e.getValue()));
+                }
+            }
+            analyzer = new PerFieldAnalyzerWrapper(buildAnalyzer(defaultAnalyzer), perField);
+        }
+        return analyzer;
+    }
+
+    private void validate() {
+        if (idField == null) {
+            idField = DEFAULT_ID_FIELD;
+        }
+        if (keywordFields == null) {
+            keywordFields = new TreeSet<>();
+        }
+        if (defaultAnalyzer == null) {
+            defaultAnalyzer = DEFAULT_ANALYZER;
+        }
+        if (analyzers == null) {
+            analyzers = new HashMap<>();
+        }
+        Set<String> names = new HashSet<>(analyzers.values());
+        names.add(defaultAnalyzer);
+        for (String name : names) {
+            buildAnalyzer(name);
+        }
+    }
+
+    private static Analyzer buildAnalyzer(String name) {
+        switch (name.toLowerCase(Locale.US)) {
+            case "standard":
+                return new StandardAnalyzer();
+            case "english":
+                return new EnglishAnalyzer();
+            case "whitespace":
+                return new WhitespaceAnalyzer();
+            case "keyword":
+                return new KeywordAnalyzer();
+            default:
+                throw new IllegalArgumentException("I regret I don't yet support this analyzer: " +
+                        name + "; try one of: standard, english, whitespace, keyword");
+        }
+    }
+}
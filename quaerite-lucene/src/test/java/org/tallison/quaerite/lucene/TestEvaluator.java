@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.lucene;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.connectors.eval.CsvSink;
+import org.tallison.quaerite.connectors.eval.EvaluationIterator;
+import org.tallison.quaerite.connectors.eval.EvaluationResult;
+import org.tallison.quaerite.connectors.eval.Evaluator;
+import org.tallison.quaerite.connectors.eval.InMemorySink;
+import org.tallison.quaerite.connectors.eval.QueryEvaluation;
+import org.tallison.quaerite.core.Experiment;
+import org.tallison.quaerite.core.JudgmentList;
+import org.tallison.quaerite.core.Judgments;
+import org.tallison.quaerite.core.QueryInfo;
+import org.tallison.quaerite.core.QueryStrings;
+import org.tallison.quaerite.core.ServerConnection;
+import org.tallison.quaerite.core.StoredDocument;
+import org.tallison.quaerite.core.features.QF;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.queries.MultiMatchQuery;
+import org.tallison.quaerite.core.scorers.AbstractJudgmentScorer;
+import org.tallison.quaerite.core.scorers.PrecisionAtN;
+import org.tallison.quaerite.core.scorers.Scorer;
+import org.tallison.quaerite.core.scorers.TotalDocsReturned;
+
+public class TestEvaluator {
+
+    private static Path INDEX_DIR;
+    private static String URL;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        INDEX_DIR = Files.createTempDirectory("quaerite-lucene-eval-");
+        new LuceneSchema().save(INDEX_DIR);
+        URL = LuceneClient.URL_PREFIX + INDEX_DIR.toAbsolutePath();
+        try (SearchClient client = SearchClientFactory.getClient(URL)) {
+            List<StoredDocument> docs = new ArrayList<>();
+            docs.add(doc("1", "the brown fox", "a quick brown fox jumps"));
+            docs.add(doc("2", "brown dogs", "the lazy dog sleeps"));
+            docs.add(doc("3", "quick start guide", "how to start the fox"));
+            docs.add(doc("4", "zebras", "black and white"));
+            client.addDocuments(docs);
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() throws IOException {
+        FileUtils.deleteDirectory(INDEX_DIR.toFile());
+    }
+
+    @Test
+    public void testEvaluate() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-eval-");
+        try {
+            Path perQuery = dir.resolve("per_query_scores.csv");
+            Path aggregates = dir.resolve("scores_aggregated.csv");
+            InMemorySink memorySink = new InMemorySink();
+            EvaluationResult result;
+            try (CsvSink csvSink = new CsvSink(perQuery, aggregates)) {
+                result = new Evaluator(experiment(), scorers())
+                        .setNumThreads(2)
+                        .setMaxRows(1)
+                        .addSink(memorySink)
+                        .addSink(csvSink)
+                        .evaluate(judgments());
+            }
+            assertEquals(3, result.getQueries());
+            assertEquals(0, result.getFailed());
+            //"nothing matches" finds nothing, and that isn't included in the mean
+            assertEquals(1.0, result.getPrimaryStatistic("precision_1"), 0.0001);
+            assertEquals(result, memorySink.getResult());
+            assertThrows(IllegalArgumentException.class,
+                    () -> result.getPrimaryStatistic("ndcg_10"));
+
+            Map<String, Double> p1 = new HashMap<>();
+            for (QueryEvaluation evaluation : memorySink.getEvaluations()) {
+                assertTrue(evaluation.isSuccess());
+                //search results aren't kept by default
+                assertNull(evaluation.getSearchResultSet());
+                assertEquals(Arrays.asList("precision_1", "TotalDocsReturned_10"),
+                        new ArrayList<>(evaluation.getScores().keySet()));
+                p1.put(evaluation.getQueryInfo().getQueryId(),
+                        evaluation.getScores().get("precision_1"));
+            }
+            assertEquals(3, p1.size());
+            assertEquals(1.0, p1.get("q1"), 0.0001);
+            assertEquals(1.0, p1.get("q2"), 0.0001);
+            assertEquals(AbstractJudgmentScorer.ERROR_VALUE, p1.get("q3"), 0.0001);
+
+            List<String> lines = Files.readAllLines(perQuery, StandardCharsets.UTF_8);
+            assertEquals(4, lines.size());
+            assertEquals("QUERY_ID,QUERY_NAME,QUERY_SET,QUERY_COUNT,EXPERIMENT," +
+                    "PRECISION_1,TOTALDOCSRETURNED_10", lines.get(0));
+            assertTrue(lines.contains("q1,brown fox,,1,\"multi, match\",1.0,3.0"),
+                    lines.toString());
+
+            lines = Files.readAllLines(aggregates, StandardCharsets.UTF_8);
+            assertEquals("EXPERIMENT,QUERY_SET,SCORER,STATISTIC,VALUE", lines.get(0));
+            assertTrue(lines.size() > 2);
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testIterate() throws Exception {
+        List<Scorer> scorers = scorers();
+        Evaluator evaluator = new Evaluator(experiment(), scorers).setQueueSize(1);
+        //scores from an earlier run are cleared
+        evaluator.evaluate(judgments());
+        int count = 0;
+        try (EvaluationIterator iterator = evaluator.iterate(judgments())) {
+            assertThrows(IllegalStateException.class, iterator::getResult);
+            while (iterator.hasNext()) {
+                assertNotNull(iterator.next().getSearchResultSet());
+                count++;
+            }
+            assertFalse(iterator.hasNext());
+            assertEquals(3, count);
+            assertEquals(3, iterator.getResult().getQueries());
+            //precision is divided by the number of results returned
+            assertEquals(2.0 / 3.0, iterator.getResult().getPrimaryStatistic("precision_1"),
+                    0.0001);
+        }
+    }
+
+    @Test
+    public void testCloseEarly() throws Exception {
+        Evaluator evaluator = new Evaluator(experiment(), scorers())
+                .setQueueSize(1).setNumThreads(2);
+        try (EvaluationIterator iterator = evaluator.iterate(judgments())) {
+            assertTrue(iterator.hasNext());
+            iterator.next();
+            iterator.close();
+            assertFalse(iterator.hasNext());
+            assertThrows(IllegalStateException.class, iterator::getResult);
+        }
+    }
+
+    @Test
+    public void testBadConfig() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Evaluator(experiment(), new ArrayList<>()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Evaluator(experiment(), scorers()).setNumThreads(0));
+    }
+
+    private static Experiment experiment() {
+        MultiMatchQuery query = new MultiMatchQuery("");
+        QF qf = new QF();
+        qf.add(new WeightableField("title^2"));
+        qf.add(new WeightableField("body"));
+        query.setQF(qf);
+        return new Experiment("multi, match", new ServerConnection(URL), query);
+    }
+
+    private static List<Scorer> scorers() {
+        List<Scorer> scorers = new ArrayList<>();
+        scorers.add(new PrecisionAtN(1));
+        scorers.add(new TotalDocsReturned(10));
+        return scorers;
+    }
+
+    private static JudgmentList judgments() {
+        JudgmentList judgmentList = new JudgmentList();
+        judgmentList.addJudgments(judgments("q1", "brown fox", "1"));
+        judgmentList.addJudgments(judgments("q2", "zebras", "4"));
+        judgmentList.addJudgments(judgments("q3", "nothing matches", "2"));
+        return judgmentList;
+    }
+
+    private static Judgments judgments(String id, String query, String relevant) {
+        QueryStrings queryStrings = new QueryStrings();
+        queryStrings.setQuery(query);
+        Judgments judgments = new Judgments(new QueryInfo(id, QueryInfo.DEFAULT_QUERY_SET,
+                queryStrings, 1));
+        judgments.addJudgment(relevant, 1.0);
+        return judgments;
+    }
+
+    private static StoredDocument doc(String id, String title, String body) {
+        StoredDocument doc = new StoredDocument(id);
+        doc.addNonBlankField("title", title);
+        doc.addNonBlankField("body", body);
+        return doc;
+    }
+}
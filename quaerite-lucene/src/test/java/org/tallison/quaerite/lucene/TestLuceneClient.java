@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tallison.quaerite.lucene;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.tallison.quaerite.connectors.QueryRequest;
+import org.tallison.quaerite.connectors.SearchClient;
+import org.tallison.quaerite.connectors.SearchClientException;
+import org.tallison.quaerite.connectors.SearchClientFactory;
+import org.tallison.quaerite.core.FacetResult;
+import org.tallison.quaerite.core.SearchResultSet;
+import org.tallison.quaerite.core.StoredDocument;
+import org.tallison.quaerite.core.features.PF;
+import org.tallison.quaerite.core.features.QF;
+import org.tallison.quaerite.core.features.QueryOperator;
+import org.tallison.quaerite.core.features.WeightableField;
+import org.tallison.quaerite.core.queries.BooleanClause;
+import org.tallison.quaerite.core.queries.BooleanQuery;
+import org.tallison.quaerite.core.queries.DisMaxQuery;
+import org.tallison.quaerite.core.queries.EDisMaxQuery;
+import org.tallison.quaerite.core.queries.LuceneQuery;
+import org.tallison.quaerite.core.queries.MatchAllDocsQuery;
+import org.tallison.quaerite.core.queries.MultiMatchQuery;
+import org.tallison.quaerite.core.queries.TermQuery;
+import org.tallison.quaerite.core.queries.TermsQuery;
+import org.tallison.quaerite.core.stats.TokenDF;
+
+public class TestLuceneClient {
+
+    private static Path INDEX_DIR;
+    private static String URL;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        INDEX_DIR = Files.createTempDirectory("quaerite-lucene-");
+        LuceneSchema schema = new LuceneSchema();
+        schema.addKeywordField("genre");
+        schema.save(INDEX_DIR);
+        URL = LuceneClient.URL_PREFIX + INDEX_DIR.toAbsolutePath();
+        try (SearchClient client = SearchClientFactory.getClient(URL)) {
+            List<StoredDocument> docs = new ArrayList<>();
+            docs.add(doc("1", "the brown fox", "a quick brown fox jumps", "animal"));
+            docs.add(doc("2", "brown dogs", "the lazy dog sleeps", "animal"));
+            docs.add(doc("3", "quick start guide", "how to start the fox", "manual"));
+            docs.add(doc("4", "zebras", "black and white", null));
+            client.addDocuments(docs);
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() throws IOException {
+        FileUtils.deleteDirectory(INDEX_DIR.toFile());
+    }
+
+    @Test
+    public void testMultiMatch() throws Exception {
+        try (SearchClient client = SearchClientFactory.getClient(URL)) {
+            MultiMatchQuery q = new MultiMatchQuery("brown fox");
+            q.setQF(qf("title^2", "body"));
+            SearchResultSet results = search(client, q);
+            assertEquals(3, results.getTotalHits());
+            assertEquals("1", results.getId(0));
+
+            q.setQueryOperator(new QueryOperator(QueryOperator.OPERATOR.AND));
+            assertEquals(Collections.singletonList("1"), search(client, q).getIds());
+
+            //cross_fields needs each term in at least one of the fields
+            q = new MultiMatchQuery("quick dog");
+            q.setQF(qf("title", "body"));
+            q.setQueryOperator(new QueryOperator(QueryOperator.OPERATOR.AND));
+            q.setMultiMatchType(new org.tallison.quaerite.core.features.MultiMatchType(
+                    "cross_fields"));
+            assertEquals(0, search(client, q).getTotalHits());
+        }
+    }
+
+    @Test
+    public void testDisMax() throws Exception {
+        try (SearchClient client = SearchClientFactory.getClient(URL)) {
+            //dismax defaults to mm=100%
+            DisMaxQuery q = new DisMaxQuery("brown fox");
+            q.setQF(qf("title", "body"));
+            assertEquals(Collections.singletonList("1"), search(client, q).getIds());
+
+            //edismax defaults to or
+            EDisMaxQuery eq = new EDisMaxQuery("quick fox dog");
+            eq.setQF(qf("title", "body"));
+            assertEquals(3, search(client, eq).getTotalHits());
+
+            eq.setQueryOperator(new QueryOperator(QueryOperator.OPERATOR.OR, 2));
+            assertEquals(Arrays.asList("1", "3"), sorted(search(client, eq).getIds()));
+
+            //the phrase boost puts the doc with "quick start" first
+            eq = new EDisMaxQuery("quick start");
+            eq.setQF(qf("body"));
+            PF pf = new PF();
+            pf.add(new WeightableField("title^10"));
+            eq.setPF(pf);
+            assertEquals("3", search(client, eq).getId(0));
+        }
+    }
+
+    @Test
+    public void testTermsBooleanAndLucene() throws Exception {
+        try (SearchClient client = SearchClientFactory.getClient(URL)) {
+            assertEquals(Arrays.asList("2", "4"), sorted(search(client,
+                    new TermsQuery("id", Arrays.asList("2", "4", "5"))).getIds()));
+
+            BooleanQuery bq = new BooleanQuery();
+            bq.addClause(new BooleanClause(BooleanClause.OCCUR.FILTER,
+                    new TermQuery("genre", "animal")));
+            bq.addClause(new BooleanClause(BooleanClause.OCCUR.MUST_NOT,
+                    new TermQuery("id", "1")));
+            assertEquals(Collections.singletonList("2"), search(client, bq).getIds());
+
+            bq = new BooleanQuery();
+            bq.addClause(new BooleanClause(BooleanClause.OCCUR.MUST_NOT,
+                    new TermQuery("genre", "animal")));
+            assertEquals(2, search(client, bq).getTotalHits());
+
+            assertEquals(Collections.singletonList("2"), search(client,
+                    new LuceneQuery("body", "lazy dog")).getIds());
+
+            QueryRequest request = new QueryRequest(new MatchAllDocsQuery());
+            request.addFilterQueries(new TermQuery("genre", "manual"));
+            assertEquals(Collections.singletonList("3"), client.search(request).getIds());
+        }
+    }
+
+    @Test
+    public void testFacetsTermsAndAnalysis() throws Exception {
+        try (SearchClient client = SearchClientFactory.getClient(URL)) {
+            QueryRequest request = new QueryRequest(new MatchAllDocsQuery());
+            request.setFacetField("genre");
+            FacetResult facetResult = client.facet(request);
+            assertEquals(4, facetResult.getTotalDocs());
+            assertEquals(2L, facetResult.getFacetCounts().get("animal"));
+            assertEquals(1L, facetResult.getFacetCounts().get("manual"));
+            assertEquals(1L, facetResult.getFacetCounts().get("null"));
+
+            List<TokenDF> terms = client.getTerms("title", "brown", 10, 1, false);
+            assertEquals("dogs", terms.get(0).getToken());
+            assertEquals(1, terms.get(0).getDf());
+
+            assertEquals(Arrays.asList("the", "brown", "fox"),
+                    client.analyze("title", "The Brown Fox"));
+            assertEquals(Collections.singletonList("The Brown Fox"),
+                    client.analyze("genre", "The Brown Fox"));
+        }
+    }
+
+    @Test
+    public void testDocsAndIds() throws Exception {
+        try (SearchClient client = SearchClientFactory.getClient(URL)) {
+            List<StoredDocument> docs = client.getDocs("id", new HashSet<>(Arrays.asList("3")),
+                    Collections.EMPTY_SET, Collections.singleton("body"));
+            assertEquals(1, docs.size());
+            assertEquals("quick start guide", docs.get(0).getFields().get("title"));
+            assertTrue(!docs.get(0).getFields().containsKey("body"));
+
+            ArrayBlockingQueue<Set<String>> ids = new ArrayBlockingQueue<>(10);
+            client.getIdGrabber(ids, 3, 1, Collections.EMPTY_LIST).call();
+            Set<String> all = new HashSet<>();
+            Set<String> batch = ids.take();
+            while (batch.size() > 0) {
+                assertTrue(batch.size() <= 3);
+                all.addAll(batch);
+                batch = ids.take();
+            }
+            assertEquals(new HashSet<>(Arrays.asList("1", "2", "3", "4")), all);
+        }
+    }
+
+    @Test
+    public void testIndexVersion() throws Exception {
+        Path dir = Files.createTempDirectory("quaerite-lucene-");
+        try (SearchClient client = new LuceneClient(dir)) {
+            String version = client.getIndexVersion();
+            client.addDocuments(Collections.singletonList(doc("1", "a", "b", null)));
+            assertNotEquals(version, client.getIndexVersion());
+            QueryRequest request = new QueryRequest(new MatchAllDocsQuery());
+            assertEquals(1, client.search(request).getTotalHits());
+            request.setSort("title", QueryRequest.SORT_ORDER.ASC);
+            assertThrows(SearchClientException.class, () -> client.search(request));
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+
+    private static SearchResultSet search(SearchClient client,
+                                          org.tallison.quaerite.core.queries.Query query)
+            throws Exception {
+        return client.search(new QueryRequest(query));
+    }
+
+    private static List<String> sorted(List<String> ids) {
+        List<String> copy = new ArrayList<>(ids);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    private static QF qf(String... fields) {
+        QF qf = new QF();
+        for (String f : fields) {
+            qf.add(new WeightableField(f));
+        }
+        return qf;
+    }
+
+    private static StoredDocument doc(String id, String title, String body, String genre) {
+        StoredDocument doc = new StoredDocument(id);
+        doc.addNonBlankField("title", title);
+        doc.addNonBlankField("body", body);
+        doc.addNonBlankField("genre", genre);
+        return doc;
+    }
+}
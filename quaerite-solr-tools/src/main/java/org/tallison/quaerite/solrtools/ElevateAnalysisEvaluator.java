@@ -23,6 +23,7 @@ import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -44,6 +45,7 @@ import org.apache.commons.lang3.mutable.MutableLong;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.tallison.quaerite.analysis.EquivalenceSet;
+import org.tallison.quaerite.connectors.AnalysisCache;
 import org.tallison.quaerite.connectors.SearchClient;
 import org.tallison.quaerite.connectors.SearchClientException;
 import org.tallison.quaerite.connectors.SearchClientFactory;
@@ -96,6 +98,20 @@ public class ElevateAnalysisEvaluator {
                         .desc("regex to subset ids (in case of multiple logical " +
                                 "indices stored in a single Solr index)").build()
         );
+        OPTIONS.addOption(
+                Option.builder("localAnalysis")
+                        .hasArg(false)
+                        .required(false)
+                        .desc("rebuild the field's analysis chain from the schema and " +
+                                "analyze locally where possible").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("analysisCache")
+                        .hasArg()
+                        .required(false)
+                        .desc("file to load analysis results from and save them to, " +
+                                "so that later runs don't repeat the analysis").build()
+        );
     }
 
     public static void main(String[] args) throws Exception {
@@ -116,7 +132,15 @@ public class ElevateAnalysisEvaluator {
             elevateIDMatcher = Pattern.compile(commandLine.getOptionValue("r")).matcher("");
         }
         SearchClient client = SearchClientFactory.getClient(commandLine.getOptionValue("s"));
-
+        client.setLocalAnalysis(commandLine.hasOption("localAnalysis"));
+        client.setAnalysisCache(new AnalysisCache(AnalysisCache.DEFAULT_MAX_SIZE));
+        Path analysisCacheFile = null;
+        if (commandLine.hasOption("analysisCache")) {
+            analysisCacheFile = Paths.get(commandLine.getOptionValue("analysisCache"));
+            if (Files.isRegularFile(analysisCacheFile)) {
+                client.getAnalysisCache().load(analysisCacheFile);
+            }
+        }
 
         Map<String, Elevate> elevate = ElevateScraper.scrape(
                 Paths.get(commandLine.getOptionValue("e")), elevateIDMatcher);
@@ -133,6 +157,9 @@ public class ElevateAnalysisEvaluator {
         } else {
             eval.execute(queryFile, field, elevate, client);
         }
+        if (analysisCacheFile != null) {
+            client.getAnalysisCache().save(analysisCacheFile);
+        }
     }
 
     private void execute(Path queryFile, String field,
@@ -163,8 +190,11 @@ public class ElevateAnalysisEvaluator {
 
         Map<String, EquivalenceSet> equivalatedQueries = new HashMap<>();
 
-        for (Map.Entry<String, Integer> q : queries.entrySet()) {
-            List<String> tokens = client.analyze(field, q.getKey());
+        List<String> queryStrings = new ArrayList<>(queries.keySet());
+        List<List<String>> analyzedQueries = client.analyzeBatch(field, queryStrings);
+        for (int i = 0; i < queryStrings.size(); i++) {
+            String query = queryStrings.get(i);
+            List<String> tokens = analyzedQueries.get(i);
             add(tokens, queryTokenCounts);
             String analyzed = StringUtil.joinWith(" ", tokens);
             EquivalenceSet equivalenceSet = equivalatedQueries.get(analyzed);
@@ -172,7 +202,7 @@ public class ElevateAnalysisEvaluator {
                 equivalenceSet = new EquivalenceSet();
                 equivalatedQueries.put(analyzed, equivalenceSet);
             }
-            equivalenceSet.addTerm(q.getKey(), q.getValue());
+            equivalenceSet.addTerm(query, queries.get(query));
         }
 
         long analysisCovered = 0;
@@ -285,8 +315,11 @@ public class ElevateAnalysisEvaluator {
                                                    Map<String, Integer> tokenCounts)
             throws IOException, SearchClientException {
         Map<String, EquivalenceSet> equivalenceMap = new HashMap<>();
-        for (String q : elevate.keySet()) {
-            List<String> tokens = client.analyze(field, q);
+        List<String> elevateQueries = new ArrayList<>(elevate.keySet());
+        List<List<String>> analyzedQueries = client.analyzeBatch(field, elevateQueries);
+        for (int i = 0; i < elevateQueries.size(); i++) {
+            String q = elevateQueries.get(i);
+            List<String> tokens = analyzedQueries.get(i);
             add(tokens, tokenCounts);
             String analyzed = StringUtil.joinWith("", tokens);
             EquivalenceSet equivalenceSet = equivalenceMap.get(analyzed);
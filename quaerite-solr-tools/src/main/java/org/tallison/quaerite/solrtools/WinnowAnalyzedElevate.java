@@ -45,6 +45,7 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.tallison.quaerite.connectors.AnalysisCache;
 import org.tallison.quaerite.connectors.SearchClient;
 import org.tallison.quaerite.connectors.SearchClientException;
 import org.tallison.quaerite.connectors.SearchClientFactory;
@@ -125,6 +126,20 @@ public class WinnowAnalyzedElevate {
                         .required(false)
                         .desc("include removed entries in xml comments").build()
         );
+        OPTIONS.addOption(
+                Option.builder("localAnalysis")
+                        .hasArg(false)
+                        .required(false)
+                        .desc("rebuild the field's analysis chain from the schema and " +
+                                "analyze locally where possible").build()
+        );
+        OPTIONS.addOption(
+                Option.builder("analysisCache")
+                        .hasArg()
+                        .required(false)
+                        .desc("file to load analysis results from and save them to, " +
+                                "so that later runs don't repeat the analysis").build()
+        );
     }
 
     private final DocSorter docSorter;
@@ -150,11 +165,23 @@ public class WinnowAnalyzedElevate {
         Path winnowElevate = Paths.get(commandLine.getOptionValue("w"));
 
         SearchClient client = SearchClientFactory.getClient(commandLine.getOptionValue("s"));
+        client.setLocalAnalysis(commandLine.hasOption("localAnalysis"));
+        Path analysisCacheFile = null;
+        if (commandLine.hasOption("analysisCache")) {
+            analysisCacheFile = Paths.get(commandLine.getOptionValue("analysisCache"));
+            client.setAnalysisCache(new AnalysisCache(AnalysisCache.DEFAULT_MAX_SIZE));
+            if (Files.isRegularFile(analysisCacheFile)) {
+                client.getAnalysisCache().load(analysisCacheFile);
+            }
+        }
         String analysisField = commandLine.getOptionValue("f");
         DocSorter docSorter = new DocSorter(commandLine.getOptionValue("i"));
         boolean commentWinnowed = (commandLine.hasOption("c") ? true : false);
         WinnowAnalyzedElevate winnowAnalyzedElevate = new WinnowAnalyzedElevate(docSorter, commentWinnowed);
         winnowAnalyzedElevate.execute(inputElevate, winnowElevate, client, analysisField);
+        if (analysisCacheFile != null) {
+            client.getAnalysisCache().save(analysisCacheFile);
+        }
     }
 
     private void execute(Path inputElevate, Path winnowedElevate,
@@ -169,8 +196,11 @@ public class WinnowAnalyzedElevate {
             Map<String, Elevate> elevateMap,
             SearchClient client, String analysisField) throws IOException, SearchClientException {
         Map<String, List<Elevate>> analyzed = new TreeMap<>();
-        for (String q : elevateMap.keySet()) {
-            List<String> tokens = client.analyze(analysisField, q);
+        List<String> queries = new ArrayList<>(elevateMap.keySet());
+        List<List<String>> analyzedQueries = client.analyzeBatch(analysisField, queries);
+        for (int i = 0; i < queries.size(); i++) {
+            String q = queries.get(i);
+            List<String> tokens = analyzedQueries.get(i);
             String analyzedKey = StringUtil.joinWith("", tokens);
             if (analyzed.containsKey(analyzedKey)) {
                 analyzed.get(analyzedKey).add(elevateMap.get(q));